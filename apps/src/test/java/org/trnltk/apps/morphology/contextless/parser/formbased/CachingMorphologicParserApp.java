@@ -351,6 +351,11 @@ public class CachingMorphologicParserApp {
             public boolean isBuilt() {
                 return this.built;
             }
+
+            @Override
+            public void invalidatePrefixes(Set<String> prefixes) {
+                // do nothing, dictionary is not changed
+            }
         };
 
 
@@ -30,6 +30,7 @@ import org.trnltk.apps.commons.App;
 import org.trnltk.apps.commons.AppRunner;
 import org.trnltk.model.lexicon.Root;
 import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.ambiguity.BinaryParseResultWriter;
 import org.trnltk.morphology.contextless.parser.CachingMorphologicParser;
 import org.trnltk.morphology.contextless.parser.MorphologicParser;
 import org.trnltk.morphology.contextless.parser.PredefinedPaths;
@@ -61,6 +62,15 @@ public class FolderContextlessMorphologicParsingApp {
 
     private static final int NUMBER_OF_THREADS = 8;
 
+    private static final Function<MorphemeContainer, String> DETAILED_FORMATTER = new Function<MorphemeContainer, String>() {
+        @Override
+        public String apply(MorphemeContainer input) {
+            return MorphemeContainerFormatter.formatMorphemeContainerDetailed(input);
+        }
+    };
+
+    private static final Ordering<MorphemeContainer> DETAILED_RESULT_ORDERING = BaseParseResultsMatcher.parseResultOrdering.onResultOf(DETAILED_FORMATTER);
+
 
     private MorphologicParser contextlessMorphologicParser;
     private HashMultimap<String, ? extends Root> originalRootMap;
@@ -113,6 +123,15 @@ public class FolderContextlessMorphologicParsingApp {
 
     @App
     public void parse8MWords_withOfflineAnalysis() throws Exception {
+        parseFolder(false);
+    }
+
+    @App("Writes the results in binary format, see BinaryParseResultWriter")
+    public void parse8MWords_withOfflineAnalysis_binary() throws Exception {
+        parseFolder(true);
+    }
+
+    private void parseFolder(boolean binaryOutput) throws Exception {
         final File folder = new File("D:\\devl\\data\\1MSentences");
 
         final List<File> files = new ArrayList<File>();
@@ -128,8 +147,9 @@ public class FolderContextlessMorphologicParsingApp {
         stopWatch.start();
 
         for (File file : files) {
-            final File targetFile = new File(file.getParent(), file.getName().substring(0, file.getName().length() - "_tokenized.txt".length()) + "_parsed.txt");
-            final FileParseCommand fileParseCommand = new FileParseCommand(contextlessMorphologicParser, file, targetFile, false);
+            final String targetExtension = binaryOutput ? "_parsed.bin" : "_parsed.txt";
+            final File targetFile = new File(file.getParent(), file.getName().substring(0, file.getName().length() - "_tokenized.txt".length()) + targetExtension);
+            final FileParseCommand fileParseCommand = new FileParseCommand(contextlessMorphologicParser, file, targetFile, false, binaryOutput);
             pool.execute(fileParseCommand);
         }
 
@@ -192,17 +212,20 @@ public class FolderContextlessMorphologicParsingApp {
         private final File sourceFile;
         private final File targetFile;
         private boolean printUnparseable;
+        private boolean binaryOutput;
 
-        private FileParseCommand(final MorphologicParser parser, final File sourceFile, final File targetFile, boolean printUnparseable) {
+        private FileParseCommand(final MorphologicParser parser, final File sourceFile, final File targetFile, boolean printUnparseable, boolean binaryOutput) {
             this.parser = parser;
             this.sourceFile = sourceFile;
             this.targetFile = targetFile;
             this.printUnparseable = printUnparseable;
+            this.binaryOutput = binaryOutput;
         }
 
         @Override
         public void run() {
             BufferedWriter writer = null;
+            BinaryParseResultWriter binaryWriter = null;
 
             try {
                 final List<String> words = new ArrayList<String>();
@@ -254,11 +277,19 @@ public class FolderContextlessMorphologicParsingApp {
                     public boolean isBuilt() {
                         return this.built;
                     }
+
+                    @Override
+                    public void invalidatePrefixes(Set<String> prefixes) {
+                        // do nothing, dictionary is not changed
+                    }
                 };
 
                 final CachingMorphologicParser cachingMorphologicParser = new CachingMorphologicParser(staticCache, parser, false);
 
-                writer = new BufferedWriter(new FileWriter(targetFile));
+                if (binaryOutput)
+                    binaryWriter = new BinaryParseResultWriter(new BufferedOutputStream(new FileOutputStream(targetFile)));
+                else
+                    writer = new BufferedWriter(new FileWriter(targetFile));
 
                 int i = 0;
                 for (String word : words) {
@@ -267,27 +298,27 @@ public class FolderContextlessMorphologicParsingApp {
                         System.out.println("Word is not parsable " + word);
                     }
 
-                    /*
-                    - word: elma
-                      results:
-                        - elma+Noun+...
-                        - elma+Noun+...
+                    if (binaryWriter != null) {
+                        // same order as the text output
+                        binaryWriter.write(word, DETAILED_RESULT_ORDERING.sortedCopy(results));
+                    } else {
+                        /*
+                        - word: elma
+                          results:
+                            - elma+Noun+...
+                            - elma+Noun+...
 
-                     */
+                         */
 
-                    final List<String> resultStrs = Lists.newArrayList(Lists.transform(results, new Function<MorphemeContainer, String>() {
-                        @Override
-                        public String apply(MorphemeContainer input) {
-                            return MorphemeContainerFormatter.formatMorphemeContainerDetailed(input);
-                        }
-                    }));
+                        final List<String> resultStrs = Lists.newArrayList(Lists.transform(results, DETAILED_FORMATTER));
 
-                    Collections.sort(resultStrs, BaseParseResultsMatcher.parseResultOrdering);
+                        Collections.sort(resultStrs, BaseParseResultsMatcher.parseResultOrdering);
 
-                    writer.append("- word: " + word + "\n");
-                    writer.append("  results:\n");
-                    for (String resultStr : resultStrs) {
-                        writer.append("    - " + resultStr + "\n");
+                        writer.append("- word: " + word + "\n");
+                        writer.append("  results:\n");
+                        for (String resultStr : resultStrs) {
+                            writer.append("    - " + resultStr + "\n");
+                        }
                     }
 
                     if (++i % 1000 == 0)
@@ -304,6 +335,12 @@ public class FolderContextlessMorphologicParsingApp {
                     } catch (IOException e) {
                         e.printStackTrace();
                     }
+                if (binaryWriter != null)
+                    try {
+                        binaryWriter.close();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
             }
         }
 
@@ -16,8 +16,6 @@
 
 package org.trnltk.model.ambiguity.morphology;
 
-import org.json.JSONException;
-
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -41,7 +39,7 @@ public class WordParseResultEntry {
         return Collections.unmodifiableList(parseResults);
     }
 
-    public void addParseResult(ParseResult parseResult) throws JSONException {
+    public void addParseResult(ParseResult parseResult) {
         this.parseResults.add(parseResult);
     }
 
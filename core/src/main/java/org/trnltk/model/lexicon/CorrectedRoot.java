@@ -0,0 +1,112 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.model.lexicon;
+
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.letter.TurkishSequence;
+
+import java.util.Set;
+
+/**
+ * A {@link Root} for a misspelled part of a surface, which is derived from a correctly spelled root.
+ * <p/>
+ * Sequence is the misspelled part, e.g. "ktiap" for the root "kitap". Lexeme, phonetic attributes and phonetic
+ * expectations are the ones of the correct root, thus the suffixes are applied as if the root was spelled correctly.
+ *
+ * @see org.trnltk.morphology.contextless.rootfinder.TypoTolerantRootFinder
+ */
+public class CorrectedRoot implements Root {
+
+    private final TurkishSequence sequence;
+    private final Root correctRoot;
+    private final int editDistance;
+
+    public CorrectedRoot(TurkishSequence sequence, Root correctRoot, int editDistance) {
+        Validate.notNull(sequence);
+        Validate.notNull(correctRoot);
+        Validate.isTrue(editDistance > 0);
+        this.sequence = sequence;
+        this.correctRoot = correctRoot;
+        this.editDistance = editDistance;
+    }
+
+    @Override
+    public TurkishSequence getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public Lexeme getLexeme() {
+        return correctRoot.getLexeme();
+    }
+
+    @Override
+    public Set<PhoneticAttribute> getPhoneticAttributes() {
+        return correctRoot.getPhoneticAttributes();
+    }
+
+    @Override
+    public Set<PhoneticExpectation> getPhoneticExpectations() {
+        return correctRoot.getPhoneticExpectations();
+    }
+
+    /**
+     * @return Root which the sequence is corrected to
+     */
+    public Root getCorrectRoot() {
+        return correctRoot;
+    }
+
+    /**
+     * @return Number of edits (insertion, deletion, substitution or transposition of adjacent letters) between the
+     *         sequence and the correct root
+     */
+    public int getEditDistance() {
+        return editDistance;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        CorrectedRoot that = (CorrectedRoot) o;
+
+        if (editDistance != that.editDistance) return false;
+        if (!correctRoot.equals(that.correctRoot)) return false;
+        if (!sequence.equals(that.sequence)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = sequence.hashCode();
+        result = 31 * result + correctRoot.hashCode();
+        result = 31 * result + editDistance;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CorrectedRoot{" +
+                "sequence=" + sequence +
+                ", correctRoot=" + correctRoot +
+                ", editDistance=" + editDistance +
+                '}';
+    }
+}
@@ -22,74 +22,91 @@ import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Multisets;
 import com.google.common.io.Files;
-import org.apache.commons.lang3.time.StopWatch;
-import org.json.JSONException;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
 import org.trnltk.model.ambiguity.morphology.ParseResult;
 import org.trnltk.model.ambiguity.morphology.ParseResultDifference;
 import org.trnltk.model.ambiguity.morphology.WordParseResultEntry;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-//DOCME
+/**
+ * Finds the differences between the parse results of the same words, over a set of parse result files.
+ * <p/>
+ * Files are processed in parallel: each worker thread takes the next file from a shared queue and collects the
+ * differences into its own multisets, which are merged when all files are processed. Files ending with
+ * <code>.bin</code> are read with {@link BinaryParseResultReader}, others with {@link StreamingParseResultReader}.
+ * <p/>
+ * Same pair of parse results occurs for many words, thus differences are memoized by the strings of the
+ * parse results, up to a limit.
+ */
 public class AmbiguityClassifier {
+    private static Logger logger = Logger.getLogger(AmbiguityClassifier.class);
 
-    public static void main(String[] args) throws IOException, JSONException {
-        int numberOfWords = 0;
-        int numberOfParseResults = 0;
-        final Multiset<ParseResultDifference> differenceSet = HashMultiset.create();
-        final Multiset<ParseResultDifference> differenceSetWithoutRootDifferences = HashMultiset.create();
-
-        final File folder = new File("D:\\devl\\data\\1MSentences\\split");
-
-        final File[] files = folder.listFiles();
-
-        final StopWatch stopWatch = new StopWatch();
-        stopWatch.start();
-        for (int fileIndex = 0; fileIndex < files.length; fileIndex++) {
-            File file = files[fileIndex];
-            System.out.println("Processing file " + file);
-//            final BufferedReader reader = new BufferedReader(new FileReader(file));
-//            while (reader.ready()) {
-//                reader.readLine();
-//            }
-            final ParseResultReader parseResultReader = new ParseResultReader();
-            final ParseResultDiffTool parseResultDiffTool = new ParseResultDiffTool();
-
-            final List<WordParseResultEntry> parseResultEntries = parseResultReader.getParseResultEntries(Files.newReader(file, Charsets.UTF_8));
-            numberOfWords += parseResultEntries.size();
-            for (int parseResultEntryIndex = 0; parseResultEntryIndex < parseResultEntries.size(); parseResultEntryIndex++) {
-                WordParseResultEntry parseResultEntry = parseResultEntries.get(parseResultEntryIndex);
-                final List<ParseResult> parseResults = parseResultEntry.getParseResults();
-                numberOfParseResults += parseResults.size();
-                for (int i = 0; i < parseResults.size(); i++) {
-                    final ParseResult leftParseResult = parseResults.get(i);
-                    for (int j = i + 1; j < parseResults.size(); j++) {
-                        final ParseResult rightParseResult = parseResults.get(j);
-
-                        final ParseResultDifference difference = parseResultDiffTool.findDifference(leftParseResult, rightParseResult);
-                        final boolean added = differenceSet.add(difference);
-                        if (added && difference.hasNoRootDifference() && difference.hasPartDifference())
-                            differenceSetWithoutRootDifferences.add(difference);
-                    }
-                }
-            }
-            if (fileIndex == 0)
-                break;
+    public static final int DEFAULT_MAX_MEMOIZED_DIFFERENCES = 1000000;
+    public static final long DEFAULT_PROGRESS_INTERVAL_MILLIS = 10000L;
+
+    private static final int PROGRESS_UPDATE_WORD_COUNT = 1000;
+
+    private final int numberOfThreads;
+    private final long progressIntervalMillis;
+    private final int maxMemoizedDifferences;
+
+    private final ParseResultDiffTool parseResultDiffTool = new ParseResultDiffTool();
+    private final ConcurrentMap<ParseResultPair, ParseResultDifference> memoizedDifferences = new ConcurrentHashMap<ParseResultPair, ParseResultDifference>();
+    private final AtomicInteger memoizedDifferenceCount = new AtomicInteger();
+
+    private final AtomicLong processedWordCount = new AtomicLong();
+    private final AtomicInteger processedFileCount = new AtomicInteger();
+
+    public AmbiguityClassifier(int numberOfThreads) {
+        this(numberOfThreads, DEFAULT_PROGRESS_INTERVAL_MILLIS, DEFAULT_MAX_MEMOIZED_DIFFERENCES);
+    }
+
+    public AmbiguityClassifier(int numberOfThreads, long progressIntervalMillis, int maxMemoizedDifferences) {
+        Validate.isTrue(numberOfThreads > 0, "Number of threads must be positive");
+        Validate.isTrue(progressIntervalMillis > 0, "Progress interval must be positive");
+        Validate.isTrue(maxMemoizedDifferences >= 0, "Max memoized differences cannot be negative");
+
+        this.numberOfThreads = numberOfThreads;
+        this.progressIntervalMillis = progressIntervalMillis;
+        this.maxMemoizedDifferences = maxMemoizedDifferences;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage : AmbiguityClassifier <folder of parse result files> [number of threads]");
+            return;
         }
 
-        stopWatch.stop();
-        final long time = stopWatch.getTime();
-        System.out.println(stopWatch);
-        System.out.println(Long.valueOf(time).doubleValue() / (51));
+        final File folder = new File(args[0]);
+        final int numberOfThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
 
-        System.out.println("Number of words : " + numberOfWords);
-        System.out.println("Number of parseResults : " + numberOfParseResults);
-        System.out.println("Number of distinct differences : " + differenceSet.elementSet().size());
-        System.out.println("numberOfDistinctDifferencesWithoutRootDifference : " + differenceSetWithoutRootDifferences.elementSet().size());
+        final File[] allFiles = folder.listFiles();
+        Validate.notNull(allFiles, "Not a folder : " + folder);
+        final List<File> files = new ArrayList<File>();
+        for (File file : allFiles) {
+            if (file.isFile())
+                files.add(file);
+        }
+        Collections.sort(files);
 
-        final ImmutableMultiset<ParseResultDifference> sortedDifferenceSetWithoutRootDifferences = Multisets.copyHighestCountFirst(differenceSetWithoutRootDifferences);
+        final Result result = new AmbiguityClassifier(numberOfThreads).classify(files);
+
+        System.out.println("Time : " + result.getElapsedMillis() + " ms");
+        System.out.println("Words per second : " + result.getWordsPerSecond());
+        System.out.println("Number of words : " + result.getNumberOfWords());
+        System.out.println("Number of parseResults : " + result.getNumberOfParseResults());
+        System.out.println("Number of distinct differences : " + result.getDifferenceSet().elementSet().size());
+        System.out.println("numberOfDistinctDifferencesWithoutRootDifference : " + result.getDifferenceSetWithoutRootDifferences().elementSet().size());
+
+        final ImmutableMultiset<ParseResultDifference> sortedDifferenceSetWithoutRootDifferences = Multisets.copyHighestCountFirst(result.getDifferenceSetWithoutRootDifferences());
         for (ParseResultDifference parseResultDifference : sortedDifferenceSetWithoutRootDifferences.elementSet()) {
             final int count = sortedDifferenceSetWithoutRootDifferences.count(parseResultDifference);
             if (count > 100) {
@@ -97,7 +114,213 @@ public class AmbiguityClassifier {
                 System.out.println(parseResultDifference);
             }
         }
+    }
+
+    public Result classify(List<File> files) throws IOException, InterruptedException {
+        Validate.notNull(files);
+
+        final Queue<File> fileQueue = new ConcurrentLinkedQueue<File>(files);
+        final int totalFileCount = files.size();
+        processedWordCount.set(0L);
+        processedFileCount.set(0);
+
+        final long startTime = System.currentTimeMillis();
+        final ExecutorService workerPool = Executors.newFixedThreadPool(numberOfThreads);
+        final ScheduledExecutorService progressReporter = Executors.newSingleThreadScheduledExecutor();
+        try {
+            progressReporter.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    reportProgress(startTime, totalFileCount);
+                }
+            }, progressIntervalMillis, progressIntervalMillis, TimeUnit.MILLISECONDS);
+
+            final List<Future<Result>> futures = new ArrayList<Future<Result>>(numberOfThreads);
+            for (int i = 0; i < numberOfThreads; i++) {
+                futures.add(workerPool.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() throws IOException {
+                        final Result partialResult = new Result();
+                        File file;
+                        while ((file = fileQueue.poll()) != null) {
+                            processFile(file, partialResult);
+                        }
+                        return partialResult;
+                    }
+                }));
+            }
+
+            final Result result = new Result();
+            for (Future<Result> future : futures) {
+                try {
+                    result.merge(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException)
+                        throw (IOException) e.getCause();
+                    if (e.getCause() instanceof RuntimeException)
+                        throw (RuntimeException) e.getCause();
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+
+            result.elapsedMillis = System.currentTimeMillis() - startTime;
+            reportProgress(startTime, totalFileCount);
+            return result;
+        } finally {
+            progressReporter.shutdownNow();
+            workerPool.shutdownNow();
+        }
+    }
+
+    private void processFile(File file, Result result) throws IOException {
+        logger.debug("Processing file " + file);
+
+        final Iterator<WordParseResultEntry> entries;
+        final Closeable closeable;
+        if (file.getName().endsWith(".bin")) {
+            final BinaryParseResultReader binaryReader = new BinaryParseResultReader(file);
+            entries = binaryReader.iterator();
+            closeable = binaryReader;
+        } else {
+            final StreamingParseResultReader streamingReader = new StreamingParseResultReader(Files.newReader(file, Charsets.UTF_8));
+            entries = streamingReader;
+            closeable = streamingReader;
+        }
+
+        int wordCountSinceLastUpdate = 0;
+        try {
+            while (entries.hasNext()) {
+                processEntry(entries.next(), result);
+                if (++wordCountSinceLastUpdate == PROGRESS_UPDATE_WORD_COUNT) {
+                    processedWordCount.addAndGet(wordCountSinceLastUpdate);
+                    wordCountSinceLastUpdate = 0;
+                }
+            }
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException)
+                throw new IOException("Unable to read file " + file, e.getCause());
+            throw e;
+        } finally {
+            closeable.close();
+        }
 
+        processedWordCount.addAndGet(wordCountSinceLastUpdate);
+        processedFileCount.incrementAndGet();
     }
 
-}
\ No newline at end of file
+    private void processEntry(WordParseResultEntry parseResultEntry, Result result) {
+        final List<ParseResult> parseResults = parseResultEntry.getParseResults();
+        result.numberOfWords++;
+        result.numberOfParseResults += parseResults.size();
+        for (int i = 0; i < parseResults.size(); i++) {
+            final ParseResult leftParseResult = parseResults.get(i);
+            for (int j = i + 1; j < parseResults.size(); j++) {
+                final ParseResult rightParseResult = parseResults.get(j);
+
+                final ParseResultDifference difference = findDifference(leftParseResult, rightParseResult);
+                result.differenceSet.add(difference);
+                if (difference.hasNoRootDifference() && difference.hasPartDifference())
+                    result.differenceSetWithoutRootDifferences.add(difference);
+            }
+        }
+    }
+
+    private ParseResultDifference findDifference(ParseResult leftParseResult, ParseResult rightParseResult) {
+        if (maxMemoizedDifferences == 0)
+            return parseResultDiffTool.findDifference(leftParseResult, rightParseResult);
+
+        final ParseResultPair key = new ParseResultPair(leftParseResult.getStr(), rightParseResult.getStr());
+        final ParseResultDifference memoizedDifference = memoizedDifferences.get(key);
+        if (memoizedDifference != null)
+            return memoizedDifference;
+
+        final ParseResultDifference difference = parseResultDiffTool.findDifference(leftParseResult, rightParseResult);
+        if (memoizedDifferenceCount.get() < maxMemoizedDifferences) {
+            final ParseResultDifference existing = memoizedDifferences.putIfAbsent(key, difference);
+            if (existing != null)
+                return existing;
+            memoizedDifferenceCount.incrementAndGet();
+        }
+        return difference;
+    }
+
+    private void reportProgress(long startTime, int totalFileCount) {
+        final long words = processedWordCount.get();
+        final long elapsedMillis = Math.max(1L, System.currentTimeMillis() - startTime);
+        logger.info("Processed " + processedFileCount.get() + "/" + totalFileCount + " files, " + words + " words in " + elapsedMillis +
+                " ms; " + (words * 1000L / elapsedMillis) + " words/s, " + memoizedDifferenceCount.get() + " memoized differences");
+    }
+
+    /**
+     * Key of the memoized differences. {@link ParseResultDiffTool#findDifference(ParseResult, ParseResult)} orders
+     * its arguments, thus the key is ordered the same way.
+     */
+    private static class ParseResultPair {
+        private final String first;
+        private final String second;
+
+        private ParseResultPair(String a, String b) {
+            if (ParseResultDiffTool.parseResultOrdering.compare(a, b) <= 0) {
+                this.first = a;
+                this.second = b;
+            } else {
+                this.first = b;
+                this.second = a;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ParseResultPair that = (ParseResultPair) o;
+
+            return first.equals(that.first) && second.equals(that.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * first.hashCode() + second.hashCode();
+        }
+    }
+
+    public static class Result {
+        private long numberOfWords = 0L;
+        private long numberOfParseResults = 0L;
+        private long elapsedMillis = 0L;
+        private final Multiset<ParseResultDifference> differenceSet = HashMultiset.create();
+        private final Multiset<ParseResultDifference> differenceSetWithoutRootDifferences = HashMultiset.create();
+
+        private void merge(Result other) {
+            this.numberOfWords += other.numberOfWords;
+            this.numberOfParseResults += other.numberOfParseResults;
+            this.differenceSet.addAll(other.differenceSet);
+            this.differenceSetWithoutRootDifferences.addAll(other.differenceSetWithoutRootDifferences);
+        }
+
+        public long getNumberOfWords() {
+            return numberOfWords;
+        }
+
+        public long getNumberOfParseResults() {
+            return numberOfParseResults;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public long getWordsPerSecond() {
+            return numberOfWords * 1000L / Math.max(1L, elapsedMillis);
+        }
+
+        public Multiset<ParseResultDifference> getDifferenceSet() {
+            return Multisets.unmodifiableMultiset(differenceSet);
+        }
+
+        public Multiset<ParseResultDifference> getDifferenceSetWithoutRootDifferences() {
+            return Multisets.unmodifiableMultiset(differenceSetWithoutRootDifferences);
+        }
+    }
+}
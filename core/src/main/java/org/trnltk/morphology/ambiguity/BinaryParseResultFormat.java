@@ -0,0 +1,133 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.ambiguity;
+
+import com.google.common.base.Charsets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Constants and primitive codecs of the binary parse result format.
+ * <p/>
+ * All fixed size numbers are big endian, as written by {@link java.io.DataOutputStream}. Varints are unsigned
+ * LEB128: 7 bits per byte, least significant group first, high bit set on all bytes but the last.
+ * <pre>
+ * file    : header block* index trailer
+ * header  : 4 bytes magic "TRPR", byte version, byte flags (bit 0 : blocks are deflated)
+ * block   : byte 'B', int entry count, int raw length, int stored length, stored length bytes
+ * index   : byte 'I', int block count, (long block offset, int entry count)*
+ * trailer : long index offset, 4 bytes magic "TRPX"
+ * </pre>
+ * Raw content of a block, after inflating if the file is compressed:
+ * <pre>
+ * varint lexical string count, string*      (words, roots and lemma roots)
+ * varint vocabulary string count, string*   (POS, secondary POS and suffix names)
+ * entry*  : varint word, varint result count, result*
+ * result  : varint root, varint lemma root, varint root POS, varint root secondary POS + 1 (0 : none),
+ *           varint part count + 1 (0 : no parts), part*
+ * part    : varint POS, varint secondary POS + 1 (0 : none), varint suffix count, varint suffix*
+ * string  : varint UTF-8 byte length, bytes
+ * </pre>
+ * Every block has its own string tables, thus a block can be decoded without reading any other block.
+ *
+ * @see BinaryParseResultWriter
+ * @see BinaryParseResultReader
+ */
+final class BinaryParseResultFormat {
+    static final byte[] MAGIC = new byte[]{'T', 'R', 'P', 'R'};
+    static final byte[] TRAILER_MAGIC = new byte[]{'T', 'R', 'P', 'X'};
+    static final byte VERSION = 1;
+
+    static final byte FLAG_COMPRESSED = 0x01;
+
+    static final byte BLOCK_MARKER = 'B';
+    static final byte INDEX_MARKER = 'I';
+
+    static final int HEADER_LENGTH = MAGIC.length + 2;
+    static final int TRAILER_LENGTH = 8 + TRAILER_MAGIC.length;
+
+    private BinaryParseResultFormat() {
+    }
+
+    static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static void writeString(ByteArrayOutputStream out, String str) {
+        final byte[] bytes = str.getBytes(Charsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    static void writeStringTable(ByteArrayOutputStream out, List<String> strings) {
+        writeVarInt(out, strings.size());
+        for (String string : strings) {
+            writeString(out, string);
+        }
+    }
+
+    /**
+     * Cursor over a decoded block.
+     */
+    static class BlockInput {
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        BlockInput(byte[] bytes, int limit) {
+            this.bytes = bytes;
+            this.limit = limit;
+            this.position = 0;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            while (true) {
+                if (position >= limit)
+                    throw new EOFException("Unexpected end of block while reading a varint");
+                final byte b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+                shift += 7;
+                if (shift > 28)
+                    throw new IOException("Malformed varint at position " + (position - 1));
+            }
+        }
+
+        String readString() throws IOException {
+            final int length = readVarInt();
+            if (length > limit - position)
+                throw new EOFException("Unexpected end of block while reading a string of length " + length);
+            final String str = new String(bytes, position, length, Charsets.UTF_8);
+            position += length;
+            return str;
+        }
+
+        boolean hasRemaining() {
+            return position < limit;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.ambiguity;
+
+import org.apache.commons.lang3.Validate;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.trnltk.model.ambiguity.morphology.ParseResult;
+import org.trnltk.model.ambiguity.morphology.ParseResultPart;
+import org.trnltk.model.ambiguity.morphology.WordParseResultEntry;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads parse results in the binary format described in {@link BinaryParseResultFormat}.
+ * <p/>
+ * A file is opened for random access: any block or any entry can be read without reading the blocks before it,
+ * using the index at the end of the file. Entries can also be iterated block by block with {@link #iterator()},
+ * which keeps only one block in memory. Streams without random access can be read with
+ * {@link #getParseResultEntries(java.io.InputStream)}.
+ * <p/>
+ * String of a {@link ParseResult} is created in the same form as
+ * {@link org.trnltk.util.MorphemeContainerFormatter#formatMorphemeContainerDetailed(org.trnltk.model.morpheme.MorphemeContainer)}
+ * produces, so that results read from binary and text files are equal. POS and suffix names are interned
+ * for the lifetime of the reader.
+ * <p/>
+ * Reading blocks is thread safe.
+ */
+public class BinaryParseResultReader implements Closeable, Iterable<WordParseResultEntry> {
+
+    private final RandomAccessFile file;
+    private final BlockDecoder blockDecoder;
+    private final long[] blockOffsets;
+    private final long[] firstEntryIndices;
+    private final long entryCount;
+
+    public BinaryParseResultReader(File file) throws IOException {
+        Validate.notNull(file);
+        this.file = new RandomAccessFile(file, "r");
+        try {
+            final boolean compressed = readHeader(this.file);
+            this.blockDecoder = new BlockDecoder(compressed);
+
+            if (this.file.length() < BinaryParseResultFormat.HEADER_LENGTH + BinaryParseResultFormat.TRAILER_LENGTH)
+                throw new IOException("File is too short to have an index, it is probably truncated : " + file);
+
+            this.file.seek(this.file.length() - BinaryParseResultFormat.TRAILER_LENGTH);
+            final long indexOffset = this.file.readLong();
+            checkMagic(this.file, BinaryParseResultFormat.TRAILER_MAGIC, "trailer");
+
+            this.file.seek(indexOffset);
+            if (this.file.readByte() != BinaryParseResultFormat.INDEX_MARKER)
+                throw new IOException("Invalid index offset " + indexOffset);
+
+            final int blockCount = this.file.readInt();
+            this.blockOffsets = new long[blockCount];
+            this.firstEntryIndices = new long[blockCount];
+            long entryCount = 0;
+            for (int i = 0; i < blockCount; i++) {
+                this.blockOffsets[i] = this.file.readLong();
+                this.firstEntryIndices[i] = entryCount;
+                entryCount += this.file.readInt();
+            }
+            this.entryCount = entryCount;
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads all entries of a stream sequentially. The index at the end of the stream is not used.
+     */
+    public static List<WordParseResultEntry> getParseResultEntries(InputStream inputStream) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        final BlockDecoder blockDecoder = new BlockDecoder(readHeader(in));
+
+        final List<WordParseResultEntry> entries = new ArrayList<WordParseResultEntry>();
+        while (true) {
+            final byte marker = in.readByte();
+            if (marker == BinaryParseResultFormat.INDEX_MARKER)
+                break;
+            if (marker != BinaryParseResultFormat.BLOCK_MARKER)
+                throw new IOException("Expected a block marker, but found " + marker);
+
+            final int blockEntryCount = in.readInt();
+            final int rawLength = in.readInt();
+            final byte[] storedBytes = new byte[in.readInt()];
+            in.readFully(storedBytes);
+            entries.addAll(blockDecoder.decode(storedBytes, rawLength, blockEntryCount));
+        }
+
+        return entries;
+    }
+
+    public int getBlockCount() {
+        return blockOffsets.length;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return Entries of the block, in the order they were written
+     */
+    public List<WordParseResultEntry> readBlock(int blockIndex) throws IOException {
+        Validate.isTrue(blockIndex >= 0 && blockIndex < blockOffsets.length, "Invalid block index " + blockIndex);
+
+        final int blockEntryCount;
+        final int rawLength;
+        final byte[] storedBytes;
+        synchronized (file) {
+            file.seek(blockOffsets[blockIndex]);
+            if (file.readByte() != BinaryParseResultFormat.BLOCK_MARKER)
+                throw new IOException("Invalid block offset " + blockOffsets[blockIndex]);
+            blockEntryCount = file.readInt();
+            rawLength = file.readInt();
+            storedBytes = new byte[file.readInt()];
+            file.readFully(storedBytes);
+        }
+
+        return blockDecoder.decode(storedBytes, rawLength, blockEntryCount);
+    }
+
+    /**
+     * Reads the entry with given index, where index is the order of the entry in the whole file.
+     */
+    public WordParseResultEntry readEntry(long entryIndex) throws IOException {
+        Validate.isTrue(entryIndex >= 0 && entryIndex < entryCount, "Invalid entry index " + entryIndex);
+
+        int blockIndex = Arrays.binarySearch(firstEntryIndices, entryIndex);
+        if (blockIndex < 0)     // not the first entry of a block; find the block that starts before it
+            blockIndex = -blockIndex - 2;
+
+        return readBlock(blockIndex).get((int) (entryIndex - firstEntryIndices[blockIndex]));
+    }
+
+    public List<WordParseResultEntry> readAll() throws IOException {
+        final List<WordParseResultEntry> entries = new ArrayList<WordParseResultEntry>();
+        for (int i = 0; i < blockOffsets.length; i++) {
+            entries.addAll(readBlock(i));
+        }
+        return entries;
+    }
+
+    /**
+     * Iterates all entries, reading one block at a time. {@link IOException}s are wrapped in
+     * {@link IllegalStateException}s.
+     */
+    @Override
+    public Iterator<WordParseResultEntry> iterator() {
+        return new Iterator<WordParseResultEntry>() {
+            private int nextBlockIndex = 0;
+            private Iterator<WordParseResultEntry> blockIterator = Collections.<WordParseResultEntry>emptyList().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!blockIterator.hasNext() && nextBlockIndex < blockOffsets.length) {
+                    try {
+                        blockIterator = readBlock(nextBlockIndex++).iterator();
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Unable to read block " + (nextBlockIndex - 1), e);
+                    }
+                }
+                return blockIterator.hasNext();
+            }
+
+            @Override
+            public WordParseResultEntry next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return blockIterator.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (file) {
+            file.close();
+        }
+    }
+
+    private static boolean readHeader(DataInput in) throws IOException {
+        checkMagic(in, BinaryParseResultFormat.MAGIC, "header");
+        final byte version = in.readByte();
+        if (version != BinaryParseResultFormat.VERSION)
+            throw new IOException("Unsupported binary parse result format version " + version + ", expected " + BinaryParseResultFormat.VERSION);
+        final byte flags = in.readByte();
+        return (flags & BinaryParseResultFormat.FLAG_COMPRESSED) != 0;
+    }
+
+    private static void checkMagic(DataInput in, byte[] expectedMagic, String what) throws IOException {
+        final byte[] magic = new byte[expectedMagic.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, expectedMagic))
+            throw new IOException("Not a binary parse result file, invalid " + what + " magic");
+    }
+
+    private static class BlockDecoder {
+        private final boolean compressed;
+        private final Map<String, String> vocabulary = new HashMap<String, String>();
+
+        private BlockDecoder(boolean compressed) {
+            this.compressed = compressed;
+        }
+
+        private List<WordParseResultEntry> decode(byte[] storedBytes, int rawLength, int blockEntryCount) throws IOException {
+            final byte[] rawBytes = compressed ? inflate(storedBytes, rawLength) : storedBytes;
+            final BinaryParseResultFormat.BlockInput input = new BinaryParseResultFormat.BlockInput(rawBytes, rawLength);
+
+            final String[] lexicalTable = readStringTable(input, false);
+            final String[] vocabularyTable = readStringTable(input, true);
+
+            final List<WordParseResultEntry> entries = new ArrayList<WordParseResultEntry>(blockEntryCount);
+            for (int i = 0; i < blockEntryCount; i++) {
+                final WordParseResultEntry entry = new WordParseResultEntry(lexicalTable[input.readVarInt()]);
+                final int resultCount = input.readVarInt();
+                for (int j = 0; j < resultCount; j++) {
+                    entry.addParseResult(readParseResult(input, lexicalTable, vocabularyTable));
+                }
+                entries.add(entry);
+            }
+
+            if (input.hasRemaining())
+                throw new IOException("Block has trailing bytes after " + blockEntryCount + " entries");
+
+            return entries;
+        }
+
+        private ParseResult readParseResult(BinaryParseResultFormat.BlockInput input, String[] lexicalTable, String[] vocabularyTable) throws IOException {
+            final String root = lexicalTable[input.readVarInt()];
+            final String lemmaRoot = lexicalTable[input.readVarInt()];
+            final String rootPos = vocabularyTable[input.readVarInt()];
+            final String rootSpos = readOptional(input, vocabularyTable);
+
+            try {
+                // string is created with a JSONObject, thus the keys are in the same order with the text files
+                final JSONObject parseResultObject = new JSONObject();
+                parseResultObject.put("Root", root);
+                parseResultObject.put("LemmaRoot", lemmaRoot);
+                parseResultObject.put("RootPos", rootPos);
+                if (rootSpos != null)
+                    parseResultObject.put("RootSpos", rootSpos);
+
+                List<ParseResultPart> parts = null;
+                final int partCount = input.readVarInt() - 1;
+                if (partCount >= 0) {
+                    final JSONArray partArray = new JSONArray();
+                    parts = new ArrayList<ParseResultPart>(partCount);
+                    for (int i = 0; i < partCount; i++) {
+                        final String pos = vocabularyTable[input.readVarInt()];
+                        final String spos = readOptional(input, vocabularyTable);
+                        final int suffixCount = input.readVarInt();
+
+                        final JSONObject partObject = new JSONObject();
+                        partObject.put("POS", pos);
+                        if (spos != null)
+                            partObject.put("SPOS", spos);
+
+                        final List<String> suffixes = new ArrayList<String>(suffixCount);
+                        for (int j = 0; j < suffixCount; j++) {
+                            suffixes.add(vocabularyTable[input.readVarInt()]);
+                        }
+                        if (suffixCount > 0)
+                            partObject.put("Suffixes", new JSONArray(suffixes));
+
+                        partArray.put(partObject);
+                        parts.add(new ParseResultPart(pos, spos, suffixes));
+                    }
+                    parseResultObject.put("Parts", partArray);
+                }
+
+                return new ParseResult(parseResultObject.toString(), root, lemmaRoot, rootPos, rootSpos, parts);
+            } catch (JSONException e) {
+                throw new IOException("Invalid parse result in block", e);
+            }
+        }
+
+        private String readOptional(BinaryParseResultFormat.BlockInput input, String[] vocabularyTable) throws IOException {
+            final int index = input.readVarInt();
+            return index == 0 ? null : vocabularyTable[index - 1];
+        }
+
+        private String[] readStringTable(BinaryParseResultFormat.BlockInput input, boolean intern) throws IOException {
+            final String[] table = new String[input.readVarInt()];
+            for (int i = 0; i < table.length; i++) {
+                final String str = input.readString();
+                table[i] = intern ? intern(str) : str;
+            }
+            return table;
+        }
+
+        private String intern(String str) {
+            synchronized (vocabulary) {
+                final String existing = vocabulary.get(str);
+                if (existing != null)
+                    return existing;
+                vocabulary.put(str, str);
+                return str;
+            }
+        }
+
+        private static byte[] inflate(byte[] storedBytes, int rawLength) throws IOException {
+            final Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(storedBytes);
+                final byte[] rawBytes = new byte[rawLength];
+                int length = 0;
+                while (length < rawLength && !inflater.finished()) {
+                    final int inflated = inflater.inflate(rawBytes, length, rawLength - length);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                        throw new EOFException("Compressed block is truncated");
+                    length += inflated;
+                }
+                if (length != rawLength)
+                    throw new IOException("Block length mismatch : expected " + rawLength + " but inflated " + length);
+                return rawBytes;
+            } catch (DataFormatException e) {
+                throw new IOException("Compressed block is corrupt", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+}
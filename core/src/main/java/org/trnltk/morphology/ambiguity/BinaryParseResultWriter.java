@@ -0,0 +1,319 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.ambiguity;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.ambiguity.morphology.ParseResult;
+import org.trnltk.model.ambiguity.morphology.ParseResultPart;
+import org.trnltk.model.ambiguity.morphology.WordParseResultEntry;
+import org.trnltk.model.lexicon.Lexeme;
+import org.trnltk.model.lexicon.SecondaryPos;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.model.suffix.ConditionalFreeTransitionSuffix;
+import org.trnltk.model.suffix.FreeTransitionSuffix;
+import org.trnltk.model.suffix.Suffix;
+import org.trnltk.model.suffix.SuffixTransition;
+import org.trnltk.morphology.morphotactics.SuffixGraphState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes parse results in the binary format described in {@link BinaryParseResultFormat}.
+ * <p/>
+ * Entries are buffered until the block is full, then the block is written to the stream. Thus, only one block
+ * is kept in memory at a time. Index of the blocks is written when the writer is closed.
+ * <p/>
+ * Parse results can be written either from the parser output directly, with
+ * {@link #write(String, java.util.List)}, or from entries that are read by another reader, with
+ * {@link #write(WordParseResultEntry)}. The output of both is the same for the same parse results.
+ * <p/>
+ * Not thread safe.
+ */
+public class BinaryParseResultWriter implements Closeable {
+    public static final int DEFAULT_ENTRIES_PER_BLOCK = 4096;
+
+    private final DataOutputStream out;
+    private final boolean compressed;
+    private final int entriesPerBlock;
+
+    private final StringTable lexicalTable = new StringTable();
+    private final StringTable vocabularyTable = new StringTable();
+    private final ByteArrayOutputStream blockEntries = new ByteArrayOutputStream(64 * 1024);
+    private final ByteArrayOutputStream blockContent = new ByteArrayOutputStream(64 * 1024);
+    private final Deflater deflater;
+    private byte[] deflateBuffer = new byte[64 * 1024];
+
+    private final List<Long> blockOffsets = new ArrayList<Long>();
+    private final List<Integer> blockEntryCounts = new ArrayList<Integer>();
+
+    private long position = 0L;
+    private int entryCountInBlock = 0;
+    private boolean closed = false;
+
+    public BinaryParseResultWriter(OutputStream outputStream) throws IOException {
+        this(outputStream, true, DEFAULT_ENTRIES_PER_BLOCK);
+    }
+
+    public BinaryParseResultWriter(OutputStream outputStream, boolean compressed, int entriesPerBlock) throws IOException {
+        Validate.notNull(outputStream);
+        Validate.isTrue(entriesPerBlock > 0, "Entries per block must be positive");
+
+        this.out = new DataOutputStream(outputStream);
+        this.compressed = compressed;
+        this.entriesPerBlock = entriesPerBlock;
+        this.deflater = compressed ? new Deflater(Deflater.BEST_SPEED) : null;
+
+        this.out.write(BinaryParseResultFormat.MAGIC);
+        this.out.writeByte(BinaryParseResultFormat.VERSION);
+        this.out.writeByte(compressed ? BinaryParseResultFormat.FLAG_COMPRESSED : 0);
+        this.position += BinaryParseResultFormat.HEADER_LENGTH;
+    }
+
+    /**
+     * Writes the parse results of a word, as they are returned from the parser. Each morpheme container is
+     * written with the same content as {@link org.trnltk.util.MorphemeContainerFormatter#formatMorphemeContainerDetailed(org.trnltk.model.morpheme.MorphemeContainer)}
+     */
+    public void write(String word, List<MorphemeContainer> morphemeContainers) throws IOException {
+        checkNotClosed();
+        BinaryParseResultFormat.writeVarInt(blockEntries, lexicalTable.indexOf(word));
+        BinaryParseResultFormat.writeVarInt(blockEntries, morphemeContainers.size());
+        for (MorphemeContainer morphemeContainer : morphemeContainers) {
+            writeMorphemeContainer(morphemeContainer);
+        }
+        entryWritten();
+    }
+
+    public void write(WordParseResultEntry entry) throws IOException {
+        checkNotClosed();
+        final List<ParseResult> parseResults = entry.getParseResults();
+        BinaryParseResultFormat.writeVarInt(blockEntries, lexicalTable.indexOf(entry.getWord()));
+        BinaryParseResultFormat.writeVarInt(blockEntries, parseResults.size());
+        for (ParseResult parseResult : parseResults) {
+            writeParseResult(parseResult);
+        }
+        entryWritten();
+    }
+
+    /**
+     * Writes the current block, even if it is not full yet, and flushes the underlying stream.
+     */
+    public void flush() throws IOException {
+        checkNotClosed();
+        writeBlock();
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining entries and the index; then closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+
+        try {
+            writeBlock();
+
+            final long indexOffset = position;
+            out.writeByte(BinaryParseResultFormat.INDEX_MARKER);
+            out.writeInt(blockOffsets.size());
+            for (int i = 0; i < blockOffsets.size(); i++) {
+                out.writeLong(blockOffsets.get(i));
+                out.writeInt(blockEntryCounts.get(i));
+            }
+            out.writeLong(indexOffset);
+            out.write(BinaryParseResultFormat.TRAILER_MAGIC);
+            out.flush();
+        } finally {
+            closed = true;
+            if (deflater != null)
+                deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeMorphemeContainer(MorphemeContainer morphemeContainer) {
+        final Lexeme lexeme = morphemeContainer.getRoot().getLexeme();
+        final SecondaryPos rootSecondaryPos = lexeme.getSecondaryPos();
+
+        writeLexical(morphemeContainer.getRoot().getSequence().getUnderlyingString());
+        writeLexical(lexeme.getLemmaRoot());
+        writeVocabulary(lexeme.getPrimaryPos().getStringForm());
+        writeOptionalVocabulary(rootSecondaryPos != null ? rootSecondaryPos.getStringForm() : null);
+
+        final List<SuffixTransition> suffixTransitions = morphemeContainer.getSuffixTransitions();
+        if (suffixTransitions.isEmpty()) {
+            BinaryParseResultFormat.writeVarInt(blockEntries, 0);
+            return;
+        }
+
+        // a part is started with each derivation. suffixes are collected first, since their count is written first
+        final List<SuffixGraphState> partStates = new ArrayList<SuffixGraphState>();
+        final List<List<String>> partSuffixes = new ArrayList<List<String>>();
+        for (int i = 0; i < suffixTransitions.size(); i++) {
+            final SuffixTransition suffixTransition = suffixTransitions.get(i);
+            if (i == 0 || suffixTransition.isDerivational()) {
+                partStates.add(suffixTransition.getTargetState());
+                partSuffixes.add(new ArrayList<String>(2));
+            }
+
+            final Suffix suffix = suffixTransition.getSuffixFormApplication().getSuffixForm().getSuffix();
+            if (suffix instanceof FreeTransitionSuffix || suffix instanceof ConditionalFreeTransitionSuffix)
+                continue;
+
+            partSuffixes.get(partSuffixes.size() - 1).add(suffix.getPrettyName());
+        }
+
+        BinaryParseResultFormat.writeVarInt(blockEntries, partStates.size() + 1);
+        for (int i = 0; i < partStates.size(); i++) {
+            final SuffixGraphState targetState = partStates.get(i);
+            final SecondaryPos secondaryPos = targetState.getSecondaryPos();
+            writeVocabulary(targetState.getPrimaryPos().getStringForm());
+            writeOptionalVocabulary(secondaryPos != null && StringUtils.isNotBlank(secondaryPos.getStringForm()) ? secondaryPos.getStringForm() : null);
+            writeSuffixes(partSuffixes.get(i));
+        }
+    }
+
+    private void writeParseResult(ParseResult parseResult) {
+        writeLexical(parseResult.getRoot());
+        writeLexical(parseResult.getLemmaRoot());
+        writeVocabulary(parseResult.getRootPos());
+        writeOptionalVocabulary(parseResult.getRootSpos());
+
+        final List<ParseResultPart> parts = parseResult.getParts();
+        if (parts == null) {
+            BinaryParseResultFormat.writeVarInt(blockEntries, 0);
+            return;
+        }
+
+        BinaryParseResultFormat.writeVarInt(blockEntries, parts.size() + 1);
+        for (ParseResultPart part : parts) {
+            writeVocabulary(part.getPrimaryPos());
+            writeOptionalVocabulary(part.getSecondaryPos());
+            writeSuffixes(part.getSuffixes());
+        }
+    }
+
+    private void writeSuffixes(List<String> suffixes) {
+        BinaryParseResultFormat.writeVarInt(blockEntries, suffixes.size());
+        for (String suffix : suffixes) {
+            writeVocabulary(suffix);
+        }
+    }
+
+    private void writeLexical(String str) {
+        BinaryParseResultFormat.writeVarInt(blockEntries, lexicalTable.indexOf(str));
+    }
+
+    private void writeVocabulary(String str) {
+        BinaryParseResultFormat.writeVarInt(blockEntries, vocabularyTable.indexOf(str));
+    }
+
+    private void writeOptionalVocabulary(String str) {
+        BinaryParseResultFormat.writeVarInt(blockEntries, str == null ? 0 : vocabularyTable.indexOf(str) + 1);
+    }
+
+    private void entryWritten() throws IOException {
+        if (++entryCountInBlock >= entriesPerBlock)
+            writeBlock();
+    }
+
+    private void writeBlock() throws IOException {
+        if (entryCountInBlock == 0)
+            return;
+
+        blockContent.reset();
+        BinaryParseResultFormat.writeStringTable(blockContent, lexicalTable.strings);
+        BinaryParseResultFormat.writeStringTable(blockContent, vocabularyTable.strings);
+        blockEntries.writeTo(blockContent);
+
+        final byte[] rawBytes = blockContent.toByteArray();
+        byte[] storedBytes = rawBytes;
+        int storedLength = rawBytes.length;
+        if (compressed) {
+            storedLength = deflate(rawBytes);
+            storedBytes = deflateBuffer;
+        }
+
+        blockOffsets.add(position);
+        blockEntryCounts.add(entryCountInBlock);
+
+        out.writeByte(BinaryParseResultFormat.BLOCK_MARKER);
+        out.writeInt(entryCountInBlock);
+        out.writeInt(rawBytes.length);
+        out.writeInt(storedLength);
+        out.write(storedBytes, 0, storedLength);
+        position += 1 + 4 + 4 + 4 + storedLength;
+
+        lexicalTable.clear();
+        vocabularyTable.clear();
+        blockEntries.reset();
+        entryCountInBlock = 0;
+    }
+
+    private int deflate(byte[] rawBytes) {
+        deflater.reset();
+        deflater.setInput(rawBytes);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == deflateBuffer.length) {
+                final byte[] newBuffer = new byte[deflateBuffer.length * 2];
+                System.arraycopy(deflateBuffer, 0, newBuffer, 0, length);
+                deflateBuffer = newBuffer;
+            }
+            length += deflater.deflate(deflateBuffer, length, deflateBuffer.length - length);
+        }
+        return length;
+    }
+
+    private void checkNotClosed() {
+        if (closed)
+            throw new IllegalStateException("Writer is already closed");
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> indices = new HashMap<String, Integer>();
+        private final List<String> strings = new ArrayList<String>();
+
+        private int indexOf(String str) {
+            Validate.notNull(str);
+            Integer index = indices.get(str);
+            if (index == null) {
+                index = strings.size();
+                indices.put(str, index);
+                strings.add(str);
+            }
+            return index;
+        }
+
+        private void clear() {
+            indices.clear();
+            strings.clear();
+        }
+    }
+}
@@ -23,7 +23,6 @@ import org.trnltk.model.ambiguity.morphology.ParseResult;
 import org.trnltk.model.ambiguity.morphology.ParseResultPart;
 import org.trnltk.model.ambiguity.morphology.WordParseResultEntry;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
@@ -32,29 +31,34 @@ import java.util.List;
 //DOCME
 public class ParseResultReader {
 
+    /**
+     * Reads all entries into memory. Use {@link #iterateParseResultEntries(java.io.Reader)} for large inputs.
+     */
     public List<WordParseResultEntry> getParseResultEntries(Reader reader) throws IOException, JSONException {
-
-        final BufferedReader bufferedReader = new BufferedReader(reader);
-
-        List<WordParseResultEntry> entries = new ArrayList<WordParseResultEntry>();
-        WordParseResultEntry currentEntry = null;
-        while (bufferedReader.ready()) {
-            final String line = bufferedReader.readLine();
-            if (line.startsWith("- word: ")) {
-                final String word = line.substring("- word: ".length());
-                currentEntry = new WordParseResultEntry(word);
-                entries.add(currentEntry);
-            } else if (line.startsWith("  results:")) {
-                // ok, go
-            } else if (line.startsWith("    - ")) {
-                final String result = line.substring("    - ".length());
-                final ParseResult objParseResult = this.createParseResultObject(result);
-                currentEntry.addParseResult(objParseResult);
+        final StreamingParseResultReader streamingReader = new StreamingParseResultReader(reader);
+        try {
+            final List<WordParseResultEntry> entries = new ArrayList<WordParseResultEntry>();
+            for (WordParseResultEntry entry : streamingReader) {
+                entries.add(entry);
             }
+            return entries;
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if (e.getCause() instanceof JSONException)
+                throw (JSONException) e.getCause();
+            throw e;
+        } finally {
+            streamingReader.close();
         }
+    }
 
-        bufferedReader.close();
-        return entries;
+    /**
+     * @return Lazy iterator of the entries, which reads one entry at a time
+     * @see StreamingParseResultReader
+     */
+    public StreamingParseResultReader iterateParseResultEntries(Reader reader) {
+        return new StreamingParseResultReader(reader);
     }
 
     public ParseResult createParseResultObject(String strResult) throws JSONException {
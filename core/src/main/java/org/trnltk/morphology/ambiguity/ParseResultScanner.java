@@ -0,0 +1,279 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.ambiguity;
+
+import org.json.JSONException;
+import org.trnltk.model.ambiguity.morphology.ParseResult;
+import org.trnltk.model.ambiguity.morphology.ParseResultPart;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single pass scanner for the JSON objects read by {@link ParseResultReader#createParseResultObject(String)}.
+ * <p/>
+ * Only the fixed schema is understood: <code>Root</code>, <code>LemmaRoot</code>, <code>RootPos</code>,
+ * <code>RootSpos</code> and <code>Parts</code>; where each part has <code>POS</code>, <code>SPOS</code> and
+ * <code>Suffixes</code>. Keys can be in any order, unknown keys are skipped. Unlike {@link org.json.JSONObject},
+ * no maps are created for the objects.
+ * <p/>
+ * Strings can be double or single quoted. Other input which {@link org.json.JSONTokener} accepts, like unquoted
+ * strings, is read with {@link ParseResultReader#createParseResultObject(String)} instead.
+ * <p/>
+ * POS and suffix names are from a small set, thus they are interned for the lifetime of the scanner. Roots are
+ * not interned, since that would make the memory grow with the input.
+ * <p/>
+ * Not thread safe.
+ */
+class ParseResultScanner {
+    private final ParseResultReader fallbackReader = new ParseResultReader();
+    private final Map<String, String> vocabulary = new HashMap<String, String>();
+    private final StringBuilder builder = new StringBuilder();
+
+    private String input;
+    private int position;
+
+    ParseResult scan(String str) throws JSONException {
+        try {
+            return this.scanFast(str);
+        } catch (JSONException e) {
+            // not understood by the scanner, might still be valid for org.json
+            return this.fallbackReader.createParseResultObject(str);
+        }
+    }
+
+    private ParseResult scanFast(String str) throws JSONException {
+        this.input = str;
+        this.position = 0;
+
+        String root = null;
+        String lemmaRoot = null;
+        String rootPos = null;
+        String rootSpos = null;
+        List<ParseResultPart> parts = null;
+
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                final String key = readString();
+                expect(':');
+                if ("Root".equals(key))
+                    root = readString();
+                else if ("LemmaRoot".equals(key))
+                    lemmaRoot = readString();
+                else if ("RootPos".equals(key))
+                    rootPos = intern(readString());
+                else if ("RootSpos".equals(key))
+                    rootSpos = intern(readString());
+                else if ("Parts".equals(key))
+                    parts = readParts();
+                else
+                    skipValue();
+            } while (tryConsume(','));
+            expect('}');
+        }
+
+        skipWhitespace();
+        if (position != input.length())
+            throw error("Unexpected content after the object");
+
+        if (root == null || lemmaRoot == null || rootPos == null)
+            throw error("Root, LemmaRoot and RootPos are required");
+
+        return new ParseResult(str, root, lemmaRoot, rootPos, rootSpos, parts);
+    }
+
+    private List<ParseResultPart> readParts() throws JSONException {
+        final List<ParseResultPart> parts = new ArrayList<ParseResultPart>(2);
+        expect('[');
+        if (tryConsume(']'))
+            return parts;
+
+        do {
+            String pos = null;
+            String spos = null;
+            final List<String> suffixes = new ArrayList<String>(2);       // in avg, we have 2 suffixes
+
+            expect('{');
+            if (!tryConsume('}')) {
+                do {
+                    final String key = readString();
+                    expect(':');
+                    if ("POS".equals(key))
+                        pos = intern(readString());
+                    else if ("SPOS".equals(key))
+                        spos = intern(readString());
+                    else if ("Suffixes".equals(key))
+                        readSuffixes(suffixes);
+                    else
+                        skipValue();
+                } while (tryConsume(','));
+                expect('}');
+            }
+
+            if (pos == null)
+                throw error("POS is required for a part");
+            parts.add(new ParseResultPart(pos, spos, suffixes));
+        } while (tryConsume(','));
+
+        expect(']');
+        return parts;
+    }
+
+    private void readSuffixes(List<String> suffixes) throws JSONException {
+        expect('[');
+        if (tryConsume(']'))
+            return;
+        do {
+            suffixes.add(intern(readString()));
+        } while (tryConsume(','));
+        expect(']');
+    }
+
+    private String readString() throws JSONException {
+        final char quote = peek();
+        if (quote != '"' && quote != '\'')
+            throw error("Expected a quoted string");
+        position++;
+
+        final int start = position;
+        // fast path : no escapes, substring is enough
+        while (position < input.length()) {
+            final char c = input.charAt(position);
+            if (c == quote) {
+                return input.substring(start, position++);
+            } else if (c == '\\') {
+                break;
+            }
+            position++;
+        }
+
+        builder.setLength(0);
+        builder.append(input, start, position);
+        while (position < input.length()) {
+            final char c = input.charAt(position++);
+            if (c == quote)
+                return builder.toString();
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+
+            if (position >= input.length())
+                break;
+            final char escaped = input.charAt(position++);
+            switch (escaped) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 'u':
+                    if (position + 4 > input.length())
+                        throw error("Incomplete unicode escape");
+                    try {
+                        builder.append((char) Integer.parseInt(input.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    // \" \' \\ \/ and others are the character itself
+                    builder.append(escaped);
+            }
+        }
+
+        throw error("Unterminated string");
+    }
+
+    private void skipValue() throws JSONException {
+        final char c = peek();
+        if (c == '"' || c == '\'') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            final char close = c == '{' ? '}' : ']';
+            position++;
+            if (tryConsume(close))
+                return;
+            do {
+                if (c == '{') {
+                    readString();
+                    expect(':');
+                }
+                skipValue();
+            } while (tryConsume(','));
+            expect(close);
+        } else {
+            // number, true, false or null
+            final int start = position;
+            while (position < input.length() && ",}] \t".indexOf(input.charAt(position)) < 0)
+                position++;
+            if (start == position)
+                throw error("Value expected");
+        }
+    }
+
+    private String intern(String str) {
+        final String existing = vocabulary.get(str);
+        if (existing != null)
+            return existing;
+        vocabulary.put(str, str);
+        return str;
+    }
+
+    private char peek() throws JSONException {
+        skipWhitespace();
+        if (position >= input.length())
+            throw error("Unexpected end of input");
+        return input.charAt(position);
+    }
+
+    private void expect(char expected) throws JSONException {
+        if (peek() != expected)
+            throw error("Expected '" + expected + "'");
+        position++;
+    }
+
+    private boolean tryConsume(char expected) throws JSONException {
+        if (peek() != expected)
+            return false;
+        position++;
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position)))
+            position++;
+    }
+
+    private JSONException error(String message) {
+        return new JSONException(message + " at " + position + " : " + input);
+    }
+}
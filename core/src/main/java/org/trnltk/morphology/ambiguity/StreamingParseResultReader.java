@@ -0,0 +1,138 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.ambiguity;
+
+import org.apache.commons.lang3.Validate;
+import org.json.JSONException;
+import org.trnltk.model.ambiguity.morphology.WordParseResultEntry;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily reads the entries of a parse result file, one entry at a time. Thus, memory used does not depend
+ * on the size of the file.
+ * <pre>
+ * - word: elma
+ *   results:
+ *     - {"Root":"elma", ...}
+ *     - {"Root":"elma", ...}
+ * </pre>
+ * Result lines are read with {@link ParseResultScanner}, not with {@link org.json.JSONObject}.
+ * <p/>
+ * {@link IOException}s and malformed lines are reported with {@link IllegalStateException}s, since
+ * {@link Iterator} methods cannot throw checked exceptions. Reader is closed when the end of the input is reached.
+ * <p/>
+ * Not thread safe.
+ */
+public class StreamingParseResultReader implements Iterator<WordParseResultEntry>, Iterable<WordParseResultEntry>, Closeable {
+    private static final String WORD_PREFIX = "- word: ";
+    private static final String RESULT_PREFIX = "    - ";
+
+    private final BufferedReader reader;
+    private final ParseResultScanner scanner = new ParseResultScanner();
+
+    private String nextLine;
+    private long lineNumber = 0L;
+    private WordParseResultEntry nextEntry;
+    private boolean finished = false;
+
+    public StreamingParseResultReader(Reader reader) {
+        Validate.notNull(reader);
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextEntry == null && !finished) {
+            try {
+                nextEntry = readEntry();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read line " + (lineNumber + 1), e);
+            } catch (JSONException e) {
+                throw new IllegalStateException("Malformed result at line " + lineNumber, e);
+            }
+        }
+        return nextEntry != null;
+    }
+
+    @Override
+    public WordParseResultEntry next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        final WordParseResultEntry entry = nextEntry;
+        nextEntry = null;
+        return entry;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return this, so that the reader can be used in a for-each loop. Can be iterated only once.
+     */
+    @Override
+    public Iterator<WordParseResultEntry> iterator() {
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        reader.close();
+    }
+
+    private WordParseResultEntry readEntry() throws IOException, JSONException {
+        String line = nextLine != null ? nextLine : readLine();
+        nextLine = null;
+
+        // skip anything before the first word
+        while (line != null && !line.startsWith(WORD_PREFIX))
+            line = readLine();
+
+        if (line == null) {
+            close();
+            return null;
+        }
+
+        final WordParseResultEntry entry = new WordParseResultEntry(line.substring(WORD_PREFIX.length()));
+        while ((line = readLine()) != null) {
+            if (line.startsWith(WORD_PREFIX)) {
+                nextLine = line;
+                break;
+            } else if (line.startsWith(RESULT_PREFIX)) {
+                entry.addParseResult(scanner.scan(line.substring(RESULT_PREFIX.length())));
+            }
+            // "  results:" lines and others are skipped
+        }
+
+        return entry;
+    }
+
+    private String readLine() throws IOException {
+        final String line = reader.readLine();
+        if (line != null)
+            lineNumber++;
+        return line;
+    }
+}
@@ -21,6 +21,8 @@ import org.trnltk.model.morpheme.MorphemeContainer;
 import org.trnltk.morphology.contextless.parser.cache.MorphologicParserCache;
 
 import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Uses a caching with compute-if-absent logic. Different cache algorithms could be injected (One level, Two level, LRU, Time-based, etc.)
@@ -31,6 +33,11 @@ public class CachingMorphologicParser implements MorphologicParser {
     private final MorphologicParserCache cache;
     private final boolean useLocalCache;
 
+    // incremented with each invalidation; results of the parses started before it are not put into the cache
+    private volatile long generation = 0L;
+    // puts hold the read lock, invalidation holds the write lock
+    private final ReadWriteLock invalidationLock = new ReentrantReadWriteLock();
+
     /**
      * Create a new caching parser.
      *
@@ -57,6 +64,7 @@ public class CachingMorphologicParser implements MorphologicParser {
 
     @Override
     public List<List<MorphemeContainer>> parseAllStr(List<String> inputs) {
+        final long generation = this.generation;
         final List<List<MorphemeContainer>> results = new ArrayList<List<MorphemeContainer>>(inputs.size());
 
         final Map<String, List<MorphemeContainer>> newValuesMap = new HashMap<String, List<MorphemeContainer>>();
@@ -87,7 +95,13 @@ public class CachingMorphologicParser implements MorphologicParser {
             }
         }
 
-        cache.putAll(newValuesMap);
+        invalidationLock.readLock().lock();
+        try {
+            if (generation == this.generation)
+                cache.putAll(newValuesMap);
+        } finally {
+            invalidationLock.readLock().unlock();
+        }
 
         return results;
     }
@@ -98,12 +112,36 @@ public class CachingMorphologicParser implements MorphologicParser {
         if (cachedResult != null) {
             return cachedResult;
         } else {
+            final long generation = this.generation;
             final List<MorphemeContainer> morphemeContainers = this.delegate.parseStr(input);
-            cache.put(input, morphemeContainers);
+            invalidationLock.readLock().lock();
+            try {
+                if (generation == this.generation)
+                    cache.put(input, morphemeContainers);
+            } finally {
+                invalidationLock.readLock().unlock();
+            }
             return morphemeContainers == null ? Collections.EMPTY_LIST : morphemeContainers;
         }
     }
 
+    /**
+     * Removes the results of the inputs starting with the given prefixes from the cache, see
+     * {@link MorphologicParserCache#invalidatePrefixes(java.util.Set)}. Results of the parses which are in progress
+     * are not put into the cache afterwards, since they might be found with the roots before the change.
+     *
+     * @param prefixes Prefixes of the inputs to remove
+     */
+    public void invalidatePrefixes(Set<String> prefixes) {
+        invalidationLock.writeLock().lock();
+        try {
+            this.generation++;
+            this.cache.invalidatePrefixes(prefixes);
+        } finally {
+            invalidationLock.writeLock().unlock();
+        }
+    }
+
     /**
      * Parsing a {@link TurkishSequence} is not supported since {@link MorphologicParserCache} is only using strings
      * as cache keys.
@@ -61,6 +61,20 @@ public class MandatoryTransitionApplier {
     }
 
     public List<MorphemeContainer> applyMandatoryTransitionsToMorphemeContainers(final List<MorphemeContainer> morphemeContainers, final TurkishSequence input) {
+        Validate.notNull(input);
+        return this.applyMandatoryTransitions(morphemeContainers, input);
+    }
+
+    /**
+     * Applies mandatory transitions without an input to match, for generating the surfaces of the containers.
+     *
+     * @see SuffixApplier#generateSuffixForm(org.trnltk.model.morpheme.MorphemeContainer, org.trnltk.model.suffix.SuffixForm, org.trnltk.morphology.morphotactics.SuffixGraphState)
+     */
+    public List<MorphemeContainer> generateMandatoryTransitionsForMorphemeContainers(final List<MorphemeContainer> morphemeContainers) {
+        return this.applyMandatoryTransitions(morphemeContainers, null);
+    }
+
+    private List<MorphemeContainer> applyMandatoryTransitions(final List<MorphemeContainer> morphemeContainers, final TurkishSequence input) {
         final List<MorphemeContainer> newMorphemeContainers = new LinkedList<MorphemeContainer>();
         for (MorphemeContainer morphemeContainer : morphemeContainers) {
             MorphemeContainer newMorhpemeContainer = morphemeContainer;
@@ -116,7 +130,10 @@ public class MandatoryTransitionApplier {
         if (!this.suffixApplier.transitionAllowedForSuffix(morphemeContainer, suffix))
             throw new IllegalStateException(String.format("There is a matching mandatory transition rule, but suffix \"%s\" cannot be applied to %s", suffix, morphemeContainer));
 
-        morphemeContainer = this.suffixApplier.trySuffixForm(morphemeContainer, suffixForm, mandatoryTransitionRuleStep.getTargetState(), input);
+        if (input == null)
+            morphemeContainer = this.suffixApplier.generateSuffixForm(morphemeContainer, suffixForm, mandatoryTransitionRuleStep.getTargetState());
+        else
+            morphemeContainer = this.suffixApplier.trySuffixForm(morphemeContainer, suffixForm, mandatoryTransitionRuleStep.getTargetState(), input);
         if (morphemeContainer == null) {
             if (logger.isDebugEnabled())
                 logger.debug(String.format("There is a matching mandatory transition rule, but suffix form \"%s\" cannot be applied to %s", suffixForm, morphemeContainer));
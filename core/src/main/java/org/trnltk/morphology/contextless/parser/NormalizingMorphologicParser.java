@@ -0,0 +1,96 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.normalization.InputNormalizer;
+import org.trnltk.normalization.NormalizedInput;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Normalizes the input with an {@link InputNormalizer} once, before delegating it to the parser.
+ * <p/>
+ * Surfaces of the results are the normalized inputs. Use {@link #parseStrWithOffsets(String)} to map them back to
+ * the original input.
+ */
+public class NormalizingMorphologicParser implements MorphologicParser {
+
+    private final InputNormalizer normalizer;
+    private final MorphologicParser delegate;
+
+    public NormalizingMorphologicParser(InputNormalizer normalizer, MorphologicParser delegate) {
+        Validate.notNull(normalizer);
+        Validate.notNull(delegate);
+        this.normalizer = normalizer;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<MorphemeContainer> parseStr(String input) {
+        return this.delegate.parseStr(this.normalizer.normalize(input));
+    }
+
+    /**
+     * Same with {@link #parseStr(String)}, but also returns the normalized input, which maps the offsets in the
+     * surfaces of the results back to the original input. See {@link #getOriginalRootSurface(NormalizedInput, MorphemeContainer)}.
+     */
+    public Pair<NormalizedInput, List<MorphemeContainer>> parseStrWithOffsets(String input) {
+        final NormalizedInput normalizedInput = this.normalizer.normalizeWithOffsets(input);
+        return Pair.of(normalizedInput, this.delegate.parseStr(normalizedInput.getNormalized()));
+    }
+
+    /**
+     * @return Part of the original input which the root of the result is found for, e.g. "kâğıd" for the root
+     *         "kağıd" of the input "kâğıdı"
+     */
+    public static String getOriginalRootSurface(NormalizedInput normalizedInput, MorphemeContainer result) {
+        return normalizedInput.getOriginalSubstring(0, result.getRoot().getSequence().length());
+    }
+
+    @Override
+    public List<MorphemeContainer> parse(TurkishSequence input) {
+        final String normalized = this.normalizer.normalize(input.getUnderlyingString());
+        // no new sequence is created if nothing is normalized
+        if (normalized == input.getUnderlyingString())
+            return this.delegate.parse(input);
+        else
+            return this.delegate.parse(new TurkishSequence(normalized));
+    }
+
+    @Override
+    public List<List<MorphemeContainer>> parseAllStr(List<String> inputs) {
+        final List<String> normalizedInputs = new ArrayList<String>(inputs.size());
+        for (String input : inputs) {
+            normalizedInputs.add(this.normalizer.normalize(input));
+        }
+        return this.delegate.parseAllStr(normalizedInputs);
+    }
+
+    @Override
+    public List<List<MorphemeContainer>> parseAll(List<TurkishSequence> inputs) {
+        final List<List<MorphemeContainer>> results = new ArrayList<List<MorphemeContainer>>(inputs.size());
+        for (TurkishSequence input : inputs) {
+            results.add(this.parse(input));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser;
+
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.tokenizer.Sentence;
+import org.trnltk.tokenizer.SentenceSegmenter;
+import org.trnltk.tokenizer.Token;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Parses the tokens of {@link Sentence}s, using sentences as independent units of work.
+ * <p/>
+ * Sentences are parsed in batches on the given executor. Within a sentence, each distinct token surface is parsed
+ * once, with a single {@link MorphologicParser#parseAllStr(java.util.List)} call for the sentence.
+ * <p/>
+ * Given parser is used from multiple threads at the same time.
+ *
+ * @see SentenceSegmenter
+ */
+public class SentenceParser {
+    private final MorphologicParser parser;
+    private final ExecutorService executorService;
+    private final int batchSize;
+
+    /**
+     * @param parser          Parser to parse the tokens
+     * @param executorService Executor to run the batches on
+     * @param batchSize       Number of sentences to parse in a single task
+     */
+    public SentenceParser(MorphologicParser parser, ExecutorService executorService, int batchSize) {
+        Validate.notNull(parser);
+        Validate.notNull(executorService);
+        Validate.isTrue(batchSize > 0, "Batch size must be positive");
+        this.parser = parser;
+        this.executorService = executorService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Parses the sentences in parallel and waits for all of them.
+     *
+     * @return Parsed sentences, in the order of the given sentences
+     */
+    public List<ParsedSentence> parse(List<Sentence> sentences) {
+        Validate.notNull(sentences);
+
+        final List<Future<List<ParsedSentence>>> futures = new ArrayList<Future<List<ParsedSentence>>>();
+        for (int i = 0; i < sentences.size(); i += batchSize) {
+            final List<Sentence> batch = sentences.subList(i, Math.min(i + batchSize, sentences.size()));
+            futures.add(executorService.submit(new Callable<List<ParsedSentence>>() {
+                @Override
+                public List<ParsedSentence> call() throws Exception {
+                    final List<ParsedSentence> parsedSentences = new ArrayList<ParsedSentence>(batch.size());
+                    for (Sentence sentence : batch) {
+                        parsedSentences.add(parse(sentence));
+                    }
+                    return parsedSentences;
+                }
+            }));
+        }
+
+        final List<ParsedSentence> parsedSentences = new ArrayList<ParsedSentence>(sentences.size());
+        try {
+            for (Future<List<ParsedSentence>> future : futures) {
+                parsedSentences.addAll(getResult(future));
+            }
+        } finally {
+            for (Future<List<ParsedSentence>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return parsedSentences;
+    }
+
+    /**
+     * Parses a single sentence in the calling thread.
+     */
+    public ParsedSentence parse(Sentence sentence) {
+        final List<Token> tokens = sentence.getTokens();
+
+        final Map<String, Integer> surfaceIndexes = new LinkedHashMap<String, Integer>();
+        final int[] tokenSurfaceIndexes = new int[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            final String surface = tokens.get(i).getSurface();
+            Integer surfaceIndex = surfaceIndexes.get(surface);
+            if (surfaceIndex == null) {
+                surfaceIndex = surfaceIndexes.size();
+                surfaceIndexes.put(surface, surfaceIndex);
+            }
+            tokenSurfaceIndexes[i] = surfaceIndex;
+        }
+
+        final List<List<MorphemeContainer>> surfaceResults = parser.parseAllStr(new ArrayList<String>(surfaceIndexes.keySet()));
+
+        final List<List<MorphemeContainer>> tokenResults = new ArrayList<List<MorphemeContainer>>(tokens.size());
+        for (int tokenSurfaceIndex : tokenSurfaceIndexes) {
+            final List<MorphemeContainer> results = surfaceResults.get(tokenSurfaceIndex);
+            tokenResults.add(results == null ? Collections.<MorphemeContainer>emptyList() : results);
+        }
+
+        return new ParsedSentence(sentence, tokenResults);
+    }
+
+    private static List<ParsedSentence> getResult(Future<List<ParsedSentence>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * A sentence with the parse results of its tokens.
+     */
+    public static class ParsedSentence {
+        private final Sentence sentence;
+        private final List<List<MorphemeContainer>> parseResults;
+
+        public ParsedSentence(Sentence sentence, List<List<MorphemeContainer>> parseResults) {
+            this.sentence = sentence;
+            this.parseResults = parseResults;
+        }
+
+        public Sentence getSentence() {
+            return sentence;
+        }
+
+        /**
+         * @return Parse results of each token of the sentence, in the order of the tokens
+         */
+        public List<List<MorphemeContainer>> getParseResults() {
+            return parseResults;
+        }
+    }
+}
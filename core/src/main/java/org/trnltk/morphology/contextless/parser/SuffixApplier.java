@@ -185,6 +185,26 @@ public class SuffixApplier {
         return null;
     }
 
+    /**
+     * Applies the given suffix form without an input to match, for generating surfaces instead of parsing them.
+     * <p/>
+     * Surface is computed with the phonetic attributes of the container, then the checks of
+     * {@link SuffixApplier#trySuffixForm(org.trnltk.model.morpheme.MorphemeContainer, org.trnltk.model.suffix.SuffixForm, org.trnltk.morphology.morphotactics.SuffixGraphState, org.trnltk.model.letter.TurkishSequence)}
+     * are done against it.
+     *
+     * @return Morpheme container where the transition for the given suffix form is applied. Passed container is immutable thus untouched.
+     */
+    public MorphemeContainer generateSuffixForm(MorphemeContainer morphemeContainer, SuffixForm suffixForm, SuffixGraphState targetState) {
+        if (!this.transitionAllowedForSuffixForm(morphemeContainer, suffixForm))
+            return null;
+
+        final Pair<TurkishSequence, String> appliedPhonetics = this.phoneticsEngine.apply(morphemeContainer.getSurfaceSoFar(),
+                morphemeContainer.getPhoneticAttributes(), suffixForm.getForm(), morphemeContainer.getLexemeAttributes());
+        final String appliedStr = appliedPhonetics.getLeft().getUnderlyingString() + appliedPhonetics.getRight();
+
+        return this.trySuffixForm(morphemeContainer, suffixForm, targetState, new TurkishSequence(appliedStr));
+    }
+
     /**
      * Checks if the given suffix form application is applicable and applies it.
      * <p/>
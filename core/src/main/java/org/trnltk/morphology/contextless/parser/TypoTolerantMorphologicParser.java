@@ -0,0 +1,104 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.lexicon.CorrectedRoot;
+import org.trnltk.model.lexicon.Root;
+import org.trnltk.model.morpheme.MorphemeContainer;
+
+import java.util.*;
+
+/**
+ * A parser which parses misspelled surfaces when there are no results for the surface as it is.
+ * <p/>
+ * Surface is parsed with the exact parser first. If there are no results, it is parsed with the typo tolerant parser,
+ * which finds {@link CorrectedRoot}s for the misspelled parts, and the results are sorted by their edit distance.
+ *
+ * @see org.trnltk.morphology.contextless.rootfinder.TypoTolerantRootFinder
+ */
+public class TypoTolerantMorphologicParser implements MorphologicParser {
+
+    private static final Comparator<MorphemeContainer> EDIT_DISTANCE_COMPARATOR = new Comparator<MorphemeContainer>() {
+        @Override
+        public int compare(MorphemeContainer o1, MorphemeContainer o2) {
+            return getEditDistance(o1) - getEditDistance(o2);
+        }
+    };
+
+    private final MorphologicParser exactParser;
+    private final MorphologicParser typoTolerantParser;
+
+    /**
+     * @param exactParser        Parser to try first
+     * @param typoTolerantParser Parser with a {@link org.trnltk.morphology.contextless.rootfinder.TypoTolerantRootFinder}
+     */
+    public TypoTolerantMorphologicParser(MorphologicParser exactParser, MorphologicParser typoTolerantParser) {
+        Validate.notNull(exactParser);
+        Validate.notNull(typoTolerantParser);
+        this.exactParser = exactParser;
+        this.typoTolerantParser = typoTolerantParser;
+    }
+
+    /**
+     * @return Edit distance of the root of the result to the correct root, 0 if it is not corrected
+     */
+    public static int getEditDistance(MorphemeContainer morphemeContainer) {
+        final Root root = morphemeContainer.getRoot();
+        return root instanceof CorrectedRoot ? ((CorrectedRoot) root).getEditDistance() : 0;
+    }
+
+    @Override
+    public List<MorphemeContainer> parseStr(String input) {
+        return this.parse(new TurkishSequence(input));
+    }
+
+    @Override
+    public List<MorphemeContainer> parse(TurkishSequence input) {
+        final List<MorphemeContainer> exactResults = this.exactParser.parse(input);
+        if (!exactResults.isEmpty())
+            return exactResults;
+
+        final List<MorphemeContainer> results = new ArrayList<MorphemeContainer>(this.typoTolerantParser.parse(input));
+        // stable, order of the results with same edit distance is kept
+        Collections.sort(results, EDIT_DISTANCE_COMPARATOR);
+        return results;
+    }
+
+    @Override
+    public List<List<MorphemeContainer>> parseAllStr(List<String> inputs) {
+        return new ArrayList<List<MorphemeContainer>>(Lists.transform(inputs, new Function<String, List<MorphemeContainer>>() {
+            @Override
+            public List<MorphemeContainer> apply(String input) {
+                return parseStr(input);
+            }
+        }));
+    }
+
+    @Override
+    public List<List<MorphemeContainer>> parseAll(List<TurkishSequence> inputs) {
+        return new ArrayList<List<MorphemeContainer>>(Lists.transform(inputs, new Function<TurkishSequence, List<MorphemeContainer>>() {
+            @Override
+            public List<MorphemeContainer> apply(TurkishSequence input) {
+                return parse(input);
+            }
+        }));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An offline cache of generated surfaces and their parse results.
+ * <p/>
+ * Unlike {@link SimpleOfflineCache}, words are not parsed while building the cache. Entries are created by a
+ * {@link org.trnltk.morphology.contextless.parser.formbased.FullFormGenerator} from the roots, thus the cache is
+ * already built when it is created.
+ */
+public class FullFormCache implements MorphologicParserCache {
+    private volatile ImmutableMap<String, ImmutableList<MorphemeContainer>> map;
+
+    /**
+     * @param fullForms Surfaces and all of their parse results
+     */
+    public FullFormCache(Map<String, ? extends List<MorphemeContainer>> fullForms) {
+        Validate.notNull(fullForms);
+        final ImmutableMap.Builder<String, ImmutableList<MorphemeContainer>> builder = ImmutableMap.builder();
+        for (Map.Entry<String, ? extends List<MorphemeContainer>> entry : fullForms.entrySet()) {
+            builder.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+        }
+        this.map = builder.build();
+    }
+
+    /**
+     * @return Number of surfaces in the cache
+     */
+    public int size() {
+        return this.map.size();
+    }
+
+    @Override
+    public void build(MorphologicParser parser) {
+        //do nothing as entries are given in advance
+    }
+
+    @Override
+    public boolean isBuilt() {
+        return true;
+    }
+
+    @Override
+    public List<MorphemeContainer> get(String input) {
+        return this.map.get(input);
+    }
+
+    /**
+     * Removed inputs are parsed by the parser afterwards. Map is copied, thus lookups are not blocked.
+     */
+    @Override
+    public void invalidatePrefixes(Set<String> prefixes) {
+        final SurfacePrefixMatcher prefixMatcher = new SurfacePrefixMatcher(prefixes);
+        synchronized (this) {
+            final ImmutableMap.Builder<String, ImmutableList<MorphemeContainer>> builder = ImmutableMap.builder();
+            for (Map.Entry<String, ImmutableList<MorphemeContainer>> entry : this.map.entrySet()) {
+                if (!prefixMatcher.apply(entry.getKey()))
+                    builder.put(entry);
+            }
+            this.map = builder.build();
+        }
+    }
+
+    @Override
+    public void put(String input, List<MorphemeContainer> morphemeContainers) {
+        //do nothing as what to store is given in advance
+    }
+
+    @Override
+    public void putAll(Map<String, List<MorphemeContainer>> map) {
+        //do nothing as what to store is given in advance
+    }
+}
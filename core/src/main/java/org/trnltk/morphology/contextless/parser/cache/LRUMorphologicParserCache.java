@@ -18,11 +18,13 @@ package org.trnltk.morphology.contextless.parser.cache;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Sets;
 import org.trnltk.model.morpheme.MorphemeContainer;
 import org.trnltk.morphology.contextless.parser.MorphologicParser;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A LRU cache for a {@link org.trnltk.morphology.contextless.parser.CachingMorphologicParser}.
@@ -81,6 +83,15 @@ public class LRUMorphologicParserCache implements MorphologicParserCache {
         }
     }
 
+    @Override
+    public void invalidatePrefixes(Set<String> prefixes) {
+        // copy the keys first, since the view is changed while invalidating
+        final Set<String> keys = Sets.newHashSet(Sets.filter(this.cache.asMap().keySet(), new SurfacePrefixMatcher(prefixes)));
+        synchronized (this.cache) {
+            this.cache.invalidateAll(keys);
+        }
+    }
+
     @Override
     public void build(MorphologicParser parser) {
         // do nothing since it is an online cache
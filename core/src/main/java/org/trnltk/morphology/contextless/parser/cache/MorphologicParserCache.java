@@ -21,6 +21,7 @@ import org.trnltk.morphology.contextless.parser.MorphologicParser;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Contract for a cache that can be used by a {@link org.trnltk.morphology.contextless.parser.CachingMorphologicParser}
@@ -45,4 +46,14 @@ public interface MorphologicParserCache {
      * @see MorphologicParserCache#build(org.trnltk.morphology.contextless.parser.MorphologicParser)
      */
     boolean isBuilt();
+
+    /**
+     * Removes the results of the inputs which start with one of the given prefixes, for instance when the roots
+     * with those strings are added to or removed from the dictionary.
+     * <p/>
+     * An input starting with an upper case letter matches the prefix starting with the lower case letter too.
+     *
+     * @param prefixes Prefixes of the inputs to remove
+     */
+    void invalidatePrefixes(Set<String> prefixes);
 }
@@ -16,6 +16,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * An offline cache to use in morphologic parsing.
@@ -30,7 +31,7 @@ import java.util.Map;
  * frequent 20000 words in Turkish into the cache. This list of words is bundled.
  */
 public class SimpleOfflineCache implements MorphologicParserCache {
-    private Map<String, List<MorphemeContainer>> map;
+    private volatile Map<String, List<MorphemeContainer>> map;
     private Collection<String> cacheKeys;
     private boolean built;
 
@@ -95,6 +96,25 @@ public class SimpleOfflineCache implements MorphologicParserCache {
         return this.map.get(input);
     }
 
+    /**
+     * Removed inputs are parsed by the parser afterwards, since an offline cache does not store new results.
+     * Map is copied, thus lookups are not blocked.
+     */
+    @Override
+    public void invalidatePrefixes(Set<String> prefixes) {
+        final SurfacePrefixMatcher prefixMatcher = new SurfacePrefixMatcher(prefixes);
+        synchronized (this) {
+            if (this.map == null)
+                return;
+            final Map<String, List<MorphemeContainer>> newMap = new HashMap<String, List<MorphemeContainer>>(this.map.size());
+            for (Map.Entry<String, List<MorphemeContainer>> entry : this.map.entrySet()) {
+                if (!prefixMatcher.apply(entry.getKey()))
+                    newMap.put(entry.getKey(), entry.getValue());
+            }
+            this.map = newMap;
+        }
+    }
+
     @Override
     public void put(String input, List<MorphemeContainer> morphemeContainers) {
         //do nothing as what to store is given in advance
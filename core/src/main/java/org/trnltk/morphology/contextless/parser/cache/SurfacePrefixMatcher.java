@@ -0,0 +1,66 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser.cache;
+
+import com.google.common.base.Predicate;
+import org.apache.commons.lang3.Validate;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Matches the inputs which start with one of the given prefixes. Since roots are found for the inputs starting
+ * with an upper case letter too, first letter of the input is also tried in lower case.
+ *
+ * @see MorphologicParserCache#invalidatePrefixes(java.util.Set)
+ */
+class SurfacePrefixMatcher implements Predicate<String> {
+    private final Set<String> prefixes;
+    private final int[] prefixLengths;
+
+    SurfacePrefixMatcher(Set<String> prefixes) {
+        Validate.notNull(prefixes);
+        this.prefixes = new HashSet<String>(prefixes);
+
+        final SortedSet<Integer> lengths = new TreeSet<Integer>();
+        for (String prefix : prefixes) {
+            lengths.add(prefix.length());
+        }
+        this.prefixLengths = new int[lengths.size()];
+        int i = 0;
+        for (Integer length : lengths) {
+            this.prefixLengths[i++] = length;
+        }
+    }
+
+    @Override
+    public boolean apply(String input) {
+        for (int prefixLength : prefixLengths) {
+            if (prefixLength > input.length())
+                break;
+            final String prefix = input.substring(0, prefixLength);
+            if (prefixes.contains(prefix))
+                return true;
+            if (prefixLength > 0 && Character.isUpperCase(prefix.charAt(0))
+                    && prefixes.contains(Character.toLowerCase(prefix.charAt(0)) + prefix.substring(1)))
+                return true;
+        }
+        return false;
+    }
+}
@@ -20,9 +20,11 @@ import org.trnltk.model.morpheme.MorphemeContainer;
 import org.trnltk.morphology.contextless.parser.MorphologicParser;
 
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * An L2 cache and an L1 cache. When a value is not found in L2 cache (self), value from L1 cache is returned.
@@ -107,6 +109,21 @@ public class TwoLevelMorphologicParserCache implements MorphologicParserCache {
         }
     }
 
+    @Override
+    public void invalidatePrefixes(Set<String> prefixes) {
+        final SurfacePrefixMatcher prefixMatcher = new SurfacePrefixMatcher(prefixes);
+        synchronized (l2Cache) {
+            final Iterator<String> iterator = l2Cache.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (prefixMatcher.apply(iterator.next())) {
+                    iterator.remove();
+                    l2Size--;
+                }
+            }
+            l1Cache.invalidatePrefixes(prefixes);
+        }
+    }
+
     @Override
     public void build(MorphologicParser parser) {
         // cannot build self, since it is online.
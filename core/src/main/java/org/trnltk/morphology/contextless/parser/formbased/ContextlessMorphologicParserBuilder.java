@@ -1,19 +1,31 @@
 package org.trnltk.morphology.contextless.parser.formbased;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
 import org.apache.commons.lang3.Validate;
 import org.trnltk.model.lexicon.Root;
 import org.trnltk.morphology.contextless.parser.CachingMorphologicParser;
 import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.NormalizingMorphologicParser;
 import org.trnltk.morphology.contextless.parser.PredefinedPaths;
 import org.trnltk.morphology.contextless.parser.SuffixApplier;
+import org.trnltk.morphology.contextless.parser.TypoTolerantMorphologicParser;
+import org.trnltk.morphology.contextless.parser.cache.FullFormCache;
 import org.trnltk.morphology.contextless.parser.cache.MorphologicParserCache;
 import org.trnltk.morphology.contextless.parser.cache.SimpleOfflineCache;
 import org.trnltk.morphology.contextless.rootfinder.*;
+import org.trnltk.morphology.lexicon.ColumnarLexicon;
+import org.trnltk.morphology.lexicon.LayeredRootMap;
 import org.trnltk.morphology.lexicon.RootMapFactory;
 import org.trnltk.morphology.morphotactics.*;
 import org.trnltk.morphology.phonetics.PhoneticsAnalyzer;
 import org.trnltk.morphology.phonetics.PhoneticsEngine;
+import org.trnltk.normalization.InputNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * A helper class to build morphologic parsers.
@@ -24,18 +36,16 @@ public class ContextlessMorphologicParserBuilder {
     private RootFinderChain rootFinderChain;
     private MorphologicParserCache cache;
     private boolean useLocalCache;
+    private Collection<String> fullFormRootStrings;
+    private int fullFormMaxSuffixCount;
+    private InputNormalizer inputNormalizer;
 
-    final HashMultimap<String, ? extends Root> _dictionaryRootMap;
+    final Multimap<String, ? extends Root> _dictionaryRootMap;
 
-    private ContextlessMorphologicParserBuilder(boolean convertCircumflexes) {
+    private ContextlessMorphologicParserBuilder(Multimap<String, ? extends Root> dictionaryRootMap) {
+        Validate.notNull(dictionaryRootMap);
         this.rootFinderChain = new RootFinderChain(new RootValidator());
-
-        // create root entries from bundled dictionary
-        if (convertCircumflexes)
-            _dictionaryRootMap = RootMapFactory.createSimpleWithNumbersConvertCircumflexes();
-        else
-            _dictionaryRootMap = RootMapFactory.createSimpleWithNumbers();
-
+        this._dictionaryRootMap = dictionaryRootMap;
     }
 
     /**
@@ -44,7 +54,55 @@ public class ContextlessMorphologicParserBuilder {
      * That means, when a surface which is not circumflexed correctly is given, it is parsed with the no circumflexed root.
      */
     public static ContextlessMorphologicParserBuilder newBuilder() {
-        return new ContextlessMorphologicParserBuilder(true);
+        // create root entries from bundled dictionary
+        return new ContextlessMorphologicParserBuilder(RootMapFactory.createSimpleWithNumbersConvertCircumflexes());
+    }
+
+    /**
+     * Same with {@link #newBuilder()}, but the roots of the bundled dictionaries are kept in a {@link ColumnarLexicon},
+     * which takes much less memory.
+     * <p/>
+     * Roots and lexemes of the parse results are views on the lexicon. They are equal to the views of the same entry,
+     * but not to the {@link org.trnltk.model.lexicon.ImmutableRoot}s and the
+     * {@link org.trnltk.model.lexicon.ImmutableLexeme}s of the parsers built with {@link #newBuilder()}.
+     */
+    public static ContextlessMorphologicParserBuilder newBuilderWithColumnarLexicon() {
+        return new ContextlessMorphologicParserBuilder(RootMapFactory.createColumnarSimpleWithNumbersConvertCircumflexes());
+    }
+
+    /**
+     * Same with {@link #newBuilder()}, but the bundled dictionaries are loaded on the given number of threads into a
+     * {@link org.trnltk.morphology.lexicon.ConcurrentRootMap}.
+     *
+     * @see RootMapFactory#createConcurrentSimpleWithNumbersConvertCircumflexes(int)
+     */
+    public static ContextlessMorphologicParserBuilder newBuilderWithParallelDictionaryLoading(int threadCount) {
+        return new ContextlessMorphologicParserBuilder(RootMapFactory.createConcurrentSimpleWithNumbersConvertCircumflexes(threadCount));
+    }
+
+    /**
+     * Creates a new builder with the given root entries instead of the bundled dictionaries.
+     * <p/>
+     * Root map is not copied or modified, thus a read-only map like a {@link ColumnarLexicon}
+     * can be shared by the parsers of several builders.
+     * <p/>
+     * If it is a {@link LayeredRootMap}, changes to it are visible to the parser immediately and the cache of the parser
+     * is invalidated for the changed roots.
+     */
+    public static ContextlessMorphologicParserBuilder newBuilder(Multimap<String, ? extends Root> dictionaryRootMap) {
+        return new ContextlessMorphologicParserBuilder(dictionaryRootMap);
+    }
+
+    /**
+     * Creates a new builder with single spelling of the roots in the bundled dictionaries, which are without the
+     * circumflexes. Input is normalized with all {@link InputNormalizer.Normalization}s before parsing.
+     * <p/>
+     * That means, a surface is parsed with the same root whether it is circumflexed or not, without duplicating the
+     * circumflexed roots.
+     */
+    public static ContextlessMorphologicParserBuilder newBuilderWithInputNormalization() {
+        return new ContextlessMorphologicParserBuilder(RootMapFactory.createSimpleWithNumbersDropCircumflexes())
+                .normalizeInput(new InputNormalizer(EnumSet.allOf(InputNormalizer.Normalization.class)));
     }
 
     /**
@@ -53,7 +111,7 @@ public class ContextlessMorphologicParserBuilder {
      * That means, when a surface which is not circumflexed correctly is given, it won't be parsed.
      */
     public static ContextlessMorphologicParserBuilder newBuilderWithoutCircumflexConversion() {
-        return new ContextlessMorphologicParserBuilder(false);
+        return new ContextlessMorphologicParserBuilder(RootMapFactory.createSimpleWithNumbers());
     }
 
     /**
@@ -67,6 +125,39 @@ public class ContextlessMorphologicParserBuilder {
      * required parts is missing.
      */
     public MorphologicParser build(boolean defaults) {
+        final ContextlessMorphologicParser contextlessParser = this.buildContextlessParser(defaults);
+        return this.wrapWithCaches(contextlessParser, contextlessParser);
+    }
+
+    /**
+     * Build a {@link Deasciifier} which verifies its results with a parser built like {@link #build(boolean)}.
+     */
+    public Deasciifier buildDeasciifier(boolean defaults) {
+        final ContextlessMorphologicParser contextlessParser = this.buildContextlessParser(defaults);
+        final MorphologicParser parser = this.wrapWithCaches(contextlessParser, contextlessParser);
+        return new Deasciifier(parser, contextlessParser.getSuffixFormGraph(), contextlessParser.getPredefinedPaths(), _dictionaryRootMap);
+    }
+
+    /**
+     * Build a {@link TypoTolerantMorphologicParser} which parses a surface like {@link #build(boolean)} and if there
+     * are no results, tries the dictionary roots which are a few edits away from the parts of the surface.
+     *
+     * @param maxEditDistance Maximum number of edits for a root, 1 or 2
+     * @param maxVisitedNodes Maximum number of root trie nodes to visit for a part of the surface
+     * @see TypoTolerantRootFinder
+     */
+    public MorphologicParser buildTypoTolerant(boolean defaults, int maxEditDistance, int maxVisitedNodes) {
+        final ContextlessMorphologicParser exactParser = this.buildContextlessParser(defaults);
+
+        final RootFinderChain typoTolerantRootFinderChain = new RootFinderChain(new RootValidator())
+                .offer(new TypoTolerantRootFinder(_dictionaryRootMap, maxEditDistance, maxVisitedNodes), RootFinderChain.RootFinderPolicy.CONTINUE_ON_CHAIN);
+        final ContextlessMorphologicParser typoTolerantParser = new ContextlessMorphologicParser(exactParser.getSuffixFormGraph(),
+                exactParser.getPredefinedPaths(), typoTolerantRootFinderChain, exactParser.getSuffixApplier());
+
+        return this.wrapWithCaches(exactParser, new TypoTolerantMorphologicParser(exactParser, typoTolerantParser));
+    }
+
+    private ContextlessMorphologicParser buildContextlessParser(boolean defaults) {
         if (defaults) {
             if (this.suffixGraph == null)
                 this.includeAllBundledSuffixGraphs();
@@ -99,12 +190,45 @@ public class ContextlessMorphologicParserBuilder {
         final PredefinedPaths predefinedPaths = new PredefinedPaths(suffixGraph, _dictionaryRootMap, suffixApplier);
         predefinedPaths.initialize();
 
-        final MorphologicParser parser = new ContextlessMorphologicParser(suffixFormGraph, predefinedPaths, rootFinderChain, suffixApplier);
+        return new ContextlessMorphologicParser(suffixFormGraph, predefinedPaths, rootFinderChain, suffixApplier);
+    }
+
+    private MorphologicParser wrapWithCaches(ContextlessMorphologicParser contextlessParser, MorphologicParser parser) {
+        if (cache != null) {
+            parser = this.invalidateOnRootChanges(new CachingMorphologicParser(cache, parser, useLocalCache));
+        }
+
+        if (fullFormRootStrings != null) {
+            final List<Root> roots = new ArrayList<Root>();
+            for (String rootString : fullFormRootStrings) {
+                roots.addAll(_dictionaryRootMap.get(rootString));
+            }
+            final FullFormGenerator fullFormGenerator = new FullFormGenerator(contextlessParser.getSuffixFormGraph(),
+                    contextlessParser.getPredefinedPaths(), contextlessParser.getSuffixApplier(), _dictionaryRootMap);
+            final FullFormCache fullFormCache = new FullFormCache(fullFormGenerator.generate(roots, fullFormMaxSuffixCount));
+
+            parser = this.invalidateOnRootChanges(new CachingMorphologicParser(fullFormCache, parser, false));
+        }
+
+        if (inputNormalizer != null) {
+            // normalized before the caches, thus they have the normalized inputs as keys
+            parser = new NormalizingMorphologicParser(inputNormalizer, parser);
+        }
 
-        if (cache != null)
-            return new CachingMorphologicParser(cache, parser, useLocalCache);
-        else
-            return parser;
+        return parser;
+    }
+
+    private CachingMorphologicParser invalidateOnRootChanges(final CachingMorphologicParser cachingParser) {
+        if (_dictionaryRootMap instanceof LayeredRootMap) {
+            // results of the surfaces with the changed roots are not valid anymore
+            ((LayeredRootMap) _dictionaryRootMap).addRootChangeListener(new LayeredRootMap.RootChangeListener() {
+                @Override
+                public void rootsChanged(Set<String> rootStrings) {
+                    cachingParser.invalidatePrefixes(rootStrings);
+                }
+            });
+        }
+        return cachingParser;
     }
 
     public ContextlessMorphologicParserBuilder addAllBundledNoBruteForceRootFinders(boolean includeProperNounRootFinders) {
@@ -225,6 +349,37 @@ public class ContextlessMorphologicParserBuilder {
         return this;
     }
 
+    /**
+     * Generates the surfaces of the dictionary roots with the given strings (e.g. the roots of the most frequent
+     * lexemes) and their parse results while building, and the resulting parser looks them up before parsing.
+     * <p/>
+     * Please note that the generated results are valid for the parsers without brute force root finders.
+     *
+     * @param rootStrings    Strings of the roots to generate the surfaces of
+     * @param maxSuffixCount Maximum number of non-empty suffix forms in a surface
+     * @see FullFormGenerator
+     * @see FullFormCache
+     */
+    public ContextlessMorphologicParserBuilder fullFormCache(Collection<String> rootStrings, int maxSuffixCount) {
+        Validate.notNull(rootStrings);
+        Validate.isTrue(maxSuffixCount >= 0);
+        this.fullFormRootStrings = rootStrings;
+        this.fullFormMaxSuffixCount = maxSuffixCount;
+        return this;
+    }
+
+    /**
+     * Normalizes the input once, before it is looked up in the caches and parsed.
+     *
+     * @param inputNormalizer Normalizer to use
+     * @see NormalizingMorphologicParser
+     */
+    public ContextlessMorphologicParserBuilder normalizeInput(InputNormalizer inputNormalizer) {
+        Validate.notNull(inputNormalizer);
+        this.inputNormalizer = inputNormalizer;
+        return this;
+    }
+
     /**
      * Manually set a cache to use and use local caching.
      *
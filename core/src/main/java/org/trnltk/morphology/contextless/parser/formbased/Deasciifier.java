@@ -0,0 +1,304 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser.formbased;
+
+import com.google.common.collect.Multimap;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+import org.trnltk.model.letter.TurkicLetter;
+import org.trnltk.model.letter.TurkishAlphabet;
+import org.trnltk.model.lexicon.PhoneticAttribute;
+import org.trnltk.model.lexicon.Root;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.PredefinedPaths;
+import org.trnltk.morphology.lexicon.RootKeyIndex;
+import org.trnltk.morphology.morphotactics.SuffixGraphState;
+import org.trnltk.morphology.morphotactics.SuffixGraphStateType;
+import org.trnltk.util.Constants;
+
+import java.util.*;
+
+/**
+ * Restores the Turkish characters of a surface which is typed with their ASCII equivalents, e.g.
+ * <i>ogrencilerimizden</i> -> <i>öğrencilerimizden</i>.
+ * <p/>
+ * Ambiguous letters (c/ç, g/ğ, i/ı, o/ö, s/ş, u/ü) are expanded while the input is walked, instead of trying every
+ * combination:
+ * <ul>
+ * <li>Roots: a prefix is extended only if there is a root key starting with it</li>
+ * <li>Suffixes: starting from the default state of every root found, an edge of the {@link SuffixFormGraph} is
+ * followed only if its suffix form matches the input, and the completions of a node at a position are computed
+ * once</li>
+ * </ul>
+ * Graph walk does not check the phonetic expectations and the conditions of the suffixes, thus every candidate surface
+ * is parsed with the parser at the end and the ones without any parse results are dropped.
+ * <p/>
+ * Only the dictionary roots are expanded; the input itself is also a candidate, thus the surfaces which other root
+ * finders handle (e.g. numbers, proper nouns with apostrophes) are returned if they can be parsed as they are.
+ * <p/>
+ * Thread safe.
+ */
+public class Deasciifier {
+    protected final Logger logger = Logger.getLogger(Deasciifier.class);
+
+    private static final TurkicLetter[] AMBIGUOUS_LETTERS = {
+            TurkishAlphabet.L_cc, TurkishAlphabet.L_gg, TurkishAlphabet.L_ii,
+            TurkishAlphabet.L_oo, TurkishAlphabet.L_ss, TurkishAlphabet.L_uu
+    };
+
+    private static final char[] NO_ALTERNATIVES = new char[0];
+
+    // alternatives of an input char, the char itself is always the first one
+    private static final Map<Character, char[]> ALTERNATIVES = new HashMap<Character, char[]>();
+
+    static {
+        for (TurkicLetter letter : AMBIGUOUS_LETTERS) {
+            final char ascii = letter.englishEquivalentChar();
+            final char turkish = letter.charValue();
+            ALTERNATIVES.put(ascii, new char[]{ascii, turkish});
+
+            // 'I' is the upper case of both 'ı' and 'i' : it can be "I" or "İ"
+            final char upperCaseAscii = Character.toUpperCase(ascii);
+            final char upperCaseTurkish = String.valueOf(turkish).toUpperCase(Constants.TURKISH_LOCALE).charAt(0);
+            final char otherUpperCase = upperCaseTurkish == upperCaseAscii
+                    ? String.valueOf(ascii).toUpperCase(Constants.TURKISH_LOCALE).charAt(0)
+                    : upperCaseTurkish;
+            ALTERNATIVES.put(upperCaseAscii, new char[]{upperCaseAscii, otherUpperCase});
+        }
+    }
+
+    private final MorphologicParser parser;
+    private final SuffixFormGraph suffixFormGraph;
+    private final PredefinedPaths predefinedPaths;
+    private final Multimap<String, ? extends Root> rootMap;
+    private final RootKeyIndex rootKeyIndex;
+
+    /**
+     * @param parser          Parser to verify the candidate surfaces with
+     * @param suffixFormGraph Graph of the parser
+     * @param predefinedPaths Predefined paths of the parser, can be null
+     * @param rootMap         Dictionary root map of the parser
+     */
+    public Deasciifier(MorphologicParser parser, SuffixFormGraph suffixFormGraph, PredefinedPaths predefinedPaths, Multimap<String, ? extends Root> rootMap) {
+        Validate.notNull(parser);
+        Validate.notNull(suffixFormGraph);
+        Validate.notNull(rootMap);
+        this.parser = parser;
+        this.suffixFormGraph = suffixFormGraph;
+        this.predefinedPaths = predefinedPaths;
+        this.rootMap = rootMap;
+        this.rootKeyIndex = new RootKeyIndex(rootMap);
+    }
+
+    /**
+     * @return Valid Turkish surfaces for the input and their parse results, in no particular order. Empty if there
+     *         are none.
+     */
+    public Map<String, List<MorphemeContainer>> deasciify(String input) {
+        Validate.notNull(input);
+
+        final Map<String, List<MorphemeContainer>> results = new LinkedHashMap<String, List<MorphemeContainer>>();
+        if (input.isEmpty())
+            return results;
+
+        final Set<String> candidates = new LinkedHashSet<String>();
+        candidates.add(input);
+        new Walk(input, this.rootKeyIndex.getSortedKeys()).findCandidates(candidates);
+
+        if (logger.isDebugEnabled())
+            logger.debug("Found candidates for input " + input + " : " + candidates);
+
+        for (String candidate : candidates) {
+            final List<MorphemeContainer> parseResults = this.parser.parseStr(candidate);
+            if (!parseResults.isEmpty())
+                results.put(candidate, parseResults);
+        }
+
+        return results;
+    }
+
+    private static char[] getAlternatives(char c) {
+        final char[] alternatives = ALTERNATIVES.get(c);
+        return alternatives == null ? NO_ALTERNATIVES : alternatives;
+    }
+
+    private static boolean matches(char inputChar, char c) {
+        if (inputChar == c)
+            return true;
+        for (char alternative : getAlternatives(inputChar)) {
+            if (alternative == c)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * State of a single {@link #deasciify(String)} call.
+     */
+    private class Walk {
+        private final String input;
+        private final String[] sortedRootKeys;
+        private final char[] prefix;
+        private final boolean upperCaseFirstChar;
+
+        // completions of a node at an input position
+        private final List<Map<SuffixFormGraphNode, List<String>>> completionsAtPosition;
+        // depths of the nodes being visited at an input position
+        private final List<Map<SuffixFormGraphNode, Integer>> visitingNodesAtPosition;
+        private int visitingDepth = 0;
+        // smallest depth of the nodes being visited, which are reached again by the current visit
+        private int reachedVisitingDepth = Integer.MAX_VALUE;
+
+        private Walk(String input, String[] sortedRootKeys) {
+            this.input = input;
+            this.sortedRootKeys = sortedRootKeys;
+            this.prefix = new char[input.length()];
+            this.upperCaseFirstChar = Character.isUpperCase(input.charAt(0));
+            this.completionsAtPosition = new ArrayList<Map<SuffixFormGraphNode, List<String>>>(input.length() + 1);
+            this.visitingNodesAtPosition = new ArrayList<Map<SuffixFormGraphNode, Integer>>(input.length() + 1);
+            for (int i = 0; i <= input.length(); i++) {
+                this.completionsAtPosition.add(new HashMap<SuffixFormGraphNode, List<String>>());
+                this.visitingNodesAtPosition.add(new HashMap<SuffixFormGraphNode, Integer>());
+            }
+        }
+
+        private void findCandidates(Set<String> candidates) {
+            this.walkRoots(0, candidates);
+        }
+
+        private void walkRoots(int position, Set<String> candidates) {
+            if (position == input.length())
+                return;
+
+            final char inputChar = input.charAt(position);
+            final char[] alternatives = getAlternatives(inputChar);
+            if (alternatives.length == 0)
+                this.walkRootsWith(position, inputChar, candidates);
+            else
+                for (char alternative : alternatives) {
+                    this.walkRootsWith(position, alternative, candidates);
+                }
+        }
+
+        private void walkRootsWith(int position, char c, Set<String> candidates) {
+            prefix[position] = c;
+            final String rootStr = new String(prefix, 0, position + 1);
+            // lookup is same with DictionaryRootFinder
+            final String lowerCaseRootStr = upperCaseFirstChar ? Character.toLowerCase(rootStr.charAt(0)) + rootStr.substring(1) : null;
+
+            if (!RootKeyIndex.hasKeyStartingWith(sortedRootKeys, rootStr) && (lowerCaseRootStr == null || !RootKeyIndex.hasKeyStartingWith(sortedRootKeys, lowerCaseRootStr)))
+                return;
+
+            this.addCandidatesForRoots(rootStr, rootMap.get(rootStr), candidates);
+            if (lowerCaseRootStr != null)
+                this.addCandidatesForRoots(rootStr, rootMap.get(lowerCaseRootStr), candidates);
+
+            this.walkRoots(position + 1, candidates);
+        }
+
+        private void addCandidatesForRoots(String rootStr, Collection<? extends Root> roots, Set<String> candidates) {
+            for (Root root : roots) {
+                if (predefinedPaths != null && predefinedPaths.hasPathsForRoot(root)) {
+                    for (MorphemeContainer predefinedMorphemeContainer : predefinedPaths.getPaths(root)) {
+                        final String surfaceSoFar = predefinedMorphemeContainer.getSurfaceSoFar().getUnderlyingString();
+                        if (!this.matchesAt(surfaceSoFar, rootStr.length(), rootStr.length()))
+                            continue;
+                        final String surface = rootStr + surfaceSoFar.substring(rootStr.length());
+                        this.addCandidates(surface, predefinedMorphemeContainer.getLastState(), predefinedMorphemeContainer.getPhoneticAttributes(), candidates);
+                    }
+                } else {
+                    final SuffixGraphState defaultStateForRoot = suffixFormGraph.getDefaultStateForRoot(root);
+                    if (defaultStateForRoot != null)
+                        this.addCandidates(rootStr, defaultStateForRoot, root.getPhoneticAttributes(), candidates);
+                }
+            }
+        }
+
+        private void addCandidates(String surfaceSoFar, SuffixGraphState state, Set<PhoneticAttribute> phoneticAttributes, Set<String> candidates) {
+            final SuffixFormGraphNode node = suffixFormGraph.getNode(new SuffixFormGraphNodeKey(state, phoneticAttributes));
+            if (node == null)
+                return;
+            for (String completion : this.findCompletions(node, surfaceSoFar.length())) {
+                candidates.add(surfaceSoFar + completion);
+            }
+        }
+
+        /**
+         * Completions of a node which reaches a node being visited, through a cycle of empty suffix forms, are missing
+         * the completions of that node. Thus they are not memoized until the visit of that node is done.
+         */
+        private List<String> findCompletions(SuffixFormGraphNode node, int position) {
+            if (SuffixGraphStateType.TERMINAL.equals(node.getSuffixGraphStateType()))
+                return position == input.length() ? Collections.singletonList("") : Collections.<String>emptyList();
+
+            final Map<SuffixFormGraphNode, List<String>> completionsOfNodes = completionsAtPosition.get(position);
+            final List<String> memoizedCompletions = completionsOfNodes.get(node);
+            if (memoizedCompletions != null)
+                return memoizedCompletions;
+
+            final Map<SuffixFormGraphNode, Integer> visitingNodes = visitingNodesAtPosition.get(position);
+            final Integer depthOfVisitingNode = visitingNodes.get(node);
+            if (depthOfVisitingNode != null) {
+                // a cycle of empty suffix forms; completions of the node are added by its own visit
+                reachedVisitingDepth = Math.min(reachedVisitingDepth, depthOfVisitingNode);
+                return Collections.emptyList();
+            }
+
+            final int depth = visitingDepth++;
+            final int reachedVisitingDepthOfParent = reachedVisitingDepth;
+            reachedVisitingDepth = Integer.MAX_VALUE;
+            visitingNodes.put(node, depth);
+
+            final List<String> completions = new ArrayList<String>();
+            for (SuffixFormGraphSuffixEdge edge : node.getEdges()) {
+                final String suffixForm = edge.getSuffixFormApplication().getActualSuffixForm();
+                if (!this.matchesAt(suffixForm, 0, position))
+                    continue;
+                for (String completion : this.findCompletions(edge.getTargetSuffixFormGraphNode(), position + suffixForm.length())) {
+                    final String newCompletion = suffixForm + completion;
+                    if (!completions.contains(newCompletion))
+                        completions.add(newCompletion);
+                }
+            }
+            visitingNodes.remove(node);
+            visitingDepth--;
+            if (reachedVisitingDepth >= depth) {
+                // only this node is reached again, or none
+                completionsOfNodes.put(node, completions);
+                reachedVisitingDepth = reachedVisitingDepthOfParent;
+            } else {
+                reachedVisitingDepth = Math.min(reachedVisitingDepthOfParent, reachedVisitingDepth);
+            }
+            return completions;
+        }
+
+        /**
+         * @return true if <code>str</code> starting from <code>strOffset</code> matches the input at
+         *         <code>position</code> when ambiguous letters are expanded
+         */
+        private boolean matchesAt(String str, int strOffset, int position) {
+            if (position + str.length() - strOffset > input.length())
+                return false;
+            for (int i = strOffset; i < str.length(); i++) {
+                if (!matches(input.charAt(position + i - strOffset), str.charAt(i)))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
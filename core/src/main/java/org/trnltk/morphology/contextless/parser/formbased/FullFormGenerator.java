@@ -0,0 +1,248 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser.formbased;
+
+import com.google.common.collect.Multimap;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.lexicon.Root;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.model.suffix.SuffixFormApplication;
+import org.trnltk.model.suffix.SuffixTransition;
+import org.trnltk.morphology.contextless.parser.MandatoryTransitionApplier;
+import org.trnltk.morphology.contextless.parser.PredefinedPaths;
+import org.trnltk.morphology.contextless.parser.SuffixApplier;
+import org.trnltk.morphology.morphotactics.SuffixGraphState;
+import org.trnltk.morphology.morphotactics.SuffixGraphStateType;
+
+import java.util.*;
+
+/**
+ * Generates the surfaces of roots with their parse results, by walking the {@link SuffixFormGraph} forward instead of
+ * parsing the surfaces.
+ * <p/>
+ * Starting from the default state of a root (or its predefined paths), every edge of the graph is tried with
+ * {@link SuffixApplier}, thus the same conditions with parsing are checked. Containers reaching a terminal state are
+ * the results.
+ * <p/>
+ * Generated results of a surface are the same with the results of the parser as long as the parser has the
+ * dictionary root finder and no brute force root finders. Surfaces which might have other results are left out:
+ * <ul>
+ * <li>Surfaces which could be continued with more suffixes than the maximum</li>
+ * <li>Surfaces starting with a dictionary root which is not one of the given roots</li>
+ * <li>Surfaces starting with an upper case letter, which might be proper nouns</li>
+ * </ul>
+ */
+public class FullFormGenerator {
+    protected final Logger logger = Logger.getLogger(FullFormGenerator.class);
+
+    private final SuffixFormGraph suffixFormGraph;
+    private final PredefinedPaths predefinedPaths;
+    private final SuffixApplier suffixApplier;
+    private final MandatoryTransitionApplier mandatoryTransitionApplier;
+    private final Multimap<String, ? extends Root> rootMap;
+
+    /**
+     * @param suffixFormGraph Graph of the parser
+     * @param predefinedPaths Predefined paths of the parser, can be null
+     * @param suffixApplier   Suffix applier of the parser
+     * @param rootMap         Dictionary root map of the parser
+     */
+    public FullFormGenerator(SuffixFormGraph suffixFormGraph, PredefinedPaths predefinedPaths, SuffixApplier suffixApplier, Multimap<String, ? extends Root> rootMap) {
+        Validate.notNull(suffixFormGraph);
+        Validate.notNull(suffixApplier);
+        Validate.notNull(rootMap);
+        this.suffixFormGraph = suffixFormGraph;
+        this.predefinedPaths = predefinedPaths;
+        this.suffixApplier = suffixApplier;
+        this.mandatoryTransitionApplier = new MandatoryTransitionApplier(suffixFormGraph.getSuffixGraph(), suffixApplier);
+        this.rootMap = rootMap;
+    }
+
+    /**
+     * @param roots          Roots to generate the surfaces of
+     * @param maxSuffixCount Maximum number of non-empty suffix forms in a surface
+     * @return Generated surfaces and all of their parse results
+     */
+    public Map<String, List<MorphemeContainer>> generate(Collection<? extends Root> roots, int maxSuffixCount) {
+        Validate.notNull(roots);
+        Validate.isTrue(maxSuffixCount >= 0);
+
+        final Generation generation = new Generation(maxSuffixCount);
+        for (Root root : roots) {
+            final List<MorphemeContainer> rootMorphemeContainers = this.findRootMorphemeContainers(root);
+            for (MorphemeContainer morphemeContainer : this.mandatoryTransitionApplier.generateMandatoryTransitionsForMorphemeContainers(rootMorphemeContainers)) {
+                generation.traverse(morphemeContainer, countSuffixForms(morphemeContainer));
+            }
+        }
+
+        final Set<Root> rootSet = new HashSet<Root>(roots);
+        final Map<String, List<MorphemeContainer>> results = new HashMap<String, List<MorphemeContainer>>();
+        for (Map.Entry<String, List<MorphemeContainer>> entry : generation.results.entrySet()) {
+            final String surface = entry.getKey();
+            if (generation.isTruncated(surface) || this.hasOtherRoots(surface, rootSet))
+                continue;
+            results.put(surface, entry.getValue());
+        }
+
+        if (logger.isDebugEnabled())
+            logger.debug(String.format("Generated %d surfaces, kept %d of them", generation.results.size(), results.size()));
+
+        return results;
+    }
+
+    private List<MorphemeContainer> findRootMorphemeContainers(Root root) {
+        final SuffixGraphState defaultStateForRoot = this.suffixFormGraph.getDefaultStateForRoot(root);
+        if (defaultStateForRoot == null)
+            throw new IllegalStateException("No default state found for root " + root);
+
+        if (this.predefinedPaths != null && this.predefinedPaths.hasPathsForRoot(root)) {
+            final List<MorphemeContainer> morphemeContainers = new ArrayList<MorphemeContainer>();
+            for (MorphemeContainer predefinedMorphemeContainer : this.predefinedPaths.getPaths(root)) {
+                morphemeContainers.add(new MorphemeContainer(predefinedMorphemeContainer, predefinedMorphemeContainer.getSurfaceSoFar()));
+            }
+            return morphemeContainers;
+        } else {
+            return Arrays.asList(new MorphemeContainer(root, defaultStateForRoot, ""));
+        }
+    }
+
+    private static int countSuffixForms(MorphemeContainer morphemeContainer) {
+        int count = 0;
+        for (SuffixTransition suffixTransition : morphemeContainer.getSuffixTransitions()) {
+            if (!suffixTransition.getSuffixFormApplication().getActualSuffixForm().isEmpty())
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Lookup is same with {@link org.trnltk.morphology.contextless.rootfinder.DictionaryRootFinder}. Conditions of the
+     * suffixes are not checked, thus a surface might be left out even if the other roots have no results for it.
+     */
+    private boolean hasOtherRoots(String surface, Set<Root> rootSet) {
+        if (Character.isUpperCase(surface.charAt(0)))
+            return true;
+
+        for (int i = 1; i <= surface.length(); i++) {
+            for (Root root : this.rootMap.get(surface.substring(0, i))) {
+                if (rootSet.contains(root))
+                    continue;
+                if (this.predefinedPaths != null && this.predefinedPaths.hasPathsForRoot(root))
+                    return true;
+
+                final SuffixGraphState defaultStateForRoot = this.suffixFormGraph.getDefaultStateForRoot(root);
+                final SuffixFormGraphNode node = this.suffixFormGraph.getNode(new SuffixFormGraphNodeKey(defaultStateForRoot, root.getPhoneticAttributes()));
+                if (node != null && this.canReachTerminal(node, surface, i, new HashSet<SuffixFormGraphNode>()))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean canReachTerminal(SuffixFormGraphNode node, String surface, int position, Set<SuffixFormGraphNode> visitedAtPosition) {
+        if (SuffixGraphStateType.TERMINAL.equals(node.getSuffixGraphStateType()))
+            return position == surface.length();
+        if (!visitedAtPosition.add(node))
+            return false;
+
+        for (SuffixFormGraphSuffixEdge edge : node.getEdges()) {
+            final String actualSuffixForm = edge.getSuffixFormApplication().getActualSuffixForm();
+            if (!surface.startsWith(actualSuffixForm, position))
+                continue;
+            final Set<SuffixFormGraphNode> visited = actualSuffixForm.isEmpty() ? visitedAtPosition : new HashSet<SuffixFormGraphNode>();
+            if (this.canReachTerminal(edge.getTargetSuffixFormGraphNode(), surface, position + actualSuffixForm.length(), visited))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * State of a single {@link #generate(java.util.Collection, int)} call.
+     */
+    private class Generation {
+        private final int maxSuffixCount;
+        private final Map<String, List<MorphemeContainer>> results = new HashMap<String, List<MorphemeContainer>>();
+
+        // surfaces starting with these might have more results which are not generated
+        private final Set<String> truncatedPrefixes = new HashSet<String>();
+        private int minTruncatedPrefixLength = Integer.MAX_VALUE;
+
+        private Generation(int maxSuffixCount) {
+            this.maxSuffixCount = maxSuffixCount;
+        }
+
+        private void traverse(MorphemeContainer morphemeContainer, int suffixFormCount) {
+            if (SuffixGraphStateType.TERMINAL.equals(morphemeContainer.getLastState().getType())) {
+                this.addResult(morphemeContainer);
+                return;
+            }
+
+            final SuffixFormGraphNode node = suffixFormGraph.getNode(new SuffixFormGraphNodeKey(morphemeContainer.getLastState(), morphemeContainer.getPhoneticAttributes()));
+            if (node == null)
+                throw new IllegalStateException("Node not found for state " + morphemeContainer.getLastState() + " of " + morphemeContainer);
+
+            final String surfaceSoFar = morphemeContainer.getSurfaceSoFar().getUnderlyingString();
+            for (SuffixFormGraphSuffixEdge edge : node.getEdges()) {
+                final SuffixFormApplication suffixFormApplication = edge.getSuffixFormApplication();
+                if (morphemeContainer.getSuffixesSinceDerivationSuffix().contains(suffixFormApplication.getSuffixForm().getSuffix()))
+                    continue;
+
+                final String actualSuffixForm = suffixFormApplication.getActualSuffixForm();
+                final boolean emptySuffixForm = actualSuffixForm.isEmpty();
+                final String surface = surfaceSoFar + actualSuffixForm;
+                // like the parser, there is no limit for empty suffix forms as the graph has no cycles of them
+                if (!emptySuffixForm && suffixFormCount >= maxSuffixCount) {
+                    this.addTruncatedPrefix(surface);
+                    continue;
+                }
+
+                final SuffixGraphState targetState = edge.getTargetSuffixFormGraphNode().getSuffixFormGraphNodeKey().getState();
+                final MorphemeContainer newMorphemeContainer = suffixApplier.trySuffixFormApplication(morphemeContainer, suffixFormApplication,
+                        targetState, edge.getPhoneticExpectations(), new TurkishSequence(surface));
+                if (newMorphemeContainer == null)
+                    continue;
+
+                this.traverse(newMorphemeContainer, emptySuffixForm ? suffixFormCount : suffixFormCount + 1);
+            }
+        }
+
+        private void addResult(MorphemeContainer morphemeContainer) {
+            final String surface = morphemeContainer.getSurfaceSoFar().getUnderlyingString();
+            List<MorphemeContainer> surfaceResults = this.results.get(surface);
+            if (surfaceResults == null) {
+                surfaceResults = new ArrayList<MorphemeContainer>(1);
+                this.results.put(surface, surfaceResults);
+            }
+            surfaceResults.add(morphemeContainer);
+        }
+
+        private void addTruncatedPrefix(String prefix) {
+            this.truncatedPrefixes.add(prefix);
+            this.minTruncatedPrefixLength = Math.min(this.minTruncatedPrefixLength, prefix.length());
+        }
+
+        private boolean isTruncated(String surface) {
+            for (int i = minTruncatedPrefixLength; i <= surface.length(); i++) {
+                if (this.truncatedPrefixes.contains(surface.substring(0, i)))
+                    return true;
+            }
+            return false;
+        }
+    }
+}
@@ -32,6 +32,7 @@ import org.trnltk.morphology.contextless.parser.MandatoryTransitionApplier;
 import org.trnltk.morphology.contextless.parser.MorphologicParser;
 import org.trnltk.morphology.contextless.parser.PredefinedPaths;
 import org.trnltk.morphology.contextless.parser.SuffixApplier;
+import org.trnltk.morphology.contextless.rootfinder.InputShape;
 import org.trnltk.morphology.contextless.rootfinder.RootFinderChain;
 import org.trnltk.morphology.morphotactics.SuffixEdge;
 import org.trnltk.morphology.morphotactics.SuffixGraph;
@@ -218,10 +219,13 @@ public class ContextlessMorphologicParser implements MorphologicParser {
     private LinkedList<MorphemeContainer> findInitialMorphemeContainers(final TurkishSequence input) {
         final LinkedList<MorphemeContainer> candidates = new LinkedList<MorphemeContainer>();
 
+        // shape is calculated once for all partial inputs
+        final InputShape inputShape = InputShape.of(input);
+
         for (int i = 1; i < input.length() + 1; i++) {
             final TurkishSequence partialInput = input.subsequence(0, i);
 
-            final List<Root> roots = this.rootFinderChain.findRootsForPartialInput(partialInput, input);
+            final List<Root> roots = this.rootFinderChain.findRootsForPartialInput(partialInput, input, inputShape);
 
 
             if (logger.isDebugEnabled()) {
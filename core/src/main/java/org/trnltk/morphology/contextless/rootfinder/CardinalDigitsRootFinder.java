@@ -23,14 +23,13 @@ import org.trnltk.model.lexicon.Root;
 import org.trnltk.model.letter.TurkishSequence;
 import org.trnltk.model.lexicon.SecondaryPos;
 import org.trnltk.numeral.DigitsToTextConverter;
-import org.trnltk.morphology.phonetics.PhoneticsAnalyzer;
 import org.trnltk.model.lexicon.PhoneticAttribute;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Pattern;
 
-public class CardinalDigitsRootFinder implements RootFinder {
+public class CardinalDigitsRootFinder implements ShapeAwareRootFinder {
 
     // TODO: how about marking "10." as Ordinal?
     // TODO: how about marking "10%" as Percentage?
@@ -46,11 +45,16 @@ public class CardinalDigitsRootFinder implements RootFinder {
     private static final char FRACTION_SEPARATOR = ',';
 
     private final DigitsToTextConverter digitsToTextConverter;
-    private final PhoneticsAnalyzer phoneticsAnalyzer;
+    private final NumeralPhoneticAttributesCache phoneticAttributesCache;
 
     public CardinalDigitsRootFinder() {
         this.digitsToTextConverter = new DigitsToTextConverter();
-        this.phoneticsAnalyzer = new PhoneticsAnalyzer();
+        this.phoneticAttributesCache = new NumeralPhoneticAttributesCache();
+    }
+
+    @Override
+    public boolean handlesShape(InputShape shape) {
+        return shape.has(InputShape.Feature.HAS_DIGITS);
     }
 
     @Override
@@ -104,11 +108,21 @@ public class CardinalDigitsRootFinder implements RootFinder {
         return false;
     }
 
+    @Override
+    public boolean handles(TurkishSequence partialInput, TurkishSequence input, InputShape shape) {
+        if (partialInput != null && partialInput.length() > shape.getNumericPrefixLength())
+            // there is a char which cannot be in a number
+            return false;
+
+        return this.handles(partialInput, input);
+    }
+
     @Override
     public List<Root> findRootsForPartialInput(final TurkishSequence partialInput, final TurkishSequence input) {
         final String partialInputUnderlyingString = partialInput.getUnderlyingString();
         final String underlyingNumeralText = digitsToTextConverter.convert(partialInputUnderlyingString);
-        final ImmutableSet<PhoneticAttribute> phoneticAttributes = ImmutableSet.copyOf(this.phoneticsAnalyzer.calculatePhoneticAttributes(underlyingNumeralText, null));
+        final ImmutableSet<PhoneticAttribute> phoneticAttributes = this.phoneticAttributesCache.getPhoneticAttributes(
+                NumeralPhoneticAttributesCache.createKey(partialInputUnderlyingString), underlyingNumeralText);
         return Arrays.asList((Root) new NumeralRoot(partialInput, underlyingNumeralText, SecondaryPos.DigitsCardinal, phoneticAttributes));
     }
 
@@ -0,0 +1,180 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.rootfinder;
+
+import org.trnltk.model.letter.TurkishSequence;
+
+/**
+ * Shape of a whole surface, which is calculated with a single scan of the surface before the roots are searched.
+ * <p/>
+ * {@link RootFinderChain} uses the features of the shape to skip the {@link ShapeAwareRootFinder}s which cannot
+ * handle the surface, and the root finders use the rest of the scan results instead of scanning the surface again.
+ */
+public final class InputShape {
+
+    public enum Feature {
+        /**
+         * All chars are letters, e.g. "kitap"
+         */
+        LETTERS_ONLY,
+
+        /**
+         * There is at least one digit, e.g. "3'te" or "1-2"
+         */
+        HAS_DIGITS,
+
+        /**
+         * There is at least one apostrophe, e.g. "Ankara'da"
+         */
+        HAS_APOSTROPHE,
+
+        /**
+         * First char is upper case, e.g. "Ankara"
+         */
+        CAPITALIZED,
+
+        /**
+         * All chars are punctuation or symbols, e.g. "..." or "+"
+         */
+        PUNCTUATION_ONLY;
+
+        private int mask() {
+            return 1 << this.ordinal();
+        }
+    }
+
+    static final int FEATURE_COMBINATION_COUNT = 1 << Feature.values().length;
+
+    private static final char APOSTROPHE = '\'';
+
+    private final int features;
+    private final int lastApostropheIndex;
+    private final int numericPrefixLength;
+
+    private InputShape(int features, int lastApostropheIndex, int numericPrefixLength) {
+        this.features = features;
+        this.lastApostropheIndex = lastApostropheIndex;
+        this.numericPrefixLength = numericPrefixLength;
+    }
+
+    /**
+     * @return Shape with the given features only, used for finding out which root finders handle which features
+     */
+    static InputShape ofFeatures(int features) {
+        return new InputShape(features, -1, 0);
+    }
+
+    public static InputShape of(TurkishSequence input) {
+        return input == null ? ofFeatures(0) : of(input.getUnderlyingString());
+    }
+
+    public static InputShape of(String input) {
+        final int length = input.length();
+        if (length == 0)
+            return ofFeatures(0);
+
+        boolean lettersOnly = true;
+        boolean hasDigits = false;
+        boolean punctuationOnly = true;
+        int lastApostropheIndex = -1;
+        int numericPrefixLength = -1;
+
+        for (int i = 0; i < length; ) {
+            final int codePoint = input.codePointAt(i);
+            if (numericPrefixLength < 0 && !isNumeric(codePoint))
+                numericPrefixLength = i;
+            if (codePoint == APOSTROPHE)
+                lastApostropheIndex = i;
+            lettersOnly &= Character.isLetter(codePoint);
+            hasDigits |= Character.isDigit(codePoint);
+            punctuationOnly &= isPunctuation(codePoint);
+            i += Character.charCount(codePoint);
+        }
+
+        int features = 0;
+        if (lettersOnly)
+            features |= Feature.LETTERS_ONLY.mask();
+        if (hasDigits)
+            features |= Feature.HAS_DIGITS.mask();
+        if (lastApostropheIndex >= 0)
+            features |= Feature.HAS_APOSTROPHE.mask();
+        if (Character.isUpperCase(input.charAt(0)))
+            features |= Feature.CAPITALIZED.mask();
+        if (punctuationOnly)
+            features |= Feature.PUNCTUATION_ONLY.mask();
+
+        return new InputShape(features, lastApostropheIndex, numericPrefixLength < 0 ? length : numericPrefixLength);
+    }
+
+    private static boolean isNumeric(int codePoint) {
+        return (codePoint >= '0' && codePoint <= '9') || codePoint == '.' || codePoint == ',' || codePoint == '-' || codePoint == '+';
+    }
+
+    /**
+     * Same categories with {@link PuncRootFinder}
+     */
+    private static boolean isPunctuation(int codePoint) {
+        switch (Character.getType(codePoint)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.MATH_SYMBOL:
+            case Character.OTHER_SYMBOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public boolean has(Feature feature) {
+        return (this.features & feature.mask()) != 0;
+    }
+
+    int getFeatures() {
+        return features;
+    }
+
+    /**
+     * @return Index of the last apostrophe in the surface, -1 if there is none
+     */
+    public int getLastApostropheIndex() {
+        return lastApostropheIndex;
+    }
+
+    /**
+     * @return Length of the beginning of the surface, which has only the digits and the chars in numbers like
+     *         '.', ',', '-' and '+'. E.g. 5 for "1.000'den"
+     */
+    public int getNumericPrefixLength() {
+        return numericPrefixLength;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("InputShape{");
+        for (Feature feature : Feature.values()) {
+            if (this.has(feature))
+                builder.append(feature).append(' ');
+        }
+        return builder.append("lastApostropheIndex=").append(lastApostropheIndex)
+                .append(", numericPrefixLength=").append(numericPrefixLength).append('}').toString();
+    }
+}
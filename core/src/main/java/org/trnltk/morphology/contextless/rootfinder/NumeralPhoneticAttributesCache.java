@@ -0,0 +1,117 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.rootfinder;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.StringUtils;
+import org.trnltk.model.lexicon.PhoneticAttribute;
+import org.trnltk.morphology.phonetics.PhoneticsAnalyzer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the phonetic attributes of numeral texts, with keys created from the digits.
+ * <p/>
+ * Phonetic attributes of a numeral text depend only on its first letter and its last word, since every numeral word
+ * has a vowel. First word depends on the sign, leading zeros, the first digit and the number of digits; e.g. "1" is
+ * "bir", "1000" is "bin" and "100" is "yüz". Last word depends on the last non-zero digit and the number of zeros
+ * after it; e.g. "25" ends with "beş", "250" with "elli" and "25000" with "bin". Thus "1.234'te" and "1.934'te"
+ * have the same key.
+ */
+class NumeralPhoneticAttributesCache {
+    // there are a few hundred keys for the numbers in practice, the limit is just a safety net
+    private static final int MAX_SIZE = 10000;
+
+    private static final char GROUPING_SEPARATOR = '.';
+    private static final char FRACTION_SEPARATOR = ',';
+
+    private final ConcurrentMap<String, ImmutableSet<PhoneticAttribute>> cache = new ConcurrentHashMap<String, ImmutableSet<PhoneticAttribute>>();
+    private final PhoneticsAnalyzer phoneticsAnalyzer = new PhoneticsAnalyzer();
+
+    /**
+     * @param key                   Key created for the digits of the numeral text
+     * @param underlyingNumeralText Text to calculate the attributes of, if they are not in the cache
+     */
+    ImmutableSet<PhoneticAttribute> getPhoneticAttributes(String key, String underlyingNumeralText) {
+        ImmutableSet<PhoneticAttribute> phoneticAttributes = this.cache.get(key);
+        if (phoneticAttributes == null) {
+            phoneticAttributes = Sets.immutableEnumSet(this.phoneticsAnalyzer.calculatePhoneticAttributes(underlyingNumeralText, null));
+            if (this.cache.size() < MAX_SIZE)
+                this.cache.putIfAbsent(key, phoneticAttributes);
+        }
+        return phoneticAttributes;
+    }
+
+    /**
+     * @param digits Digits of a cardinal number, like "-1.234,50"
+     */
+    static String createKey(String digits) {
+        digits = StringUtils.remove(digits, GROUPING_SEPARATOR);
+
+        boolean negative = false;
+        if (digits.charAt(0) == '-' || digits.charAt(0) == '+') {
+            negative = digits.charAt(0) == '-';
+            digits = digits.substring(1);
+        }
+
+        final int indexOfFractionSeparator = digits.indexOf(FRACTION_SEPARATOR);
+        final String integerPart = indexOfFractionSeparator < 0 ? digits : digits.substring(0, indexOfFractionSeparator);
+        final String lastPart = indexOfFractionSeparator < 0 ? integerPart : digits.substring(indexOfFractionSeparator + 1);
+
+        // "eksi" is not written for zero
+        final String firstWordKey = negative && !isZero(integerPart) ? "-" : createFirstWordKey(integerPart);
+        return firstWordKey + (indexOfFractionSeparator < 0 ? "|" : ",") + createLastWordKey(lastPart);
+    }
+
+    /**
+     * @param firstDigits Digits of the first number in the text, without a sign or a fraction
+     * @param lastDigits  Digits of the last number in the text, without a sign or a fraction
+     */
+    static String createKey(String firstDigits, String lastDigits) {
+        return createFirstWordKey(StringUtils.remove(firstDigits, GROUPING_SEPARATOR)) + "|" +
+                createLastWordKey(StringUtils.remove(lastDigits, GROUPING_SEPARATOR));
+    }
+
+    private static String createFirstWordKey(String naturalNumberDigits) {
+        final int length = naturalNumberDigits.length();
+        if (length > 1 && naturalNumberDigits.charAt(0) == '0')
+            // leading zeros are written as "sıfır"
+            return "0";
+
+        // position of the first digit in its group of 3 digits and whether it is "bin" instead of "bir bin"
+        return naturalNumberDigits.charAt(0) + String.valueOf((length - 1) % 3) + (length == 4 ? "t" : "");
+    }
+
+    private static String createLastWordKey(String naturalNumberDigits) {
+        int indexOfLastNonZeroDigit = naturalNumberDigits.length() - 1;
+        while (indexOfLastNonZeroDigit >= 0 && naturalNumberDigits.charAt(indexOfLastNonZeroDigit) == '0')
+            indexOfLastNonZeroDigit--;
+
+        if (indexOfLastNonZeroDigit < 0)
+            // "sıfır"
+            return "0";
+
+        final int numberOfTrailingZeros = naturalNumberDigits.length() - 1 - indexOfLastNonZeroDigit;
+        return naturalNumberDigits.charAt(indexOfLastNonZeroDigit) + String.valueOf(numberOfTrailingZeros);
+    }
+
+    private static boolean isZero(String naturalNumberDigits) {
+        return StringUtils.containsOnly(naturalNumberDigits, '0');
+    }
+}
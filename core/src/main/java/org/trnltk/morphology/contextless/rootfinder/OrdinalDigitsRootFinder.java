@@ -23,7 +23,6 @@ import org.trnltk.model.letter.TurkishSequence;
 import org.trnltk.model.lexicon.*;
 import org.trnltk.model.suffix.SuffixFormSequence;
 import org.trnltk.morphology.morphotactics.SuffixFormSequenceApplier;
-import org.trnltk.morphology.phonetics.PhoneticsAnalyzer;
 import org.trnltk.morphology.phonetics.PhoneticsEngine;
 import org.trnltk.numeral.DigitsToTextConverter;
 
@@ -32,7 +31,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.regex.Pattern;
 
-public class OrdinalDigitsRootFinder implements RootFinder {
+public class OrdinalDigitsRootFinder implements ShapeAwareRootFinder {
 
     private static List<Pattern> NUMBER_REGEXES = Arrays.asList(
             Pattern.compile("^[-+]?\\d+\\.$"),
@@ -46,14 +45,19 @@ public class OrdinalDigitsRootFinder implements RootFinder {
 
     private final PhoneticsEngine phoneticsEngine;
     private final DigitsToTextConverter digitsToTextConverter;
-    private final PhoneticsAnalyzer phoneticsAnalyzer;
+    private final NumeralPhoneticAttributesCache phoneticAttributesCache;
 
     public OrdinalDigitsRootFinder() {
         this.digitsToTextConverter = new DigitsToTextConverter();
-        this.phoneticsAnalyzer = new PhoneticsAnalyzer();
+        this.phoneticAttributesCache = new NumeralPhoneticAttributesCache();
         this.phoneticsEngine = new PhoneticsEngine(new SuffixFormSequenceApplier());
     }
 
+    @Override
+    public boolean handlesShape(InputShape shape) {
+        return shape.has(InputShape.Feature.HAS_DIGITS);
+    }
+
     @Override
     public boolean handles(TurkishSequence partialInput, TurkishSequence input) {
         if (partialInput == null || partialInput.isBlank())
@@ -87,6 +91,15 @@ public class OrdinalDigitsRootFinder implements RootFinder {
         return false;
     }
 
+    @Override
+    public boolean handles(TurkishSequence partialInput, TurkishSequence input, InputShape shape) {
+        if (partialInput != null && partialInput.length() > shape.getNumericPrefixLength())
+            // there is a char which cannot be in a number
+            return false;
+
+        return this.handles(partialInput, input);
+    }
+
     @Override
     public List<Root> findRootsForPartialInput(final TurkishSequence partialInput, final TurkishSequence input) {
         final String partialInputUnderlyingString = partialInput.getUnderlyingString();
@@ -94,7 +107,8 @@ public class OrdinalDigitsRootFinder implements RootFinder {
         final String underlyingNumeralTextWithoutOrdinal = digitsToTextConverter.convert(strNumeralWithoutOrdinalChar);
         final boolean voicingAllowed = voicingAllowed(strNumeralWithoutOrdinalChar);
         final String underlyingNumeralText = this.applyOrdinalText(underlyingNumeralTextWithoutOrdinal, voicingAllowed);
-        final ImmutableSet<PhoneticAttribute> phoneticAttributes = ImmutableSet.copyOf(this.phoneticsAnalyzer.calculatePhoneticAttributes(underlyingNumeralText, null));
+        final ImmutableSet<PhoneticAttribute> phoneticAttributes = this.phoneticAttributesCache.getPhoneticAttributes(
+                NumeralPhoneticAttributesCache.createKey(strNumeralWithoutOrdinalChar), underlyingNumeralText);
         return Arrays.asList((Root) new NumeralRoot(partialInput, underlyingNumeralText, SecondaryPos.DigitsOrdinal, phoneticAttributes));
     }
 
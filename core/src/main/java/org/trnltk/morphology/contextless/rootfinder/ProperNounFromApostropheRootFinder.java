@@ -29,12 +29,22 @@ import org.trnltk.model.letter.TurkishChar;
 import java.util.Arrays;
 import java.util.List;
 
-public class ProperNounFromApostropheRootFinder implements RootFinder {
+public class ProperNounFromApostropheRootFinder implements ShapeAwareRootFinder {
     private static final char APOSTROPHE = '\'';
     private static final TurkishChar TURKISH_CHAR_E_UPPERCASE = TurkishAlphabet.getChar('E');
 
     private final PhoneticsAnalyzer phoneticsAnalyzer = new PhoneticsAnalyzer();
 
+    @Override
+    public boolean handlesShape(InputShape shape) {
+        return shape.has(InputShape.Feature.CAPITALIZED) && shape.has(InputShape.Feature.HAS_APOSTROPHE);
+    }
+
+    @Override
+    public boolean handles(TurkishSequence partialInput, TurkishSequence input, InputShape shape) {
+        return this.handles(partialInput, input);
+    }
+
     @Override
     public boolean handles(TurkishSequence partialInput, TurkishSequence input) {
         if (partialInput == null || partialInput.isBlank())
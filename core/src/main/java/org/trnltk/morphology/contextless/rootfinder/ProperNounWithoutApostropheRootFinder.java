@@ -28,12 +28,29 @@ import org.trnltk.morphology.phonetics.PhoneticsAnalyzer;
 import java.util.Arrays;
 import java.util.List;
 
-public class ProperNounWithoutApostropheRootFinder implements RootFinder {
+public class ProperNounWithoutApostropheRootFinder implements ShapeAwareRootFinder {
     private static final char APOSTROPHE = '\'';
     private static final TurkishChar TURKISH_CHAR_E_UPPERCASE = TurkishAlphabet.getChar('E');
 
     private final PhoneticsAnalyzer phoneticsAnalyzer = new PhoneticsAnalyzer();
 
+    @Override
+    public boolean handlesShape(InputShape shape) {
+        return shape.has(InputShape.Feature.CAPITALIZED) && !shape.has(InputShape.Feature.HAS_APOSTROPHE);
+    }
+
+    @Override
+    public boolean handles(TurkishSequence partialInput, TurkishSequence wholeSurface, InputShape shape) {
+        if (partialInput == null || partialInput.isBlank())
+            return false;
+
+        if (wholeSurface == null || wholeSurface.isBlank())
+            return false;
+
+        // the case with apostrophe is handled by ProperNounFromApostropheRootFinder
+        return shape.has(InputShape.Feature.CAPITALIZED) && !shape.has(InputShape.Feature.HAS_APOSTROPHE);
+    }
+
     @Override
     public boolean handles(TurkishSequence partialInput, TurkishSequence wholeSurface) {
         if (partialInput == null || partialInput.isBlank())
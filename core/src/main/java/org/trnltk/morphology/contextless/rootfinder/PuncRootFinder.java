@@ -27,7 +27,7 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 
-public class PuncRootFinder implements RootFinder {
+public class PuncRootFinder implements ShapeAwareRootFinder {
 
     /**
      * You can check types defined in java.lang.Character class. such as START_PUNCTUATION
@@ -46,6 +46,20 @@ public class PuncRootFinder implements RootFinder {
      */
     private static final Pattern ALL_PUNC_PATTERN = Pattern.compile("^(\\p{Pc}|\\p{Pd}|\\p{Pe}|\\p{Pf}|\\p{Pi}|\\p{Po}|\\p{Ps}|\\p{Sm}|\\p{So})+$");
 
+    @Override
+    public boolean handlesShape(InputShape shape) {
+        return shape.has(InputShape.Feature.PUNCTUATION_ONLY);
+    }
+
+    @Override
+    public boolean handles(TurkishSequence partialInput, TurkishSequence input, InputShape shape) {
+        if (partialInput == null || partialInput.isBlank())
+            return false;
+
+        // shape is calculated with the same categories with ALL_PUNC_PATTERN
+        return partialInput.length() == input.length() && shape.has(InputShape.Feature.PUNCTUATION_ONLY);
+    }
+
     @Override
     public boolean handles(TurkishSequence partialInput, TurkishSequence input) {
         if (partialInput == null || partialInput.isBlank())
@@ -23,14 +23,13 @@ import org.trnltk.model.lexicon.NumeralRoot;
 import org.trnltk.model.lexicon.PhoneticAttribute;
 import org.trnltk.model.lexicon.Root;
 import org.trnltk.model.lexicon.SecondaryPos;
-import org.trnltk.morphology.phonetics.PhoneticsAnalyzer;
 import org.trnltk.numeral.DigitsToTextConverter;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Pattern;
 
-public class RangeDigitsRootFinder implements RootFinder {
+public class RangeDigitsRootFinder implements ShapeAwareRootFinder {
 
     private static List<Pattern> NUMBER_REGEXES = Arrays.asList(
             // ^(NormalNr or GroupedNr) ( RangeOp [NormalNr or GroupedNr] )* RangeOp (NormalNr or GroupedNr)$
@@ -42,11 +41,16 @@ public class RangeDigitsRootFinder implements RootFinder {
     private static final char APOSTROPHE = '\'';
 
     private final DigitsToTextConverter digitsToTextConverter;
-    private final PhoneticsAnalyzer phoneticsAnalyzer;
+    private final NumeralPhoneticAttributesCache phoneticAttributesCache;
 
     public RangeDigitsRootFinder() {
         this.digitsToTextConverter = new DigitsToTextConverter();
-        this.phoneticsAnalyzer = new PhoneticsAnalyzer();
+        this.phoneticAttributesCache = new NumeralPhoneticAttributesCache();
+    }
+
+    @Override
+    public boolean handlesShape(InputShape shape) {
+        return shape.has(InputShape.Feature.HAS_DIGITS);
     }
 
     @Override
@@ -84,11 +88,23 @@ public class RangeDigitsRootFinder implements RootFinder {
         return false;
     }
 
+    @Override
+    public boolean handles(TurkishSequence partialInput, TurkishSequence input, InputShape shape) {
+        if (partialInput != null && partialInput.length() > shape.getNumericPrefixLength())
+            // there is a char which cannot be in a range
+            return false;
+
+        return this.handles(partialInput, input);
+    }
+
     @Override
     public List<Root> findRootsForPartialInput(final TurkishSequence partialInput, final TurkishSequence input) {
         final String partialInputUnderlyingString = partialInput.getUnderlyingString();
         final String underlyingNumeralText = this.getUnderlyingNumeralTextForRange(partialInputUnderlyingString);
-        final ImmutableSet<PhoneticAttribute> phoneticAttributes = ImmutableSet.copyOf(this.phoneticsAnalyzer.calculatePhoneticAttributes(underlyingNumeralText, null));
+        final String phoneticAttributesKey = NumeralPhoneticAttributesCache.createKey(
+                partialInputUnderlyingString.substring(0, partialInputUnderlyingString.indexOf(RANGE_CHAR)),
+                partialInputUnderlyingString.substring(partialInputUnderlyingString.lastIndexOf(RANGE_CHAR) + 1));
+        final ImmutableSet<PhoneticAttribute> phoneticAttributes = this.phoneticAttributesCache.getPhoneticAttributes(phoneticAttributesKey, underlyingNumeralText);
         return Arrays.asList((Root) new NumeralRoot(partialInput, underlyingNumeralText, SecondaryPos.Range, phoneticAttributes));
     }
 
@@ -21,14 +21,23 @@ import org.apache.commons.lang3.Validate;
 import org.trnltk.model.lexicon.Root;
 import org.trnltk.model.letter.TurkishSequence;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
+/**
+ * Finds the roots for a partial input with the offered {@link RootFinder}s, in the order they are offered.
+ * <p/>
+ * Chain is compiled into a list of root finders for each combination of {@link InputShape} features, thus the
+ * {@link ShapeAwareRootFinder}s which cannot handle the shape of the surface are never called.
+ */
 public class RootFinderChain {
 
     private RootValidator rootValidator;
     private LinkedList<RootFinderChainItem> rootFinderChainItems = new LinkedList<RootFinderChainItem>();
+    // compiled lazily, as root finders are offered after the chain is created
+    private volatile RootFinderChainItem[][] rootFinderChainItemsByShapeFeatures;
 
     public RootFinderChain(RootValidator rootValidator) {
         this.rootValidator = rootValidator;
@@ -43,16 +52,40 @@ public class RootFinderChain {
                         rootFinder.getClass().getName()));
         }
         this.rootFinderChainItems.offer(new RootFinderChainItem(rootFinder, rootFinderPolicy));
+        this.rootFinderChainItemsByShapeFeatures = null;
         return this;
     }
 
+    /**
+     * Calculates the shape of the input for every partial input, use
+     * {@link #findRootsForPartialInput(org.trnltk.model.letter.TurkishSequence, org.trnltk.model.letter.TurkishSequence, InputShape)}
+     * when finding roots for all partial inputs of an input.
+     */
     public List<Root> findRootsForPartialInput(TurkishSequence partialInput, TurkishSequence input) {
+        return this.findRootsForPartialInput(partialInput, input, InputShape.of(input));
+    }
+
+    /**
+     * @param partialInput Partial surface
+     * @param input        Whole surface
+     * @param inputShape   Shape of the whole surface
+     */
+    public List<Root> findRootsForPartialInput(TurkishSequence partialInput, TurkishSequence input, InputShape inputShape) {
+        RootFinderChainItem[][] itemsByShapeFeatures = this.rootFinderChainItemsByShapeFeatures;
+        if (itemsByShapeFeatures == null) {
+            itemsByShapeFeatures = this.compile();
+            this.rootFinderChainItemsByShapeFeatures = itemsByShapeFeatures;
+        }
+
         LinkedList<Root> roots = new LinkedList<Root>();
-        for (RootFinderChainItem rootFinderChainItem : rootFinderChainItems) {
+        for (RootFinderChainItem rootFinderChainItem : itemsByShapeFeatures[inputShape.getFeatures()]) {
             final RootFinder rootFinder = rootFinderChainItem.getRootFinder();
             final RootFinderPolicy rootFinderPolicy = rootFinderChainItem.getRootFinderPolicy();
 
-            if (!rootFinder.handles(partialInput, input))
+            if (rootFinder instanceof ShapeAwareRootFinder) {
+                if (!((ShapeAwareRootFinder) rootFinder).handles(partialInput, input, inputShape))
+                    continue;
+            } else if (!rootFinder.handles(partialInput, input))
                 continue;
             final Collection<? extends Root> rootsForPartialInput = rootFinder.findRootsForPartialInput(partialInput, input);
             if (CollectionUtils.isNotEmpty(rootsForPartialInput)) {
@@ -75,6 +108,25 @@ public class RootFinderChain {
         return roots;
     }
 
+    /**
+     * Leaving out a root finder which doesn't handle the input doesn't change the results, since it would be skipped
+     * even if its policy is {@link RootFinderPolicy#STOP_CHAIN_WHEN_INPUT_IS_HANDLED}.
+     */
+    private RootFinderChainItem[][] compile() {
+        final RootFinderChainItem[][] itemsByShapeFeatures = new RootFinderChainItem[InputShape.FEATURE_COMBINATION_COUNT][];
+        for (int features = 0; features < InputShape.FEATURE_COMBINATION_COUNT; features++) {
+            final InputShape shape = InputShape.ofFeatures(features);
+            final List<RootFinderChainItem> items = new ArrayList<RootFinderChainItem>();
+            for (RootFinderChainItem rootFinderChainItem : this.rootFinderChainItems) {
+                final RootFinder rootFinder = rootFinderChainItem.getRootFinder();
+                if (!(rootFinder instanceof ShapeAwareRootFinder) || ((ShapeAwareRootFinder) rootFinder).handlesShape(shape))
+                    items.add(rootFinderChainItem);
+            }
+            itemsByShapeFeatures[features] = items.toArray(new RootFinderChainItem[items.size()]);
+        }
+        return itemsByShapeFeatures;
+    }
+
     public boolean hasRootFinders() {
         return !rootFinderChainItems.isEmpty();
     }
@@ -0,0 +1,47 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.rootfinder;
+
+import org.trnltk.model.letter.TurkishSequence;
+
+/**
+ * A {@link RootFinder} which tells the shapes of the surfaces it could handle, so that it is not called at all for
+ * the other surfaces.
+ *
+ * @see InputShape
+ */
+public interface ShapeAwareRootFinder extends RootFinder {
+
+    /**
+     * Decision must depend on only the features of the shape (see {@link InputShape#has(InputShape.Feature)}), since
+     * it is done once for each combination of features when the {@link RootFinderChain} is compiled.
+     *
+     * @return false if no partial input of a surface with the given shape could be handled
+     */
+    public boolean handlesShape(InputShape shape);
+
+    /**
+     * Same with {@link RootFinder#handles(org.trnltk.model.letter.TurkishSequence, org.trnltk.model.letter.TurkishSequence)},
+     * but uses the scan results of the whole surface in the shape.
+     *
+     * @param partialInput Partial surface
+     * @param wholeSurface Whole surface
+     * @param shape        Shape of the whole surface
+     * @return true if partial input could be handled
+     */
+    public boolean handles(TurkishSequence partialInput, TurkishSequence wholeSurface, InputShape shape);
+}
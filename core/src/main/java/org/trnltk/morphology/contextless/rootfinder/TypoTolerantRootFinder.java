@@ -0,0 +1,194 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.rootfinder;
+
+import com.google.common.collect.Multimap;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.lexicon.CorrectedRoot;
+import org.trnltk.model.lexicon.Root;
+import org.trnltk.morphology.lexicon.RootKeyIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds the dictionary roots which are a few edits away from the partial input, for parsing misspelled surfaces.
+ * <p/>
+ * Sorted root keys are walked like a trie with a Levenshtein automaton: the state of the automaton is the edit
+ * distance row of the current key prefix against the partial input, and a prefix is not extended when all of the
+ * distances in its row exceed the maximum. Transposition of adjacent letters is counted as a single edit.
+ * <p/>
+ * Maximum edit distance depends on the length of the partial input: no edits for less than 3 letters, a single edit
+ * for less than 6 letters and the given maximum (at most 2) otherwise. Exact matches are not returned, since they
+ * are found by {@link DictionaryRootFinder}.
+ * <p/>
+ * Like {@link DictionaryRootFinder}, a capitalized first letter of the partial input also matches its lowercase form
+ * without an edit, thus a root is found once with its minimum distance.
+ * <p/>
+ * Number of visited trie nodes for a partial input is limited; when the limit is reached, the roots found so far are
+ * returned.
+ *
+ * @see CorrectedRoot
+ * @see org.trnltk.morphology.contextless.parser.TypoTolerantMorphologicParser
+ */
+public class TypoTolerantRootFinder implements RootFinder {
+    protected final Logger logger = Logger.getLogger(TypoTolerantRootFinder.class);
+
+    public static final int MAX_EDIT_DISTANCE = 2;
+
+    private final Multimap<String, ? extends Root> rootMap;
+    private final RootKeyIndex rootKeyIndex;
+    private final int maxEditDistance;
+    private final int maxVisitedNodes;
+
+    /**
+     * @param rootMap         Dictionary root map
+     * @param maxEditDistance Maximum number of edits, 1 or 2
+     * @param maxVisitedNodes Maximum number of trie nodes to visit for a partial input
+     */
+    public TypoTolerantRootFinder(Multimap<String, ? extends Root> rootMap, int maxEditDistance, int maxVisitedNodes) {
+        Validate.notNull(rootMap);
+        Validate.isTrue(maxEditDistance > 0 && maxEditDistance <= MAX_EDIT_DISTANCE, "Max edit distance must be between 1 and " + MAX_EDIT_DISTANCE);
+        Validate.isTrue(maxVisitedNodes > 0, "Max number of visited nodes must be positive");
+        this.rootMap = rootMap;
+        this.rootKeyIndex = new RootKeyIndex(rootMap);
+        this.maxEditDistance = maxEditDistance;
+        this.maxVisitedNodes = maxVisitedNodes;
+    }
+
+    @Override
+    public boolean handles(TurkishSequence partialInput, TurkishSequence wholeSurface) {
+        return partialInput != null && !partialInput.isBlank() && this.getMaxEditDistance(partialInput.length()) > 0;
+    }
+
+    @Override
+    public Collection<CorrectedRoot> findRootsForPartialInput(TurkishSequence partialInput, TurkishSequence wholeSurface) {
+        final String partialInputStr = partialInput.getUnderlyingString();
+        final int maxEditDistance = this.getMaxEditDistance(partialInputStr.length());
+        final String[] sortedKeys = this.rootKeyIndex.getSortedKeys();
+
+        final List<CorrectedRoot> roots = new ArrayList<CorrectedRoot>();
+        final int remainingNodes = this.walk(sortedKeys, partialInput, partialInputStr, maxEditDistance, this.maxVisitedNodes, roots);
+
+        if (remainingNodes <= 0 && logger.isDebugEnabled())
+            logger.debug("Max number of visited nodes reached for partial input " + partialInput);
+
+        return roots;
+    }
+
+    private int getMaxEditDistance(int length) {
+        if (length < 3)
+            return 0;
+        else if (length < 6)
+            return 1;
+        else
+            return this.maxEditDistance;
+    }
+
+    /**
+     * @return Number of nodes which can still be visited
+     */
+    private int walk(String[] sortedKeys, TurkishSequence partialInput, String query, int maxEditDistance, int maxVisitedNodes, List<CorrectedRoot> roots) {
+        final int queryLength = query.length();
+        // lookup is same with DictionaryRootFinder
+        final char lowerCaseFirstQueryChar = Character.toLowerCase(query.charAt(0));
+
+        // a prefix longer than this is always more than maxEditDistance edits away
+        final int maxDepth = queryLength + maxEditDistance + 1;
+        final int[][] rows = new int[maxDepth + 1][queryLength + 1];
+        for (int j = 0; j <= queryLength; j++) {
+            rows[0][j] = j;
+        }
+
+        int remainingNodes = maxVisitedNodes;
+        int validDepth = 0;
+        String previousKey = "";
+        int i = 0;
+        keys:
+        while (i < sortedKeys.length) {
+            final String key = sortedKeys[i];
+
+            // rows of the common prefix with the previous key are already computed
+            int depth = Math.min(validDepth, commonPrefixLength(previousKey, key));
+            while (depth < key.length()) {
+                if (remainingNodes-- <= 0)
+                    return 0;
+
+                final int minDistance = computeRow(rows, depth + 1, key, query, lowerCaseFirstQueryChar);
+                depth++;
+                if (minDistance > maxEditDistance) {
+                    i = RootKeyIndex.skipKeysStartingWith(sortedKeys, key.substring(0, depth), i);
+                    validDepth = depth - 1;
+                    previousKey = key;
+                    continue keys;
+                }
+            }
+
+            final int editDistance = rows[key.length()][queryLength];
+            if (editDistance > 0 && editDistance <= maxEditDistance) {
+                for (Root root : this.rootMap.get(key)) {
+                    roots.add(new CorrectedRoot(partialInput, root, editDistance));
+                }
+            }
+
+            validDepth = key.length();
+            previousKey = key;
+            i++;
+        }
+
+        return remainingNodes;
+    }
+
+    /**
+     * Computes the edit distances of the key prefix with the given length against the prefixes of the query. First
+     * letter of the key matches the first letter of the query also when it is the lowercase form of it.
+     *
+     * @return Minimum distance in the row
+     */
+    private static int computeRow(int[][] rows, int depth, String key, String query, char lowerCaseFirstQueryChar) {
+        final int[] row = rows[depth];
+        final int[] previousRow = rows[depth - 1];
+        final char keyChar = key.charAt(depth - 1);
+
+        row[0] = depth;
+        int minDistance = depth;
+        for (int j = 1; j < row.length; j++) {
+            final char queryChar = query.charAt(j - 1);
+            int distance = Math.min(previousRow[j] + 1, row[j - 1] + 1);
+            final boolean matches = keyChar == queryChar || (depth == 1 && j == 1 && keyChar == lowerCaseFirstQueryChar);
+            distance = Math.min(distance, previousRow[j - 1] + (matches ? 0 : 1));
+            if (depth > 1 && j > 1 && keyChar == query.charAt(j - 2) && key.charAt(depth - 2) == queryChar)
+                distance = Math.min(distance, rows[depth - 2][j - 2] + 1);
+
+            row[j] = distance;
+            minDistance = Math.min(minDistance, distance);
+        }
+        return minDistance;
+    }
+
+    private static int commonPrefixLength(String first, String second) {
+        final int length = Math.min(first.length(), second.length());
+        int i = 0;
+        while (i < length && first.charAt(i) == second.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -25,6 +25,12 @@ import org.trnltk.model.lexicon.Lexeme;
 import java.util.HashSet;
 import java.util.LinkedList;
 
+/**
+ * Generates the roots without the circumflexes, in addition to the roots with the circumflexes.
+ * <p/>
+ * If the circumflexed roots are not kept, lexicon has a single spelling of the roots and the circumflexes should be
+ * removed from the input by an {@link org.trnltk.normalization.InputNormalizer}.
+ */
 public class CircumflexConvertingRootGenerator extends ImmutableRootGenerator {
 
     private static final char CIRCUMFLEX_A = TurkishAlphabet.L_ac.charValue();
@@ -35,6 +41,18 @@ public class CircumflexConvertingRootGenerator extends ImmutableRootGenerator {
     private static final char PLAIN_I = TurkishAlphabet.L_i.charValue();
     private static final char PLAIN_U = TurkishAlphabet.L_u.charValue();
 
+    private final boolean keepCircumflexedRoots;
+
+    public CircumflexConvertingRootGenerator() {
+        this(true);
+    }
+
+    /**
+     * @param keepCircumflexedRoots if false, only the roots without circumflexes are generated
+     */
+    public CircumflexConvertingRootGenerator(boolean keepCircumflexedRoots) {
+        this.keepCircumflexedRoots = keepCircumflexedRoots;
+    }
 
     @Override
     public HashSet<ImmutableRoot> generate(Lexeme lexeme) {
@@ -69,7 +87,8 @@ public class CircumflexConvertingRootGenerator extends ImmutableRootGenerator {
             return rootsWithCircumflexes;
         } else {
             final HashSet<ImmutableRoot> roots = new HashSet<ImmutableRoot>();
-            roots.addAll(rootsWithCircumflexes);
+            if (keepCircumflexedRoots)
+                roots.addAll(rootsWithCircumflexes);
 
             for (ImmutableRoot rootWithCircumflexes : rootsWithCircumflexes) {
                 final TurkishChar[] underlyingRootChars = rootWithCircumflexes.getSequence().getChars();
@@ -0,0 +1,695 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.collect.*;
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.lexicon.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A read-only root map which keeps the roots and the lexemes in columns of primitive arrays, instead of an
+ * {@link ImmutableRoot} and an {@link ImmutableLexeme} object graph per entry.
+ * <ul>
+ * <li>All strings (root strings, lemmas, lemma roots) are interned into a single char pool and referenced with
+ * int offsets</li>
+ * <li>POS are kept as ordinals; attribute sets are packed as bitmasks and every distinct set is kept once</li>
+ * <li>Keys are sorted, roots of a key are next to each other and keys are found with an open addressing table,
+ * without creating any objects</li>
+ * </ul>
+ * {@link Root}s and {@link Lexeme}s returned are flyweight views on the columns; they are created when a key is
+ * looked up. Views of the same entry are equal, and they are never equal to the roots and the lexemes of another
+ * lexicon.
+ * <p/>
+ * Since lexicon is immutable, a single instance can be shared by several parsers.
+ * <p/>
+ * Thread safe.
+ *
+ * @see RootMapFactory
+ */
+public class ColumnarLexicon extends ReadOnlyRootMap {
+    private static final PrimaryPos[] PRIMARY_POS_VALUES = PrimaryPos.values();
+    private static final SecondaryPos[] SECONDARY_POS_VALUES = SecondaryPos.values();
+    private static final byte NO_SECONDARY_POS = -1;
+
+    // string i is in [stringStarts[i], stringStarts[i + 1]) of the pool
+    private final char[] charPool;
+    private final int[] stringStarts;
+
+    // roots of key k are in [keyRootStarts[k], keyRootStarts[k + 1])
+    private final int[] keyStrings;
+    private final int[] keyHashes;
+    private final int[] keyRootStarts;
+    // key index + 1 for each slot, 0 for empty slots
+    private final int[] keyTable;
+
+    private final int[] rootStrings;
+    private final int[] rootLexemes;
+    private final char[] rootPhoneticAttributes;
+    private final byte[] rootPhoneticExpectations;
+    // sequences are shared by the views of a root; created when a root is first asked for its sequence
+    private final AtomicReferenceArray<TurkishSequence> rootSequences;
+
+    private final int[] lexemeLemmas;
+    private final int[] lexemeLemmaRoots;
+    private final byte[] lexemePrimaryPos;
+    private final byte[] lexemeSecondaryPos;
+    private final char[] lexemeAttributes;
+
+    private final ImmutableSet<PhoneticAttribute>[] phoneticAttributeSets;
+    private final ImmutableSet<LexemeAttribute>[] lexemeAttributeSets;
+    private final ImmutableSet<PhoneticExpectation>[] phoneticExpectationSets;
+
+    @SuppressWarnings("unchecked")
+    private ColumnarLexicon(Multimap<String, ? extends Root> rootMap) {
+        final Builder builder = new Builder();
+
+        final List<String> keys = new ArrayList<String>(rootMap.keySet());
+        Collections.sort(keys);
+
+        this.keyStrings = new int[keys.size()];
+        this.keyHashes = new int[keys.size()];
+        this.keyRootStarts = new int[keys.size() + 1];
+
+        final int rootCount = rootMap.size();
+        this.rootStrings = new int[rootCount];
+        this.rootLexemes = new int[rootCount];
+        this.rootPhoneticAttributes = new char[rootCount];
+        this.rootPhoneticExpectations = new byte[rootCount];
+        this.rootSequences = new AtomicReferenceArray<TurkishSequence>(rootCount);
+
+        int rootIndex = 0;
+        for (int keyIndex = 0; keyIndex < keys.size(); keyIndex++) {
+            final String key = keys.get(keyIndex);
+            this.keyStrings[keyIndex] = builder.internString(key);
+            this.keyHashes[keyIndex] = key.hashCode();
+            this.keyRootStarts[keyIndex] = rootIndex;
+            // roots of a key are kept in the iteration order of the given map
+            for (Root root : rootMap.get(key)) {
+                this.rootStrings[rootIndex] = builder.internString(root.getSequence().getUnderlyingString());
+                this.rootLexemes[rootIndex] = builder.internLexeme(root.getLexeme());
+                this.rootPhoneticAttributes[rootIndex] = builder.phoneticAttributeSets.intern(root.getPhoneticAttributes());
+                this.rootPhoneticExpectations[rootIndex] = (byte) builder.phoneticExpectationSets.intern(root.getPhoneticExpectations());
+                rootIndex++;
+            }
+        }
+        this.keyRootStarts[keys.size()] = rootIndex;
+
+        final int lexemeCount = builder.lexemeIndexes.size();
+        this.lexemeLemmas = new int[lexemeCount];
+        this.lexemeLemmaRoots = new int[lexemeCount];
+        this.lexemePrimaryPos = new byte[lexemeCount];
+        this.lexemeSecondaryPos = new byte[lexemeCount];
+        this.lexemeAttributes = new char[lexemeCount];
+        for (Map.Entry<Lexeme, Integer> entry : builder.lexemeIndexes.entrySet()) {
+            final Lexeme lexeme = entry.getKey();
+            final int lexemeIndex = entry.getValue();
+            this.lexemeLemmas[lexemeIndex] = builder.internString(lexeme.getLemma());
+            this.lexemeLemmaRoots[lexemeIndex] = builder.internString(lexeme.getLemmaRoot());
+            this.lexemePrimaryPos[lexemeIndex] = (byte) lexeme.getPrimaryPos().ordinal();
+            this.lexemeSecondaryPos[lexemeIndex] = lexeme.getSecondaryPos() == null ? NO_SECONDARY_POS : (byte) lexeme.getSecondaryPos().ordinal();
+            this.lexemeAttributes[lexemeIndex] = builder.lexemeAttributeSets.intern(lexeme.getAttributes());
+        }
+
+        this.charPool = Arrays.copyOf(builder.charPool, builder.charCount);
+        this.stringStarts = new int[builder.stringCount + 1];
+        System.arraycopy(builder.stringStarts, 0, this.stringStarts, 0, builder.stringCount);
+        this.stringStarts[builder.stringCount] = builder.charCount;
+
+        this.phoneticAttributeSets = builder.phoneticAttributeSets.toArray();
+        this.lexemeAttributeSets = builder.lexemeAttributeSets.toArray();
+        this.phoneticExpectationSets = builder.phoneticExpectationSets.toArray();
+
+        // table is at most half full
+        this.keyTable = new int[Integer.highestOneBit(Math.max(keys.size(), 1)) << 2];
+        for (int keyIndex = 0; keyIndex < keys.size(); keyIndex++) {
+            int slot = slotOf(this.keyHashes[keyIndex]);
+            while (this.keyTable[slot] != 0)
+                slot = (slot + 1) & (this.keyTable.length - 1);
+            this.keyTable[slot] = keyIndex + 1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ColumnarLexicon(ByteBuffer in) {
+        // same order with writeColumns
+        this.charPool = readChars(in);
+        this.stringStarts = readInts(in);
+
+        this.keyStrings = readInts(in);
+        this.keyHashes = readInts(in);
+        this.keyRootStarts = readInts(in);
+        this.keyTable = readInts(in);
+
+        this.rootStrings = readInts(in);
+        this.rootLexemes = readInts(in);
+        this.rootPhoneticAttributes = readChars(in);
+        this.rootPhoneticExpectations = readBytes(in);
+        this.rootSequences = new AtomicReferenceArray<TurkishSequence>(this.rootStrings.length);
+
+        this.lexemeLemmas = readInts(in);
+        this.lexemeLemmaRoots = readInts(in);
+        this.lexemePrimaryPos = readBytes(in);
+        this.lexemeSecondaryPos = readBytes(in);
+        this.lexemeAttributes = readChars(in);
+
+        this.phoneticAttributeSets = readSets(in, PhoneticAttribute.class);
+        this.lexemeAttributeSets = readSets(in, LexemeAttribute.class);
+        this.phoneticExpectationSets = readSets(in, PhoneticExpectation.class);
+
+        Validate.isTrue(keyHashes.length == keyStrings.length && keyRootStarts.length == keyStrings.length + 1 &&
+                Integer.bitCount(keyTable.length) == 1 && keyTable.length > keyStrings.length, "Invalid key columns");
+        Validate.isTrue(rootLexemes.length == rootStrings.length && rootPhoneticAttributes.length == rootStrings.length &&
+                rootPhoneticExpectations.length == rootStrings.length, "Invalid root columns");
+        Validate.isTrue(lexemeLemmaRoots.length == lexemeLemmas.length && lexemePrimaryPos.length == lexemeLemmas.length &&
+                lexemeSecondaryPos.length == lexemeLemmas.length && lexemeAttributes.length == lexemeLemmas.length, "Invalid lexeme columns");
+    }
+
+    /**
+     * Creates a lexicon with the entries of the given map. Map is not referenced afterwards.
+     *
+     * @param rootMap Map of root strings to roots, like the ones created by {@link RootMapGenerator}
+     */
+    public static ColumnarLexicon copyOf(Multimap<String, ? extends Root> rootMap) {
+        Validate.notNull(rootMap);
+        if (rootMap instanceof ColumnarLexicon)
+            return (ColumnarLexicon) rootMap;
+        return new ColumnarLexicon(rootMap);
+    }
+
+    /**
+     * Reads the columns written with {@link #writeColumns(java.io.DataOutputStream)}, starting from the current
+     * position of the buffer. Ordinals of the enums are not checked, see {@link ColumnarLexiconSerializer}.
+     */
+    static ColumnarLexicon readColumns(ByteBuffer in) {
+        return new ColumnarLexicon(in);
+    }
+
+    /**
+     * Writes the columns as they are, including the sorted keys and the key table, so that nothing is built again
+     * when they are read.
+     */
+    void writeColumns(DataOutputStream out) throws IOException {
+        writeChars(out, charPool);
+        writeInts(out, stringStarts);
+
+        writeInts(out, keyStrings);
+        writeInts(out, keyHashes);
+        writeInts(out, keyRootStarts);
+        writeInts(out, keyTable);
+
+        writeInts(out, rootStrings);
+        writeInts(out, rootLexemes);
+        writeChars(out, rootPhoneticAttributes);
+        writeBytes(out, rootPhoneticExpectations);
+
+        writeInts(out, lexemeLemmas);
+        writeInts(out, lexemeLemmaRoots);
+        writeBytes(out, lexemePrimaryPos);
+        writeBytes(out, lexemeSecondaryPos);
+        writeChars(out, lexemeAttributes);
+
+        writeSets(out, phoneticAttributeSets);
+        writeSets(out, lexemeAttributeSets);
+        writeSets(out, phoneticExpectationSets);
+    }
+
+    private static void writeChars(DataOutputStream out, char[] array) throws IOException {
+        out.writeInt(array.length);
+        for (char c : array) {
+            out.writeChar(c);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] array) throws IOException {
+        out.writeInt(array.length);
+        for (int i : array) {
+            out.writeInt(i);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] array) throws IOException {
+        out.writeInt(array.length);
+        out.write(array);
+    }
+
+    private static <E extends Enum<E>> void writeSets(DataOutputStream out, ImmutableSet<E>[] sets) throws IOException {
+        out.writeInt(sets.length);
+        for (ImmutableSet<E> set : sets) {
+            out.writeLong(EnumSetTable.maskOf(set));
+        }
+    }
+
+    private static char[] readChars(ByteBuffer in) {
+        final char[] array = new char[in.getInt()];
+        in.asCharBuffer().get(array);
+        in.position(in.position() + array.length * 2);
+        return array;
+    }
+
+    private static int[] readInts(ByteBuffer in) {
+        final int[] array = new int[in.getInt()];
+        in.asIntBuffer().get(array);
+        in.position(in.position() + array.length * 4);
+        return array;
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        final byte[] array = new byte[in.getInt()];
+        in.get(array);
+        return array;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Enum<E>> ImmutableSet<E>[] readSets(ByteBuffer in, Class<E> enumClass) {
+        final ImmutableSet<E>[] sets = new ImmutableSet[in.getInt()];
+        for (int i = 0; i < sets.length; i++) {
+            sets[i] = EnumSetTable.setOf(enumClass, in.getLong());
+        }
+        return sets;
+    }
+
+    private int slotOf(int hash) {
+        return (hash ^ (hash >>> 16)) & (keyTable.length - 1);
+    }
+
+    private int findKey(String key) {
+        final int hash = key.hashCode();
+        int slot = slotOf(hash);
+        while (keyTable[slot] != 0) {
+            final int keyIndex = keyTable[slot] - 1;
+            if (keyHashes[keyIndex] == hash && stringEquals(keyStrings[keyIndex], key))
+                return keyIndex;
+            slot = (slot + 1) & (keyTable.length - 1);
+        }
+        return -1;
+    }
+
+    private boolean stringEquals(int stringIndex, String str) {
+        final int start = stringStarts[stringIndex];
+        if (stringStarts[stringIndex + 1] - start != str.length())
+            return false;
+        for (int i = 0; i < str.length(); i++) {
+            if (charPool[start + i] != str.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private String getString(int stringIndex) {
+        final int start = stringStarts[stringIndex];
+        return new String(charPool, start, stringStarts[stringIndex + 1] - start);
+    }
+
+    private List<Root> getRootsOfKey(int keyIndex) {
+        final int start = keyRootStarts[keyIndex];
+        final Root[] roots = new Root[keyRootStarts[keyIndex + 1] - start];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = new ColumnarRoot(start + i);
+        }
+        return Collections.unmodifiableList(Arrays.asList(roots));
+    }
+
+    /**
+     * @return Number of distinct lexemes
+     */
+    public int getLexemeCount() {
+        return lexemeLemmas.length;
+    }
+
+    /**
+     * @return Number of chars in the pool, that all strings of the lexicon share
+     */
+    public int getCharPoolSize() {
+        return charPool.length;
+    }
+
+    @Override
+    public int size() {
+        return rootStrings.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rootStrings.length == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && findKey((String) key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return value instanceof ColumnarRoot && ((ColumnarRoot) value).getLexicon() == this;
+    }
+
+    @Override
+    public boolean containsEntry(Object key, Object value) {
+        if (!containsValue(value) || !(key instanceof String))
+            return false;
+        final int keyIndex = findKey((String) key);
+        final int rootIndex = ((ColumnarRoot) value).rootIndex;
+        return keyIndex >= 0 && keyRootStarts[keyIndex] <= rootIndex && rootIndex < keyRootStarts[keyIndex + 1];
+    }
+
+    /**
+     * @return Roots of the key, in the order of the map which the lexicon is created with. Empty list if there is
+     *         no such key.
+     */
+    @Override
+    public List<Root> get(String key) {
+        final int keyIndex = findKey(key);
+        if (keyIndex < 0)
+            return Collections.emptyList();
+        return getRootsOfKey(keyIndex);
+    }
+
+    /**
+     * @return Keys in sorted order
+     */
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new UnmodifiableIterator<String>() {
+                    private int keyIndex = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return keyIndex < keyStrings.length;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        return getString(keyStrings[keyIndex++]);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return keyStrings.length;
+            }
+        };
+    }
+
+    @Override
+    public Collection<Root> values() {
+        return new AbstractCollection<Root>() {
+            @Override
+            public Iterator<Root> iterator() {
+                return new UnmodifiableIterator<Root>() {
+                    private int rootIndex = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return rootIndex < rootStrings.length;
+                    }
+
+                    @Override
+                    public Root next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        return new ColumnarRoot(rootIndex++);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return containsValue(o);
+            }
+
+            @Override
+            public int size() {
+                return rootStrings.length;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarLexicon{" +
+                "keys=" + keyStrings.length +
+                ", roots=" + rootStrings.length +
+                ", lexemes=" + lexemeLemmas.length +
+                ", chars=" + charPool.length +
+                '}';
+    }
+
+    /**
+     * Flyweight view of a root in the columns.
+     */
+    private final class ColumnarRoot implements Root {
+        private final int rootIndex;
+
+        private ColumnarRoot(int rootIndex) {
+            this.rootIndex = rootIndex;
+        }
+
+        private ColumnarLexicon getLexicon() {
+            return ColumnarLexicon.this;
+        }
+
+        @Override
+        public TurkishSequence getSequence() {
+            final TurkishSequence sequence = rootSequences.get(rootIndex);
+            if (sequence != null)
+                return sequence;
+
+            final TurkishSequence newSequence = new TurkishSequence(getString(rootStrings[rootIndex]));
+            return rootSequences.compareAndSet(rootIndex, null, newSequence) ? newSequence : rootSequences.get(rootIndex);
+        }
+
+        @Override
+        public Lexeme getLexeme() {
+            return new ColumnarLexeme(rootLexemes[rootIndex]);
+        }
+
+        @Override
+        public ImmutableSet<PhoneticAttribute> getPhoneticAttributes() {
+            return phoneticAttributeSets[rootPhoneticAttributes[rootIndex]];
+        }
+
+        @Override
+        public ImmutableSet<PhoneticExpectation> getPhoneticExpectations() {
+            return phoneticExpectationSets[rootPhoneticExpectations[rootIndex]];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ColumnarRoot that = (ColumnarRoot) o;
+
+            return rootIndex == that.rootIndex && getLexicon() == that.getLexicon();
+        }
+
+        @Override
+        public int hashCode() {
+            return rootIndex;
+        }
+
+        @Override
+        public String toString() {
+            return "ColumnarRoot{" +
+                    "sequence=" + getSequence() +
+                    ", lexeme=" + getLexeme() +
+                    ", phoneticAttributes=" + getPhoneticAttributes() +
+                    ", phoneticExpectations=" + getPhoneticExpectations() +
+                    '}';
+        }
+    }
+
+    /**
+     * Flyweight view of a lexeme in the columns.
+     */
+    private final class ColumnarLexeme implements Lexeme {
+        private final int lexemeIndex;
+
+        private ColumnarLexeme(int lexemeIndex) {
+            this.lexemeIndex = lexemeIndex;
+        }
+
+        private ColumnarLexicon getLexicon() {
+            return ColumnarLexicon.this;
+        }
+
+        @Override
+        public String getLemma() {
+            return getString(lexemeLemmas[lexemeIndex]);
+        }
+
+        @Override
+        public String getLemmaRoot() {
+            return getString(lexemeLemmaRoots[lexemeIndex]);
+        }
+
+        @Override
+        public PrimaryPos getPrimaryPos() {
+            return PRIMARY_POS_VALUES[lexemePrimaryPos[lexemeIndex]];
+        }
+
+        @Override
+        public SecondaryPos getSecondaryPos() {
+            final byte ordinal = lexemeSecondaryPos[lexemeIndex];
+            return ordinal == NO_SECONDARY_POS ? null : SECONDARY_POS_VALUES[ordinal];
+        }
+
+        @Override
+        public ImmutableSet<LexemeAttribute> getAttributes() {
+            return lexemeAttributeSets[lexemeAttributes[lexemeIndex]];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ColumnarLexeme that = (ColumnarLexeme) o;
+
+            return lexemeIndex == that.lexemeIndex && getLexicon() == that.getLexicon();
+        }
+
+        @Override
+        public int hashCode() {
+            return lexemeIndex;
+        }
+
+        @Override
+        public String toString() {
+            return "ColumnarLexeme{" +
+                    "lemma='" + getLemma() + '\'' +
+                    ", lemmaRoot='" + getLemmaRoot() + '\'' +
+                    ", primaryPos=" + getPrimaryPos() +
+                    ", secondaryPos=" + getSecondaryPos() +
+                    ", lexemeAttributes=" + getAttributes() +
+                    '}';
+        }
+    }
+
+    private static class Builder {
+        private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+        private char[] charPool = new char[1 << 16];
+        private int charCount = 0;
+        private int[] stringStarts = new int[1 << 12];
+        private int stringCount = 0;
+
+        // lexemes are compared with their values, thus equal lexemes of different roots are stored once
+        private final Map<Lexeme, Integer> lexemeIndexes = new HashMap<Lexeme, Integer>();
+
+        private final EnumSetTable<PhoneticAttribute> phoneticAttributeSets = new EnumSetTable<PhoneticAttribute>(PhoneticAttribute.class, Character.MAX_VALUE);
+        private final EnumSetTable<LexemeAttribute> lexemeAttributeSets = new EnumSetTable<LexemeAttribute>(LexemeAttribute.class, Character.MAX_VALUE);
+        private final EnumSetTable<PhoneticExpectation> phoneticExpectationSets = new EnumSetTable<PhoneticExpectation>(PhoneticExpectation.class, Byte.MAX_VALUE);
+
+        private int internString(String str) {
+            final Integer existing = stringIndexes.get(str);
+            if (existing != null)
+                return existing;
+
+            if (charCount + str.length() > charPool.length)
+                charPool = Arrays.copyOf(charPool, Math.max(charPool.length * 2, charCount + str.length()));
+            if (stringCount == stringStarts.length)
+                stringStarts = Arrays.copyOf(stringStarts, stringStarts.length * 2);
+
+            str.getChars(0, str.length(), charPool, charCount);
+            stringStarts[stringCount] = charCount;
+            charCount += str.length();
+            stringIndexes.put(str, stringCount);
+            return stringCount++;
+        }
+
+        private int internLexeme(Lexeme lexeme) {
+            final Integer existing = lexemeIndexes.get(lexeme);
+            if (existing != null)
+                return existing;
+            final int index = lexemeIndexes.size();
+            lexemeIndexes.put(lexeme, index);
+            return index;
+        }
+    }
+
+    /**
+     * Packs enum sets into bitmasks and keeps a single immutable set for each distinct mask.
+     */
+    private static class EnumSetTable<E extends Enum<E>> {
+        private final Class<E> enumClass;
+        private final int maxSize;
+        private final Map<Long, Character> indexes = new HashMap<Long, Character>();
+        private final List<ImmutableSet<E>> sets = new ArrayList<ImmutableSet<E>>();
+
+        private EnumSetTable(Class<E> enumClass, int maxSize) {
+            Validate.isTrue(enumClass.getEnumConstants().length <= Long.SIZE, "Too many constants in " + enumClass);
+            this.enumClass = enumClass;
+            this.maxSize = maxSize;
+        }
+
+        private char intern(Set<E> set) {
+            final long mask = maskOf(set);
+
+            final Character existing = indexes.get(mask);
+            if (existing != null)
+                return existing;
+
+            Validate.isTrue(sets.size() < maxSize, "Too many distinct sets of " + enumClass);
+            final char index = (char) sets.size();
+            sets.add(setOf(enumClass, mask));
+            indexes.put(mask, index);
+            return index;
+        }
+
+        private static <E extends Enum<E>> long maskOf(Set<E> set) {
+            long mask = 0L;
+            if (set != null) {
+                for (E e : set) {
+                    mask |= 1L << e.ordinal();
+                }
+            }
+            return mask;
+        }
+
+        private static <E extends Enum<E>> ImmutableSet<E> setOf(Class<E> enumClass, long mask) {
+            final EnumSet<E> enumSet = EnumSet.noneOf(enumClass);
+            for (E e : enumClass.getEnumConstants()) {
+                if ((mask & (1L << e.ordinal())) != 0)
+                    enumSet.add(e);
+            }
+            return Sets.immutableEnumSet(enumSet);
+        }
+
+        @SuppressWarnings("unchecked")
+        private ImmutableSet<E>[] toArray() {
+            return sets.toArray(new ImmutableSet[sets.size()]);
+        }
+    }
+}
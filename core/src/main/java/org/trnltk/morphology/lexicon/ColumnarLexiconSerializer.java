@@ -0,0 +1,214 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.io.Resources;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+import org.trnltk.model.lexicon.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Saves and loads {@link ColumnarLexicon}s in a binary form, so that the dictionaries are not parsed and validated,
+ * and the roots are not generated at every start.
+ * <pre>
+ * "TRLX", int version, long dictionary checksum, long content checksum, int content length,
+ * content {
+ *     ((int constant count, (UTF constant name)*) for PrimaryPos, SecondaryPos, LexemeAttribute, PhoneticAttribute, PhoneticExpectation),
+ *     columns of the lexicon
+ * }
+ * </pre>
+ * Columns are saved as they are, including the sorted keys and the key table. Enum constants are saved with their
+ * names, thus a lexicon saved before an enum is changed is not loaded.
+ * <p/>
+ * Saved lexicons are created with {@link LexiconCompiler}.
+ */
+public class ColumnarLexiconSerializer {
+    static Logger logger = Logger.getLogger(ColumnarLexiconSerializer.class);
+
+    static final String[] DEFAULT_DICTIONARY_RESOURCES = {"master-dictionary.dict", "master-numeral-dictionary.dict"};
+
+    private static final int MAGIC = ('T' << 24) | ('R' << 16) | ('L' << 8) | 'X';
+    static final int VERSION = 1;
+
+    // magic, version, dictionary checksum, content checksum, content length
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + 8 + 4;
+
+    @SuppressWarnings("unchecked")
+    private static final Class<? extends Enum<?>>[] ENUM_CLASSES = new Class[]{
+            PrimaryPos.class, SecondaryPos.class, LexemeAttribute.class, PhoneticAttribute.class, PhoneticExpectation.class};
+
+    /**
+     * Writes the lexicon. Stream is not closed.
+     *
+     * @param dictionaryChecksum Checksum of the dictionaries which the lexicon is created from
+     */
+    public static void write(ColumnarLexicon lexicon, long dictionaryChecksum, OutputStream outputStream) throws IOException {
+        Validate.notNull(lexicon);
+
+        // content is written first, since its checksum is in the header
+        final ByteArrayOutputStream contentBytes = new ByteArrayOutputStream(lexicon.getCharPoolSize() * 16);
+        final DataOutputStream content = new DataOutputStream(new BufferedOutputStream(contentBytes));
+        for (Class<? extends Enum<?>> enumClass : ENUM_CLASSES) {
+            final Enum<?>[] constants = enumClass.getEnumConstants();
+            content.writeInt(constants.length);
+            for (Enum<?> constant : constants) {
+                content.writeUTF(constant.name());
+            }
+        }
+        lexicon.writeColumns(content);
+        content.flush();
+
+        final byte[] contentArray = contentBytes.toByteArray();
+        final CRC32 crc32 = new CRC32();
+        crc32.update(contentArray);
+
+        final DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(dictionaryChecksum);
+        out.writeLong(crc32.getValue());
+        out.writeInt(contentArray.length);
+        out.write(contentArray);
+        out.flush();
+    }
+
+    /**
+     * Writes the lexicon to the given file.
+     *
+     * @see #write(ColumnarLexicon, long, java.io.OutputStream)
+     */
+    public static void write(ColumnarLexicon lexicon, long dictionaryChecksum, File file) throws IOException {
+        final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            write(lexicon, dictionaryChecksum, outputStream);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Reads a lexicon from the file, which is memory mapped instead of being read with a stream.
+     *
+     * @see #read(java.nio.ByteBuffer, long)
+     */
+    public static ColumnarLexicon read(File file, long expectedDictionaryChecksum) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            // mapping is valid after the channel is closed
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), expectedDictionaryChecksum);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Reads a lexicon written with {@link #write(ColumnarLexicon, long, java.io.OutputStream)}, starting from the
+     * current position of the buffer.
+     *
+     * @param expectedDictionaryChecksum Checksum of the current dictionaries
+     * @return the lexicon, or null if the lexicon is written with another format version, with other enum constants
+     *         or from other dictionaries
+     * @throws IOException if the content is not a lexicon or if it is corrupted
+     */
+    public static ColumnarLexicon read(ByteBuffer buffer, long expectedDictionaryChecksum) throws IOException {
+        if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC)
+            throw new IOException("Not a compiled lexicon");
+
+        final int version = buffer.getInt();
+        if (version != VERSION) {
+            logger.info("Compiled lexicon has version " + version + ", expected " + VERSION);
+            return null;
+        }
+
+        final long dictionaryChecksum = buffer.getLong();
+        if (dictionaryChecksum != expectedDictionaryChecksum) {
+            logger.info("Compiled lexicon is created from other dictionaries");
+            return null;
+        }
+
+        final long contentChecksum = buffer.getLong();
+        final int contentLength = buffer.getInt();
+        if (contentLength < 0 || contentLength > buffer.remaining())
+            throw new IOException("Compiled lexicon is truncated");
+
+        final ByteBuffer content = buffer.slice();
+        content.limit(contentLength);
+        if (checksumOf(content.duplicate()) != contentChecksum)
+            throw new IOException("Compiled lexicon is corrupted, checksum doesn't match");
+
+        for (Class<? extends Enum<?>> enumClass : ENUM_CLASSES) {
+            final Enum<?>[] constants = enumClass.getEnumConstants();
+            if (content.getInt() != constants.length) {
+                logger.info("Compiled lexicon has other constants of " + enumClass.getSimpleName());
+                return null;
+            }
+            for (Enum<?> constant : constants) {
+                if (!constant.name().equals(readUTF(content))) {
+                    logger.info("Compiled lexicon has other constants of " + enumClass.getSimpleName());
+                    return null;
+                }
+            }
+        }
+
+        final ColumnarLexicon lexicon;
+        try {
+            lexicon = ColumnarLexicon.readColumns(content);
+        } catch (RuntimeException e) {
+            throw new IOException("Compiled lexicon has invalid columns", e);
+        }
+
+        buffer.position(buffer.position() + contentLength);
+        return lexicon;
+    }
+
+    /**
+     * @return Checksum of the bundled dictionaries
+     */
+    public static long getDefaultDictionaryChecksum() throws IOException {
+        final CRC32 crc32 = new CRC32();
+        for (String dictionaryResource : DEFAULT_DICTIONARY_RESOURCES) {
+            crc32.update(Resources.toByteArray(Resources.getResource(dictionaryResource)));
+        }
+        return crc32.getValue();
+    }
+
+    private static long checksumOf(ByteBuffer buffer) {
+        final CRC32 crc32 = new CRC32();
+        final byte[] chunk = new byte[1 << 16];
+        while (buffer.hasRemaining()) {
+            final int length = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, length);
+            crc32.update(chunk, 0, length);
+        }
+        return crc32.getValue();
+    }
+
+    private static String readUTF(ByteBuffer buffer) throws IOException {
+        final int length = buffer.getShort() & 0xFFFF;
+        final byte[] bytes = new byte[length + 2];
+        bytes[0] = (byte) (length >>> 8);
+        bytes[1] = (byte) length;
+        buffer.get(bytes, 2, length);
+        return new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Ordering;
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.lexicon.Root;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A root map which roots can be added to from multiple threads without locking, e.g. while loading a dictionary
+ * in parallel.
+ * <p/>
+ * Roots of a key are kept in an immutable set which is replaced when a root is added, thus lookups never see a
+ * set while it is changed. Like a {@link com.google.common.collect.HashMultimap}, an equal root is kept once.
+ * <p/>
+ * Roots of a key are ordered by their string representations, not by the order they are added in, so that a map
+ * loaded by multiple threads iterates the same in every run.
+ * <p/>
+ * Roots can only be added with {@link #addRoot(Root)}; mutating methods of {@link com.google.common.collect.Multimap}
+ * throw {@link UnsupportedOperationException}.
+ * <p/>
+ * Thread safe.
+ *
+ * @see ParallelDictionaryLoader
+ */
+public class ConcurrentRootMap extends ReadOnlyRootMap {
+    private static final Ordering<Object> ROOT_ORDERING = Ordering.usingToString();
+
+    private final ConcurrentMap<String, ImmutableSet<Root>> map;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param expectedKeyCount Number of keys to reserve space for, so that the map is not resized while loading
+     * @param concurrencyLevel Number of threads which are going to add roots
+     */
+    public ConcurrentRootMap(int expectedKeyCount, int concurrencyLevel) {
+        Validate.isTrue(expectedKeyCount >= 0);
+        Validate.isTrue(concurrencyLevel > 0);
+        this.map = new ConcurrentHashMap<String, ImmutableSet<Root>>(expectedKeyCount, 0.75f, concurrencyLevel);
+    }
+
+    /**
+     * Adds the root with the string of its sequence as the key.
+     *
+     * @return true if the root is added, false if an equal root exists
+     */
+    public boolean addRoot(Root root) {
+        final String key = root.getSequence().getUnderlyingString();
+
+        ImmutableSet<Root> existing = map.putIfAbsent(key, ImmutableSet.of(root));
+        while (existing != null) {
+            if (existing.contains(root))
+                return false;
+
+            final List<Root> rootList = ROOT_ORDERING.sortedCopy(ImmutableSet.<Root>builder().addAll(existing).add(root).build());
+            final ImmutableSet<Root> roots = ImmutableSet.copyOf(rootList);
+            if (map.replace(key, existing, roots))
+                break;
+            existing = map.putIfAbsent(key, ImmutableSet.of(root));
+        }
+
+        size.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public Collection<Root> get(String key) {
+        final ImmutableSet<Root> roots = map.get(key);
+        return roots == null ? ImmutableSet.<Root>of() : roots;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(map.keySet());
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+}
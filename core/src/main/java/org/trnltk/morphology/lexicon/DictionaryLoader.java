@@ -73,18 +73,25 @@ public class DictionaryLoader {
         final Iterable<Lexeme> lexemes = Iterables.transform(lines, new Function<String, Lexeme>() {
             @Override
             public Lexeme apply(String input) {
-                if (StringUtils.isBlank(input))
-                    return null;
-
-                input = input.trim();
-
-                if (input.startsWith(COMMENT_SYMBOL))
-                    return null;
-
-                return loader.createLexemeFromLine(input);
+                return createLexemeFromLine(loader, input);
             }
         });
 
         return Sets.newHashSet(Iterables.filter(lexemes, Predicates.notNull()));
     }
+
+    /**
+     * @return Lexeme of the line, or null if the line is blank or a comment
+     */
+    static Lexeme createLexemeFromLine(LexemeCreator lexemeCreator, String line) {
+        if (StringUtils.isBlank(line))
+            return null;
+
+        line = line.trim();
+
+        if (line.startsWith(COMMENT_SYMBOL))
+            return null;
+
+        return lexemeCreator.createLexemeFromLine(line);
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.*;
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.lexicon.ImmutableRoot;
+import org.trnltk.model.lexicon.Lexeme;
+import org.trnltk.model.lexicon.Root;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A root map of an immutable base map and a small overlay of user lexemes, which can be changed at runtime.
+ * <p/>
+ * Overlay is never modified; every change creates a new overlay and swaps it in, thus lookups see either the old
+ * or the new overlay and they are never blocked. Base map is never modified or copied.
+ * <ul>
+ * <li>Added lexemes: their roots are generated and served with the roots of the base map</li>
+ * <li>Removed lexemes: roots added to the overlay are dropped, roots in the base map are hidden</li>
+ * </ul>
+ * Lexemes are matched with their lemma, primary POS and secondary POS while removing. To change a lexeme, remove
+ * it and add the new one.
+ * <p/>
+ * After every change, {@link RootChangeListener}s are notified with the strings of the changed roots, so that
+ * the parse results of the surfaces starting with them can be invalidated; see
+ * {@link org.trnltk.morphology.contextless.parser.CachingMorphologicParser#invalidatePrefixes(Set)}.
+ * <p/>
+ * Please note that {@link org.trnltk.morphology.contextless.parser.PredefinedPaths} are created with the roots
+ * at the time a parser is built and they are not changed.
+ * <p/>
+ * Thread safe.
+ */
+public class LayeredRootMap extends ReadOnlyRootMap {
+
+    /**
+     * Receives the changes of a {@link LayeredRootMap}.
+     */
+    public interface RootChangeListener {
+        /**
+         * Called after a change is visible to lookups.
+         *
+         * @param rootStrings Strings of the roots which are added or removed
+         */
+        void rootsChanged(Set<String> rootStrings);
+    }
+
+    private final Multimap<String, ? extends Root> baseRootMap;
+    private final ImmutableRootGenerator rootGenerator;
+    private final List<RootChangeListener> listeners = new CopyOnWriteArrayList<RootChangeListener>();
+
+    private volatile Overlay overlay = new Overlay(ImmutableListMultimap.<String, Root>of(), ImmutableSet.<String>of());
+
+    /**
+     * @param baseRootMap   Root map to serve the roots from, for instance a {@link ColumnarLexicon}. It must not be
+     *                      modified afterwards.
+     * @param rootGenerator Generator to create the roots of added lexemes, like the one used for the base map
+     */
+    public LayeredRootMap(Multimap<String, ? extends Root> baseRootMap, ImmutableRootGenerator rootGenerator) {
+        Validate.notNull(baseRootMap);
+        Validate.notNull(rootGenerator);
+        this.baseRootMap = baseRootMap;
+        this.rootGenerator = rootGenerator;
+    }
+
+    public void addRootChangeListener(RootChangeListener listener) {
+        Validate.notNull(listener);
+        this.listeners.add(listener);
+    }
+
+    public void removeRootChangeListener(RootChangeListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Adds the roots of the given lexemes.
+     *
+     * @return Strings of the added roots
+     */
+    public Set<String> addLexemes(Collection<? extends Lexeme> lexemes) {
+        Validate.notNull(lexemes);
+
+        final Set<String> changedRootStrings;
+        synchronized (this) {
+            final Collection<ImmutableRoot> roots = rootGenerator.generateAll(new HashSet<Lexeme>(lexemes));
+
+            final ImmutableListMultimap.Builder<String, Root> addedRoots = ImmutableListMultimap.builder();
+            addedRoots.putAll(this.overlay.addedRoots);
+            changedRootStrings = new HashSet<String>();
+            for (ImmutableRoot root : roots) {
+                final String rootStr = root.getSequence().getUnderlyingString();
+                addedRoots.put(rootStr, root);
+                changedRootStrings.add(rootStr);
+            }
+
+            this.overlay = new Overlay(addedRoots.build(), this.overlay.removedLexemeKeys);
+        }
+
+        this.notifyListeners(changedRootStrings);
+        return changedRootStrings;
+    }
+
+    /**
+     * Removes the roots of the given lexemes, both the ones added before and the ones in the base map.
+     *
+     * @return Strings of the removed roots
+     */
+    public Set<String> removeLexemes(Collection<? extends Lexeme> lexemes) {
+        Validate.notNull(lexemes);
+
+        final Set<String> changedRootStrings;
+        synchronized (this) {
+            final Set<String> lexemeKeys = new HashSet<String>();
+            for (Lexeme lexeme : lexemes) {
+                lexemeKeys.add(lexemeKey(lexeme));
+            }
+
+            changedRootStrings = this.findRootStrings(lexemes, lexemeKeys);
+
+            final ImmutableListMultimap.Builder<String, Root> addedRoots = ImmutableListMultimap.builder();
+            for (Map.Entry<String, Root> entry : this.overlay.addedRoots.entries()) {
+                if (!lexemeKeys.contains(lexemeKey(entry.getValue().getLexeme())))
+                    addedRoots.put(entry);
+            }
+
+            final ImmutableSet<String> removedLexemeKeys = ImmutableSet.<String>builder()
+                    .addAll(this.overlay.removedLexemeKeys).addAll(lexemeKeys).build();
+
+            this.overlay = new Overlay(addedRoots.build(), removedLexemeKeys);
+        }
+
+        this.notifyListeners(changedRootStrings);
+        return changedRootStrings;
+    }
+
+    /**
+     * Root strings of a lexeme might differ from its lemma root (e.g. <i>kitab</i>, <i>omz</i>), thus the roots are
+     * generated again with the attributes of the existing lexemes.
+     */
+    private Set<String> findRootStrings(Collection<? extends Lexeme> lexemes, Set<String> lexemeKeys) {
+        final Set<Lexeme> existingLexemes = new HashSet<Lexeme>(lexemes);
+        for (Lexeme lexeme : lexemes) {
+            for (Root root : this.get(lexeme.getLemmaRoot())) {
+                if (lexemeKeys.contains(lexemeKey(root.getLexeme())))
+                    existingLexemes.add(root.getLexeme());
+            }
+        }
+
+        final Set<String> rootStrings = new HashSet<String>();
+        for (ImmutableRoot root : rootGenerator.generateAll(existingLexemes)) {
+            rootStrings.add(root.getSequence().getUnderlyingString());
+        }
+        return rootStrings;
+    }
+
+    private void notifyListeners(Set<String> changedRootStrings) {
+        if (changedRootStrings.isEmpty())
+            return;
+        final Set<String> unmodifiableRootStrings = Collections.unmodifiableSet(changedRootStrings);
+        for (RootChangeListener listener : listeners) {
+            listener.rootsChanged(unmodifiableRootStrings);
+        }
+    }
+
+    private static String lexemeKey(Lexeme lexeme) {
+        return lexeme.getLemma() + "+" + lexeme.getPrimaryPos() + "+" + lexeme.getSecondaryPos();
+    }
+
+    @Override
+    public Collection<Root> get(String key) {
+        final Overlay overlay = this.overlay;
+        final Collection<? extends Root> baseRoots = this.baseRootMap.get(key);
+        if (overlay.isEmpty())
+            return Collections.unmodifiableCollection(baseRoots);
+
+        final ImmutableList<Root> addedRoots = overlay.addedRoots.get(key);
+        if (overlay.removedLexemeKeys.isEmpty() && addedRoots.isEmpty())
+            return Collections.unmodifiableCollection(baseRoots);
+
+        final List<Root> roots = new ArrayList<Root>(baseRoots.size() + addedRoots.size());
+        for (Root root : baseRoots) {
+            if (overlay.removedLexemeKeys.isEmpty() || !overlay.removedLexemeKeys.contains(lexemeKey(root.getLexeme())))
+                roots.add(root);
+        }
+        roots.addAll(addedRoots);
+        return roots;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        final Overlay overlay = this.overlay;
+        final Set<String> keys = Sets.union(this.baseRootMap.keySet(), overlay.addedRoots.keySet());
+        if (overlay.removedLexemeKeys.isEmpty())
+            return keys;
+
+        return Sets.filter(keys, new Predicate<String>() {
+            @Override
+            public boolean apply(String input) {
+                return containsKey(input);
+            }
+        });
+    }
+
+    @Override
+    public int size() {
+        final Overlay overlay = this.overlay;
+        if (overlay.removedLexemeKeys.isEmpty())
+            return this.baseRootMap.size() + overlay.addedRoots.size();
+        return super.size();
+    }
+
+    private static class Overlay {
+        private final ImmutableListMultimap<String, Root> addedRoots;
+        private final ImmutableSet<String> removedLexemeKeys;
+
+        private Overlay(ImmutableListMultimap<String, Root> addedRoots, ImmutableSet<String> removedLexemeKeys) {
+            this.addedRoots = addedRoots;
+            this.removedLexemeKeys = removedLexemeKeys;
+        }
+
+        private boolean isEmpty() {
+            return addedRoots.isEmpty() && removedLexemeKeys.isEmpty();
+        }
+    }
+}
@@ -100,7 +100,9 @@ class LexemeCreator {
                 Sets.newEnumSet(LexemeAttribute.converter().getEnums(lexemeAttributeStrs), LexemeAttribute.class));
 
         for (LexemeAttribute lexemeAttribute : lexeme.getAttributes()) {
-            Validate.isTrue(lexemeAttribute.isApplicable(lexeme), "LexemeAttribute " + lexemeAttribute.name() + " is not applicable to " + lexeme.toString());
+            // message is not built with Validate, since it is expensive to build it for every line
+            if (!lexemeAttribute.isApplicable(lexeme))
+                throw new IllegalArgumentException("LexemeAttribute " + lexemeAttribute.name() + " is not applicable to " + lexeme.toString());
         }
 
         return lexeme;
@@ -0,0 +1,160 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Resources;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+import org.trnltk.model.lexicon.Lexeme;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Validates dictionary files and compiles them into a {@link ColumnarLexicon}, which is saved with
+ * {@link ColumnarLexiconSerializer}.
+ * <p/>
+ * All lines of the dictionaries are validated before the roots are generated, and all errors are reported with the
+ * file name and the line number, instead of failing at the first error at runtime.
+ * <p/>
+ * Bundled dictionaries are validated and compiled with
+ * <pre>
+ * mvn -pl core -P lexicon process-classes
+ * </pre>
+ *
+ * @author Ali Ok
+ */
+public class LexiconCompiler {
+    static Logger logger = Logger.getLogger(LexiconCompiler.class);
+
+    private final LexemeCreator lexemeCreator = new LexemeCreator();
+    private final CRC32 dictionaryChecksum = new CRC32();
+    private final HashSet<Lexeme> lexemes = new HashSet<Lexeme>();
+    // "file:line" of the first definition of each lexeme, for the duplicates across the dictionaries
+    private final Map<Lexeme, String> locationsOfLexemes = new HashMap<Lexeme, String>();
+    private final List<String> errors = new ArrayList<String>();
+    private final List<String> warnings = new ArrayList<String>();
+
+    /**
+     * Validates the lines of the dictionary and keeps its lexemes. Errors are collected, see {@link #getErrors()}.
+     */
+    public void addDictionary(URL url) throws IOException {
+        final String path = url.getPath();
+        this.addDictionary(path.substring(path.lastIndexOf('/') + 1), Resources.toByteArray(url));
+    }
+
+    void addDictionary(String name, byte[] content) {
+        this.dictionaryChecksum.update(content);
+
+        int lineNumber = 0;
+        for (String line : Splitter.on('\n').split(new String(content, Charsets.UTF_8))) {
+            lineNumber++;
+            final Lexeme lexeme;
+            try {
+                lexeme = DictionaryLoader.createLexemeFromLine(this.lexemeCreator, line);
+            } catch (RuntimeException e) {
+                this.errors.add(name + ":" + lineNumber + ": " + e.getMessage() + " : '" + line.trim() + "'");
+                continue;
+            }
+
+            if (lexeme == null)
+                continue;
+
+            final String previousLocation = this.locationsOfLexemes.get(lexeme);
+            if (previousLocation != null)
+                this.warnings.add(name + ":" + lineNumber + ": Same lexeme is defined at " + previousLocation + " : '" + line.trim() + "'");
+            else
+                this.locationsOfLexemes.put(lexeme, name + ":" + lineNumber);
+
+            this.lexemes.add(lexeme);
+        }
+    }
+
+    /**
+     * @return Errors found in the dictionaries so far, as "file:line: message"
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return Lines which are valid, but probably not intended; e.g. same lexeme defined twice
+     */
+    public List<String> getWarnings() {
+        return Collections.unmodifiableList(warnings);
+    }
+
+    /**
+     * @return Checksum of the dictionaries added, in the order they are added
+     */
+    public long getDictionaryChecksum() {
+        return dictionaryChecksum.getValue();
+    }
+
+    /**
+     * Generates the roots of the lexemes in the dictionaries.
+     *
+     * @throws IllegalStateException if there are errors in the dictionaries
+     */
+    public ColumnarLexicon compile() {
+        if (!errors.isEmpty())
+            throw new IllegalStateException(errors.size() + " errors in the dictionaries, first one is " + errors.get(0));
+        return ColumnarLexicon.copyOf(RootMapFactory.buildWithLexemes(lexemes));
+    }
+
+    /**
+     * Compiles the given dictionaries, or the bundled ones if none are given, into the output file.
+     */
+    public static void main(String[] args) throws IOException {
+        Validate.isTrue(args.length >= 1, "Usage : LexiconCompiler <output file> [dictionary file]...");
+
+        final List<URL> dictionaries = new ArrayList<URL>();
+        if (args.length == 1) {
+            for (String dictionaryResource : ColumnarLexiconSerializer.DEFAULT_DICTIONARY_RESOURCES) {
+                dictionaries.add(Resources.getResource(dictionaryResource));
+            }
+        } else {
+            for (String dictionaryFile : ImmutableList.copyOf(args).subList(1, args.length)) {
+                dictionaries.add(new File(dictionaryFile).toURI().toURL());
+            }
+        }
+
+        final LexiconCompiler compiler = new LexiconCompiler();
+        for (URL dictionary : dictionaries) {
+            compiler.addDictionary(dictionary);
+        }
+
+        for (String warning : compiler.getWarnings()) {
+            logger.warn(warning);
+        }
+        // thrown instead of exiting, since the compiler is also run inside Maven
+        if (!compiler.getErrors().isEmpty())
+            throw new IllegalStateException(compiler.getErrors().size() + " errors in the dictionaries :\n" + Joiner.on('\n').join(compiler.getErrors()));
+
+        final ColumnarLexicon lexicon = compiler.compile();
+        final File file = new File(args[0]);
+        ColumnarLexiconSerializer.write(lexicon, compiler.getDictionaryChecksum(), file);
+        logger.info("Saved " + lexicon + " to " + file.getAbsolutePath());
+    }
+}
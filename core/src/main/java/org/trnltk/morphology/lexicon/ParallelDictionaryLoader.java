@@ -0,0 +1,150 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.io.InputSupplier;
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.lexicon.ImmutableRoot;
+import org.trnltk.model.lexicon.Lexeme;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Loads dictionaries directly into a {@link ConcurrentRootMap}, without creating the lexeme set and the root set
+ * of the whole dictionary like {@link DictionaryLoader} and {@link RootMapFactory} do.
+ * <p/>
+ * Lines are read in a single thread and they are processed in batches on the given executor: lexemes are created
+ * from the lines, their roots are generated and added to the map. Number of batches waiting to be processed is
+ * limited, thus a large dictionary is never read into memory as a whole.
+ * <p/>
+ * Dictionary format is the same with {@link DictionaryLoader}.
+ */
+public class ParallelDictionaryLoader {
+    private static final int MAX_PENDING_BATCHES_PER_THREAD = 4;
+
+    private final ExecutorService executorService;
+    private final ImmutableRootGenerator rootGenerator;
+    private final int batchSize;
+    private final int maxPendingBatches;
+
+    /**
+     * @param executorService Executor to run the batches on
+     * @param threadCount     Number of threads of the executor
+     * @param rootGenerator   Generator to create the roots of the lexemes. It is used from multiple threads.
+     * @param batchSize       Number of lines to process in a single task
+     */
+    public ParallelDictionaryLoader(ExecutorService executorService, int threadCount, ImmutableRootGenerator rootGenerator, int batchSize) {
+        Validate.notNull(executorService);
+        Validate.isTrue(threadCount > 0, "Thread count must be positive");
+        Validate.notNull(rootGenerator);
+        Validate.isTrue(batchSize > 0, "Batch size must be positive");
+        this.executorService = executorService;
+        this.rootGenerator = rootGenerator;
+        this.batchSize = batchSize;
+        this.maxPendingBatches = threadCount * MAX_PENDING_BATCHES_PER_THREAD;
+    }
+
+    /**
+     * Loads the dictionary and waits for all the roots to be added.
+     *
+     * @param inputSupplier Dictionary to read
+     * @param rootMap       Map to add the roots to
+     * @return Number of lexemes loaded, including the duplicates
+     */
+    public int load(InputSupplier<? extends Reader> inputSupplier, ConcurrentRootMap rootMap) {
+        Validate.notNull(inputSupplier);
+        Validate.notNull(rootMap);
+
+        final Deque<Future<Integer>> futures = new ArrayDeque<Future<Integer>>();
+        int lexemeCount = 0;
+        try {
+            final BufferedReader reader = new BufferedReader(inputSupplier.getInput());
+            try {
+                List<String> batch = new ArrayList<String>(batchSize);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    batch.add(line);
+                    if (batch.size() == batchSize) {
+                        futures.add(submit(batch, rootMap));
+                        batch = new ArrayList<String>(batchSize);
+
+                        // wait for the oldest batch instead of reading ahead without a limit
+                        if (futures.size() >= maxPendingBatches)
+                            lexemeCount += getResult(futures.poll());
+                    }
+                }
+                if (!batch.isEmpty())
+                    futures.add(submit(batch, rootMap));
+            } finally {
+                reader.close();
+            }
+
+            while (!futures.isEmpty()) {
+                lexemeCount += getResult(futures.poll());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            for (Future<Integer> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        return lexemeCount;
+    }
+
+    private Future<Integer> submit(final List<String> lines, final ConcurrentRootMap rootMap) {
+        return executorService.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                final LexemeCreator lexemeCreator = new LexemeCreator();
+                int lexemeCount = 0;
+                for (String line : lines) {
+                    final Lexeme lexeme = DictionaryLoader.createLexemeFromLine(lexemeCreator, line);
+                    if (lexeme == null)
+                        continue;
+
+                    lexemeCount++;
+                    for (ImmutableRoot root : rootGenerator.generate(lexeme)) {
+                        rootMap.addRoot(root);
+                    }
+                }
+                return lexemeCount;
+            }
+        });
+    }
+
+    private static int getResult(Future<Integer> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
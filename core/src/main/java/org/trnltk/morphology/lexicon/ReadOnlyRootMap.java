@@ -0,0 +1,170 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.base.Function;
+import com.google.common.collect.*;
+import org.trnltk.model.lexicon.Root;
+
+import java.util.*;
+
+/**
+ * Base for root maps which are not modified through the {@link Multimap} interface. Implementations provide the
+ * lookup of a key and the keys; other views are derived from them.
+ * <p/>
+ * Mutating methods throw {@link UnsupportedOperationException}. Equality is identity, since roots of different
+ * maps are not comparable anyway.
+ */
+public abstract class ReadOnlyRootMap implements Multimap<String, Root> {
+
+    /**
+     * @return Roots of the key, never null
+     */
+    @Override
+    public abstract Collection<Root> get(String key);
+
+    @Override
+    public abstract Set<String> keySet();
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (String key : keySet()) {
+            size += get(key).size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keySet().isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && !get((String) key).isEmpty();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return value instanceof Root && Iterables.contains(values(), value);
+    }
+
+    @Override
+    public boolean containsEntry(Object key, Object value) {
+        return key instanceof String && get((String) key).contains(value);
+    }
+
+    @Override
+    public Multiset<String> keys() {
+        final ImmutableMultiset.Builder<String> builder = ImmutableMultiset.builder();
+        for (String key : keySet()) {
+            builder.addCopies(key, get(key).size());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Collection<Root> values() {
+        return new AbstractCollection<Root>() {
+            @Override
+            public Iterator<Root> iterator() {
+                return Iterables.concat(Iterables.transform(keySet(), new Function<String, Collection<Root>>() {
+                    @Override
+                    public Collection<Root> apply(String input) {
+                        return get(input);
+                    }
+                })).iterator();
+            }
+
+            @Override
+            public int size() {
+                return ReadOnlyRootMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Map.Entry<String, Root>> entries() {
+        return new AbstractCollection<Map.Entry<String, Root>>() {
+            @Override
+            public Iterator<Map.Entry<String, Root>> iterator() {
+                return Iterables.concat(Iterables.transform(keySet(), new Function<String, Iterable<Map.Entry<String, Root>>>() {
+                    @Override
+                    public Iterable<Map.Entry<String, Root>> apply(final String key) {
+                        return Iterables.transform(get(key), new Function<Root, Map.Entry<String, Root>>() {
+                            @Override
+                            public Map.Entry<String, Root> apply(Root input) {
+                                return Maps.immutableEntry(key, input);
+                            }
+                        });
+                    }
+                })).iterator();
+            }
+
+            @Override
+            public int size() {
+                return ReadOnlyRootMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Map<String, Collection<Root>> asMap() {
+        return Maps.asMap(keySet(), new Function<String, Collection<Root>>() {
+            @Override
+            public Collection<Root> apply(String input) {
+                return get(input);
+            }
+        });
+    }
+
+    @Override
+    public boolean put(String key, Root value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean putAll(String key, Iterable<? extends Root> values) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean putAll(Multimap<? extends String, ? extends Root> multimap) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<Root> replaceValues(String key, Iterable<? extends Root> values) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<Root> removeAll(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+}
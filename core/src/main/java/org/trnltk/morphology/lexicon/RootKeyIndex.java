@@ -0,0 +1,94 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.collect.Multimap;
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.lexicon.Root;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Sorted keys of a root map, which can be walked like a trie: keys with a common prefix are next to each other.
+ * <p/>
+ * Keys are sorted once, when they are first needed. If the root map is a {@link LayeredRootMap}, they are sorted
+ * again after it is changed.
+ * <p/>
+ * Thread safe.
+ */
+public class RootKeyIndex {
+    private final Multimap<String, ? extends Root> rootMap;
+    private volatile String[] sortedKeys;
+
+    public RootKeyIndex(Multimap<String, ? extends Root> rootMap) {
+        Validate.notNull(rootMap);
+        this.rootMap = rootMap;
+
+        if (rootMap instanceof LayeredRootMap) {
+            ((LayeredRootMap) rootMap).addRootChangeListener(new LayeredRootMap.RootChangeListener() {
+                @Override
+                public void rootsChanged(Set<String> rootStrings) {
+                    sortedKeys = null;
+                }
+            });
+        }
+    }
+
+    /**
+     * @return Sorted keys of the root map. Returned array must not be modified.
+     */
+    public String[] getSortedKeys() {
+        String[] keys = this.sortedKeys;
+        if (keys == null) {
+            keys = this.rootMap.keySet().toArray(new String[0]);
+            // keys of a columnar lexicon are already sorted
+            if (!(this.rootMap instanceof ColumnarLexicon))
+                Arrays.sort(keys);
+            this.sortedKeys = keys;
+        }
+        return keys;
+    }
+
+    /**
+     * @return true if there is a key which starts with the given prefix, including the prefix itself
+     */
+    public static boolean hasKeyStartingWith(String[] sortedKeys, String prefix) {
+        int index = Arrays.binarySearch(sortedKeys, prefix);
+        if (index >= 0)
+            return true;
+        index = -index - 1;
+        return index < sortedKeys.length && sortedKeys[index].startsWith(prefix);
+    }
+
+    /**
+     * @return Index of the first key after <code>fromIndex</code> which doesn't start with the given prefix, or the
+     *         number of keys if there are none
+     */
+    public static int skipKeysStartingWith(String[] sortedKeys, String prefix, int fromIndex) {
+        int low = fromIndex;
+        int high = sortedKeys.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sortedKeys[mid].startsWith(prefix) || sortedKeys[mid].compareTo(prefix) < 0)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+}
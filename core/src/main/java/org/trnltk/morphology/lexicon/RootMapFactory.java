@@ -16,14 +16,24 @@
 
 package org.trnltk.morphology.lexicon;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.HashMultimap;
+import com.google.common.io.Resources;
 import org.trnltk.model.lexicon.Lexeme;
 import org.trnltk.model.lexicon.Root;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class RootMapFactory {
+    // a little more than the number of the keys of the bundled dictionaries
+    private static final int BUNDLED_DICTIONARIES_KEY_COUNT = 40000;
+    private static final int PARALLEL_LOADING_BATCH_SIZE = 500;
+
     public static HashMultimap<String, ? extends Root> createSimple() {
         final HashSet<Lexeme> lexemes = DictionaryLoader.loadDefaultMasterDictionary();
         return buildWithLexemes(lexemes);
@@ -51,6 +61,77 @@ public class RootMapFactory {
         return buildWithLexemesConvertCircumflexes(lexemes);
     }
 
+    /**
+     * Creates the roots without the circumflexes only, e.g. "kağıt" but not "kâğıt". Input should be normalized with
+     * {@link org.trnltk.normalization.InputNormalizer.Normalization#CIRCUMFLEXES}.
+     */
+    public static HashMultimap<String, ? extends Root> createSimpleWithNumbersDropCircumflexes() {
+        final HashSet<Lexeme> lexemes = DictionaryLoader.loadDefaultMasterDictionary();
+        lexemes.addAll(DictionaryLoader.loadDefaultNumeralMasterDictionary());
+        return buildWithLexemesDropCircumflexes(lexemes);
+    }
+
+    /**
+     * Creates a {@link ColumnarLexicon} with the roots of the bundled dictionaries, including the numbers.
+     * It is read-only and it can be shared by several parsers.
+     */
+    public static ColumnarLexicon createColumnarSimpleWithNumbers() {
+        return ColumnarLexicon.copyOf(createSimpleWithNumbers());
+    }
+
+    /**
+     * @see #createColumnarSimpleWithNumbers()
+     * @see #createSimpleWithNumbersConvertCircumflexes()
+     */
+    public static ColumnarLexicon createColumnarSimpleWithNumbersConvertCircumflexes() {
+        return ColumnarLexicon.copyOf(createSimpleWithNumbersConvertCircumflexes());
+    }
+
+    /**
+     * Loads the lexicon compiled from the bundled dictionaries with {@link LexiconCompiler}, without parsing the
+     * dictionaries. If the file doesn't exist or if it is compiled from other dictionaries, the lexicon is created
+     * with {@link #createColumnarSimpleWithNumbers()}.
+     */
+    public static ColumnarLexicon loadColumnarSimpleWithNumbers(File compiledLexiconFile) throws IOException {
+        if (compiledLexiconFile.isFile()) {
+            final ColumnarLexicon lexicon = ColumnarLexiconSerializer.read(compiledLexiconFile, ColumnarLexiconSerializer.getDefaultDictionaryChecksum());
+            if (lexicon != null)
+                return lexicon;
+        }
+        return createColumnarSimpleWithNumbers();
+    }
+
+    /**
+     * Loads the bundled dictionaries, including the numbers, with a {@link ParallelDictionaryLoader} on the given
+     * number of threads. Roots are the same with {@link #createSimpleWithNumbers()}, but the map is a read-only
+     * {@link ConcurrentRootMap}.
+     */
+    public static ConcurrentRootMap createConcurrentSimpleWithNumbers(int threadCount) {
+        return loadBundledDictionariesConcurrently(new ImmutableRootGenerator(), threadCount);
+    }
+
+    /**
+     * @see #createConcurrentSimpleWithNumbers(int)
+     * @see #createSimpleWithNumbersConvertCircumflexes()
+     */
+    public static ConcurrentRootMap createConcurrentSimpleWithNumbersConvertCircumflexes(int threadCount) {
+        return loadBundledDictionariesConcurrently(new CircumflexConvertingRootGenerator(), threadCount);
+    }
+
+    private static ConcurrentRootMap loadBundledDictionariesConcurrently(ImmutableRootGenerator rootGenerator, int threadCount) {
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            final ParallelDictionaryLoader loader = new ParallelDictionaryLoader(executorService, threadCount, rootGenerator, PARALLEL_LOADING_BATCH_SIZE);
+            final ConcurrentRootMap rootMap = new ConcurrentRootMap(BUNDLED_DICTIONARIES_KEY_COUNT, threadCount);
+            for (String dictionaryResource : ColumnarLexiconSerializer.DEFAULT_DICTIONARY_RESOURCES) {
+                loader.load(Resources.newReaderSupplier(Resources.getResource(dictionaryResource), Charsets.UTF_8), rootMap);
+            }
+            return rootMap;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
     public static HashMultimap<String, ? extends Root> buildWithLexemes(HashSet<Lexeme> lexemes) {
         final ImmutableRootGenerator immutableRootGenerator = new ImmutableRootGenerator();
         Collection<? extends Root> roots = immutableRootGenerator.generateAll(lexemes);
@@ -64,4 +145,11 @@ public class RootMapFactory {
 
         return new RootMapGenerator().generate(roots);
     }
+
+    public static HashMultimap<String, ? extends Root> buildWithLexemesDropCircumflexes(HashSet<Lexeme> lexemes) {
+        final CircumflexConvertingRootGenerator rootGenerator = new CircumflexConvertingRootGenerator(false);
+        Collection<? extends Root> roots = rootGenerator.generateAll(lexemes);
+
+        return new RootMapGenerator().generate(roots);
+    }
 }
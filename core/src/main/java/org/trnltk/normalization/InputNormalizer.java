@@ -0,0 +1,250 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.normalization;
+
+import org.apache.commons.lang3.Validate;
+import org.trnltk.model.letter.TurkishAlphabet;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Normalizes the spelling variants of the input before it is parsed, so that the lexicon needs to have a single
+ * spelling of a root.
+ * <p/>
+ * Normalization is done in a single pass over the chars of the input. If nothing is normalized, the input itself is
+ * returned and nothing is allocated. Each normalized char is produced from one or two chars of the input, thus
+ * normalized offsets can be mapped back to the input with {@link NormalizedInput}.
+ * <p/>
+ * Instances are immutable and can be shared.
+ */
+public class InputNormalizer {
+
+    public enum Normalization {
+        /**
+         * Decomposed Turkish letters (NFD) are composed (NFC), e.g. "ç" to "ç".
+         */
+        COMPOSE_COMBINING_MARKS,
+
+        /**
+         * Apostrophe variants are replaced by ASCII apostrophe, e.g. "Ankara’da" to "Ankara'da".
+         */
+        APOSTROPHES,
+
+        /**
+         * Dot above of the lower case i is removed, e.g. "i̇" which is the result of lower casing "İ" with a
+         * non-Turkish locale, to "i".
+         */
+        DOTTED_I,
+
+        /**
+         * Circumflexes are removed, e.g. "kâğıt" to "kağıt". Must be used with a lexicon having the roots without
+         * circumflexes.
+         *
+         * @see org.trnltk.morphology.lexicon.RootMapFactory#createSimpleWithNumbersDropCircumflexes()
+         */
+        CIRCUMFLEXES
+    }
+
+    private static final char COMBINING_CIRCUMFLEX = '\u0302';
+    private static final char COMBINING_BREVE = '\u0306';
+    private static final char COMBINING_DOT_ABOVE = '\u0307';
+    private static final char COMBINING_DIAERESIS = '\u0308';
+    private static final char COMBINING_CEDILLA = '\u0327';
+
+    private final boolean composeCombiningMarks;
+    private final boolean normalizeApostrophes;
+    private final boolean normalizeDottedI;
+    private final boolean removeCircumflexes;
+
+    public InputNormalizer(Set<Normalization> normalizations) {
+        Validate.notNull(normalizations);
+        this.composeCombiningMarks = normalizations.contains(Normalization.COMPOSE_COMBINING_MARKS);
+        this.normalizeApostrophes = normalizations.contains(Normalization.APOSTROPHES);
+        this.normalizeDottedI = normalizations.contains(Normalization.DOTTED_I);
+        this.removeCircumflexes = normalizations.contains(Normalization.CIRCUMFLEXES);
+    }
+
+    /**
+     * @return A normalizer with all normalizations except {@link Normalization#CIRCUMFLEXES}, which depends on the lexicon
+     */
+    public static InputNormalizer createDefault() {
+        return new InputNormalizer(EnumSet.complementOf(EnumSet.of(Normalization.CIRCUMFLEXES)));
+    }
+
+    /**
+     * @return Normalized input, or the input itself if there is nothing to normalize
+     */
+    public String normalize(String input) {
+        final int firstIndex = this.findFirstIndexToNormalize(input);
+        if (firstIndex < 0)
+            return input;
+
+        return this.normalize(input, firstIndex, null);
+    }
+
+    /**
+     * @return Normalized input with the offsets of the normalized chars in the input
+     */
+    public NormalizedInput normalizeWithOffsets(String input) {
+        final int firstIndex = this.findFirstIndexToNormalize(input);
+        if (firstIndex < 0)
+            return new NormalizedInput(input, input, null);
+
+        final int[] originalOffsets = new int[input.length() + 1];
+        final String normalized = this.normalize(input, firstIndex, originalOffsets);
+        originalOffsets[normalized.length()] = input.length();
+        return new NormalizedInput(input, normalized, originalOffsets);
+    }
+
+    private int findFirstIndexToNormalize(String input) {
+        final int length = input.length();
+        for (int i = 0; i < length; i++) {
+            final char c = input.charAt(i);
+            if (this.map(c) != c)
+                return i;
+            if (i + 1 < length && this.compose(c, input.charAt(i + 1)) != 0)
+                return i;
+        }
+        return -1;
+    }
+
+    private String normalize(String input, int firstIndex, int[] originalOffsets) {
+        final int length = input.length();
+        final char[] normalized = new char[length];
+        input.getChars(0, firstIndex, normalized, 0);
+        if (originalOffsets != null) {
+            for (int i = 0; i < firstIndex; i++) {
+                originalOffsets[i] = i;
+            }
+        }
+
+        int normalizedLength = firstIndex;
+        for (int i = firstIndex; i < length; i++) {
+            if (originalOffsets != null)
+                originalOffsets[normalizedLength] = i;
+
+            char c = input.charAt(i);
+            if (i + 1 < length) {
+                final char composed = this.compose(c, input.charAt(i + 1));
+                if (composed != 0) {
+                    c = composed;
+                    i++;
+                }
+            }
+            normalized[normalizedLength++] = this.map(c);
+        }
+
+        return new String(normalized, 0, normalizedLength);
+    }
+
+    /**
+     * @return Composed char of the given char and the combining mark following it, 0 if they are not composed
+     */
+    private char compose(char c, char combiningMark) {
+        if (this.normalizeDottedI && c == 'i' && combiningMark == COMBINING_DOT_ABOVE)
+            return 'i';
+        if (!this.composeCombiningMarks)
+            return 0;
+
+        switch (combiningMark) {
+            case COMBINING_CEDILLA:
+                switch (c) {
+                    case 'c':
+                        return TurkishAlphabet.C_cc;
+                    case 'C':
+                        return TurkishAlphabet.C_CC;
+                    case 's':
+                        return TurkishAlphabet.C_ss;
+                    case 'S':
+                        return TurkishAlphabet.C_SS;
+                }
+                return 0;
+            case COMBINING_BREVE:
+                switch (c) {
+                    case 'g':
+                        return TurkishAlphabet.C_gg;
+                    case 'G':
+                        return TurkishAlphabet.C_GG;
+                }
+                return 0;
+            case COMBINING_DIAERESIS:
+                switch (c) {
+                    case 'o':
+                        return TurkishAlphabet.C_oo;
+                    case 'O':
+                        return TurkishAlphabet.C_OO;
+                    case 'u':
+                        return TurkishAlphabet.C_uu;
+                    case 'U':
+                        return TurkishAlphabet.C_UU;
+                }
+                return 0;
+            case COMBINING_DOT_ABOVE:
+                return c == 'I' ? TurkishAlphabet.C_II : 0;
+            case COMBINING_CIRCUMFLEX:
+                switch (c) {
+                    case 'a':
+                        return TurkishAlphabet.a_CIRC;
+                    case 'A':
+                        return TurkishAlphabet.A_CIRC;
+                    case 'i':
+                        return TurkishAlphabet.i_CIRC;
+                    case 'I':
+                        return TurkishAlphabet.I_CIRC;
+                    case 'u':
+                        return TurkishAlphabet.u_CIRC;
+                    case 'U':
+                        return TurkishAlphabet.U_CIRC;
+                }
+                return 0;
+            default:
+                return 0;
+        }
+    }
+
+    private char map(char c) {
+        if (this.normalizeApostrophes) {
+            switch (c) {
+                case '\u2019': // right single quotation mark
+                case '\u2018': // left single quotation mark
+                case '\u02bc': // modifier letter apostrophe
+                case '\u00b4': // acute accent
+                case '\u0060': // grave accent
+                case '\u2032': // prime
+                    return '\'';
+            }
+        }
+        if (this.removeCircumflexes) {
+            switch (c) {
+                case TurkishAlphabet.a_CIRC:
+                    return 'a';
+                case TurkishAlphabet.A_CIRC:
+                    return 'A';
+                case TurkishAlphabet.i_CIRC:
+                    return 'i';
+                case TurkishAlphabet.I_CIRC:
+                    return 'I';
+                case TurkishAlphabet.u_CIRC:
+                    return 'u';
+                case TurkishAlphabet.U_CIRC:
+                    return 'U';
+            }
+        }
+        return c;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.normalization;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Result of {@link InputNormalizer#normalizeWithOffsets(String)}, which maps the offsets in the normalized input back
+ * to the original input.
+ * <p/>
+ * E.g. for original "kâğıt" and normalized "kağıt", offset 3 of the normalized input is offset 4 of the original.
+ */
+public class NormalizedInput {
+    private final String original;
+    private final String normalized;
+    // null if nothing is normalized
+    private final int[] originalOffsets;
+
+    NormalizedInput(String original, String normalized, int[] originalOffsets) {
+        this.original = original;
+        this.normalized = normalized;
+        this.originalOffsets = originalOffsets;
+    }
+
+    public String getOriginal() {
+        return original;
+    }
+
+    public String getNormalized() {
+        return normalized;
+    }
+
+    public boolean isChanged() {
+        return originalOffsets != null;
+    }
+
+    /**
+     * @param normalizedOffset Offset in the normalized input, between 0 and length of it (inclusive)
+     * @return Offset in the original input
+     */
+    public int getOriginalOffset(int normalizedOffset) {
+        Validate.isTrue(normalizedOffset >= 0 && normalizedOffset <= normalized.length(), "Offset out of range : " + normalizedOffset);
+        return originalOffsets == null ? normalizedOffset : originalOffsets[normalizedOffset];
+    }
+
+    /**
+     * @return Part of the original input, which is normalized to the given part of the normalized input
+     */
+    public String getOriginalSubstring(int normalizedBeginIndex, int normalizedEndIndex) {
+        Validate.isTrue(normalizedBeginIndex <= normalizedEndIndex);
+        return original.substring(this.getOriginalOffset(normalizedBeginIndex), this.getOriginalOffset(normalizedEndIndex));
+    }
+
+    @Override
+    public String toString() {
+        return "NormalizedInput{" +
+                "original='" + original + '\'' +
+                ", normalized='" + normalized + '\'' +
+                '}';
+    }
+}
@@ -35,7 +35,11 @@ public class DigitsToTextConverter {
     private static final BigInteger MAX_NATURAL_NUMBER_SUPPORTED = TEN.pow(MAX_GROUP_BASE + 3).add(ONE.negate());  // 10^^66 - 1
 
     private static final String FRACTION_SEPARATOR = ",";
-    private static final String GROUPING_SEPARATOR_REGEX = "\\.";
+    private static final char GROUPING_SEPARATOR = '.';
+
+    // numbers with at most this many digits fit in a long
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final long LONG_ONE_THOUSAND = 1000L;
 
     private static final String NEGATIVE_SIGN = "-";
     private static final String POSITIVE_SIGN = "+";
@@ -97,13 +101,17 @@ public class DigitsToTextConverter {
             .put(21, "vigintilyon")
             .build();
 
+    /**
+     * Numbers with at most {@value #MAX_LONG_DIGITS} digits in integer and fraction parts are converted with
+     * <code>long</code> arithmetic, {@link BigInteger}s are used for the larger ones.
+     */
     public String convert(String digits) {
         if (StringUtils.isBlank(digits))
             return null;
 
-        digits = digits.replaceAll(GROUPING_SEPARATOR_REGEX, StringUtils.EMPTY);
+        digits = StringUtils.remove(digits, GROUPING_SEPARATOR);
 
-        if (!TURKISH_NUMBER_PATTERN.matcher(digits).matches())
+        if (!isTurkishNumber(digits))
             throw new IllegalArgumentException("'" + digits + "' is not a valid Turkish number. Allowed pattern is : " + TURKISH_NUMBER_PATTERN.pattern());
 
         String strIntegerPart, strFractionPart;
@@ -126,6 +134,9 @@ public class DigitsToTextConverter {
             strIntegerPart = strIntegerPart.substring(1);
         }
 
+        if (strIntegerPart.length() <= MAX_LONG_DIGITS && (strFractionPart == null || strFractionPart.length() <= MAX_LONG_DIGITS))
+            return this.convert(strIntegerPart, strFractionPart, isPositive);
+
         BigInteger integerPart = new BigInteger(strIntegerPart);
         BigInteger fractionPart = StringUtils.isNotBlank(strFractionPart) ? new BigInteger(strFractionPart) : BigInteger.ZERO;
 
@@ -147,6 +158,107 @@ public class DigitsToTextConverter {
             return wordIntegerPart;
     }
 
+    /**
+     * Same with the {@link BigInteger} version, but with primitive arithmetic
+     */
+    private String convert(String strIntegerPart, String strFractionPart, boolean isPositive) {
+        final long integerPart = Long.parseLong(strIntegerPart);
+
+        String wordIntegerPart = this.addTextForLeadingZeros(strIntegerPart, this.convertNaturalNumberToWords(integerPart));
+        if (!isPositive && integerPart > 0)
+            wordIntegerPart = MINUS_NAME + " " + wordIntegerPart;
+
+        if (strFractionPart == null)
+            return wordIntegerPart;
+
+        String wordFractionPart = this.convertNaturalNumberToWords(StringUtils.isNotBlank(strFractionPart) ? Long.parseLong(strFractionPart) : 0L);
+        wordFractionPart = StringUtils.isNotBlank(strFractionPart) ? this.addTextForLeadingZeros(strFractionPart, wordFractionPart) : wordFractionPart;
+        return wordIntegerPart + " " + COMMA_NAME + " " + wordFractionPart;
+    }
+
+    private String convertNaturalNumberToWords(long naturalNumber) {
+        Validate.isTrue(naturalNumber >= 0);
+        if (naturalNumber == 0)
+            return ZERO_NAME;
+
+        int groupBase = 0;
+        long groupDivisor = 1;
+        while (naturalNumber / groupDivisor >= LONG_ONE_THOUSAND) {
+            groupDivisor *= LONG_ONE_THOUSAND;
+            groupBase++;
+        }
+
+        final StringBuilder result = new StringBuilder();
+        for (; groupBase >= 0; groupBase--, groupDivisor /= LONG_ONE_THOUSAND) {
+            final int groupNumber = (int) (naturalNumber / groupDivisor % LONG_ONE_THOUSAND);
+            if (groupNumber == 0) {
+                // don't write 'sifir milyon'
+                continue;
+            }
+
+            if (groupNumber != 1 || groupBase != 1) {
+                // don't write 'bir bin', but write 'bir milyon'
+                this.appendGroupNumberWords(groupNumber, result);
+            }
+            if (groupBase > 0)
+                appendWord(result, THOUSAND_POWER_NAMES.get(groupBase));
+        }
+
+        return result.toString();
+    }
+
+    private void appendGroupNumberWords(int groupNumber, StringBuilder result) {
+        final int hundredsDigit = groupNumber / 100;
+        final int tensDigit = groupNumber / 10 % 10;
+        final int onesDigit = groupNumber % 10;
+
+        if (hundredsDigit > 1)
+            appendWord(result, NUMERAL_SYMBOL_NAMES.get(hundredsDigit));
+        if (hundredsDigit > 0)
+            appendWord(result, HUNDRED_NAME);
+        if (tensDigit > 0)
+            appendWord(result, TENS_MULTIPLES_NAMES.get(tensDigit));
+        if (onesDigit > 0)
+            appendWord(result, NUMERAL_SYMBOL_NAMES.get(onesDigit));
+    }
+
+    private static void appendWord(StringBuilder result, String word) {
+        if (result.length() > 0)
+            result.append(' ');
+        result.append(word);
+    }
+
+    /**
+     * Same with {@link #TURKISH_NUMBER_PATTERN}, without a regex
+     */
+    private static boolean isTurkishNumber(String digits) {
+        final int length = digits.length();
+        int i = 0;
+        if (i < length && (digits.charAt(i) == '-' || digits.charAt(i) == '+'))
+            i++;
+
+        final int integerPartBegin = i;
+        while (i < length && isDigit(digits.charAt(i)))
+            i++;
+        if (i == integerPartBegin)
+            return false;
+        if (i == length)
+            return true;
+
+        if (digits.charAt(i) != ',')
+            return false;
+        i++;
+
+        final int fractionPartBegin = i;
+        while (i < length && isDigit(digits.charAt(i)))
+            i++;
+        return i == length && i > fractionPartBegin;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
     private String convertNaturalNumberToWords(BigInteger naturalNumber) {
         Validate.isTrue(naturalNumber.compareTo(ZERO) >= 0);
         Validate.isTrue(naturalNumber.compareTo(MAX_NATURAL_NUMBER_SUPPORTED) <= 0,
@@ -0,0 +1,149 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Character trie of abbreviations, which finds the longest abbreviation at the beginning of a text in a single
+ * pass, without creating any objects. There is no limit for the length of an abbreviation; abbreviations of
+ * multiple words like "Yrd. Doç." are matched as well.
+ * <p/>
+ * Trie is compiled into arrays: children of a node are kept next to each other, sorted by their chars.
+ * <p/>
+ * Thread safe.
+ *
+ * @author Ali Ok
+ */
+public class AbbreviationTrie {
+    private static final String DEFAULT_ABBREVIATIONS_RESOURCE = "tokenizer/abbreviations.txt";
+
+    /**
+     * Abbreviations in the default dictionary which end with a '.'. The ones without a '.' cannot be told apart
+     * from words.
+     */
+    static final AbbreviationTrie DEFAULT_ABBREVIATIONS = loadDefaultAbbreviations();
+
+    // children of node n are the edges in [childStarts[n], childStarts[n + 1])
+    private final int[] childStarts;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final boolean[] terminal;
+    private final int maxLength;
+
+    public AbbreviationTrie(Collection<String> abbreviations) {
+        Validate.notNull(abbreviations);
+
+        final BuilderNode root = new BuilderNode();
+        int maxLength = 0;
+        int nodeCount = 1;
+        for (String abbreviation : abbreviations) {
+            Validate.notEmpty(abbreviation);
+            BuilderNode node = root;
+            for (int i = 0; i < abbreviation.length(); i++) {
+                BuilderNode child = node.children.get(abbreviation.charAt(i));
+                if (child == null) {
+                    child = new BuilderNode();
+                    node.children.put(abbreviation.charAt(i), child);
+                    nodeCount++;
+                }
+                node = child;
+            }
+            node.terminal = true;
+            maxLength = Math.max(maxLength, abbreviation.length());
+        }
+
+        this.maxLength = maxLength;
+        this.childStarts = new int[nodeCount + 1];
+        this.edgeChars = new char[nodeCount - 1];
+        this.edgeTargets = new int[nodeCount - 1];
+        this.terminal = new boolean[nodeCount];
+
+        // number nodes breadth first, so that children of a node are added next to each other
+        final ArrayDeque<BuilderNode> queue = new ArrayDeque<BuilderNode>();
+        queue.add(root);
+        int nodeIndex = 0;
+        int edgeIndex = 0;
+        int nextNodeIndex = 1;
+        while (!queue.isEmpty()) {
+            final BuilderNode node = queue.poll();
+            this.terminal[nodeIndex] = node.terminal;
+            this.childStarts[nodeIndex] = edgeIndex;
+            for (Map.Entry<Character, BuilderNode> entry : node.children.entrySet()) {
+                this.edgeChars[edgeIndex] = entry.getKey();
+                this.edgeTargets[edgeIndex] = nextNodeIndex++;
+                edgeIndex++;
+                queue.add(entry.getValue());
+            }
+            nodeIndex++;
+        }
+        this.childStarts[nodeCount] = edgeIndex;
+    }
+
+    /**
+     * @return Length of the longest abbreviation which the text in range starts with, or 0 if there is none
+     */
+    public int findLongestMatch(CharSequence text, int start, int end) {
+        int node = 0;
+        int longestMatch = 0;
+        for (int i = start; i < end; i++) {
+            final int edge = Arrays.binarySearch(edgeChars, childStarts[node], childStarts[node + 1], text.charAt(i));
+            if (edge < 0)
+                break;
+            node = edgeTargets[edge];
+            if (terminal[node])
+                longestMatch = i - start + 1;
+        }
+        return longestMatch;
+    }
+
+    /**
+     * @return Length of the longest abbreviation
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    private static AbbreviationTrie loadDefaultAbbreviations() {
+        try {
+            final List<String> abbreviations = new ArrayList<String>();
+            final List<String> lines = Resources.readLines(Resources.getResource(DEFAULT_ABBREVIATIONS_RESOURCE), Charsets.UTF_8);
+            for (String line : lines) {
+                //skip the ones without "." at the end
+                final int abbrEndIndex = line.indexOf(":");
+                Validate.isTrue(abbrEndIndex > 0, line);
+                final String abbr = line.substring(0, abbrEndIndex);
+                if (!abbr.endsWith("."))
+                    continue;
+                abbreviations.add(abbr);
+            }
+            return new AbbreviationTrie(abbreviations);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class BuilderNode {
+        private final SortedMap<Character, BuilderNode> children = new TreeMap<Character, BuilderNode>();
+        private boolean terminal = false;
+    }
+}
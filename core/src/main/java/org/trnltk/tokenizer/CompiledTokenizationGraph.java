@@ -0,0 +1,168 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Rules of a trained {@link TokenizationGraph} compiled into a dense table, indexed by the {@link TextBlockType}
+ * ordinals of the left and the right block groups. Looking up a rule is a few array reads and allocates nothing.
+ * <p/>
+ * Table has <code>(number of types)^(2 * blockSize)</code> entries, thus it can be created only for small block
+ * sizes; see {@link #canCompile(int)}.
+ * <p/>
+ * Graph is not referenced; later changes to the graph are not reflected. They can be detected with
+ * {@link #getGraphVersion()}.
+ * <p/>
+ * Thread safe.
+ *
+ * @author Ali Ok
+ */
+public class CompiledTokenizationGraph {
+    public static final byte NO_SPACE = 0;
+    public static final byte ADD_SPACE = 1;
+    public static final byte MISSING_RULE = -1;
+
+    static final int MAX_TABLE_SIZE = 1 << 24;
+
+    private static final TextBlockType[] TYPES = TextBlockType.values();
+
+    private final int blockSize;
+    private final byte[] table;
+    private final int graphVersion;
+
+    private CompiledTokenizationGraph(int blockSize, byte[] table, int graphVersion) {
+        this.blockSize = blockSize;
+        this.table = table;
+        this.graphVersion = graphVersion;
+    }
+
+    /**
+     * @return true if the table for given block size is small enough to be created
+     */
+    public static boolean canCompile(int blockSize) {
+        return blockSize > 0 && Math.pow(TYPES.length, 2 * blockSize) <= MAX_TABLE_SIZE;
+    }
+
+    /**
+     * Compiles the edges of the graph between the nodes of the given block size. Nodes of other sizes cannot
+     * be used by a tokenizer with this block size anyway.
+     */
+    public static CompiledTokenizationGraph compile(TokenizationGraph graph, int blockSize) {
+        Validate.notNull(graph);
+        Validate.isTrue(canCompile(blockSize), "Table is too large for block size " + blockSize);
+
+        final int graphVersion = graph.getVersion();
+        final byte[] table = new byte[(int) Math.pow(TYPES.length, 2 * blockSize)];
+        Arrays.fill(table, MISSING_RULE);
+
+        for (TokenizationGraphNode node : graph.nodeMap.values()) {
+            if (node.getData().getSize() != blockSize)
+                continue;
+
+            final int leftIndex = indexOf(node.getData(), 0);
+            for (Map.Entry<TextBlockTypeGroup, TokenizationGraphEdge> edgeEntry : node.edges.entrySet()) {
+                final TextBlockTypeGroup target = edgeEntry.getKey();
+                if (target.getSize() != blockSize)
+                    continue;
+
+                // a rule is found only if the target node exists, like TokenizationGraph#isAddSpace
+                if (!graph.nodeMap.containsKey(target))
+                    continue;
+
+                final int index = indexOf(target, leftIndex);
+                table[index] = edgeEntry.getValue().isAddSpace() ? ADD_SPACE : NO_SPACE;
+            }
+        }
+
+        return new CompiledTokenizationGraph(blockSize, table, graphVersion);
+    }
+
+    private static int indexOf(TextBlockTypeGroup textBlockTypeGroup, int index) {
+        for (TextBlockType textBlockType : textBlockTypeGroup.getTextBlockTypes()) {
+            index = index * TYPES.length + textBlockType.ordinal();
+        }
+        return index;
+    }
+
+    /**
+     * Finds the rule between the left group starting at given index and the right group after it. Blocks are read
+     * cyclically, thus a ring buffer of blocks can be used.
+     *
+     * @param textBlocks Blocks
+     * @param startIndex Index of the first block of the left group
+     * @return {@link #ADD_SPACE}, {@link #NO_SPACE} or {@link #MISSING_RULE}
+     */
+    public byte getRule(TextBlock[] textBlocks, int startIndex) {
+        return table[getRuleIndex(textBlocks, startIndex)];
+    }
+
+    /**
+     * @return Index of the rule between the left group starting at given index and the right group after it
+     * @see #getRule(TextBlock[], int)
+     */
+    public int getRuleIndex(TextBlock[] textBlocks, int startIndex) {
+        int index = 0;
+        for (int i = startIndex; i < startIndex + 2 * blockSize; i++) {
+            index = index * TYPES.length + textBlocks[i % textBlocks.length].getTextBlockType().ordinal();
+        }
+        return index;
+    }
+
+    /**
+     * @return {@link #ADD_SPACE}, {@link #NO_SPACE} or {@link #MISSING_RULE}
+     * @see #getRuleIndex(TextBlock[], int)
+     */
+    public byte getRule(int ruleIndex) {
+        return table[ruleIndex];
+    }
+
+    /**
+     * @return Number of rule indexes, including the missing rules
+     */
+    public int getRuleCount() {
+        return table.length;
+    }
+
+    /**
+     * @return Types of the left group and the right group of the rule at given index
+     */
+    public Pair<TextBlockTypeGroup, TextBlockTypeGroup> getGroups(int ruleIndex) {
+        final TextBlockType[] types = new TextBlockType[2 * blockSize];
+        for (int i = types.length - 1; i >= 0; i--) {
+            types[i] = TYPES[ruleIndex % TYPES.length];
+            ruleIndex /= TYPES.length;
+        }
+        return Pair.of(new TextBlockTypeGroup(Arrays.asList(types).subList(0, blockSize)),
+                new TextBlockTypeGroup(Arrays.asList(types).subList(blockSize, 2 * blockSize)));
+    }
+
+    /**
+     * @return {@link TokenizationGraph#getVersion() Version} of the graph when it is compiled
+     */
+    public int getGraphVersion() {
+        return graphVersion;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tokenizer stats of fixed size, which can be updated from many threads without locks. Unlike
+ * {@link TextTokenizer.TextTokenizerStats}, it doesn't grow with the tokenized text; thus it can be kept on all
+ * the time.
+ * <ul>
+ * <li>Boundaries are counted by the index of their rule in the {@link CompiledTokenizationGraph}, which is made of
+ * the {@link TextBlockType} ordinals of the left and the right groups</li>
+ * <li>Only a fixed number of missing rule exceptions are kept as examples; they are a uniform sample of all the
+ * missing rules, chosen with reservoir sampling</li>
+ * </ul>
+ * Reading the stats while they are updated is allowed; the result is not a snapshot of a single moment then.
+ *
+ * @author Ali Ok
+ * @see TextTokenizer.TextTokenizerBuilder#recordConcurrentStats(int)
+ */
+public class ConcurrentTokenizerStats {
+    // replaced when the tokenizer recompiles its rules; rule indexes don't change
+    private volatile CompiledTokenizationGraph compiledGraph;
+    private final AtomicLongArray counts;
+
+    private final AtomicLong missingRuleCount = new AtomicLong();
+    private final AtomicReferenceArray<MissingTokenizationRuleException> missingRuleExamples;
+
+    ConcurrentTokenizerStats(CompiledTokenizationGraph compiledGraph, int exampleCount) {
+        Validate.notNull(compiledGraph);
+        Validate.isTrue(exampleCount >= 0, "Example count must not be negative");
+        this.compiledGraph = compiledGraph;
+        this.counts = new AtomicLongArray(compiledGraph.getRuleCount());
+        this.missingRuleExamples = new AtomicReferenceArray<MissingTokenizationRuleException>(exampleCount);
+    }
+
+    void setCompiledGraph(CompiledTokenizationGraph compiledGraph) {
+        Validate.isTrue(compiledGraph.getRuleCount() == counts.length());
+        this.compiledGraph = compiledGraph;
+    }
+
+    void addBoundary(int ruleIndex) {
+        counts.incrementAndGet(ruleIndex);
+    }
+
+    void addMissingRule(MissingTokenizationRuleException ex) {
+        final long seen = missingRuleCount.incrementAndGet();
+        final int exampleCount = missingRuleExamples.length();
+        if (seen <= exampleCount) {
+            missingRuleExamples.set((int) (seen - 1), ex);
+        } else if (exampleCount > 0) {
+            // replace a random example with probability exampleCount / seen
+            final long index = (mix(seen) & Long.MAX_VALUE) % seen;
+            if (index < exampleCount)
+                missingRuleExamples.set((int) index, ex);
+        }
+    }
+
+    /**
+     * Cheap pseudo random numbers, without a shared {@link Random} to contend on. See the finalizer of MurmurHash3.
+     */
+    private static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    /**
+     * @return Number of boundaries decided, including the ones with missing rules
+     */
+    public long getBoundaryCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @return Number of boundaries without a rule
+     */
+    public long getMissingRuleCount() {
+        return missingRuleCount.get();
+    }
+
+    /**
+     * @return Number of boundaries between the given groups
+     */
+    public long getCount(TextBlockTypeGroup leftGroup, TextBlockTypeGroup rightGroup) {
+        Validate.isTrue(leftGroup.getSize() == compiledGraph.getBlockSize() && rightGroup.getSize() == compiledGraph.getBlockSize());
+        int index = 0;
+        for (TextBlockType textBlockType : leftGroup.getTextBlockTypes()) {
+            index = index * TextBlockType.values().length + textBlockType.ordinal();
+        }
+        for (TextBlockType textBlockType : rightGroup.getTextBlockTypes()) {
+            index = index * TextBlockType.values().length + textBlockType.ordinal();
+        }
+        return counts.get(index);
+    }
+
+    /**
+     * @return Sampled missing rules, at most the number of examples given to the tokenizer
+     */
+    public List<MissingTokenizationRuleException> getMissingRuleExamples() {
+        final List<MissingTokenizationRuleException> examples = new ArrayList<MissingTokenizationRuleException>();
+        for (int i = 0; i < missingRuleExamples.length(); i++) {
+            final MissingTokenizationRuleException example = missingRuleExamples.get(i);
+            if (example != null)
+                examples.add(example);
+        }
+        return examples;
+    }
+
+    /**
+     * Build a map of the boundaries with a rule, sorted by count.
+     *
+     * @return the map
+     */
+    public LinkedHashMap<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Long> buildSortedSuccessMap() {
+        return buildSortedMap(false);
+    }
+
+    /**
+     * Build a map of the boundaries without a rule, sorted by count.
+     *
+     * @return the map
+     */
+    public LinkedHashMap<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Long> buildSortedMissingRuleMap() {
+        return buildSortedMap(true);
+    }
+
+    private LinkedHashMap<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Long> buildSortedMap(boolean missingRules) {
+        final CompiledTokenizationGraph compiledGraph = this.compiledGraph;
+        final List<Integer> ruleIndexes = new ArrayList<Integer>();
+        final long[] countSnapshot = new long[counts.length()];
+        for (int i = 0; i < counts.length(); i++) {
+            countSnapshot[i] = counts.get(i);
+            final boolean missingRule = compiledGraph.getRule(i) == CompiledTokenizationGraph.MISSING_RULE;
+            if (countSnapshot[i] > 0 && missingRule == missingRules)
+                ruleIndexes.add(i);
+        }
+
+        Collections.sort(ruleIndexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                final long count1 = countSnapshot[o1];
+                final long count2 = countSnapshot[o2];
+                return count1 > count2 ? -1 : (count1 < count2 ? 1 : o1.compareTo(o2));
+            }
+        });
+
+        // use LinkedHashMap to preserve insertion order
+        final LinkedHashMap<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Long> map = new LinkedHashMap<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Long>();
+        for (Integer ruleIndex : ruleIndexes) {
+            map.put(compiledGraph.getGroups(ruleIndex), countSnapshot[ruleIndex]);
+        }
+        return map;
+    }
+}
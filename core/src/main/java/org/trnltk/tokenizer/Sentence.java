@@ -0,0 +1,73 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import java.util.List;
+
+/**
+ * A sentence of a text, as a span of the text and the tokens in it.
+ *
+ * @author Ali Ok
+ * @see SentenceSegmenter
+ */
+public class Sentence {
+    private final String text;
+    private final int startOffset;
+    private final int endOffset;
+    private final List<Token> tokens;
+
+    public Sentence(String text, int startOffset, int endOffset, List<Token> tokens) {
+        this.text = text;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.tokens = tokens;
+    }
+
+    /**
+     * @return Text of the sentence, as it is in the segmented text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return Offset of the first char of the sentence in the segmented text
+     */
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return Offset after the last char of the sentence in the segmented text
+     */
+    public int getEndOffset() {
+        return endOffset;
+    }
+
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    @Override
+    public String toString() {
+        return "Sentence{" +
+                "startOffset=" + startOffset +
+                ", endOffset=" + endOffset +
+                ", text='" + text + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the tokens of a text into sentences, using the {@link TextBlockType}s of the tokens.
+ * <ul>
+ * <li>A token ending with a {@link TextBlockType#Dot}, "!..", "?..", "!" or "?" ends the sentence</li>
+ * <li>{@link TextBlockType#Abbreviation}s don't end the sentence, since their dots belong to them</li>
+ * <li>A number with a dot (an ordinal like "3." or "IV.") or an {@link TextBlockType#Ellipsis} ends the sentence
+ * only if the next token is capitalized</li>
+ * <li>Closing quotes and parentheses after the end are included in the sentence</li>
+ * <li>An empty line always ends the sentence</li>
+ * </ul>
+ * Sentences are spans of the original text; tokens without offsets are located in the text. Tokens with only whitespace are
+ * not included in the sentences, and tokens spanning line breaks are split at the line breaks.
+ * <p/>
+ * Thread safe.
+ *
+ * @author Ali Ok
+ */
+public class SentenceSegmenter {
+
+    /**
+     * @param text   Text which is tokenized
+     * @param tokens Tokens of the text, in order
+     * @return Sentences of the text
+     * @throws IllegalArgumentException if the tokens cannot be located in the text
+     */
+    public List<Sentence> segment(String text, List<Token> tokens) {
+        Validate.notNull(text);
+        Validate.notNull(tokens);
+
+        final List<Token> wordTokens = new ArrayList<Token>(tokens.size());
+        final List<int[]> spans = new ArrayList<int[]>(tokens.size());
+
+        int cursor = 0;
+        for (Token token : tokens) {
+            final String surface = token.getSurface();
+            final int start;
+            if (token.getStartOffset() >= 0) {
+                start = token.getStartOffset();
+                cursor = match(text, surface, start);
+                Validate.isTrue(cursor == token.getEndOffset(), "Token '" + surface + "' is not found in text at offset " + start);
+            } else {
+                start = locate(text, surface, cursor);
+                cursor = match(text, surface, start);
+            }
+            if (StringUtils.isBlank(surface))
+                continue;
+            if (countLineBreaks(surface, 0, surface.length()) == 0) {
+                wordTokens.add(token);
+                spans.add(new int[]{start, cursor});
+            } else {
+                splitAtLineBreaks(text, start, surface, wordTokens, spans);
+            }
+        }
+
+        final List<Sentence> sentences = new ArrayList<Sentence>();
+        int sentenceStart = 0;
+        int openQuotes = 0;
+        for (int i = 0; i < wordTokens.size(); i++) {
+            final Token token = wordTokens.get(i);
+            openQuotes += countQuotes(token);
+
+            int sentenceEnd = -1;
+            if (i == wordTokens.size() - 1 || isParagraphEnd(text, spans.get(i), spans.get(i + 1))) {
+                sentenceEnd = i;
+            } else if (isSentenceEnd(token, wordTokens.get(i + 1))) {
+                sentenceEnd = i;
+                // take the closing quotes and parentheses
+                while (sentenceEnd + 1 < wordTokens.size() && !isParagraphEnd(text, spans.get(sentenceEnd), spans.get(sentenceEnd + 1))) {
+                    final Token next = wordTokens.get(sentenceEnd + 1);
+                    if (openQuotes % 2 == 1 && isQuote(next))
+                        openQuotes++;
+                    else if (!isClosing(next))
+                        break;
+                    sentenceEnd++;
+                }
+            }
+
+            if (sentenceEnd >= 0) {
+                final int startOffset = spans.get(sentenceStart)[0];
+                final int endOffset = spans.get(sentenceEnd)[1];
+                sentences.add(new Sentence(text.substring(startOffset, endOffset), startOffset, endOffset,
+                        new ArrayList<Token>(wordTokens.subList(sentenceStart, sentenceEnd + 1))));
+                sentenceStart = sentenceEnd + 1;
+                openQuotes = 0;
+                i = sentenceEnd;
+            }
+        }
+
+        return sentences;
+    }
+
+    /**
+     * Tokenizer is trained with lines, thus it may join the words around a line break into a single token.
+     */
+    private static void splitAtLineBreaks(String text, int tokenStart, String surface, List<Token> wordTokens, List<int[]> spans) {
+        final TextBlockScanner scanner = new TextBlockScanner(surface);
+        final StringBuilder pieceSurface = new StringBuilder();
+        final List<TextBlockType> pieceTypes = new ArrayList<TextBlockType>();
+        int pieceStart = -1;
+        int pieceEnd = -1;
+        while (scanner.hasNext()) {
+            final TextBlock textBlock = scanner.next();
+            final boolean whitespace = isWhitespace(textBlock.getTextBlockType());
+            if (whitespace && countLineBreaks(surface, textBlock.getStartOffset(), textBlock.getEndOffset()) > 0) {
+                addPiece(text, tokenStart, pieceSurface, pieceTypes, pieceStart, pieceEnd, wordTokens, spans);
+                pieceSurface.setLength(0);
+                pieceTypes.clear();
+                pieceStart = -1;
+                continue;
+            }
+            if (whitespace && pieceStart < 0)
+                continue;
+            if (pieceStart < 0)
+                pieceStart = textBlock.getStartOffset();
+            if (!whitespace) {
+                // trailing whitespace of a piece is not included
+                pieceSurface.setLength(0);
+                pieceSurface.append(surface, pieceStart, textBlock.getEndOffset());
+                pieceEnd = textBlock.getEndOffset();
+            }
+            pieceTypes.add(textBlock.getTextBlockType());
+        }
+        addPiece(text, tokenStart, pieceSurface, pieceTypes, pieceStart, pieceEnd, wordTokens, spans);
+    }
+
+    private static void addPiece(String text, int tokenStart, StringBuilder pieceSurface, List<TextBlockType> pieceTypes,
+                                 int pieceStart, int pieceEnd, List<Token> wordTokens, List<int[]> spans) {
+        if (pieceStart < 0)
+            return;
+        int typeCount = pieceTypes.size();
+        while (isWhitespace(pieceTypes.get(typeCount - 1)))
+            typeCount--;
+        wordTokens.add(new Token(pieceSurface.toString(), new ArrayList<TextBlockType>(pieceTypes.subList(0, typeCount))));
+        final int previousEnd = spans.isEmpty() ? tokenStart : Math.max(tokenStart, spans.get(spans.size() - 1)[1]);
+        final int start = locate(text, pieceSurface.toString(), previousEnd);
+        spans.add(new int[]{start, match(text, pieceSurface.toString(), start)});
+    }
+
+    private static boolean isWhitespace(TextBlockType textBlockType) {
+        return textBlockType == TextBlockType.Space || textBlockType == TextBlockType.Other_WhiteSpace;
+    }
+
+    private static int locate(String text, String surface, int cursor) {
+        // skip the whitespace which is dropped by the tokenizer
+        while (cursor < text.length() && text.charAt(cursor) != surface.charAt(0) && Character.isWhitespace(text.charAt(cursor))) {
+            cursor++;
+        }
+        return cursor;
+    }
+
+    private static int match(String text, String surface, int start) {
+        int cursor = start;
+        for (int i = 0; i < surface.length(); i++) {
+            final char c = surface.charAt(i);
+            if (cursor >= text.length() || text.charAt(cursor) != c)
+                throw new IllegalArgumentException("Token '" + surface + "' is not found in text at offset " + start);
+            cursor++;
+            // tokenizer merges the consecutive spaces
+            if (c == ' ') {
+                while (cursor < text.length() && text.charAt(cursor) == ' ' && (i + 1 == surface.length() || surface.charAt(i + 1) != ' '))
+                    cursor++;
+            }
+        }
+        return cursor;
+    }
+
+    private static boolean isParagraphEnd(String text, int[] span, int[] nextSpan) {
+        return countLineBreaks(text, span[1], nextSpan[0]) >= 2;
+    }
+
+    private static int countLineBreaks(String text, int start, int end) {
+        int lineBreaks = 0;
+        for (int i = start; i < end; i++) {
+            final char c = text.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 >= end || text.charAt(i + 1) != '\n')))
+                lineBreaks++;
+        }
+        return lineBreaks;
+    }
+
+    private static boolean isSentenceEnd(Token token, Token next) {
+        final List<TextBlockType> types = withoutPadding(token.getTextBlockTypes());
+        if (types.isEmpty())
+            return false;
+        final TextBlockType lastType = types.get(types.size() - 1);
+        switch (lastType) {
+            case Ellipsis_Exclamation:
+            case Ellipsis_Question:
+                return true;
+            case Ellipsis:
+                return isCapitalized(next);
+            case Dot:
+                if (types.size() > 1) {
+                    final TextBlockType previousType = types.get(types.size() - 2);
+                    if (previousType == TextBlockType.Digits || previousType == TextBlockType.Roman_Numeral)
+                        return isCapitalized(next);
+                }
+                return true;
+            case Other_Punc:
+                final char lastChar = token.getSurface().charAt(token.getSurface().length() - 1);
+                return lastChar == '!' || lastChar == '?';
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isCapitalized(Token token) {
+        return Character.isUpperCase(token.getSurface().charAt(0));
+    }
+
+    /**
+     * Tokens may have the {@link TextBlockType#Sentence_Start} and {@link TextBlockType#Sentence_End} blocks the
+     * tokenizer surrounds the text with.
+     */
+    private static List<TextBlockType> withoutPadding(List<TextBlockType> types) {
+        int start = 0;
+        int end = types.size();
+        while (start < end && types.get(start) == TextBlockType.Sentence_Start)
+            start++;
+        while (end > start && types.get(end - 1) == TextBlockType.Sentence_End)
+            end--;
+        return types.subList(start, end);
+    }
+
+    private static boolean isQuote(Token token) {
+        final List<TextBlockType> types = withoutPadding(token.getTextBlockTypes());
+        return types.size() == 1 && (types.get(0) == TextBlockType.Quote || types.get(0) == TextBlockType.Apostrophe);
+    }
+
+    /**
+     * Apostrophes are counted only when they are tokens on their own, since they are mostly used before suffixes.
+     */
+    private static int countQuotes(Token token) {
+        final List<TextBlockType> types = withoutPadding(token.getTextBlockTypes());
+        if (types.size() == 1 && types.get(0) == TextBlockType.Apostrophe)
+            return 1;
+        int quotes = 0;
+        for (TextBlockType type : types) {
+            if (type == TextBlockType.Quote)
+                quotes++;
+        }
+        return quotes;
+    }
+
+    private static boolean isClosing(Token token) {
+        final String surface = token.getSurface();
+        for (int i = 0; i < surface.length(); i++) {
+            final int type = Character.getType(surface.charAt(i));
+            if (type != Character.END_PUNCTUATION && type != Character.FINAL_QUOTE_PUNCTUATION)
+                return false;
+        }
+        return true;
+    }
+}
@@ -23,23 +23,68 @@ public class TextBlock {
     private String text;
     private TextBlockType textBlockType;
 
+    // when created from a scanned buffer, text is created lazily from the buffer
+    private final CharSequence source;
+    private final int startOffset;
+    private final int endOffset;
+
     public TextBlock(String text, TextBlockType textBlockType) {
         this.text = text;
         this.textBlockType = textBlockType;
+        this.source = null;
+        this.startOffset = -1;
+        this.endOffset = -1;
+    }
+
+    /**
+     * Creates a text block which points to the given range of the source; no copy of the text is made until
+     * {@link #getText()} is called.
+     */
+    public TextBlock(CharSequence source, int startOffset, int endOffset, TextBlockType textBlockType) {
+        this.text = null;
+        this.textBlockType = textBlockType;
+        this.source = source;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
     }
 
     public String getText() {
+        if (text == null)
+            text = source.subSequence(startOffset, endOffset).toString();
         return text;
     }
 
+    /**
+     * @return true if the block is a single space char; checked without creating the text
+     */
+    boolean isSpace() {
+        if (text != null)
+            return text.equals(" ");
+        return endOffset - startOffset == 1 && source.charAt(startOffset) == ' ';
+    }
+
     public TextBlockType getTextBlockType() {
         return textBlockType;
     }
 
+    /**
+     * @return Start offset of the block in the text that is split, or -1 if not known
+     */
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return End offset (exclusive) of the block in the text that is split, or -1 if not known
+     */
+    public int getEndOffset() {
+        return endOffset;
+    }
+
     @Override
     public String toString() {
         return "TextBlock{" +
-                "text='" + text + '\'' +
+                "text='" + getText() + '\'' +
                 ", textBlockType=" + textBlockType +
                 '}';
     }
@@ -51,7 +96,7 @@ public class TextBlock {
 
         TextBlock textBlock = (TextBlock) o;
 
-        if (!text.equals(textBlock.text)) return false;
+        if (!getText().equals(textBlock.getText())) return false;
         if (textBlockType != textBlock.textBlockType) return false;
 
         return true;
@@ -59,7 +104,7 @@ public class TextBlock {
 
     @Override
     public int hashCode() {
-        int result = text.hashCode();
+        int result = getText().hashCode();
         result = 31 * result + textBlockType.hashCode();
         return result;
     }
@@ -0,0 +1,129 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+
+/**
+ * Reads {@link TextBlock}s from a {@link Reader}, one chunk of text at a time.
+ * <p/>
+ * Text is normalized the same way {@link TextTokenizer#tokenize(String)} does: consequent space chars are collapsed
+ * and the text is trimmed. Blocks are exactly the same as the blocks of the whole normalized text, since a block
+ * is only accepted when there are at least {@link TextBlockScanner#MAX_LOOKAHEAD} chars read after it; rest of the
+ * chunk is scanned again when more text is read.
+ * <p/>
+ * Not thread safe.
+ *
+ * @author Ali Ok
+ */
+public class TextBlockReader {
+    private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] chunk;
+
+    // normalized text which is not split yet
+    private final StringBuilder text = new StringBuilder();
+    // chars <= ' ' after the last non-trimmed char; dropped if the end of the input comes before another char
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+    private final ArrayDeque<TextBlock> blocks = new ArrayDeque<TextBlock>();
+
+    private boolean started = false;
+    private boolean previousCharIsSpace = false;
+    private boolean endOfInput = false;
+
+    public TextBlockReader(Reader reader) {
+        this(reader, DEFAULT_CHUNK_SIZE);
+    }
+
+    public TextBlockReader(Reader reader, int chunkSize) {
+        Validate.notNull(reader);
+        Validate.isTrue(chunkSize > 0);
+        this.reader = reader;
+        this.chunk = new char[chunkSize];
+    }
+
+    /**
+     * @return Next block, or null if the end of the input is reached
+     */
+    public TextBlock next() throws IOException {
+        while (blocks.isEmpty()) {
+            if (endOfInput && text.length() == 0)
+                return null;
+            readChunk();
+            splitText();
+        }
+        return blocks.poll();
+    }
+
+    private void readChunk() throws IOException {
+        final int read = reader.read(chunk);
+        if (read < 0) {
+            endOfInput = true;
+            return;
+        }
+
+        for (int i = 0; i < read; i++) {
+            final char c = chunk[i];
+
+            // same as text.replaceAll("  +", " ")
+            final boolean isSpace = c == ' ';
+            if (isSpace && previousCharIsSpace)
+                continue;
+            previousCharIsSpace = isSpace;
+
+            // same as text.trim()
+            if (c <= ' ') {
+                if (started)
+                    pendingWhitespace.append(c);
+            } else {
+                started = true;
+                if (pendingWhitespace.length() > 0) {
+                    text.append(pendingWhitespace);
+                    pendingWhitespace.setLength(0);
+                }
+                text.append(c);
+            }
+        }
+    }
+
+    private void splitText() {
+        if (text.length() == 0)
+            return;
+
+        final String window = text.toString();
+        final int limit = window.length() - TextBlockScanner.MAX_LOOKAHEAD;
+        final TextBlockScanner scanner = new TextBlockScanner(window);
+        int consumed = 0;
+        while (scanner.hasNext()) {
+            final TextBlock textBlock = scanner.next();
+            if (!endOfInput && textBlock.getEndOffset() > limit)
+                break;
+            blocks.add(textBlock);
+            consumed = textBlock.getEndOffset();
+        }
+
+        if (endOfInput)
+            text.setLength(0);
+        else
+            text.delete(0, consumed);
+    }
+}
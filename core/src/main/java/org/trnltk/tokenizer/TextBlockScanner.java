@@ -0,0 +1,300 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits a text into {@link TextBlock}s in a single pass over the text.
+ * <p/>
+ * Produces exactly the same blocks as trying {@link TextBlockType#findMatchFromBeginning(String)} of each
+ * {@link TextBlockType#PHYSICAL_TYPES} in order; but the rules are compiled by hand into a dispatch on the
+ * character class of the current code point, so that the text is never copied and no regex is run. Created
+ * blocks point into the given text.
+ * <p/>
+ * Like the regex rules, splitting stops when the rest of the text is blank.
+ * <p/>
+ * Not thread safe.
+ *
+ * @author Ali Ok
+ */
+public class TextBlockScanner implements Iterator<TextBlock> {
+    /**
+     * Max number of chars that are looked at after the end of a block, or after the start of a block, to decide
+     * the block. Thus, a block that ends at least this many chars before the end of the text is never changed
+     * with more text appended.
+     */
+    static final int MAX_LOOKAHEAD = AbbreviationTrie.DEFAULT_ABBREVIATIONS.getMaxLength() + 2;
+
+    // character classes of ASCII characters, for the ones that have a rule of their own
+    private static final TextBlockType[] ASCII_SINGLE_CHAR_TYPES = new TextBlockType[128];
+
+    static {
+        ASCII_SINGLE_CHAR_TYPES[','] = TextBlockType.Comma;
+        ASCII_SINGLE_CHAR_TYPES[':'] = TextBlockType.Colon;
+        ASCII_SINGLE_CHAR_TYPES[';'] = TextBlockType.SemiColon;
+        ASCII_SINGLE_CHAR_TYPES['%'] = TextBlockType.Percent;
+        ASCII_SINGLE_CHAR_TYPES['-'] = TextBlockType.Dash;
+        ASCII_SINGLE_CHAR_TYPES['\''] = TextBlockType.Apostrophe;
+        ASCII_SINGLE_CHAR_TYPES['"'] = TextBlockType.Quote;
+        ASCII_SINGLE_CHAR_TYPES['_'] = TextBlockType.Underscore;
+        ASCII_SINGLE_CHAR_TYPES['('] = TextBlockType.Parenthesis_Start;
+        ASCII_SINGLE_CHAR_TYPES[')'] = TextBlockType.Parenthesis_End;
+        ASCII_SINGLE_CHAR_TYPES['/'] = TextBlockType.Slash;
+    }
+
+    private final CharSequence text;
+    private final int end;
+    // splitting stops after this index, since rest of the text is blank
+    private final int lastNonWhitespaceIndex;
+    private int position;
+
+    public TextBlockScanner(CharSequence text) {
+        this(text, 0, text.length());
+    }
+
+    public TextBlockScanner(CharSequence text, int start, int end) {
+        Validate.notNull(text);
+        Validate.isTrue(0 <= start && start <= end && end <= text.length(), "Invalid range [" + start + "," + end + ")");
+        this.text = text;
+        this.end = end;
+        this.position = start;
+
+        int lastNonWhitespaceIndex = end - 1;
+        while (lastNonWhitespaceIndex >= start && Character.isWhitespace(text.charAt(lastNonWhitespaceIndex)))
+            lastNonWhitespaceIndex--;
+        this.lastNonWhitespaceIndex = lastNonWhitespaceIndex;
+    }
+
+    /**
+     * @return Offset of the next block in the text
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position <= lastNonWhitespaceIndex;
+    }
+
+    @Override
+    public TextBlock next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        final int start = position;
+        final int c = Character.codePointAt(text, start);
+        final TextBlockType textBlockType = scan(c, start);
+        if (textBlockType == null)
+            throw new IllegalArgumentException("Text is not matched with any of the classes: \"" + text.subSequence(start, end) + "\"");
+
+        return new TextBlock(text, start, position, textBlockType);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Finds the type of the block that starts at given index and advances the position to the end of it. Rules
+     * are checked in the order of {@link TextBlockType} constants.
+     */
+    private TextBlockType scan(int c, int start) {
+        if (c < 128 && ASCII_SINGLE_CHAR_TYPES[c] != null) {
+            position = start + 1;
+            return ASCII_SINGLE_CHAR_TYPES[c];
+        }
+
+        if (c == '.' || c == '!' || c == '?') {
+            if (charAt(start + 1) == '.' && charAt(start + 2) == '.') {
+                position = start + 3;
+                if (c == '.')
+                    return TextBlockType.Ellipsis;
+                else
+                    return c == '!' ? TextBlockType.Ellipsis_Exclamation : TextBlockType.Ellipsis_Question;
+            } else if (c == '.') {
+                position = start + 1;
+                return TextBlockType.Dot;
+            }
+        }
+
+        final int type = Character.getType(c);
+        switch (type) {
+            case Character.DASH_PUNCTUATION:
+                position = skipWhile(start, Character.DASH_PUNCTUATION);
+                return TextBlockType.Other_Dash;
+            case Character.MATH_SYMBOL:
+                position = start + Character.charCount(c);
+                return TextBlockType.Math_Symbol;
+            case Character.OTHER_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+                position = start + Character.charCount(c);
+                return TextBlockType.Other_Punc;
+        }
+
+        if (c == ' ') {
+            position = start + 1;
+            return TextBlockType.Space;
+        }
+
+        if (isPosixSpace(c)) {
+            int i = start + 1;
+            while (i < end && isPosixSpace(text.charAt(i)))
+                i++;
+            position = i;
+            return TextBlockType.Other_WhiteSpace;
+        }
+
+        if (type == Character.OTHER_SYMBOL) {
+            position = skipWhile(start, Character.OTHER_SYMBOL);
+            return TextBlockType.OtherSymbol;
+        }
+
+        final int romanNumeralEnd = findRomanNumeralEnd(start);
+        if (romanNumeralEnd > start) {
+            position = romanNumeralEnd;
+            return TextBlockType.Roman_Numeral;
+        }
+
+        if (c >= '0' && c <= '9') {
+            int i = start + 1;
+            while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9')
+                i++;
+            position = i;
+            return TextBlockType.Digits;
+        }
+
+        final int abbreviationLength = AbbreviationTrie.DEFAULT_ABBREVIATIONS.findLongestMatch(text, start, end);
+        if (abbreviationLength > 0) {
+            position = start + abbreviationLength;
+            return TextBlockType.Abbreviation;
+        }
+
+        if (type == Character.UPPERCASE_LETTER) {
+            final int lowerCaseEnd = skipWhile(start + Character.charCount(c), Character.LOWERCASE_LETTER);
+            if (lowerCaseEnd > start + Character.charCount(c)) {
+                position = lowerCaseEnd;
+                return TextBlockType.Capitalized_Word;
+            }
+
+            position = skipWhile(start, Character.UPPERCASE_LETTER);
+            return TextBlockType.AllCaps_Word;
+        }
+
+        if (isLetterType(type)) {
+            int i = start;
+            while (i < end) {
+                final int codePoint = Character.codePointAt(text, i);
+                if (!isLetterType(Character.getType(codePoint)))
+                    break;
+                i += Character.charCount(codePoint);
+            }
+            position = i;
+            return TextBlockType.Word;
+        }
+
+        // '.' of regex : anything but line terminators
+        if (c != '\n' && c != '\r' && c != '\u0085' && c != '\u2028' && c != '\u2029') {
+            position = start + Character.charCount(c);
+            return TextBlockType.OtherAnyChar;
+        }
+
+        return null;
+    }
+
+    /**
+     * Roman numerals are matched with <code>M{0,4}(CM|CD|D?C{0,3})(XC|XL|L?X{0,3})(IX|IV|V?I{0,3})</code>, when
+     * they are not followed by another roman numeral char or a letter. Thus, the whole run of roman numeral chars
+     * must be a valid numeral.
+     *
+     * @return End of the roman numeral, or start if there is no roman numeral
+     */
+    private int findRomanNumeralEnd(int start) {
+        int runEnd = start;
+        while (runEnd < end && isRomanNumeralChar(text.charAt(runEnd)))
+            runEnd++;
+        if (runEnd == start)
+            return start;
+
+        int i = start;
+        int count = 0;
+        while (i < runEnd && text.charAt(i) == 'M' && count < 4) {
+            i++;
+            count++;
+        }
+        i = skipRomanNumeralGroup(i, runEnd, 'C', 'D', 'M');
+        i = skipRomanNumeralGroup(i, runEnd, 'X', 'L', 'C');
+        i = skipRomanNumeralGroup(i, runEnd, 'I', 'V', 'X');
+
+        if (i != runEnd)
+            return start;
+        if (runEnd < end && Character.isLetter(text.charAt(runEnd)))
+            return start;
+        return runEnd;
+    }
+
+    /**
+     * Skips one of <code>(one ten|one five|five? one{0,3})</code>, e.g. <code>(CM|CD|D?C{0,3})</code>
+     */
+    private int skipRomanNumeralGroup(int i, int runEnd, char one, char five, char ten) {
+        if (i + 1 < runEnd && text.charAt(i) == one && (text.charAt(i + 1) == ten || text.charAt(i + 1) == five))
+            return i + 2;
+
+        if (i < runEnd && text.charAt(i) == five)
+            i++;
+        int count = 0;
+        while (i < runEnd && text.charAt(i) == one && count < 3) {
+            i++;
+            count++;
+        }
+        return i;
+    }
+
+    private static boolean isRomanNumeralChar(char c) {
+        return c == 'I' || c == 'V' || c == 'X' || c == 'L' || c == 'C' || c == 'D' || c == 'M';
+    }
+
+    private int skipWhile(int i, int type) {
+        while (i < end) {
+            final int codePoint = Character.codePointAt(text, i);
+            if (Character.getType(codePoint) != type)
+                break;
+            i += Character.charCount(codePoint);
+        }
+        return i;
+    }
+
+    private int charAt(int i) {
+        return i < end ? text.charAt(i) : -1;
+    }
+
+    private static boolean isLetterType(int type) {
+        return type == Character.UPPERCASE_LETTER || type == Character.LOWERCASE_LETTER || type == Character.TITLECASE_LETTER
+                || type == Character.MODIFIER_LETTER || type == Character.OTHER_LETTER;
+    }
+
+    // \p{Space} of regex, which is [ \t\n\x0B\f\r]
+    private static boolean isPosixSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -26,27 +26,17 @@ import java.util.List;
  */
 public class TextBlockSplitter {
 
-    private static final TextBlock SENTENCE_START_TEXT_BLOCK = new TextBlock(StringUtils.EMPTY, TextBlockType.Sentence_Start);
-    private static final TextBlock SENTENCE_END_TEXT_BLOCK = new TextBlock(StringUtils.EMPTY, TextBlockType.Sentence_End);
+    static final TextBlock SENTENCE_START_TEXT_BLOCK = new TextBlock(StringUtils.EMPTY, TextBlockType.Sentence_Start);
+    static final TextBlock SENTENCE_END_TEXT_BLOCK = new TextBlock(StringUtils.EMPTY, TextBlockType.Sentence_End);
 
-    protected LinkedList<TextBlock> splitToTextParts(String text) {
+    /**
+     * @see TextBlockScanner
+     */
+    protected LinkedList<TextBlock> splitToTextParts(CharSequence text) {
         final LinkedList<TextBlock> textBlocks = new LinkedList<TextBlock>();
-        while (StringUtils.isNotBlank(text)) {
-            boolean foundOneClass = false;
-            for (TextBlockType textBlockType : TextBlockType.PHYSICAL_TYPES) {
-                final String matchedStr = textBlockType.findMatchFromBeginning(text);
-                if (matchedStr != null) {
-                    textBlocks.add(new TextBlock(matchedStr, textBlockType));
-                    text = text.substring(matchedStr.length());
-                    foundOneClass = true;
-                    break;
-                } else {
-                    continue;
-                }
-            }
-            if (!foundOneClass) {
-                throw new IllegalArgumentException("Text is not matched with any of the classes: \"" + text + "\"");
-            }
+        final TextBlockScanner scanner = new TextBlockScanner(text);
+        while (scanner.hasNext()) {
+            textBlocks.add(scanner.next());
         }
 
         return textBlocks;
@@ -16,18 +16,14 @@
 
 package org.trnltk.tokenizer;
 
-import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.io.Files;
-import com.google.common.io.Resources;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.Validate;
 
 import java.io.File;
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -354,38 +350,11 @@ public enum TextBlockType {
         }
     },
     Abbreviation {
-        private final ImmutableSet<String> abbreviations;
-        {
-            try {
-                final ImmutableSet.Builder<String> setBuilder = new ImmutableSet.Builder<String>();
-                final List<String> lines = Resources.readLines(Resources.getResource("tokenizer/abbreviations.txt"), Charsets.UTF_8);
-                for (String line : lines) {
-                    //skip the ones without "." at the end
-                    final int abbrEndIndex = line.indexOf(":");
-                    Validate.isTrue(abbrEndIndex > 0, line);
-                    final String abbr = line.substring(0, abbrEndIndex);
-                    if (!abbr.endsWith("."))
-                        continue;
-                    setBuilder.add(abbr);
-                }
-                this.abbreviations = setBuilder.build();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
-
         @Override
         public String findMatchFromBeginning(String text) {
-            //go up to N
-            int N = 6; // longest single word abbr in dictionary is "Gnkur."
-            //try matching the longest
-            for (int i = Math.min(N, text.length()); i >= 0; i--) {
-                final String substring = text.substring(0, i);
-                if (abbreviations.contains(substring))
-                    return substring;
-            }
-
-            return null;
+            // longest match, of any length
+            final int length = AbbreviationTrie.DEFAULT_ABBREVIATIONS.findLongestMatch(text, 0, text.length());
+            return length > 0 ? text.substring(0, length) : null;
         }
 
         @Override
@@ -22,12 +22,25 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
+ * Tokenizes text with the rules of a {@link TokenizationGraph}. Rules are compiled into a
+ * {@link CompiledTokenizationGraph} when the block size allows; they are compiled again when the graph is trained
+ * after that.
+ * <p/>
+ * Can be used by many threads at the same time, unless {@link TextTokenizerStats} are recorded; but the graph must
+ * not be trained during tokenization. Training during tokenization is detected on a best effort basis and reported
+ * with a {@link ConcurrentModificationException}.
+ *
  * @author Ali Ok
  */
 public class TextTokenizer {
@@ -38,73 +51,461 @@ public class TextTokenizer {
 
     protected final int blockSize;
     protected final TokenizationGraph graph;
+    // null if the block size is too large for a table; replaced when the graph is trained
+    protected volatile CompiledTokenizationGraph compiledGraph;
     protected final boolean strict;
 
     protected final TextBlockSplitter textBlockSplitter;
 
     protected final TextTokenizerStats stats;
+    protected final ConcurrentTokenizerStats concurrentStats;
 
     private TextTokenizer(TextTokenizerBuilder builder) {
         this.blockSize = builder.blockSize;
         this.graph = builder.graph;
+        if (CompiledTokenizationGraph.canCompile(this.blockSize)) {
+            this.compiledGraph = CompiledTokenizationGraph.compile(this.graph, this.blockSize);
+        } else {
+            logger.warn("Block size " + this.blockSize + " is too large for a compiled rule table, using the graph");
+            this.compiledGraph = null;
+        }
         this.strict = builder.strict;
         this.stats = builder.recordStats ? new TextTokenizerStats() : null;
+        if (builder.concurrentStatsExampleCount != null) {
+            Validate.isTrue(this.compiledGraph != null, "Concurrent stats need a compiled rule table, block size " + this.blockSize + " is too large");
+            this.concurrentStats = new ConcurrentTokenizerStats(this.compiledGraph, builder.concurrentStatsExampleCount);
+        } else {
+            this.concurrentStats = null;
+        }
 
         this.textBlockSplitter = new TextBlockSplitter();
     }
 
     public LinkedList<Token> tokenize(String text) {
+        return new LinkedList<Token>(tokenizeToStream(text).asTokenList());
+    }
+
+    /**
+     * Tokenizes the text into a compact {@link TokenStream}, with the offsets of the tokens in the text. Tokens are
+     * the same with {@link #tokenize(String)}.
+     * <p/>
+     * Text is scanned in place; it is only copied if it has consecutive spaces to merge.
+     */
+    public TokenStream tokenizeToStream(String text) {
         if (logger.isDebugEnabled())
             logger.debug("Tokenizing text: '" + text + "'");
 
+        // same range as String#trim, before or after merging the spaces
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ')
+            start++;
+        while (end > start && text.charAt(end - 1) <= ' ')
+            end--;
+
+        final boolean spacesMerged = text.indexOf("  ", start) >= 0 && text.indexOf("  ", start) < end;
+
+        final TextBlockScanner scanner;
+        final int[] sourceOffsets;
+        if (spacesMerged) {
+            // remove multiple consequent space chars, keeping where each char comes from
+            final StringBuilder normalizedText = new StringBuilder(end - start);
+            sourceOffsets = new int[end - start];
+            for (int i = start; i < end; i++) {
+                if (text.charAt(i) == ' ' && text.charAt(i - 1) == ' ')
+                    continue;
+                sourceOffsets[normalizedText.length()] = i;
+                normalizedText.append(text.charAt(i));
+            }
+            scanner = new TextBlockScanner(normalizedText.toString());
+        } else {
+            sourceOffsets = null;
+            scanner = new TextBlockScanner(text, start, end);
+        }
+
+        final TokenStream tokenStream = new TokenStream(text, spacesMerged);
+        final TokenizationWindow window = new TokenizationWindow(new TokenStreamAssembler(tokenStream, sourceOffsets));
+        while (scanner.hasNext()) {
+            window.add(scanner.next());
+        }
+        window.finish();
+
+        return tokenStream;
+    }
+
+    /**
+     * Tokenizes the text read from the reader and passes the tokens to the handler as soon as they are created.
+     * Tokens are the same with {@link #tokenize(String)} of the whole text, but only a few blocks of text are kept
+     * in memory at a time.
+     */
+    public void tokenize(Reader reader, TokenHandler handler) throws IOException {
+        Validate.notNull(handler);
+        final TextBlockReader textBlockReader = new TextBlockReader(reader);
+        final TokenizationWindow window = new TokenizationWindow(handler);
+
+        TextBlock textBlock;
+        while ((textBlock = textBlockReader.next()) != null) {
+            window.add(textBlock);
+        }
+        window.finish();
+    }
+
+    /**
+     * @see #tokenize(java.io.Reader, TokenHandler)
+     */
+    public void tokenize(ReadableByteChannel channel, Charset charset, TokenHandler handler) throws IOException {
+        tokenize(Channels.newReader(channel, charset.newDecoder(), -1), handler);
+    }
+
+    /**
+     * Lazily tokenizes the text read from the reader. {@link IOException}s are reported with
+     * {@link IllegalStateException}s, since {@link Iterator} methods cannot throw checked exceptions.
+     *
+     * @see #tokenize(java.io.Reader, TokenHandler)
+     */
+    public Iterator<Token> tokenIterator(Reader reader) {
+        final TextBlockReader textBlockReader = new TextBlockReader(reader);
+        final ArrayDeque<Token> tokens = new ArrayDeque<Token>();
+        final TokenizationWindow window = new TokenizationWindow(new TokenHandler() {
+            @Override
+            public void handle(Token token) {
+                tokens.add(token);
+            }
+        });
+
+        return new AbstractIterator<Token>() {
+            @Override
+            protected Token computeNext() {
+                try {
+                    while (tokens.isEmpty() && !window.isFinished()) {
+                        final TextBlock textBlock = textBlockReader.next();
+                        if (textBlock != null)
+                            window.add(textBlock);
+                        else
+                            window.finish();
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to read text", e);
+                }
+                return tokens.isEmpty() ? endOfData() : tokens.poll();
+            }
+        };
+    }
+
+    /**
+     * Tokenizes the text in parallel, with the same result as {@link #tokenize(String)}.
+     * <p/>
+     * Text is cut into chunks of about given size at line breaks, since a line break never belongs to the block
+     * before it and no block before it depends on it. Blocks of the chunks are found in parallel first; then the
+     * decisions of each chunk are made in parallel, using the blocks of the neighbour chunks when needed. Tokens
+     * at the chunk boundaries are joined afterwards. Text without line breaks is tokenized in a single chunk.
+     * <p/>
+     * Missing rules and stats are reported as in sequential tokenization.
+     *
+     * @param text            Text to tokenize
+     * @param executorService Executor to run the chunks on
+     * @param chunkSize       Approximate number of chars in a chunk
+     * @return Tokens
+     */
+    public LinkedList<Token> tokenize(String text, ExecutorService executorService, int chunkSize) {
+        Validate.notNull(executorService);
+        Validate.isTrue(chunkSize > 0);
+
+        final int graphVersion = graph.getVersion();
+        final CompiledTokenizationGraph compiledGraph = getCompiledGraph(graphVersion);
+
         text = text.replaceAll("  +", " "); // remove multiple consequent space chars
-        text = text.trim();
+        final String normalizedText = text.trim();
+
+        final List<Integer> cuts = findChunkCuts(normalizedText, chunkSize);
+
+        // find blocks
+        final List<Future<List<TextBlock>>> blockFutures = new ArrayList<Future<List<TextBlock>>>();
+        for (int k = 0; k < cuts.size() - 1; k++) {
+            final int chunkStart = cuts.get(k);
+            final int chunkEnd = cuts.get(k + 1);
+            blockFutures.add(executorService.submit(new Callable<List<TextBlock>>() {
+                @Override
+                public List<TextBlock> call() {
+                    final List<TextBlock> textBlocks = new ArrayList<TextBlock>();
+                    final TextBlockScanner scanner = new TextBlockScanner(normalizedText, chunkStart, chunkEnd);
+                    while (scanner.hasNext()) {
+                        textBlocks.add(scanner.next());
+                    }
+                    return textBlocks;
+                }
+            }));
+        }
 
-        final LinkedList<TextBlock> textBlocks = textBlockSplitter.splitToTextParts(text);
-        this.textBlockSplitter.addTextStartsAndEnds(textBlocks, this.blockSize);
+        final List<TextBlock> allTextBlocks = new ArrayList<TextBlock>();
+        final int[] chunkBlockStarts = new int[blockFutures.size() + 1];
+        for (int i = 0; i < blockSize; i++) {
+            allTextBlocks.add(TextBlockSplitter.SENTENCE_START_TEXT_BLOCK);
+        }
+        for (int k = 0; k < blockFutures.size(); k++) {
+            chunkBlockStarts[k] = allTextBlocks.size();
+            allTextBlocks.addAll(getResult(blockFutures.get(k)));
+        }
+        for (int i = 0; i < blockSize; i++) {
+            allTextBlocks.add(TextBlockSplitter.SENTENCE_END_TEXT_BLOCK);
+        }
+        // last decision is for the first sentence end block
+        chunkBlockStarts[blockFutures.size()] = allTextBlocks.size() - blockSize + 1;
+
+        // decide
+        final TextBlock[] textBlocks = allTextBlocks.toArray(new TextBlock[allTextBlocks.size()]);
+        final List<Future<ChunkTokens>> tokenFutures = new ArrayList<Future<ChunkTokens>>();
+        for (int k = 0; k < blockFutures.size(); k++) {
+            final int from = chunkBlockStarts[k];
+            final int to = chunkBlockStarts[k + 1];
+            tokenFutures.add(executorService.submit(new Callable<ChunkTokens>() {
+                @Override
+                public ChunkTokens call() {
+                    final ChunkTokens chunkTokens = new ChunkTokens(stats != null ? new TextTokenizerStats() : null);
+                    final TokenAssembler tokenAssembler = new TokenAssembler(chunkTokens, true);
+                    for (int i = from; i < to; i++) {
+                        tokenAssembler.add(textBlocks[i], isAddSpace(compiledGraph, textBlocks, textBlocks.length, i, chunkTokens.stats));
+                    }
+                    chunkTokens.tail = tokenAssembler.getCurrentToken();
+                    chunkTokens.head = tokenAssembler.getHead();
+                    return chunkTokens;
+                }
+            }));
+        }
 
+        // join
         final LinkedList<Token> tokens = new LinkedList<Token>();
+        Token carry = null;
+        for (Future<ChunkTokens> tokenFuture : tokenFutures) {
+            final ChunkTokens chunkTokens = getResult(tokenFuture);
+            if (stats != null)
+                stats.addAll(chunkTokens.stats);
+
+            if (chunkTokens.head == null) {
+                // no token is finished in the chunk
+                carry = join(carry, chunkTokens.tail);
+            } else {
+                carry = join(carry, chunkTokens.head);
+                if (carry.getSurface().length() > 0)
+                    tokens.add(carry);
+                tokens.addAll(chunkTokens);
+                carry = chunkTokens.tail;
+            }
+        }
+        if (carry != null && carry.getSurface().length() > 0)
+            tokens.add(carry);
 
-        StringBuilder currentTokenBuilder = new StringBuilder();
-        List<TextBlockType> currentBlockTypes = new LinkedList<TextBlockType>();
+        checkGraphVersion(graphVersion);
+        return tokens;
+    }
 
+    /**
+     * @param graphVersion Current version of the graph
+     * @return Rules compiled from the given version of the graph, compiled again if the graph is trained after
+     *         the rules are compiled; null if the block size is too large for a table
+     * @throws ConcurrentModificationException if the graph is being trained
+     */
+    private CompiledTokenizationGraph getCompiledGraph(int graphVersion) {
+        if ((graphVersion & 1) != 0)
+            throw new ConcurrentModificationException("Tokenization graph is being trained");
+
+        final CompiledTokenizationGraph currentGraph = this.compiledGraph;
+        if (currentGraph == null || currentGraph.getGraphVersion() == graphVersion)
+            return currentGraph;
+
+        synchronized (this) {
+            if (this.compiledGraph.getGraphVersion() != graphVersion) {
+                if (logger.isDebugEnabled())
+                    logger.debug("Tokenization graph is trained, compiling the rules again");
+                this.compiledGraph = CompiledTokenizationGraph.compile(this.graph, this.blockSize);
+                if (this.concurrentStats != null)
+                    this.concurrentStats.setCompiledGraph(this.compiledGraph);
+            }
+            return this.compiledGraph;
+        }
+    }
 
-        for (int i = this.blockSize; i <= textBlocks.size() - this.blockSize; i++) {
-            final TextBlockGroup leftTextBlockGroup = this.textBlockSplitter.getTextBlockGroup(textBlocks, this.blockSize, i - this.blockSize);
-            final TextBlockGroup rightTextBlockGroup = this.textBlockSplitter.getTextBlockGroup(textBlocks, this.blockSize, i);
+    /**
+     * @throws ConcurrentModificationException if the graph is trained since the given version
+     */
+    private void checkGraphVersion(int graphVersion) {
+        if (graph.getVersion() != graphVersion)
+            throw new ConcurrentModificationException("Tokenization graph is trained during tokenization");
+    }
 
-            if (logger.isDebugEnabled())
-                logger.debug("Applying rule for left : " + leftTextBlockGroup.getTextBlockTypeGroup() + " right :" + rightTextBlockGroup.getTextBlockTypeGroup());
+    /**
+     * @return Offsets of the chunks, including 0 and the length of the text
+     */
+    private static List<Integer> findChunkCuts(String text, int chunkSize) {
+        final List<Integer> cuts = new ArrayList<Integer>();
+        cuts.add(0);
+        int position = chunkSize;
+        while (position < text.length()) {
+            int cut = -1;
+            for (int i = Math.max(position, cuts.get(cuts.size() - 1) + 1); i < text.length(); i++) {
+                final char c = text.charAt(i);
+                if ((c == '\n' || c == '\r') && !Character.isWhitespace(text.charAt(i - 1))) {
+                    cut = i;
+                    break;
+                }
+            }
+            if (cut < 0)
+                break;
+            cuts.add(cut);
+            position = cut + chunkSize;
+        }
+        cuts.add(text.length());
+        return cuts;
+    }
 
+    private static Token join(Token first, Token second) {
+        if (first == null)
+            return second;
 
-            boolean addSpace;
-            try {
-                addSpace = this.graph.isAddSpace(leftTextBlockGroup, rightTextBlockGroup, textBlocks, i);
-                if (this.stats != null)
-                    this.stats.addSuccess(leftTextBlockGroup, rightTextBlockGroup);
-            } catch (MissingTokenizationRuleException ex) {
-                if (strict) {
-                    throw ex;
-                } else {
-                    addSpace = false;
-                    if (this.stats != null)
-                        this.stats.addFail(ex);
-                }
+        final List<TextBlockType> textBlockTypes = new ArrayList<TextBlockType>(first.getTextBlockTypes());
+        textBlockTypes.addAll(second.getTextBlockTypes());
+        return new Token(first.getSurface() + second.getSurface(), textBlockTypes);
+    }
+
+    private static <T> T getResult(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            // throw the MissingTokenizationRuleException as is, in strict mode
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Tokens of a chunk. Head is the token which is open when the first token is finished in the chunk; it is a
+     * part of the last token of the previous chunk. Tail is the token which is open at the end of the chunk.
+     */
+    private static class ChunkTokens extends ArrayList<Token> implements TokenHandler {
+        private final TextTokenizerStats stats;
+        private Token head;
+        private Token tail;
+
+        private ChunkTokens(TextTokenizerStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void handle(Token token) {
+            add(token);
+        }
+    }
+
+    /**
+     * Decides if a space is added before the block at given index. Rules are read from the
+     * {@link CompiledTokenizationGraph} when there is one; the graph is only used when stats are recorded,
+     * for debug logging or to report a missing rule. {@link ConcurrentTokenizerStats} are recorded on the fast path.
+     *
+     * @param compiledGraph Rules compiled from the graph, can be null
+     * @param textBlocks    Blocks, read cyclically; thus a ring of blocks can be used
+     * @param blockCount    Number of blocks known; used for the context of missing rules
+     * @param i             Index of the block
+     * @param stats         Stats to record to, can be null
+     */
+    private boolean isAddSpace(CompiledTokenizationGraph compiledGraph, final TextBlock[] textBlocks, int blockCount, int i, TextTokenizerStats stats) {
+        final byte rule;
+        if (compiledGraph != null) {
+            final int ruleIndex = compiledGraph.getRuleIndex(textBlocks, i - blockSize);
+            rule = compiledGraph.getRule(ruleIndex);
+            if (concurrentStats != null)
+                concurrentStats.addBoundary(ruleIndex);
+        } else {
+            rule = CompiledTokenizationGraph.MISSING_RULE;
+        }
+        if (rule != CompiledTokenizationGraph.MISSING_RULE && stats == null && !logger.isDebugEnabled()) {
+            // fast path : no groups are created
+            return rule == CompiledTokenizationGraph.ADD_SPACE;
+        }
+
+        final int contextStart = Math.max(0, i - Math.max(blockSize, TokenizationGraph.CONTEXT_LENGTH));
+        final int contextEnd = Math.min(blockCount, i + Math.max(blockSize, TokenizationGraph.CONTEXT_LENGTH));
+        final List<TextBlock> contextTextBlocks = new AbstractList<TextBlock>() {
+            @Override
+            public TextBlock get(int index) {
+                return textBlocks[(contextStart + index) % textBlocks.length];
+            }
+
+            @Override
+            public int size() {
+                return contextEnd - contextStart;
             }
+        };
+        final int currentIndex = i - contextStart;
+
+        final TextBlockGroup leftTextBlockGroup = textBlockSplitter.getTextBlockGroup(contextTextBlocks, blockSize, currentIndex - blockSize);
+        final TextBlockGroup rightTextBlockGroup = textBlockSplitter.getTextBlockGroup(contextTextBlocks, blockSize, currentIndex);
+
+        if (logger.isDebugEnabled())
+            logger.debug("Applying rule for left : " + leftTextBlockGroup.getTextBlockTypeGroup() + " right :" + rightTextBlockGroup.getTextBlockTypeGroup());
 
-            final TextBlock firstTextBlock = rightTextBlockGroup.getFirstTextBlock();
-            final String textToAdd = firstTextBlock.getText();
-            final TextBlockType textBlockType = firstTextBlock.getTextBlockType();
+
+        boolean addSpace;
+        try {
+            addSpace = graph.isAddSpace(leftTextBlockGroup, rightTextBlockGroup, contextTextBlocks, currentIndex);
+            if (stats != null)
+                stats.addSuccess(leftTextBlockGroup, rightTextBlockGroup);
+        } catch (MissingTokenizationRuleException ex) {
+            if (concurrentStats != null)
+                concurrentStats.addMissingRule(ex);
+            if (strict) {
+                throw ex;
+            } else {
+                addSpace = false;
+                if (stats != null)
+                    stats.addFail(ex);
+            }
+        }
+
+        return addSpace;
+    }
+
+    /**
+     * Joins the blocks into tokens, using the decisions made for them.
+     */
+    private interface BlockAssembler {
+        void add(TextBlock textBlock, boolean addSpace);
+
+        void finishCurrentToken();
+    }
+
+    /**
+     * Assembles {@link Token} objects.
+     */
+    private static class TokenAssembler implements BlockAssembler {
+        private final TokenHandler handler;
+        // if set, first finished token is kept as the head, even if it is empty
+        private final boolean keepHead;
+        private Token head;
+
+        private StringBuilder currentTokenBuilder = new StringBuilder();
+        private List<TextBlockType> currentBlockTypes = new ArrayList<TextBlockType>();
+
+        private TokenAssembler(TokenHandler handler, boolean keepHead) {
+            this.handler = handler;
+            this.keepHead = keepHead;
+        }
+
+        @Override
+        public void add(TextBlock textBlock, boolean addSpace) {
+            final String textToAdd = textBlock.getText();
+            final TextBlockType textBlockType = textBlock.getTextBlockType();
             if (addSpace || SPACE.equals(textToAdd)) {
-                if (currentTokenBuilder.length() > 0){
-                    tokens.add(new Token(currentTokenBuilder.toString(), currentBlockTypes));
-                }
+                finishCurrentToken();
 
-                if (SPACE.equals(textToAdd)){
+                // each token has its own list of block types
+                currentBlockTypes = new ArrayList<TextBlockType>();
+                if (SPACE.equals(textToAdd)) {
                     currentTokenBuilder = new StringBuilder();
-                    currentBlockTypes = new LinkedList<TextBlockType>();
-                }
-                else{
+                } else {
                     currentTokenBuilder = new StringBuilder(textToAdd);
                     currentBlockTypes.add(textBlockType);
                 }
@@ -114,16 +515,150 @@ public class TextTokenizer {
             }
         }
 
-        if (currentTokenBuilder.length() > 0)
-            tokens.add(new Token(currentTokenBuilder.toString(), currentBlockTypes));
+        @Override
+        public void finishCurrentToken() {
+            if (keepHead && head == null)
+                head = getCurrentToken();
+            else if (currentTokenBuilder.length() > 0)
+                handler.handle(getCurrentToken());
+        }
 
-        return tokens;
+        private Token getCurrentToken() {
+            return new Token(currentTokenBuilder.toString(), currentBlockTypes);
+        }
+
+        private Token getHead() {
+            return head;
+        }
+    }
+
+    /**
+     * Assembles the tokens into a {@link TokenStream}, without creating their surfaces.
+     */
+    private static class TokenStreamAssembler implements BlockAssembler {
+        private final TokenStream tokenStream;
+        // offsets of the scanned chars in the source; null if the source itself is scanned
+        private final int[] sourceOffsets;
+
+        private int currentStart = -1;
+        private int currentEnd = -1;
+
+        private TokenStreamAssembler(TokenStream tokenStream, int[] sourceOffsets) {
+            this.tokenStream = tokenStream;
+            this.sourceOffsets = sourceOffsets;
+        }
+
+        @Override
+        public void add(TextBlock textBlock, boolean addSpace) {
+            final boolean space = textBlock.isSpace();
+            if (addSpace || space) {
+                finishCurrentToken();
+                if (space)
+                    return;
+            }
+
+            tokenStream.addBlockType(textBlock.getTextBlockType());
+            // sentence start and end blocks have no offsets and no text
+            if (textBlock.getStartOffset() >= 0) {
+                if (currentStart < 0)
+                    currentStart = textBlock.getStartOffset();
+                currentEnd = textBlock.getEndOffset();
+            }
+        }
+
+        @Override
+        public void finishCurrentToken() {
+            if (currentStart >= 0 && currentEnd > currentStart) {
+                if (sourceOffsets == null)
+                    tokenStream.addToken(currentStart, currentEnd);
+                else
+                    tokenStream.addToken(sourceOffsets[currentStart], sourceOffsets[currentEnd - 1] + 1);
+            } else {
+                tokenStream.discardBlockTypes();
+            }
+            currentStart = -1;
+            currentEnd = -1;
+        }
+    }
+
+    /**
+     * Decides on spaces between the blocks as they are added, using a ring of blocks around the current one.
+     * The ring keeps {@link #blockSize} blocks for the left group, or {@link TokenizationGraph#CONTEXT_LENGTH}
+     * blocks for the context of a missing rule, whichever is greater; and the same number of blocks ahead.
+     */
+    private class TokenizationWindow {
+        private final BlockAssembler tokenAssembler;
+        private final int lookahead;
+        private final TextBlock[] ring;
+        private final int graphVersion;
+        private final CompiledTokenizationGraph compiledGraph;
+
+        // number of blocks added, including the sentence start blocks
+        private int addedCount = 0;
+        // index of the block which is decided next
+        private int nextIndex;
+        private boolean finished = false;
+
+        private TokenizationWindow(TokenHandler handler) {
+            this(new TokenAssembler(handler, false));
+        }
+
+        private TokenizationWindow(BlockAssembler tokenAssembler) {
+            this.tokenAssembler = tokenAssembler;
+            this.graphVersion = graph.getVersion();
+            this.compiledGraph = getCompiledGraph(this.graphVersion);
+            this.lookahead = Math.max(blockSize, TokenizationGraph.CONTEXT_LENGTH);
+            this.ring = new TextBlock[2 * this.lookahead];
+            this.nextIndex = blockSize;
+
+            for (int i = 0; i < blockSize; i++) {
+                addToRing(TextBlockSplitter.SENTENCE_START_TEXT_BLOCK);
+            }
+        }
+
+        private void add(TextBlock textBlock) {
+            addToRing(textBlock);
+            while (nextIndex + lookahead <= addedCount) {
+                decide(nextIndex++);
+            }
+        }
+
+        private void finish() {
+            for (int i = 0; i < blockSize; i++) {
+                add(TextBlockSplitter.SENTENCE_END_TEXT_BLOCK);
+            }
+            while (nextIndex <= addedCount - blockSize) {
+                decide(nextIndex++);
+            }
+
+            tokenAssembler.finishCurrentToken();
+            finished = true;
+            checkGraphVersion(graphVersion);
+        }
+
+        private boolean isFinished() {
+            return finished;
+        }
+
+        private void addToRing(TextBlock textBlock) {
+            ring[addedCount % ring.length] = textBlock;
+            addedCount++;
+        }
+
+        private void decide(int i) {
+            final boolean addSpace = isAddSpace(compiledGraph, ring, addedCount, i, stats);
+            tokenAssembler.add(ring[i % ring.length], addSpace);
+        }
     }
 
     public TextTokenizerStats getStats() {
         return stats;
     }
 
+    public ConcurrentTokenizerStats getConcurrentStats() {
+        return concurrentStats;
+    }
+
     /**
      * Creates a default text tokenizer : block size of 2, non-strict mode,
      * without recording stats, trained with default training data, without tracking training data
@@ -137,14 +672,19 @@ public class TextTokenizer {
 
     /**
      * Creates a default text tokenizer : block size of 2, non-strict mode,
-     * without recording stats, trained with default training data
+     * without recording stats, trained with default training data.
+     * <p/>
+     * If examples are not recorded, saved default graph is used instead of training it again.
      *
      * @param recordExamples Shall the trainer record stats and keep examples?
      * @return the built and trained tokenizer
+     * @see TokenizationGraphSerializer#loadDefaultTokenizationGraph()
      */
     public static TextTokenizer createDefaultTextTokenizer(boolean recordExamples) {
         try {
-            final TokenizationGraph graph = TextTokenizerTrainer.buildDefaultTokenizationGraph(recordExamples);
+            final TokenizationGraph graph = recordExamples
+                    ? TextTokenizerTrainer.buildDefaultTokenizationGraph(true)
+                    : TokenizationGraphSerializer.loadDefaultTokenizationGraph();
             return TextTokenizer.newBuilder()
                     .blockSize(2)
                     .graph(graph)
@@ -162,6 +702,7 @@ public class TextTokenizer {
         private boolean strict = false;
         private Integer blockSize;
         private boolean recordStats = false;
+        private Integer concurrentStatsExampleCount;
         private TokenizationGraph graph;
 
         public TextTokenizerBuilder blockSize(Integer blockSize) {
@@ -179,6 +720,16 @@ public class TextTokenizer {
             return this;
         }
 
+        /**
+         * Records {@link ConcurrentTokenizerStats}, which are of fixed size and can be kept on all the time.
+         *
+         * @param exampleCount Number of missing rule examples to keep
+         */
+        public TextTokenizerBuilder recordConcurrentStats(int exampleCount) {
+            this.concurrentStatsExampleCount = exampleCount;
+            return this;
+        }
+
         public TextTokenizerBuilder graph(TokenizationGraph graph) {
             this.graph = graph;
             return this;
@@ -192,6 +743,10 @@ public class TextTokenizer {
         }
     }
 
+    /**
+     * Stats with every boundary and every missing rule. Not thread safe, except for parallel tokenization of a
+     * single text; see {@link ConcurrentTokenizerStats} for stats which can be kept on.
+     */
     public static class TextTokenizerStats {
 
         private final HashMultiset<Pair<TextBlockTypeGroup, TextBlockTypeGroup>> successSet = HashMultiset.create();
@@ -201,6 +756,11 @@ public class TextTokenizer {
             successSet.add(Pair.of(leftTextBlockGroup.getTextBlockTypeGroup(), rightTextBlockGroup.getTextBlockTypeGroup()));
         }
 
+        void addAll(TextTokenizerStats other) {
+            successSet.addAll(other.successSet);
+            failMap.putAll(other.failMap);
+        }
+
         public void addFail(MissingTokenizationRuleException ex) {
             final TextBlockGroup leftTextBlockGroup = ex.getLeftTextBlockGroup();
             final TextBlockGroup rightTextBlockGroup = ex.getRightTextBlockGroup();
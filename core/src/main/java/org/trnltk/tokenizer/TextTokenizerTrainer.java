@@ -21,6 +21,7 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.log4j.Logger;
 import org.trnltk.tokenizer.data.TokenizerTrainingData;
 import org.trnltk.tokenizer.data.TokenizerTrainingEntry;
@@ -28,10 +29,7 @@ import org.trnltk.util.DiffUtil;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 import java.util.regex.Pattern;
 
 public class TextTokenizerTrainer {
@@ -49,12 +47,68 @@ public class TextTokenizerTrainer {
     protected final TokenizationGraph graph;
 
     public TextTokenizerTrainer(int blockSize, boolean recordTrainingExamples) {
+        this(blockSize, new TokenizationGraph(recordTrainingExamples));
+    }
+
+    /**
+     * Creates a trainer which adds the rules of new examples to an already trained graph, like the saved default
+     * graph. Graph is modified.
+     */
+    public TextTokenizerTrainer(int blockSize, TokenizationGraph graph) {
+        Validate.notNull(graph);
         this.blockSize = blockSize;
-        graph = new TokenizationGraph(recordTrainingExamples);
+        this.graph = graph;
         textBlockSplitter = new TextBlockSplitter();
     }
 
     public TextTokenizerTrainer train(String text, String tokenizedText) {
+        validateTrainingTexts(text, tokenizedText);
+
+        final LinkedList<TextBlock> untokenizedTextBlocks = textBlockSplitter.splitToTextParts(text);
+        final LinkedList<TextBlock> tokenizedTextBlocks = textBlockSplitter.splitToTextParts(tokenizedText);
+        this.createRules(untokenizedTextBlocks, tokenizedTextBlocks);
+        return this;
+    }
+
+    /**
+     * Trains with the example only if none of its rules, or the rules inferred from them, contradicts an existing
+     * rule. Graph is not modified if there is a conflict, thus examples can be added one by one while the
+     * conflicting ones are reported.
+     * <p/>
+     * Like {@link #train(String, String)}, a rule of the example overrides an inferred rule with the opposite
+     * decision, without a conflict. See {@link #trainIfConsistent(String, String, boolean)} to report these too.
+     *
+     * @return Conflicts; empty if the graph is trained with the example
+     * @throws IllegalArgumentException if the texts are not valid for training
+     */
+    public List<TokenizationRuleConflict> trainIfConsistent(String text, String tokenizedText) {
+        return this.trainIfConsistent(text, tokenizedText, true);
+    }
+
+    /**
+     * @param overrideInferredRules if false, a rule of the example which has the opposite decision of an inferred
+     *                              rule is a conflict, instead of overriding the inferred rule
+     * @see #trainIfConsistent(String, String)
+     */
+    public List<TokenizationRuleConflict> trainIfConsistent(String text, String tokenizedText, boolean overrideInferredRules) {
+        validateTrainingTexts(text, tokenizedText);
+
+        final LinkedList<TextBlock> untokenizedTextBlocks = textBlockSplitter.splitToTextParts(text);
+        final LinkedList<TextBlock> tokenizedTextBlocks = textBlockSplitter.splitToTextParts(tokenizedText);
+        final List<TrainingRule> rules = this.alignRules(untokenizedTextBlocks, tokenizedTextBlocks);
+
+        final List<TokenizationRuleConflict> conflicts = this.findConflicts(rules, overrideInferredRules);
+        if (conflicts.isEmpty()) {
+            for (TrainingRule rule : rules) {
+                this.addTokenizationRule(rule.leftTextBlockGroup, rule.rightTextBlockGroup, rule.addSpace);
+            }
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Not training with conflicting example\n\t" + text + "\n\t" + tokenizedText + "\n\t" + conflicts);
+        }
+        return conflicts;
+    }
+
+    private void validateTrainingTexts(String text, String tokenizedText) {
         if (logger.isDebugEnabled())
             logger.debug("Training with lines\n\t" + text + "\n\t" + tokenizedText);
 
@@ -65,11 +119,6 @@ public class TextTokenizerTrainer {
         textShouldNotEndWithSpace(text);
         textShouldNotEndWithSpace(tokenizedText);
         textsShouldHaveNoDifferenceOtherThanWhiteSpace(text, tokenizedText);
-
-        final LinkedList<TextBlock> untokenizedTextBlocks = textBlockSplitter.splitToTextParts(text);
-        final LinkedList<TextBlock> tokenizedTextBlocks = textBlockSplitter.splitToTextParts(tokenizedText);
-        this.createRules(untokenizedTextBlocks, tokenizedTextBlocks);
-        return this;
     }
 
     private void textShouldNotHaveMultipleSpacesInARow(String text) {
@@ -96,6 +145,17 @@ public class TextTokenizerTrainer {
     }
 
     protected void createRules(List<TextBlock> untokenizedTextBlocks, LinkedList<TextBlock> tokenizedTextBlocks) {
+        for (TrainingRule rule : this.alignRules(untokenizedTextBlocks, tokenizedTextBlocks)) {
+            this.addTokenizationRule(rule.leftTextBlockGroup, rule.rightTextBlockGroup, rule.addSpace);
+        }
+    }
+
+    private List<TrainingRule> alignRules(List<TextBlock> untokenized, List<TextBlock> tokenized) {
+        final List<TrainingRule> rules = new ArrayList<TrainingRule>();
+
+        // blocks are accessed by index
+        final List<TextBlock> untokenizedTextBlocks = new ArrayList<TextBlock>(untokenized);
+        final List<TextBlock> tokenizedTextBlocks = new ArrayList<TextBlock>(tokenized);
         this.textBlockSplitter.addTextStartsAndEnds(untokenizedTextBlocks, blockSize);
         this.textBlockSplitter.addTextStartsAndEnds(tokenizedTextBlocks, blockSize);
 
@@ -129,7 +189,7 @@ public class TextTokenizerTrainer {
             final TextBlockGroup leftTextBlockGroup = this.textBlockSplitter.getTextBlockGroup(untokenizedTextBlocks, this.blockSize, i - blockSize);
             final TextBlockGroup rightTextBlockGroup = this.textBlockSplitter.getTextBlockGroup(untokenizedTextBlocks, this.blockSize, i);
 
-            this.addTokenizationRule(leftTextBlockGroup, rightTextBlockGroup, addSpace);
+            rules.add(new TrainingRule(leftTextBlockGroup, rightTextBlockGroup, addSpace));
 
             if (addSpace)
                 j++;    //align
@@ -137,6 +197,52 @@ public class TextTokenizerTrainer {
             i++;
             j++;
         }
+
+        return rules;
+    }
+
+    /**
+     * Adds the rules, and the rules inferred from them, to a copy of the edges of the graph the same way
+     * {@link TokenizationGraph#addEdge} does; but collects the conflicts instead of failing at the first one.
+     */
+    private List<TokenizationRuleConflict> findConflicts(List<TrainingRule> rules, boolean overrideInferredRules) {
+        final Map<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, PendingEdge> pendingEdges = new HashMap<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, PendingEdge>();
+        final Map<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, TokenizationRuleConflict> conflicts = new LinkedHashMap<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, TokenizationRuleConflict>();
+        for (TrainingRule rule : rules) {
+            this.findConflicts(rule.leftTextBlockGroup.getTextBlockTypeGroup(), rule.rightTextBlockGroup.getTextBlockTypeGroup(),
+                    rule.addSpace, false, overrideInferredRules, rule.rightTextBlockGroup.getTextBlocks(), pendingEdges, conflicts);
+        }
+        return new ArrayList<TokenizationRuleConflict>(conflicts.values());
+    }
+
+    private void findConflicts(TextBlockTypeGroup leftTextBlockTypeGroup, TextBlockTypeGroup rightTextBlockTypeGroup, boolean addSpace, boolean inferred,
+                               boolean overrideInferredRules, List<TextBlock> example, Map<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, PendingEdge> pendingEdges,
+                               Map<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, TokenizationRuleConflict> conflicts) {
+        final Pair<TextBlockTypeGroup, TextBlockTypeGroup> rule = Pair.of(leftTextBlockTypeGroup, rightTextBlockTypeGroup);
+
+        PendingEdge existingEdge = pendingEdges.get(rule);
+        List<List<TextBlock>> existingExamples = Collections.emptyList();
+        if (existingEdge == null) {
+            final TokenizationGraphNode sourceNode = graph.nodeMap.get(leftTextBlockTypeGroup);
+            final TokenizationGraphEdge graphEdge = sourceNode != null ? sourceNode.getEdge(rightTextBlockTypeGroup) : null;
+            if (graphEdge != null) {
+                existingEdge = new PendingEdge(graphEdge.isAddSpace(), graphEdge.isInferred());
+                existingExamples = graphEdge.getExamples();
+            }
+        }
+
+        if (existingEdge == null) {
+            pendingEdges.put(rule, new PendingEdge(addSpace, inferred));
+            for (Pair<TextBlockTypeGroup, TextBlockTypeGroup> inferredRule : graph.getInferredRules(leftTextBlockTypeGroup, rightTextBlockTypeGroup)) {
+                this.findConflicts(inferredRule.getLeft(), inferredRule.getRight(), addSpace, true, overrideInferredRules, example, pendingEdges, conflicts);
+            }
+        } else if (existingEdge.inferred && !inferred && (overrideInferredRules || existingEdge.addSpace == addSpace)) {
+            // an inferred rule is overwritten by an example, as TokenizationGraphNode#addEdge does
+            pendingEdges.put(rule, new PendingEdge(addSpace, false));
+        } else if (existingEdge.addSpace != addSpace && !conflicts.containsKey(rule)) {
+            conflicts.put(rule, new TokenizationRuleConflict(leftTextBlockTypeGroup, rightTextBlockTypeGroup,
+                    existingEdge.addSpace, existingEdge.inferred, inferred, example, existingExamples));
+        }
     }
 
     private void addTokenizationRule(TextBlockGroup leftTextBlockGroup, TextBlockGroup rightTextBlockGroup, boolean addSpace) {
@@ -149,6 +255,28 @@ public class TextTokenizerTrainer {
         return graph;
     }
 
+    private static class TrainingRule {
+        private final TextBlockGroup leftTextBlockGroup;
+        private final TextBlockGroup rightTextBlockGroup;
+        private final boolean addSpace;
+
+        private TrainingRule(TextBlockGroup leftTextBlockGroup, TextBlockGroup rightTextBlockGroup, boolean addSpace) {
+            this.leftTextBlockGroup = leftTextBlockGroup;
+            this.rightTextBlockGroup = rightTextBlockGroup;
+            this.addSpace = addSpace;
+        }
+    }
+
+    private static class PendingEdge {
+        private final boolean addSpace;
+        private final boolean inferred;
+
+        private PendingEdge(boolean addSpace, boolean inferred) {
+            this.addSpace = addSpace;
+            this.inferred = inferred;
+        }
+    }
+
     public static TokenizationGraph buildDefaultTokenizationGraph(boolean recordExamples) throws IOException {
         final Splitter lineSplitter = Splitter.on(CharMatcher.anyOf("\n\r")).trimResults().omitEmptyStrings();
 
@@ -3,19 +3,48 @@ package org.trnltk.tokenizer;
 import java.util.List;
 
 public class Token {
-    private final String surface;
-    private final List<TextBlockType> textBlockTypes;
+    // set if the token is a view of a stream; then surface and types are read lazily
+    private final TokenStream tokenStream;
+    private final int index;
+
+    private String surface;
+    private List<TextBlockType> textBlockTypes;
 
     public Token(String surface, List<TextBlockType> textBlockTypes) {
         this.surface = surface;
         this.textBlockTypes = textBlockTypes;
+        this.tokenStream = null;
+        this.index = -1;
+    }
+
+    Token(TokenStream tokenStream, int index) {
+        this.tokenStream = tokenStream;
+        this.index = index;
     }
 
     public String getSurface() {
+        if (surface == null)
+            surface = tokenStream.getSurface(index);
         return surface;
     }
 
     public List<TextBlockType> getTextBlockTypes() {
+        if (textBlockTypes == null)
+            textBlockTypes = tokenStream.getTextBlockTypes(index);
         return textBlockTypes;
     }
+
+    /**
+     * @return Offset of the first char of the token in the tokenized text, or -1 if not known
+     */
+    public int getStartOffset() {
+        return tokenStream != null ? tokenStream.getStartOffset(index) : -1;
+    }
+
+    /**
+     * @return Offset after the last char of the token in the tokenized text, or -1 if not known
+     */
+    public int getEndOffset() {
+        return tokenStream != null ? tokenStream.getEndOffset(index) : -1;
+    }
 }
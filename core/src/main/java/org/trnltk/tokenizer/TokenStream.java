@@ -0,0 +1,182 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tokens of a text, kept in parallel arrays instead of objects : offsets of each token in the text and the
+ * {@link TextBlockType} ordinals of their blocks, packed one after the other. Surfaces are not copied from the
+ * text until they are asked for.
+ * <p/>
+ * {@link Token}s can still be used; see {@link #getToken(int)} and {@link #asTokenList()}. They are views of the
+ * stream.
+ *
+ * @author Ali Ok
+ * @see TextTokenizer#tokenizeToStream(String)
+ */
+public class TokenStream {
+    private static final TextBlockType[] TYPES = TextBlockType.values();
+
+    private final String source;
+    // if set, the tokenizer has merged the consecutive spaces of the source
+    private final boolean spacesMerged;
+
+    private int size = 0;
+    private int[] startOffsets;
+    private int[] endOffsets;
+    // block types of token i are blockTypes[i == 0 ? 0 : blockTypeEnds[i - 1], blockTypeEnds[i])
+    private int[] blockTypeEnds;
+    private byte[] blockTypes;
+    private int blockTypeCount = 0;
+
+    TokenStream(String source, boolean spacesMerged) {
+        this.source = source;
+        this.spacesMerged = spacesMerged;
+
+        // about 6 chars and 2 blocks per token
+        final int capacity = Math.max(16, source.length() / 6);
+        this.startOffsets = new int[capacity];
+        this.endOffsets = new int[capacity];
+        this.blockTypeEnds = new int[capacity];
+        this.blockTypes = new byte[2 * capacity];
+    }
+
+    void addBlockType(TextBlockType textBlockType) {
+        if (blockTypeCount == blockTypes.length)
+            blockTypes = Arrays.copyOf(blockTypes, 2 * blockTypes.length);
+        blockTypes[blockTypeCount++] = (byte) textBlockType.ordinal();
+    }
+
+    /**
+     * Ends the token with the block types added since the previous token.
+     */
+    void addToken(int startOffset, int endOffset) {
+        if (size == startOffsets.length) {
+            startOffsets = Arrays.copyOf(startOffsets, 2 * size);
+            endOffsets = Arrays.copyOf(endOffsets, 2 * size);
+            blockTypeEnds = Arrays.copyOf(blockTypeEnds, 2 * size);
+        }
+        startOffsets[size] = startOffset;
+        endOffsets[size] = endOffset;
+        blockTypeEnds[size] = blockTypeCount;
+        size++;
+    }
+
+    /**
+     * Drops the block types added since the previous token.
+     */
+    void discardBlockTypes() {
+        blockTypeCount = size == 0 ? 0 : blockTypeEnds[size - 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Text which is tokenized
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return Offset of the first char of the token in the source
+     */
+    public int getStartOffset(int index) {
+        checkIndex(index);
+        return startOffsets[index];
+    }
+
+    /**
+     * @return Offset after the last char of the token in the source
+     */
+    public int getEndOffset(int index) {
+        checkIndex(index);
+        return endOffsets[index];
+    }
+
+    /**
+     * Creates the surface of the token. Surface is the text of the token in the source, with consecutive spaces
+     * merged like the tokenizer does.
+     */
+    public String getSurface(int index) {
+        checkIndex(index);
+        final String surface = source.substring(startOffsets[index], endOffsets[index]);
+        if (spacesMerged && surface.contains("  "))
+            return surface.replaceAll("  +", " ");
+        return surface;
+    }
+
+    public int getBlockCount(int index) {
+        checkIndex(index);
+        return blockTypeEnds[index] - getBlockTypeStart(index);
+    }
+
+    public TextBlockType getBlockType(int index, int blockIndex) {
+        if (blockIndex < 0 || blockIndex >= getBlockCount(index))
+            throw new IndexOutOfBoundsException("Block index: " + blockIndex + ", block count: " + getBlockCount(index));
+        return TYPES[blockTypes[getBlockTypeStart(index) + blockIndex]];
+    }
+
+    public List<TextBlockType> getTextBlockTypes(int index) {
+        final int blockCount = getBlockCount(index);
+        final List<TextBlockType> textBlockTypes = new ArrayList<TextBlockType>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            textBlockTypes.add(getBlockType(index, i));
+        }
+        return textBlockTypes;
+    }
+
+    /**
+     * @return A token which reads its data from this stream
+     */
+    public Token getToken(int index) {
+        checkIndex(index);
+        return new Token(this, index);
+    }
+
+    /**
+     * @return A view of the stream as tokens. Tokens are created at each access.
+     */
+    public List<Token> asTokenList() {
+        return new AbstractList<Token>() {
+            @Override
+            public Token get(int index) {
+                return getToken(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int getBlockTypeStart(int index) {
+        return index == 0 ? 0 : blockTypeEnds[index - 1];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+}
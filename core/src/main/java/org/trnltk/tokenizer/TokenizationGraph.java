@@ -24,6 +24,14 @@ import org.apache.log4j.Logger;
 import java.util.*;
 
 /**
+ * Rules of the tokenizer, as edges between the groups of block types.
+ * <p/>
+ * Training is not thread safe; edges and the inference cache are changed without locks. A graph which is not
+ * being trained can be read by many tokenizers at the same time. Each change made with
+ * {@link #addEdge(TextBlockTypeGroup, TextBlockTypeGroup, boolean, boolean, ImmutableList)} changes the
+ * {@link #getVersion() version}, which is used by {@link TextTokenizer} to recompile its rules after training
+ * and to detect training during tokenization.
+ *
  * @author Ali Ok
  */
 public class TokenizationGraph {
@@ -31,13 +39,37 @@ public class TokenizationGraph {
 
     protected final Map<TextBlockTypeGroup, TokenizationGraphNode> nodeMap = new HashMap<TextBlockTypeGroup, TokenizationGraphNode>();
     protected final boolean recordExamples;
-    private static final int CONTEXT_LENGTH = 10;
+    static final int CONTEXT_LENGTH = 10;
+
+    // inferences of a rule only depend on the types of its groups, thus they are found once for each pair of groups
+    private final Map<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Set<Pair<TextBlockTypeGroup, TextBlockTypeGroup>>> inferenceCache =
+            new HashMap<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Set<Pair<TextBlockTypeGroup, TextBlockTypeGroup>>>();
+
+    // odd while an edge is being added
+    private volatile int version = 0;
 
     public TokenizationGraph(boolean recordExamples) {
         this.recordExamples = recordExamples;
     }
 
     public void addEdge(TextBlockTypeGroup leftTextBlockTypeGroup, TextBlockTypeGroup rightTextBlockTypeGroup, boolean addSpace, boolean inferred, ImmutableList<TextBlock> exampleTextBlocks) {
+        // single writer, see the class comment
+        version++;
+        try {
+            this.addEdgeAndInferences(leftTextBlockTypeGroup, rightTextBlockTypeGroup, addSpace, inferred, exampleTextBlocks);
+        } finally {
+            version++;
+        }
+    }
+
+    /**
+     * @return Number of changes started or finished; odd while the graph is being changed
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    private void addEdgeAndInferences(TextBlockTypeGroup leftTextBlockTypeGroup, TextBlockTypeGroup rightTextBlockTypeGroup, boolean addSpace, boolean inferred, ImmutableList<TextBlock> exampleTextBlocks) {
         TokenizationGraphNode sourceNode = nodeMap.get(leftTextBlockTypeGroup);
         TokenizationGraphNode targetNode = nodeMap.get(rightTextBlockTypeGroup);
 
@@ -74,6 +106,29 @@ public class TokenizationGraph {
     }
 
     private void inferEdges(TokenizationGraphNode sourceNode, TokenizationGraphNode targetNode, boolean addSpace, ImmutableList<TextBlock> exampleTextBlocks) {
+        final Set<Pair<TextBlockTypeGroup, TextBlockTypeGroup>> nodesToAddRules = getInferredRules(sourceNode.getData(), targetNode.getData());
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Gonna try inferring rules for these source and target nodes:\t");
+            for (Pair<TextBlockTypeGroup, TextBlockTypeGroup> pair : nodesToAddRules) {
+                logger.debug(pair);
+            }
+        }
+
+
+        this.addInferredEdges(nodesToAddRules, addSpace, exampleTextBlocks);
+    }
+
+    /**
+     * @return Rules which are inferred from a rule between the given groups, without the rule itself. Result is
+     *         cached.
+     */
+    Set<Pair<TextBlockTypeGroup, TextBlockTypeGroup>> getInferredRules(TextBlockTypeGroup sourceTypeGroup, TextBlockTypeGroup targetTypeGroup) {
+        final Pair<TextBlockTypeGroup, TextBlockTypeGroup> premise = Pair.of(sourceTypeGroup, targetTypeGroup);
+        final Set<Pair<TextBlockTypeGroup, TextBlockTypeGroup>> cachedRules = inferenceCache.get(premise);
+        if (cachedRules != null)
+            return cachedRules;
+
         // assume we have sourceTypes <A,B> and targetTypes <C,D>
         // and K infers from A, L infers from B, M infers from C, N infers from D
         // target is to have same rule for following:
@@ -96,8 +151,8 @@ public class TokenizationGraph {
 
 
         // [A,B]
-        final ImmutableList<TextBlockType> sourceTypes = sourceNode.getData().getTextBlockTypes();
-        final ImmutableList<TextBlockType> targetTypes = targetNode.getData().getTextBlockTypes();
+        final ImmutableList<TextBlockType> sourceTypes = sourceTypeGroup.getTextBlockTypes();
+        final ImmutableList<TextBlockType> targetTypes = targetTypeGroup.getTextBlockTypes();
 
         final Function<TextBlockType, Set<TextBlockType>> inferringFunction = new Function<TextBlockType, Set<TextBlockType>>() {
             @Override
@@ -128,17 +183,11 @@ public class TokenizationGraph {
             }
         }
 
-        nodesToAddRules.remove(Pair.of(sourceNode.getData(), targetNode.getData()));    //don't add premise again
+        nodesToAddRules.remove(premise);    //don't add premise again
 
-        if (logger.isDebugEnabled()) {
-            logger.debug("Gonna try inferring rules for these source and target nodes:\t");
-            for (Pair<TextBlockTypeGroup, TextBlockTypeGroup> pair : nodesToAddRules) {
-                logger.debug(pair);
-            }
-        }
-
-
-        this.addInferredEdges(nodesToAddRules, addSpace, exampleTextBlocks);
+        final Set<Pair<TextBlockTypeGroup, TextBlockTypeGroup>> inferredRules = Collections.unmodifiableSet(nodesToAddRules);
+        inferenceCache.put(premise, inferredRules);
+        return inferredRules;
     }
 
     public boolean addSingleEdge(TokenizationGraphNode sourceNode, TokenizationGraphNode targetNode, boolean addSpace, boolean inferred, ImmutableList<TextBlock> exampleTextBlocks) {
@@ -154,11 +203,11 @@ public class TokenizationGraph {
             final TextBlockTypeGroup sourceNodeType = nodeToAddRule.getLeft();
             final TextBlockTypeGroup targetNodeType = nodeToAddRule.getRight();
 
-            this.addEdge(sourceNodeType, targetNodeType, addSpace, true, exampleTextBlocks);
+            this.addEdgeAndInferences(sourceNodeType, targetNodeType, addSpace, true, exampleTextBlocks);
         }
     }
 
-    public boolean isAddSpace(TextBlockGroup leftTextBlockGroup, TextBlockGroup rightTextBlockGroup, LinkedList<TextBlock> textBlocks, int currentBlockIndex) throws MissingTokenizationRuleException {
+    public boolean isAddSpace(TextBlockGroup leftTextBlockGroup, TextBlockGroup rightTextBlockGroup, List<TextBlock> textBlocks, int currentBlockIndex) throws MissingTokenizationRuleException {
         final TokenizationGraphEdge edge = getRule(leftTextBlockGroup, rightTextBlockGroup, textBlocks, currentBlockIndex);
         if (edge == null) {
             int startIndex = Math.max(0, currentBlockIndex - CONTEXT_LENGTH);
@@ -172,7 +221,7 @@ public class TokenizationGraph {
         return edge.isAddSpace();
     }
 
-    private TokenizationGraphEdge getRule(TextBlockGroup leftTextBlockGroup, TextBlockGroup rightTextBlockGroup, LinkedList<TextBlock> textBlocks, int currentBlockIndex) {
+    private TokenizationGraphEdge getRule(TextBlockGroup leftTextBlockGroup, TextBlockGroup rightTextBlockGroup, List<TextBlock> textBlocks, int currentBlockIndex) {
         final TextBlockTypeGroup leftTextBlockTypeGroup = leftTextBlockGroup.getTextBlockTypeGroup();
         final TextBlockTypeGroup rightTextBlockTypeGroup = rightTextBlockGroup.getTextBlockTypeGroup();
 
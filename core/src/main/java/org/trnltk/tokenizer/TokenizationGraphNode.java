@@ -17,7 +17,6 @@
 package org.trnltk.tokenizer;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.lang3.Validate;
 import org.apache.log4j.Logger;
 
 import java.util.Collections;
@@ -60,15 +59,16 @@ public class TokenizationGraphNode {
             if (existingEdge.isInferred()) {
                 if (inferred) {
                     //assert that existing inferred node and new inferred node has same "addSpace" rule
-                    Validate.isTrue(existingEdge.isAddSpace() == addSpace,
-                            "'addSpace' rule of existing inferred node is not consistent with new inferred node.\n" +
-                                    "Existing edge:\n" +
-                                    "\tSource: " + this + "\n" +
-                                    "\tTarget" + targetNode + "\n" +
-                                    "\tEdge:" + existingEdge + "\n" +
-                                    "\tTextBlocks: " + exampleTextBlocks + "\n" +
-                                    "\tCurrent example:" + exampleTextBlocks + "\n" +
-                                    "\tPrevious examples for edge:" + existingEdge.getExamples());
+                    // message is only built when it fails; it is too expensive to build for each edge
+                    if (existingEdge.isAddSpace() != addSpace)
+                        throw new IllegalArgumentException("'addSpace' rule of existing inferred node is not consistent with new inferred node.\n" +
+                                "Existing edge:\n" +
+                                "\tSource: " + this + "\n" +
+                                "\tTarget" + targetNode + "\n" +
+                                "\tEdge:" + existingEdge + "\n" +
+                                "\tTextBlocks: " + exampleTextBlocks + "\n" +
+                                "\tCurrent example:" + exampleTextBlocks + "\n" +
+                                "\tPrevious examples for edge:" + existingEdge.getExamples());
 
                     if (CollectionUtils.isNotEmpty(exampleTextBlocks))
                         existingEdge.addExample(exampleTextBlocks);
@@ -89,7 +89,8 @@ public class TokenizationGraphNode {
                 if (logger.isDebugEnabled())
                     logger.debug("Since existing edge is not inferred one, doing nothing but rule consistency check");
 
-                Validate.isTrue(existingEdge.isAddSpace() == addSpace, "For node, 'addSpace' rule is not consistent. \n\tSource: " + this +
+                if (existingEdge.isAddSpace() != addSpace)
+                    throw new IllegalArgumentException("For node, 'addSpace' rule is not consistent. \n\tSource: " + this +
                         "\n\tTarget" + targetNode + "\n\tEdge:" + existingEdge + "\n\tTextBlocks: " + exampleTextBlocks + "\n\tPrevious examples for edge:" + existingEdge.getExamples());
 
                 if (CollectionUtils.isNotEmpty(exampleTextBlocks))
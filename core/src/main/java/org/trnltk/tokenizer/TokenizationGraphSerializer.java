@@ -0,0 +1,253 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import com.google.common.io.Resources;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Saves and loads trained {@link TokenizationGraph}s in a compact binary form, so that the default graph is not
+ * trained again at every start.
+ * <pre>
+ * "TRTG", int version, long training data checksum,
+ * deflated {
+ *     int type count, (UTF type name)*,
+ *     int node count, (byte group size, (byte type index)*)*,
+ *     ((int edge count, (int target node index, boolean addSpace, boolean inferred)*) for each node)
+ * }
+ * </pre>
+ * Types are stored with their names, thus a graph saved before the {@link TextBlockType}s are changed is not
+ * loaded. Training examples are not saved.
+ * <p/>
+ * Default graph is saved with the checksum of the training data and the abbreviations it is trained with. If they
+ * are changed, the saved graph is ignored and the graph is trained again. Saved graph is updated with
+ * <pre>
+ * mvn -pl core -P tokenizationGraph process-classes
+ * </pre>
+ *
+ * @author Ali Ok
+ */
+public class TokenizationGraphSerializer {
+    static Logger logger = Logger.getLogger(TokenizationGraphSerializer.class);
+
+    public static final String DEFAULT_GRAPH_RESOURCE = "tokenizer/default-tokenization-graph.bin";
+    private static final String[] DEFAULT_TRAINING_RESOURCES = {"tokenizer/training-data.yaml", "tokenizer/abbreviations.txt"};
+
+    private static final int MAGIC = ('T' << 24) | ('R' << 16) | ('T' << 8) | 'G';
+    static final int VERSION = 1;
+
+    /**
+     * Writes the graph. Stream is not closed.
+     *
+     * @param checksum Checksum of the data which the graph is trained with
+     */
+    public static void write(TokenizationGraph graph, long checksum, OutputStream outputStream) throws IOException {
+        Validate.notNull(graph);
+        final DataOutputStream header = new DataOutputStream(outputStream);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeLong(checksum);
+        header.flush();
+
+        final DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream);
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflaterOutputStream));
+
+        final TextBlockType[] types = TextBlockType.values();
+        out.writeInt(types.length);
+        for (TextBlockType type : types) {
+            out.writeUTF(type.name());
+        }
+
+        // sort nodes, so that same graph is always written the same
+        final List<TokenizationGraphNode> nodes = new ArrayList<TokenizationGraphNode>(graph.nodeMap.values());
+        Collections.sort(nodes, new Comparator<TokenizationGraphNode>() {
+            @Override
+            public int compare(TokenizationGraphNode o1, TokenizationGraphNode o2) {
+                return compareGroups(o1.getData(), o2.getData());
+            }
+        });
+
+        final Map<TextBlockTypeGroup, Integer> nodeIndexes = new HashMap<TextBlockTypeGroup, Integer>();
+        out.writeInt(nodes.size());
+        for (TokenizationGraphNode node : nodes) {
+            nodeIndexes.put(node.getData(), nodeIndexes.size());
+            out.writeByte(node.getData().getSize());
+            for (TextBlockType type : node.getData().getTextBlockTypes()) {
+                out.writeByte(type.ordinal());
+            }
+        }
+
+        for (TokenizationGraphNode node : nodes) {
+            final List<TextBlockTypeGroup> targets = new ArrayList<TextBlockTypeGroup>(node.edges.keySet());
+            Collections.sort(targets, new Comparator<TextBlockTypeGroup>() {
+                @Override
+                public int compare(TextBlockTypeGroup o1, TextBlockTypeGroup o2) {
+                    return compareGroups(o1, o2);
+                }
+            });
+
+            out.writeInt(targets.size());
+            for (TextBlockTypeGroup target : targets) {
+                final TokenizationGraphEdge edge = node.edges.get(target);
+                out.writeInt(nodeIndexes.get(target));
+                out.writeBoolean(edge.isAddSpace());
+                out.writeBoolean(edge.isInferred());
+            }
+        }
+
+        out.flush();
+        deflaterOutputStream.finish();
+    }
+
+    /**
+     * Reads a graph written with {@link #write(TokenizationGraph, long, OutputStream)}. Stream is not closed.
+     *
+     * @param expectedChecksum Checksum of the current data
+     * @return the graph, or null if the graph is written with another format version, with other
+     *         {@link TextBlockType}s or for other data
+     */
+    public static TokenizationGraph read(InputStream inputStream, long expectedChecksum) throws IOException {
+        final DataInputStream header = new DataInputStream(inputStream);
+        if (header.readInt() != MAGIC)
+            throw new IOException("Not a tokenization graph");
+
+        final int version = header.readInt();
+        if (version != VERSION) {
+            logger.info("Saved tokenization graph has version " + version + ", expected " + VERSION);
+            return null;
+        }
+
+        final long checksum = header.readLong();
+        if (checksum != expectedChecksum) {
+            logger.info("Saved tokenization graph is trained with other data");
+            return null;
+        }
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(inputStream)));
+
+        final TextBlockType[] types = TextBlockType.values();
+        final int typeCount = in.readInt();
+        if (typeCount != types.length) {
+            logger.info("Saved tokenization graph has other text block types");
+            return null;
+        }
+        for (TextBlockType type : types) {
+            if (!type.name().equals(in.readUTF())) {
+                logger.info("Saved tokenization graph has other text block types");
+                return null;
+            }
+        }
+
+        final TokenizationGraph graph = new TokenizationGraph(false);
+
+        final TokenizationGraphNode[] nodes = new TokenizationGraphNode[in.readInt()];
+        for (int i = 0; i < nodes.length; i++) {
+            final TextBlockType[] groupTypes = new TextBlockType[in.readUnsignedByte()];
+            for (int j = 0; j < groupTypes.length; j++) {
+                groupTypes[j] = types[in.readUnsignedByte()];
+            }
+            final TextBlockTypeGroup group = new TextBlockTypeGroup(Arrays.asList(groupTypes));
+            nodes[i] = new TokenizationGraphNode(group);
+            graph.nodeMap.put(group, nodes[i]);
+        }
+
+        for (TokenizationGraphNode node : nodes) {
+            final int edgeCount = in.readInt();
+            for (int i = 0; i < edgeCount; i++) {
+                final TokenizationGraphNode target = nodes[in.readInt()];
+                final boolean addSpace = in.readBoolean();
+                final boolean inferred = in.readBoolean();
+                node.addEdge(target, addSpace, inferred);
+            }
+        }
+
+        return graph;
+    }
+
+    /**
+     * Loads the saved default graph if it is trained with current training data; trains it otherwise.
+     *
+     * @see TextTokenizerTrainer#buildDefaultTokenizationGraph(boolean)
+     */
+    public static TokenizationGraph loadDefaultTokenizationGraph() throws IOException {
+        final long checksum = getDefaultTrainingDataChecksum();
+
+        final URL resource = TokenizationGraphSerializer.class.getClassLoader().getResource(DEFAULT_GRAPH_RESOURCE);
+        if (resource != null) {
+            final InputStream inputStream = resource.openStream();
+            try {
+                final TokenizationGraph graph = read(inputStream, checksum);
+                if (graph != null)
+                    return graph;
+            } finally {
+                inputStream.close();
+            }
+        } else {
+            logger.info("No saved tokenization graph found");
+        }
+
+        logger.info("Training the default tokenization graph");
+        return TextTokenizerTrainer.buildDefaultTokenizationGraph(false);
+    }
+
+    /**
+     * @return Checksum of the training data and the abbreviations which the default graph is trained with
+     */
+    public static long getDefaultTrainingDataChecksum() throws IOException {
+        final CRC32 crc32 = new CRC32();
+        for (String trainingResource : DEFAULT_TRAINING_RESOURCES) {
+            crc32.update(Resources.toByteArray(Resources.getResource(trainingResource)));
+        }
+        return crc32.getValue();
+    }
+
+    private static int compareGroups(TextBlockTypeGroup o1, TextBlockTypeGroup o2) {
+        final List<TextBlockType> types1 = o1.getTextBlockTypes();
+        final List<TextBlockType> types2 = o2.getTextBlockTypes();
+        for (int i = 0; i < Math.min(types1.size(), types2.size()); i++) {
+            final int result = types1.get(i).compareTo(types2.get(i));
+            if (result != 0)
+                return result;
+        }
+        return types1.size() - types2.size();
+    }
+
+    /**
+     * Trains the default graph and saves it to the given file.
+     */
+    public static void main(String[] args) throws IOException {
+        Validate.isTrue(args.length == 1, "Usage : TokenizationGraphSerializer <output file>");
+
+        final TokenizationGraph graph = TextTokenizerTrainer.buildDefaultTokenizationGraph(false);
+        final File file = new File(args[0]);
+        final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            write(graph, getDefaultTrainingDataChecksum(), outputStream);
+        } finally {
+            outputStream.close();
+        }
+        logger.info("Saved tokenization graph with " + graph.nodeMap.size() + " nodes to " + file.getAbsolutePath());
+    }
+}
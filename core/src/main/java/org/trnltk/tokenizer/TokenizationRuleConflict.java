@@ -0,0 +1,99 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import java.util.List;
+
+/**
+ * A rule of a training example which contradicts a rule of the graph, or another rule of the same example.
+ *
+ * @author Ali Ok
+ * @see TextTokenizerTrainer#trainIfConsistent(String, String)
+ */
+public class TokenizationRuleConflict {
+    private final TextBlockTypeGroup leftTextBlockTypeGroup;
+    private final TextBlockTypeGroup rightTextBlockTypeGroup;
+    private final boolean existingAddSpace;
+    private final boolean existingInferred;
+    private final boolean inferred;
+    private final List<TextBlock> example;
+    private final List<List<TextBlock>> existingExamples;
+
+    public TokenizationRuleConflict(TextBlockTypeGroup leftTextBlockTypeGroup, TextBlockTypeGroup rightTextBlockTypeGroup,
+                                    boolean existingAddSpace, boolean existingInferred, boolean inferred,
+                                    List<TextBlock> example, List<List<TextBlock>> existingExamples) {
+        this.leftTextBlockTypeGroup = leftTextBlockTypeGroup;
+        this.rightTextBlockTypeGroup = rightTextBlockTypeGroup;
+        this.existingAddSpace = existingAddSpace;
+        this.existingInferred = existingInferred;
+        this.inferred = inferred;
+        this.example = example;
+        this.existingExamples = existingExamples;
+    }
+
+    public TextBlockTypeGroup getLeftTextBlockTypeGroup() {
+        return leftTextBlockTypeGroup;
+    }
+
+    public TextBlockTypeGroup getRightTextBlockTypeGroup() {
+        return rightTextBlockTypeGroup;
+    }
+
+    /**
+     * @return Decision of the existing rule; the new rule has the opposite decision
+     */
+    public boolean isExistingAddSpace() {
+        return existingAddSpace;
+    }
+
+    public boolean isExistingInferred() {
+        return existingInferred;
+    }
+
+    /**
+     * @return true if the new rule is not in the example itself, but inferred from a rule of it
+     */
+    public boolean isInferred() {
+        return inferred;
+    }
+
+    /**
+     * @return Blocks of the example rule which causes the conflict
+     */
+    public List<TextBlock> getExample() {
+        return example;
+    }
+
+    /**
+     * @return Examples of the existing rule, if they are recorded by the graph
+     */
+    public List<List<TextBlock>> getExistingExamples() {
+        return existingExamples;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenizationRuleConflict{" +
+                "left=" + leftTextBlockTypeGroup +
+                ", right=" + rightTextBlockTypeGroup +
+                ", existingAddSpace=" + existingAddSpace +
+                ", existingInferred=" + existingInferred +
+                ", inferred=" + inferred +
+                ", example=" + example +
+                '}';
+    }
+}
@@ -142,7 +142,7 @@ public class MorphemeContainerFormatter {
 
         final String secondaryPosStr;
         if (secondaryPos != null) {
-            if (DERIVATION_GROUPING_FORMAT_SECONDARY_POS_TO_SKIP.contains(Pair.of(primaryPos, secondaryPos)))
+            if (isSecondaryPosSkippedInDerivationGrouping(primaryPos, secondaryPos))
                 secondaryPosStr = null;
             else
                 secondaryPosStr = secondaryPos.getStringForm();
@@ -190,6 +190,10 @@ public class MorphemeContainerFormatter {
         return builder.toString();
     }
 
+    static boolean isSecondaryPosSkippedInDerivationGrouping(PrimaryPos primaryPos, SecondaryPos secondaryPos) {
+        return DERIVATION_GROUPING_FORMAT_SECONDARY_POS_TO_SKIP.contains(Pair.of(primaryPos, secondaryPos));
+    }
+
     /**
      * @param morphemeContainer the MC
      * @return {Root:"dörd", LemmaRoot:"dört", Parts:[{POS:"Num", SPOS:"Card"}, {POS:"Adj", Suffixes:["Ord"]}, {POS:"Adj", Suffixes:["Ness", "Sth"]}, {POS:"Noun", Suffixes:["A3Sg", "Pnon", "Nom"]}]}
@@ -0,0 +1,606 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.util;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.lang3.StringUtils;
+import org.trnltk.model.lexicon.Lexeme;
+import org.trnltk.model.lexicon.PrimaryPos;
+import org.trnltk.model.lexicon.SecondaryPos;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.model.suffix.ConditionalFreeTransitionSuffix;
+import org.trnltk.model.suffix.FreeTransitionSuffix;
+import org.trnltk.model.suffix.Suffix;
+import org.trnltk.model.suffix.SuffixForm;
+import org.trnltk.model.suffix.SuffixFormApplication;
+import org.trnltk.model.suffix.SuffixTransition;
+import org.trnltk.morphology.morphotactics.SuffixGraphState;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Formats {@link MorphemeContainer}s in the same styles as {@link MorphemeContainerFormatter}, but writes the output
+ * directly into a caller supplied {@link Appendable}, {@link StringBuilder} or {@link ByteBuffer}.
+ * <p/>
+ * No intermediate strings, lists or joiners are created. When writing into a {@link ByteBuffer}, UTF-8 representations
+ * of POS tags, suffix names and suffix form strings are computed once and reused; only the surface dependent parts
+ * (roots, lemmas and actual suffix forms) are encoded on each call.
+ * <p/>
+ * Outputs are identical to the ones of {@link MorphemeContainerFormatter}, except the detailed style: keys of the JSON
+ * object are always written in the order <code>Root, LemmaRoot, RootPos, RootSpos, Parts</code>. It is still the schema
+ * {@link org.trnltk.morphology.ambiguity.ParseResultReader} reads.
+ * <p/>
+ * When a {@link ByteBuffer} doesn't have enough space, a {@link BufferOverflowException} is thrown and the position of
+ * the buffer is restored, so that the caller can drain the buffer and try again.
+ */
+public class StreamingMorphemeContainerFormatter {
+
+    private static final ConcurrentMap<String, byte[]> VOCABULARY_BYTES = new ConcurrentHashMap<String, byte[]>();
+    private static final ConcurrentMap<String, byte[]> QUOTED_VOCABULARY_BYTES = new ConcurrentHashMap<String, byte[]>();
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    static {
+        // POS tags are known in advance. suffix names and forms are added as they are seen, since suffix graphs are built at runtime
+        for (PrimaryPos primaryPos : PrimaryPos.values()) {
+            vocabularyBytes(primaryPos.getStringForm());
+            quotedVocabularyBytes(primaryPos.getStringForm());
+        }
+        for (SecondaryPos secondaryPos : SecondaryPos.values()) {
+            vocabularyBytes(secondaryPos.getStringForm());
+            vocabularyBytes(secondaryPos.toString());
+            quotedVocabularyBytes(secondaryPos.getStringForm());
+        }
+    }
+
+    //////////////////////// plain : kitap+Noun+A3sg+Pnon+Dat
+
+    /**
+     * @see MorphemeContainerFormatter#formatMorphemeContainer(org.trnltk.model.morpheme.MorphemeContainer)
+     */
+    public static void formatMorphemeContainer(MorphemeContainer morphemeContainer, Appendable appendable) throws IOException {
+        writePlain(morphemeContainer, new AppendableOutput(appendable), false);
+    }
+
+    /**
+     * @see MorphemeContainerFormatter#formatMorphemeContainer(org.trnltk.model.morpheme.MorphemeContainer)
+     */
+    public static void formatMorphemeContainer(MorphemeContainer morphemeContainer, StringBuilder builder) {
+        try {
+            writePlain(morphemeContainer, new AppendableOutput(builder), false);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);      // StringBuilder never throws it
+        }
+    }
+
+    /**
+     * @see MorphemeContainerFormatter#formatMorphemeContainer(org.trnltk.model.morpheme.MorphemeContainer)
+     */
+    public static void formatMorphemeContainer(MorphemeContainer morphemeContainer, ByteBuffer byteBuffer) {
+        final int position = byteBuffer.position();
+        try {
+            writePlain(morphemeContainer, new ByteBufferOutput(byteBuffer), false);
+        } catch (BufferOverflowException e) {
+            byteBuffer.position(position);
+            throw e;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);      // ByteBufferOutput never throws it
+        }
+    }
+
+    //////////////////////// with forms : kitab(kitap)+Noun+A3sg+Pnon+Dat(+yA[a])
+
+    /**
+     * @see MorphemeContainerFormatter#formatMorphemeContainerWithForms(org.trnltk.model.morpheme.MorphemeContainer)
+     */
+    public static void formatMorphemeContainerWithForms(MorphemeContainer morphemeContainer, Appendable appendable) throws IOException {
+        writePlain(morphemeContainer, new AppendableOutput(appendable), true);
+    }
+
+    /**
+     * @see MorphemeContainerFormatter#formatMorphemeContainerWithForms(org.trnltk.model.morpheme.MorphemeContainer)
+     */
+    public static void formatMorphemeContainerWithForms(MorphemeContainer morphemeContainer, StringBuilder builder) {
+        try {
+            writePlain(morphemeContainer, new AppendableOutput(builder), true);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @see MorphemeContainerFormatter#formatMorphemeContainerWithForms(org.trnltk.model.morpheme.MorphemeContainer)
+     */
+    public static void formatMorphemeContainerWithForms(MorphemeContainer morphemeContainer, ByteBuffer byteBuffer) {
+        final int position = byteBuffer.position();
+        try {
+            writePlain(morphemeContainer, new ByteBufferOutput(byteBuffer), true);
+        } catch (BufferOverflowException e) {
+            byteBuffer.position(position);
+            throw e;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //////////////////////// derivation grouping : (1,"yap+Verb")(2,"Verb+Caus")
+
+    /**
+     * @see MorphemeContainerFormatter#formatMorphemeContainerWithDerivationGrouping(org.trnltk.model.morpheme.MorphemeContainer, boolean)
+     */
+    public static void formatMorphemeContainerWithDerivationGrouping(MorphemeContainer morphemeContainer, boolean addIndices, Appendable appendable) throws IOException {
+        writeDerivationGrouping(morphemeContainer, addIndices, new AppendableOutput(appendable));
+    }
+
+    /**
+     * @see MorphemeContainerFormatter#formatMorphemeContainerWithDerivationGrouping(org.trnltk.model.morpheme.MorphemeContainer, boolean)
+     */
+    public static void formatMorphemeContainerWithDerivationGrouping(MorphemeContainer morphemeContainer, boolean addIndices, StringBuilder builder) {
+        try {
+            writeDerivationGrouping(morphemeContainer, addIndices, new AppendableOutput(builder));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @see MorphemeContainerFormatter#formatMorphemeContainerWithDerivationGrouping(org.trnltk.model.morpheme.MorphemeContainer, boolean)
+     */
+    public static void formatMorphemeContainerWithDerivationGrouping(MorphemeContainer morphemeContainer, boolean addIndices, ByteBuffer byteBuffer) {
+        final int position = byteBuffer.position();
+        try {
+            writeDerivationGrouping(morphemeContainer, addIndices, new ByteBufferOutput(byteBuffer));
+        } catch (BufferOverflowException e) {
+            byteBuffer.position(position);
+            throw e;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //////////////////////// detailed : {"Root":"kitab","LemmaRoot":"kitap","RootPos":"Noun","Parts":[...]}
+
+    /**
+     * Writes the JSON object read by {@link org.trnltk.morphology.ambiguity.ParseResultReader#createParseResultObject(String)}.
+     *
+     * @see MorphemeContainerFormatter#formatMorphemeContainerDetailed(org.trnltk.model.morpheme.MorphemeContainer)
+     */
+    public static void formatMorphemeContainerDetailed(MorphemeContainer morphemeContainer, Appendable appendable) throws IOException {
+        writeDetailed(morphemeContainer, new AppendableOutput(appendable));
+    }
+
+    /**
+     * @see StreamingMorphemeContainerFormatter#formatMorphemeContainerDetailed(org.trnltk.model.morpheme.MorphemeContainer, Appendable)
+     */
+    public static void formatMorphemeContainerDetailed(MorphemeContainer morphemeContainer, StringBuilder builder) {
+        try {
+            writeDetailed(morphemeContainer, new AppendableOutput(builder));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @see StreamingMorphemeContainerFormatter#formatMorphemeContainerDetailed(org.trnltk.model.morpheme.MorphemeContainer, Appendable)
+     */
+    public static void formatMorphemeContainerDetailed(MorphemeContainer morphemeContainer, ByteBuffer byteBuffer) {
+        final int position = byteBuffer.position();
+        try {
+            writeDetailed(morphemeContainer, new ByteBufferOutput(byteBuffer));
+        } catch (BufferOverflowException e) {
+            byteBuffer.position(position);
+            throw e;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes a word and its parse results as a JSON object, in the schema of a word entry of
+     * {@link org.trnltk.morphology.ambiguity.ParseResultReader}: <code>{"word":"kitaba","results":[{...},{...}]}</code>
+     * where each result is written by {@link #formatMorphemeContainerDetailed(org.trnltk.model.morpheme.MorphemeContainer, Appendable)}.
+     */
+    public static void formatWordParseResults(String word, List<MorphemeContainer> morphemeContainers, Appendable appendable) throws IOException {
+        final AppendableOutput output = new AppendableOutput(appendable);
+        output.appendAscii("{\"word\":");
+        output.appendJsonString(word);
+        output.appendAscii(",\"results\":[");
+        for (int i = 0; i < morphemeContainers.size(); i++) {
+            if (i > 0)
+                output.appendAscii(',');
+            writeDetailed(morphemeContainers.get(i), output);
+        }
+        output.appendAscii("]}");
+    }
+
+    ////////////////////////
+
+    private static void writePlain(MorphemeContainer morphemeContainer, Output output, boolean includeForms) throws IOException {
+        final Lexeme lexeme = morphemeContainer.getRoot().getLexeme();
+
+        if (includeForms) {
+            output.append(morphemeContainer.getRoot().getSequence().getUnderlyingString());
+            output.appendAscii('(');
+            output.append(lexeme.getLemma());
+            output.appendAscii(')');
+        } else {
+            output.append(lexeme.getLemmaRoot());
+        }
+        output.appendAscii('+');
+        output.appendVocabulary(morphemeContainer.getRootState().getPrimaryPos().getStringForm());
+
+        final SecondaryPos secondaryPos = lexeme.getSecondaryPos();
+        if (secondaryPos != null) {
+            output.appendAscii('+');
+            // plain format uses the enum name, as MorphemeContainerFormatter does
+            output.appendVocabulary(includeForms ? secondaryPos.getStringForm() : secondaryPos.toString());
+        }
+
+        final List<SuffixTransition> suffixTransitions = morphemeContainer.getSuffixTransitions();
+        for (int i = 0; i < suffixTransitions.size(); i++) {
+            final SuffixTransition suffixTransition = suffixTransitions.get(i);
+            final SuffixFormApplication suffixFormApplication = suffixTransition.getSuffixFormApplication();
+            final SuffixForm suffixForm = suffixFormApplication.getSuffixForm();
+            final Suffix suffix = suffixForm.getSuffix();
+            if (isFreeTransition(suffix))
+                continue;
+
+            output.appendAscii('+');
+            if (suffixTransition.isDerivational()) {
+                final SuffixGraphState targetState = suffixTransition.getTargetState();
+                output.appendVocabulary(targetState.getPrimaryPos().getStringForm());
+                output.appendAscii('+');
+                if (targetState.getSecondaryPos() != null) {
+                    output.appendVocabulary(targetState.getSecondaryPos().getStringForm());
+                    output.appendAscii('+');
+                }
+            }
+
+            output.appendVocabulary(suffix.getPrettyName());
+
+            final String actualSuffixForm = suffixFormApplication.getActualSuffixForm();
+            if (includeForms && StringUtils.isNotBlank(actualSuffixForm) && StringUtils.isAlphanumeric(actualSuffixForm)) {
+                output.appendAscii('(');
+                output.appendVocabulary(suffixForm.getForm().getSuffixFormStr());
+                output.appendAscii('[');
+                output.append(actualSuffixForm);
+                output.appendAscii("])");
+            }
+        }
+    }
+
+    private static void writeDerivationGrouping(MorphemeContainer morphemeContainer, boolean addIndices, Output output) throws IOException {
+        final Lexeme lexeme = morphemeContainer.getRoot().getLexeme();
+        final PrimaryPos primaryPos = lexeme.getPrimaryPos();
+        final SecondaryPos secondaryPos = lexeme.getSecondaryPos();
+
+        int groupIndex = 1;
+        openGroup(output, addIndices, groupIndex);
+        output.append(lexeme.getLemmaRoot());
+        output.appendAscii('+');
+        output.appendVocabulary(primaryPos.getStringForm());
+        if (secondaryPos != null && !MorphemeContainerFormatter.isSecondaryPosSkippedInDerivationGrouping(primaryPos, secondaryPos)) {
+            output.appendAscii('+');
+            output.appendVocabulary(secondaryPos.getStringForm());
+        }
+
+        final List<SuffixTransition> suffixTransitions = morphemeContainer.getSuffixTransitions();
+        for (int i = 0; i < suffixTransitions.size(); i++) {
+            final SuffixTransition suffixTransition = suffixTransitions.get(i);
+            if (suffixTransition.isDerivational()) {
+                output.appendAscii("\")");
+                openGroup(output, addIndices, ++groupIndex);
+                output.appendVocabulary(suffixTransition.getTargetState().getPrimaryPos().getStringForm());
+            }
+
+            final Suffix suffix = suffixTransition.getSuffixFormApplication().getSuffixForm().getSuffix();
+            if (isFreeTransition(suffix))
+                continue;
+
+            output.appendAscii('+');
+            output.appendVocabulary(suffix.getPrettyName());
+        }
+
+        output.appendAscii("\")");
+    }
+
+    private static void openGroup(Output output, boolean addIndices, int groupIndex) throws IOException {
+        output.appendAscii('(');
+        if (addIndices) {
+            output.appendInt(groupIndex);
+            output.appendAscii(',');
+        }
+        output.appendAscii('"');
+    }
+
+    private static void writeDetailed(MorphemeContainer morphemeContainer, Output output) throws IOException {
+        final Lexeme lexeme = morphemeContainer.getRoot().getLexeme();
+        final SecondaryPos rootSecondaryPos = lexeme.getSecondaryPos();
+
+        output.appendAscii("{\"Root\":");
+        output.appendJsonString(morphemeContainer.getRoot().getSequence().getUnderlyingString());
+        output.appendAscii(",\"LemmaRoot\":");
+        output.appendJsonString(lexeme.getLemmaRoot());
+        output.appendAscii(",\"RootPos\":");
+        output.appendQuotedVocabulary(lexeme.getPrimaryPos().getStringForm());
+        if (rootSecondaryPos != null) {
+            output.appendAscii(",\"RootSpos\":");
+            output.appendQuotedVocabulary(rootSecondaryPos.getStringForm());
+        }
+
+        final List<SuffixTransition> suffixTransitions = morphemeContainer.getSuffixTransitions();
+        if (!suffixTransitions.isEmpty()) {
+            output.appendAscii(",\"Parts\":[");
+
+            boolean hasSuffixesInPart = false;
+            for (int i = 0; i < suffixTransitions.size(); i++) {
+                final SuffixTransition suffixTransition = suffixTransitions.get(i);
+                if (i == 0 || suffixTransition.isDerivational()) {
+                    if (i > 0) {
+                        closePart(output, hasSuffixesInPart);
+                        output.appendAscii(',');
+                    }
+                    hasSuffixesInPart = false;
+
+                    final SuffixGraphState targetState = suffixTransition.getTargetState();
+                    output.appendAscii("{\"POS\":");
+                    output.appendQuotedVocabulary(targetState.getPrimaryPos().getStringForm());
+                    final SecondaryPos secondaryPos = targetState.getSecondaryPos();
+                    if (secondaryPos != null && StringUtils.isNotBlank(secondaryPos.getStringForm())) {
+                        output.appendAscii(",\"SPOS\":");
+                        output.appendQuotedVocabulary(secondaryPos.getStringForm());
+                    }
+                }
+
+                final Suffix suffix = suffixTransition.getSuffixFormApplication().getSuffixForm().getSuffix();
+                if (isFreeTransition(suffix))
+                    continue;
+
+                output.appendAscii(hasSuffixesInPart ? "," : ",\"Suffixes\":[");
+                output.appendQuotedVocabulary(suffix.getPrettyName());
+                hasSuffixesInPart = true;
+            }
+
+            closePart(output, hasSuffixesInPart);
+            output.appendAscii(']');
+        }
+
+        output.appendAscii('}');
+    }
+
+    private static void closePart(Output output, boolean hasSuffixesInPart) throws IOException {
+        output.appendAscii(hasSuffixesInPart ? "]}" : "}");
+    }
+
+    private static boolean isFreeTransition(Suffix suffix) {
+        return suffix instanceof FreeTransitionSuffix || suffix instanceof ConditionalFreeTransitionSuffix;
+    }
+
+    private static byte[] vocabularyBytes(String str) {
+        byte[] bytes = VOCABULARY_BYTES.get(str);
+        if (bytes == null) {
+            bytes = str.getBytes(Charsets.UTF_8);
+            VOCABULARY_BYTES.putIfAbsent(str, bytes);
+        }
+        return bytes;
+    }
+
+    private static byte[] quotedVocabularyBytes(String str) {
+        byte[] bytes = QUOTED_VOCABULARY_BYTES.get(str);
+        if (bytes == null) {
+            final StringBuilder builder = new StringBuilder(str.length() + 2);
+            try {
+                new AppendableOutput(builder).appendJsonString(str);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            bytes = builder.toString().getBytes(Charsets.UTF_8);
+            QUOTED_VOCABULARY_BYTES.putIfAbsent(str, bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Target of the formatting. Vocabulary strings are the ones from a small and fixed set, like POS tags, suffix
+     * names and suffix forms; their encoded forms can be reused.
+     */
+    private static abstract class Output {
+        abstract void appendAscii(char c) throws IOException;
+
+        abstract void appendAscii(String str) throws IOException;
+
+        abstract void append(String str) throws IOException;
+
+        abstract void appendVocabulary(String str) throws IOException;
+
+        abstract void appendQuotedVocabulary(String str) throws IOException;
+
+        void appendInt(int i) throws IOException {
+            if (i < 10) {
+                this.appendAscii((char) ('0' + i));
+            } else {
+                this.appendInt(i / 10);
+                this.appendAscii((char) ('0' + i % 10));
+            }
+        }
+
+        /**
+         * Writes the string quoted and escaped, exactly like {@link org.json.JSONObject#quote(String)} does.
+         */
+        void appendJsonString(String str) throws IOException {
+            this.appendAscii('"');
+            char previous;
+            char current = 0;
+            int unescapedStart = 0;
+            final int length = str.length();
+            for (int i = 0; i < length; i++) {
+                previous = current;
+                current = str.charAt(i);
+
+                final String escape;
+                if (current == '\\' || current == '"') {
+                    escape = null;
+                } else if (current == '/') {
+                    if (previous != '<')
+                        continue;
+                    escape = null;
+                } else if (current == '\b') {
+                    escape = "\\b";
+                } else if (current == '\t') {
+                    escape = "\\t";
+                } else if (current == '\n') {
+                    escape = "\\n";
+                } else if (current == '\f') {
+                    escape = "\\f";
+                } else if (current == '\r') {
+                    escape = "\\r";
+                } else if (current < ' ' || (current >= '\u0080' && current < '\u00a0') || (current >= '\u2000' && current < '\u2100')) {
+                    escape = "";
+                } else {
+                    continue;
+                }
+
+                this.appendRange(str, unescapedStart, i);
+                unescapedStart = i + 1;
+                if (escape == null) {
+                    this.appendAscii('\\');
+                    this.appendAscii(current);
+                } else if (escape.length() > 0) {
+                    this.appendAscii(escape);
+                } else {
+                    this.appendAscii("\\u");
+                    this.appendAscii(HEX_DIGITS[(current >> 12) & 0xF]);
+                    this.appendAscii(HEX_DIGITS[(current >> 8) & 0xF]);
+                    this.appendAscii(HEX_DIGITS[(current >> 4) & 0xF]);
+                    this.appendAscii(HEX_DIGITS[current & 0xF]);
+                }
+            }
+            this.appendRange(str, unescapedStart, length);
+            this.appendAscii('"');
+        }
+
+        abstract void appendRange(String str, int start, int end) throws IOException;
+    }
+
+    private static class AppendableOutput extends Output {
+        private final Appendable appendable;
+
+        private AppendableOutput(Appendable appendable) {
+            this.appendable = appendable;
+        }
+
+        @Override
+        void appendAscii(char c) throws IOException {
+            appendable.append(c);
+        }
+
+        @Override
+        void appendAscii(String str) throws IOException {
+            appendable.append(str);
+        }
+
+        @Override
+        void append(String str) throws IOException {
+            appendable.append(str);
+        }
+
+        @Override
+        void appendVocabulary(String str) throws IOException {
+            appendable.append(str);
+        }
+
+        @Override
+        void appendQuotedVocabulary(String str) throws IOException {
+            this.appendJsonString(str);
+        }
+
+        @Override
+        void appendRange(String str, int start, int end) throws IOException {
+            if (start < end)
+                appendable.append(str, start, end);
+        }
+    }
+
+    private static class ByteBufferOutput extends Output {
+        private final ByteBuffer byteBuffer;
+
+        private ByteBufferOutput(ByteBuffer byteBuffer) {
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        void appendAscii(char c) {
+            byteBuffer.put((byte) c);
+        }
+
+        @Override
+        void appendAscii(String str) {
+            for (int i = 0; i < str.length(); i++) {
+                byteBuffer.put((byte) str.charAt(i));
+            }
+        }
+
+        @Override
+        void append(String str) {
+            this.appendRange(str, 0, str.length());
+        }
+
+        @Override
+        void appendVocabulary(String str) {
+            byteBuffer.put(vocabularyBytes(str));
+        }
+
+        @Override
+        void appendQuotedVocabulary(String str) {
+            byteBuffer.put(quotedVocabularyBytes(str));
+        }
+
+        /**
+         * Encodes the chars as UTF-8 without creating a byte array. Unpaired surrogates are written as '?', as
+         * {@link String#getBytes(java.nio.charset.Charset)} does.
+         */
+        @Override
+        void appendRange(String str, int start, int end) {
+            for (int i = start; i < end; i++) {
+                final char c = str.charAt(i);
+                if (c < 0x80) {
+                    byteBuffer.put((byte) c);
+                } else if (c < 0x800) {
+                    byteBuffer.put((byte) (0xC0 | (c >> 6)));
+                    byteBuffer.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(str.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, str.charAt(++i));
+                    byteBuffer.put((byte) (0xF0 | (codePoint >> 18)));
+                    byteBuffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    byteBuffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    byteBuffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                    byteBuffer.put((byte) '?');
+                } else {
+                    byteBuffer.put((byte) (0xE0 | (c >> 12)));
+                    byteBuffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    byteBuffer.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.ambiguity;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.io.Files;
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Test;
+import org.trnltk.model.ambiguity.morphology.ParseResult;
+import org.trnltk.model.ambiguity.morphology.ParseResultDifference;
+import org.trnltk.model.ambiguity.morphology.WordParseResultEntry;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.formbased.ContextlessMorphologicParserBuilder;
+import org.trnltk.util.MorphemeContainerFormatter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class AmbiguityClassifierTest {
+
+    private static final List<List<String>> WORDS_OF_FILES = Arrays.asList(
+            Arrays.asList("kitaba", "yaptırtmayı", "elmalar", "kitaba"),
+            Arrays.asList("üzümlüktekiler", "bu", "elmalar", "ne"),
+            Arrays.asList("gibi", "3'üncü", "kitabı"),
+            Arrays.asList("yapmadım", "elmalar"));
+
+    private MorphologicParser parser;
+    private List<File> files;
+    private List<WordParseResultEntry> allEntries;
+
+    @Before
+    public void setUp() throws Exception {
+        this.parser = ContextlessMorphologicParserBuilder.newBuilder().build(true);
+
+        final File folder = Files.createTempDir();
+        folder.deleteOnExit();
+
+        this.files = new ArrayList<File>();
+        this.allEntries = new ArrayList<WordParseResultEntry>();
+        for (int i = 0; i < WORDS_OF_FILES.size(); i++) {
+            final List<String> words = WORDS_OF_FILES.get(i);
+            final File file;
+            if (i % 2 == 0)
+                file = writeTextFile(folder, "split." + i, words);
+            else
+                file = writeBinaryFile(folder, "split." + i + ".bin", words);
+            file.deleteOnExit();
+            files.add(file);
+        }
+    }
+
+    @Test
+    public void shouldFindSameDifferencesAsSequentialDiff() throws Exception {
+        final Multiset<ParseResultDifference> expectedDifferenceSet = HashMultiset.create();
+        final Multiset<ParseResultDifference> expectedDifferenceSetWithoutRootDifferences = HashMultiset.create();
+        long expectedNumberOfParseResults = 0;
+        final ParseResultDiffTool parseResultDiffTool = new ParseResultDiffTool();
+        for (WordParseResultEntry entry : allEntries) {
+            final List<ParseResult> parseResults = entry.getParseResults();
+            expectedNumberOfParseResults += parseResults.size();
+            for (int i = 0; i < parseResults.size(); i++) {
+                for (int j = i + 1; j < parseResults.size(); j++) {
+                    final ParseResultDifference difference = parseResultDiffTool.findDifference(parseResults.get(i), parseResults.get(j));
+                    expectedDifferenceSet.add(difference);
+                    if (difference.hasNoRootDifference() && difference.hasPartDifference())
+                        expectedDifferenceSetWithoutRootDifferences.add(difference);
+                }
+            }
+        }
+
+        for (int maxMemoizedDifferences : new int[]{0, 5, AmbiguityClassifier.DEFAULT_MAX_MEMOIZED_DIFFERENCES}) {
+            final AmbiguityClassifier.Result result = new AmbiguityClassifier(3, 1000L, maxMemoizedDifferences).classify(files);
+
+            assertThat(result.getNumberOfWords(), equalTo((long) allEntries.size()));
+            assertThat(result.getNumberOfParseResults(), equalTo(expectedNumberOfParseResults));
+            assertThat(result.getDifferenceSet(), equalTo(expectedDifferenceSet));
+            assertThat(result.getDifferenceSetWithoutRootDifferences(), equalTo(expectedDifferenceSetWithoutRootDifferences));
+        }
+    }
+
+    @Test
+    public void shouldFindSameDifferencesInTextAndBinaryFiles() throws Exception {
+        final File folder = Files.createTempDir();
+        folder.deleteOnExit();
+
+        final List<File> textFiles = new ArrayList<File>();
+        final List<File> binaryFiles = new ArrayList<File>();
+        for (int i = 0; i < WORDS_OF_FILES.size(); i++) {
+            final File textFile = writeTextFile(folder, "text." + i, WORDS_OF_FILES.get(i));
+            final File binaryFile = writeBinaryFile(folder, "binary." + i + ".bin", WORDS_OF_FILES.get(i));
+            textFile.deleteOnExit();
+            binaryFile.deleteOnExit();
+            textFiles.add(textFile);
+            binaryFiles.add(binaryFile);
+        }
+
+        final AmbiguityClassifier.Result textResult = new AmbiguityClassifier(2, 1000L, 0).classify(textFiles);
+        final AmbiguityClassifier.Result binaryResult = new AmbiguityClassifier(2, 1000L, 0).classify(binaryFiles);
+
+        assertThat(binaryResult.getNumberOfParseResults(), equalTo(textResult.getNumberOfParseResults()));
+        assertThat(binaryResult.getDifferenceSet(), equalTo(textResult.getDifferenceSet()));
+        assertThat(binaryResult.getDifferenceSetWithoutRootDifferences(), equalTo(textResult.getDifferenceSetWithoutRootDifferences()));
+    }
+
+    private File writeTextFile(File folder, String name, List<String> words) throws IOException, JSONException {
+        final StringBuilder builder = new StringBuilder();
+        for (String word : words) {
+            builder.append("- word: ").append(word).append("\n");
+            builder.append("  results:\n");
+            for (MorphemeContainer morphemeContainer : parser.parse(new TurkishSequence(word))) {
+                builder.append("    - ").append(MorphemeContainerFormatter.formatMorphemeContainerDetailed(morphemeContainer)).append("\n");
+            }
+        }
+
+        final File file = new File(folder, name);
+        Files.write(builder.toString(), file, Charsets.UTF_8);
+        allEntries.addAll(new ParseResultReader().getParseResultEntries(new StringReader(builder.toString())));
+        return file;
+    }
+
+    private File writeBinaryFile(File folder, String name, List<String> words) throws IOException {
+        final File file = new File(folder, name);
+        final BinaryParseResultWriter writer = new BinaryParseResultWriter(new FileOutputStream(file), true, 2);
+        for (String word : words) {
+            writer.write(word, parser.parse(new TurkishSequence(word)));
+        }
+        writer.close();
+
+        final BinaryParseResultReader reader = new BinaryParseResultReader(file);
+        allEntries.addAll(reader.readAll());
+        reader.close();
+        return file;
+    }
+}
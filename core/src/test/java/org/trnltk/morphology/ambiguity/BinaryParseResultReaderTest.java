@@ -0,0 +1,180 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.ambiguity;
+
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Test;
+import org.trnltk.model.ambiguity.morphology.ParseResult;
+import org.trnltk.model.ambiguity.morphology.WordParseResultEntry;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.formbased.ContextlessMorphologicParserBuilder;
+import org.trnltk.util.MorphemeContainerFormatter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BinaryParseResultReaderTest {
+
+    private static final List<String> WORDS = Arrays.asList("kitaba", "yaptırtmayı", "üzümlüktekiler", "bu", "3'üncü",
+            "Ali'ye", "ne", "gibi", "kitaba", ",", "xxxyyyzzz", "elmalar");
+
+    private MorphologicParser parser;
+    private List<WordParseResultEntry> expectedEntries;
+
+    @Before
+    public void setUp() throws Exception {
+        this.parser = ContextlessMorphologicParserBuilder.newBuilder().build(true);
+
+        final ParseResultReader parseResultReader = new ParseResultReader();
+        this.expectedEntries = new ArrayList<WordParseResultEntry>();
+        for (String word : WORDS) {
+            final WordParseResultEntry entry = new WordParseResultEntry(word);
+            for (MorphemeContainer morphemeContainer : parser.parse(new TurkishSequence(word))) {
+                entry.addParseResult(parseResultReader.createParseResultObject(MorphemeContainerFormatter.formatMorphemeContainerDetailed(morphemeContainer)));
+            }
+            this.expectedEntries.add(entry);
+        }
+    }
+
+    @Test
+    public void shouldReadWhatIsWrittenFromParser() throws IOException {
+        for (boolean compressed : new boolean[]{true, false}) {
+            final byte[] bytes = writeFromParser(compressed, 5);
+            assertEntries(BinaryParseResultReader.getParseResultEntries(new ByteArrayInputStream(bytes)), expectedEntries);
+        }
+    }
+
+    @Test
+    public void shouldReadResultsEqualToResultsOfTextFiles() throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        for (String word : WORDS) {
+            builder.append("- word: ").append(word).append("\n");
+            builder.append("  results:\n");
+            for (MorphemeContainer morphemeContainer : parser.parse(new TurkishSequence(word))) {
+                builder.append("    - ").append(MorphemeContainerFormatter.formatMorphemeContainerDetailed(morphemeContainer)).append("\n");
+            }
+        }
+        final List<WordParseResultEntry> textEntries = new ParseResultReader().getParseResultEntries(new StringReader(builder.toString()));
+
+        final List<WordParseResultEntry> binaryEntries = BinaryParseResultReader.getParseResultEntries(new ByteArrayInputStream(writeFromParser(true, 5)));
+        assertThat(binaryEntries, hasSize(textEntries.size()));
+        for (int i = 0; i < textEntries.size(); i++) {
+            assertThat(binaryEntries.get(i).getWord(), equalTo(textEntries.get(i).getWord()));
+            assertThat(binaryEntries.get(i).getParseResults(), equalTo(textEntries.get(i).getParseResults()));
+        }
+    }
+
+    @Test
+    public void shouldWriteSameBytesFromEntriesAndFromParser() throws IOException {
+        final byte[] bytes = writeFromParser(true, 3);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinaryParseResultWriter writer = new BinaryParseResultWriter(out, true, 3);
+        for (WordParseResultEntry entry : BinaryParseResultReader.getParseResultEntries(new ByteArrayInputStream(bytes))) {
+            writer.write(entry);
+        }
+        writer.close();
+
+        assertThat(out.toByteArray(), equalTo(bytes));
+    }
+
+    @Test
+    public void shouldReadBlocksAndEntriesRandomly() throws IOException {
+        final File file = File.createTempFile("parseResults", ".bin");
+        file.deleteOnExit();
+        Files.write(writeFromParser(true, 5), file);
+
+        final BinaryParseResultReader reader = new BinaryParseResultReader(file);
+        try {
+            assertThat(reader.getBlockCount(), equalTo(3));
+            assertThat(reader.getEntryCount(), equalTo((long) WORDS.size()));
+
+            assertEntries(reader.readBlock(2), expectedEntries.subList(10, 12));
+            for (int i = WORDS.size() - 1; i >= 0; i--) {
+                assertEntries(Arrays.asList(reader.readEntry(i)), expectedEntries.subList(i, i + 1));
+            }
+
+            final List<WordParseResultEntry> iterated = new ArrayList<WordParseResultEntry>();
+            for (WordParseResultEntry entry : reader) {
+                iterated.add(entry);
+            }
+            assertEntries(iterated, expectedEntries);
+            assertEntries(reader.readAll(), expectedEntries);
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void shouldInternVocabularyAcrossBlocks() throws IOException {
+        final List<WordParseResultEntry> entries = BinaryParseResultReader.getParseResultEntries(new ByteArrayInputStream(writeFromParser(true, 1)));
+        final ParseResult first = entries.get(0).getParseResults().get(0);
+        final ParseResult second = entries.get(8).getParseResults().get(0);
+        assertThat(first.getStr(), equalTo(second.getStr()));
+        assertThat(first.getRootPos(), sameInstance(second.getRootPos()));
+        assertThat(first.getParts().get(0).getSuffixes().get(0), sameInstance(second.getParts().get(0).getSuffixes().get(0)));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectUnknownVersion() throws IOException {
+        final byte[] bytes = writeFromParser(false, 5);
+        bytes[BinaryParseResultFormat.MAGIC.length] = 99;
+        BinaryParseResultReader.getParseResultEntries(new ByteArrayInputStream(bytes));
+    }
+
+    private byte[] writeFromParser(boolean compressed, int entriesPerBlock) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinaryParseResultWriter writer = new BinaryParseResultWriter(out, compressed, entriesPerBlock);
+        for (String word : WORDS) {
+            writer.write(word, parser.parse(new TurkishSequence(word)));
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static void assertEntries(List<WordParseResultEntry> actual, List<WordParseResultEntry> expected) {
+        assertThat(actual, hasSize(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            final WordParseResultEntry actualEntry = actual.get(i);
+            final WordParseResultEntry expectedEntry = expected.get(i);
+            assertThat(actualEntry.getWord(), equalTo(expectedEntry.getWord()));
+            assertThat(actualEntry.getParseResults(), hasSize(expectedEntry.getParseResults().size()));
+            for (int j = 0; j < expectedEntry.getParseResults().size(); j++) {
+                final ParseResult actualResult = actualEntry.getParseResults().get(j);
+                final ParseResult expectedResult = expectedEntry.getParseResults().get(j);
+                assertThat(actualResult.getStr(), equalTo(expectedResult.getStr()));
+                assertThat(actualResult.getRoot(), equalTo(expectedResult.getRoot()));
+                assertThat(actualResult.getLemmaRoot(), equalTo(expectedResult.getLemmaRoot()));
+                assertThat(actualResult.getRootPos(), equalTo(expectedResult.getRootPos()));
+                assertThat(actualResult.getRootSpos(), equalTo(expectedResult.getRootSpos()));
+                assertThat(actualResult.getParts(), equalTo(expectedResult.getParts()));
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.ambiguity;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.trnltk.model.ambiguity.morphology.ParseResult;
+import org.trnltk.model.ambiguity.morphology.WordParseResultEntry;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.formbased.ContextlessMorphologicParserBuilder;
+import org.trnltk.util.MorphemeContainerFormatter;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class StreamingParseResultReaderTest {
+
+    private final ParseResultReader parseResultReader = new ParseResultReader();
+
+    @Test
+    public void shouldReadSameAsJsonReader() throws Exception {
+        final MorphologicParser parser = ContextlessMorphologicParserBuilder.newBuilder().build(true);
+        final StringBuilder builder = new StringBuilder();
+        for (String word : Arrays.asList("kitaba", "yaptırtmayı", "üzümlüktekiler", "3'üncü", "Ali'ye", "xxxyyyzzz", "\"")) {
+            builder.append("- word: ").append(word).append("\n");
+            builder.append("  results:\n");
+            for (MorphemeContainer morphemeContainer : parser.parse(new TurkishSequence(word))) {
+                builder.append("    - ").append(MorphemeContainerFormatter.formatMorphemeContainerDetailed(morphemeContainer)).append("\n");
+            }
+        }
+
+        final List<WordParseResultEntry> entries = read(builder.toString());
+        assertThat(entries, hasSize(7));
+        assertThat(entries.get(5).getWord(), equalTo("xxxyyyzzz"));
+        assertThat(entries.get(5).getParseResults(), hasSize(0));
+
+        final String[] lines = builder.toString().split("\n");
+        int lineIndex = 0;
+        for (WordParseResultEntry entry : entries) {
+            lineIndex += 2;
+            for (ParseResult parseResult : entry.getParseResults()) {
+                assertParseResult(parseResult, parseResultReader.createParseResultObject(lines[lineIndex++].substring("    - ".length())));
+            }
+        }
+        assertThat(lineIndex, equalTo(lines.length));
+    }
+
+    @Test
+    public void shouldHandleEscapesAndUnknownKeys() throws JSONException {
+        final String str = "{ \"Foo\" : [1, {\"a\":true}, null] , \"Root\":\"a\\\"b\\\\c\\/d\\u00e7\",\"LemmaRoot\":\"x\\ty\"," +
+                "\"Parts\":[{\"Suffixes\":[\"A3sg\",\"Pnon\"],\"SPOS\":\"Adj\",\"POS\":\"Noun\",\"Bar\":-1.5e3},{\"POS\":\"Verb\"}],\"RootPos\":\"Noun\"}";
+        final String text = "- word: a\n  results:\n    - " + str + "\n";
+
+        final List<WordParseResultEntry> entries = read(text);
+        assertThat(entries, hasSize(1));
+        final ParseResult parseResult = entries.get(0).getParseResults().get(0);
+        assertThat(parseResult.getRoot(), equalTo("a\"b\\c/dç"));
+        assertThat(parseResult.getLemmaRoot(), equalTo("x\ty"));
+        assertParseResult(parseResult, parseResultReader.createParseResultObject(str));
+    }
+
+    @Test
+    public void shouldReadLenientJson() throws JSONException {
+        // single quoted, as in ParseResultDiffToolTest
+        final String singleQuoted = "{'Parts':[{'POS':'Noun','Suffixes':['A3sg','P2sg','Nom']},{'POS':'Verb','Suffixes':['Zero','Pres','A3sg']}],'LemmaRoot':'Evin','RootPos':'Noun','Root':'Ev\\'in','RootSpos':'Prop'}";
+        // unquoted keys and values are read with org.json
+        final String unquoted = "{Parts:[{POS:Noun,Suffixes:[A3sg,Pnon,Nom]}],LemmaRoot:ev,RootPos:Noun,Root:ev}";
+        final String text = "- word: ev\n  results:\n    - " + singleQuoted + "\n    - " + unquoted + "\n";
+
+        final List<WordParseResultEntry> entries = read(text);
+        assertThat(entries, hasSize(1));
+        assertThat(entries.get(0).getParseResults(), hasSize(2));
+        assertThat(entries.get(0).getParseResults().get(0).getRoot(), equalTo("Ev'in"));
+        assertParseResult(entries.get(0).getParseResults().get(0), parseResultReader.createParseResultObject(singleQuoted));
+        assertParseResult(entries.get(0).getParseResults().get(1), parseResultReader.createParseResultObject(unquoted));
+        assertThat(entries.get(0).getParseResults().get(1).getParts().get(0).getSuffixes(), contains("A3sg", "Pnon", "Nom"));
+    }
+
+    @Test
+    public void shouldInternVocabulary() {
+        final String text = "- word: a\n  results:\n" +
+                "    - {\"Root\":\"a\",\"LemmaRoot\":\"a\",\"RootPos\":\"Noun\",\"Parts\":[{\"POS\":\"Noun\",\"Suffixes\":[\"A3sg\"]}]}\n" +
+                "- word: b\n  results:\n" +
+                "    - {\"Root\":\"b\",\"LemmaRoot\":\"b\",\"RootPos\":\"Noun\",\"Parts\":[{\"POS\":\"Noun\",\"Suffixes\":[\"A3sg\"]}]}\n";
+
+        final List<WordParseResultEntry> entries = read(text);
+        final ParseResult first = entries.get(0).getParseResults().get(0);
+        final ParseResult second = entries.get(1).getParseResults().get(0);
+        assertThat(first.getRootPos(), sameInstance(second.getRootPos()));
+        assertThat(first.getParts().get(0).getPrimaryPos(), sameInstance(second.getParts().get(0).getPrimaryPos()));
+        assertThat(first.getParts().get(0).getSuffixes().get(0), sameInstance(second.getParts().get(0).getSuffixes().get(0)));
+    }
+
+    @Test(expected = JSONException.class)
+    public void shouldReportMalformedResults() throws Exception {
+        parseResultReader.getParseResultEntries(new StringReader("- word: a\n  results:\n    - {\"Root\":\"a\",\"LemmaRoot\":\"a\"\n"));
+    }
+
+    private static List<WordParseResultEntry> read(String text) {
+        final List<WordParseResultEntry> entries = new ArrayList<WordParseResultEntry>();
+        for (WordParseResultEntry entry : new StreamingParseResultReader(new StringReader(text))) {
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static void assertParseResult(ParseResult actual, ParseResult expected) {
+        assertThat(actual.getStr(), equalTo(expected.getStr()));
+        assertThat(actual.getRoot(), equalTo(expected.getRoot()));
+        assertThat(actual.getLemmaRoot(), equalTo(expected.getLemmaRoot()));
+        assertThat(actual.getRootPos(), equalTo(expected.getRootPos()));
+        assertThat(actual.getRootSpos(), equalTo(expected.getRootSpos()));
+        assertThat(actual.getParts(), equalTo(expected.getParts()));
+    }
+}
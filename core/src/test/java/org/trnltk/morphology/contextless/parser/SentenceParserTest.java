@@ -0,0 +1,121 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.formbased.ContextlessMorphologicParserBuilder;
+import org.trnltk.tokenizer.Sentence;
+import org.trnltk.tokenizer.SentenceSegmenter;
+import org.trnltk.tokenizer.TextTokenizer;
+import org.trnltk.util.MorphemeContainerFormatter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+public class SentenceParserTest {
+
+    private MorphologicParser parser;
+    private ExecutorService executorService;
+    private List<Sentence> sentences;
+
+    @Before
+    public void setUp() {
+        parser = ContextlessMorphologicParserBuilder.newBuilder().build(true);
+        executorService = Executors.newFixedThreadPool(4);
+
+        final String text = "Kitabı okudum. Kitabı sonra yine okudum! Yrd. Doç. Ali geldi.\n\nElma elma elma. Ne oldu? 3. kez geldi.";
+        sentences = new SentenceSegmenter().segment(text, TextTokenizer.createDefaultTextTokenizer().tokenize(text));
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldParseSameAsParser() {
+        for (int batchSize : new int[]{1, 2, 100}) {
+            final List<SentenceParser.ParsedSentence> parsedSentences = new SentenceParser(parser, executorService, batchSize).parse(sentences);
+            assertThat(parsedSentences, hasSize(sentences.size()));
+            for (int i = 0; i < sentences.size(); i++) {
+                final Sentence sentence = sentences.get(i);
+                assertThat(parsedSentences.get(i).getSentence(), equalTo(sentence));
+                assertThat(parsedSentences.get(i).getParseResults(), hasSize(sentence.getTokens().size()));
+                for (int j = 0; j < sentence.getTokens().size(); j++) {
+                    final List<MorphemeContainer> expected = parser.parse(new TurkishSequence(sentence.getTokens().get(j).getSurface()));
+                    assertThat(format(parsedSentences.get(i).getParseResults().get(j)), equalTo(format(expected)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldParseEachSurfaceOnceInSentence() {
+        final AtomicInteger parsedSurfaceCount = new AtomicInteger();
+        final MorphologicParser countingParser = new MorphologicParser() {
+            @Override
+            public List<MorphemeContainer> parseStr(String input) {
+                parsedSurfaceCount.incrementAndGet();
+                return parser.parseStr(input);
+            }
+
+            @Override
+            public List<MorphemeContainer> parse(TurkishSequence input) {
+                return parseStr(input.getUnderlyingString());
+            }
+
+            @Override
+            public List<List<MorphemeContainer>> parseAllStr(List<String> input) {
+                final List<List<MorphemeContainer>> results = new ArrayList<List<MorphemeContainer>>();
+                for (String str : input) {
+                    results.add(parseStr(str));
+                }
+                return results;
+            }
+
+            @Override
+            public List<List<MorphemeContainer>> parseAll(List<TurkishSequence> input) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        // "Elma elma elma ."
+        final SentenceParser.ParsedSentence parsedSentence = new SentenceParser(countingParser, executorService, 1).parse(sentences.get(3));
+        assertThat(parsedSentence.getParseResults(), hasSize(4));
+        assertThat(parsedSurfaceCount.get(), equalTo(3));
+        assertThat(parsedSentence.getParseResults().get(2), equalTo(parsedSentence.getParseResults().get(1)));
+    }
+
+    private static List<String> format(List<MorphemeContainer> morphemeContainers) {
+        final List<String> formatted = new ArrayList<String>();
+        for (MorphemeContainer morphemeContainer : morphemeContainers) {
+            formatted.add(MorphemeContainerFormatter.formatMorphemeContainerWithForms(morphemeContainer));
+        }
+        return formatted;
+    }
+}
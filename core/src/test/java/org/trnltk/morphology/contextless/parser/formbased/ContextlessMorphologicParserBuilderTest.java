@@ -0,0 +1,73 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser.formbased;
+
+import com.google.common.collect.HashMultimap;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trnltk.model.lexicon.Root;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.lexicon.RootMapFactory;
+import org.trnltk.util.MorphemeContainerFormatter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ContextlessMorphologicParserBuilderTest {
+    private static final List<String> SURFACES = Arrays.asList("kitaba", "kâğıdı", "kagidi", "geldiler", "Ankara'da", "3'te", "...");
+
+    static MorphologicParser parser;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        parser = ContextlessMorphologicParserBuilder.newBuilder().build(true);
+    }
+
+    @Test
+    public void defaultParserShouldHaveRootsEqualToRootMapFactoryRoots() {
+        final HashMultimap<String, ? extends Root> rootMap = RootMapFactory.createSimpleWithNumbersConvertCircumflexes();
+
+        final List<MorphemeContainer> results = parser.parseStr("kitaba");
+        assertThat(results, not(empty()));
+        for (MorphemeContainer result : results) {
+            final Root root = result.getRoot();
+            assertThat(root.toString(), rootMap.containsEntry(root.getSequence().getUnderlyingString(), root), equalTo(true));
+        }
+    }
+
+    @Test
+    public void columnarLexiconShouldParseSameWithDefaultParser() {
+        final MorphologicParser columnarParser = ContextlessMorphologicParserBuilder.newBuilderWithColumnarLexicon().build(true);
+        for (String surface : SURFACES) {
+            // order of the results depends on the suffix graph of each parser
+            assertThat(surface, format(columnarParser.parseStr(surface)), containsInAnyOrder(format(parser.parseStr(surface)).toArray()));
+        }
+    }
+
+    private static List<String> format(List<MorphemeContainer> results) {
+        final List<String> formatted = new ArrayList<String>();
+        for (MorphemeContainer result : results) {
+            formatted.add(MorphemeContainerFormatter.formatMorphemeContainerWithForms(result));
+        }
+        return formatted;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser.formbased;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Resources;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.lexicon.*;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.model.suffix.Suffix;
+import org.trnltk.model.suffix.SuffixForm;
+import org.trnltk.model.suffix.SuffixFormApplication;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.parsing.BaseContextlessMorphologicParserSimpleParseSetCharacterTest;
+import org.trnltk.morphology.morphotactics.SuffixGraphState;
+import org.trnltk.morphology.morphotactics.SuffixGraphStateType;
+import org.trnltk.util.MorphemeContainerFormatter;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class DeasciifierTest {
+    static Deasciifier deasciifier;
+    static MorphologicParser parser;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        deasciifier = ContextlessMorphologicParserBuilder.newBuilder().buildDeasciifier(true);
+        parser = ContextlessMorphologicParserBuilder.newBuilder().build(true);
+    }
+
+    @Test
+    public void shouldRestoreTurkishCharacters() {
+        assertThat(deasciifier.deasciify("ogrencilerimizden").keySet(), contains("öğrencilerimizden"));
+        assertThat(deasciifier.deasciify("cocuklar").keySet(), contains("çocuklar"));
+        assertThat(deasciifier.deasciify("gozlukcu").keySet(), contains("gözlükçü"));
+
+        final Map<String, List<MorphemeContainer>> results = deasciifier.deasciify("ogrencilerimizden");
+        assertThat(MorphemeContainerFormatter.formatMorphemeContainer(results.get("öğrencilerimizden").get(0)),
+                equalTo("öğrenci+Noun+A3pl+P1pl+Abl"));
+    }
+
+    @Test
+    public void shouldReturnAllValidSurfaces() {
+        // "kır" and "kir" are both valid
+        assertThat(deasciifier.deasciify("kir").keySet(), hasItems("kır", "kir"));
+        assertThat(deasciifier.deasciify("kalem").keySet(), contains("kalem"));
+    }
+
+    @Test
+    public void shouldRestoreCapitalizedSurfacesAndPredefinedPaths() {
+        // input itself is parsed as a proper noun
+        assertThat(deasciifier.deasciify("Ogretmen").keySet(), containsInAnyOrder("Ogretmen", "Öğretmen"));
+        assertThat(deasciifier.deasciify("sunu").keySet(), hasItem("şunu"));
+    }
+
+    @Test
+    public void shouldReturnInputWhichIsParsedAsItIs() {
+        assertThat(deasciifier.deasciify("123").keySet(), contains("123"));
+        assertThat(deasciifier.deasciify("xqwxq").keySet(), empty());
+    }
+
+    /**
+     * Compares with parsing every combination of the ambiguous letters, so that completions missed by the walk are
+     * found.
+     */
+    @Test
+    public void shouldFindSameSurfacesWithTryingAllCombinations() throws IOException {
+        final Set<String> inputs = new LinkedHashSet<String>();
+        final List<Pair<String, String>> lines = CharStreams.readLines(
+                Resources.newReaderSupplier(Resources.getResource("simpleparsesets/simpleparseset001.txt"), Charsets.UTF_8),
+                new BaseContextlessMorphologicParserSimpleParseSetCharacterTest.SimpleParseSetValidationLineProcessor());
+        for (Pair<String, String> line : lines) {
+            final String input = StringUtils.replaceChars(line.getLeft(), TURKISH_CHARS, ASCII_CHARS);
+            if (StringUtils.isAllLowerCase(input) && StringUtils.containsOnly(input, LOWER_CASE_ASCII_LETTERS) &&
+                    StringUtils.countMatches(input, "c") + StringUtils.countMatches(input, "g") + StringUtils.countMatches(input, "i") +
+                            StringUtils.countMatches(input, "o") + StringUtils.countMatches(input, "s") + StringUtils.countMatches(input, "u") <= 6)
+                inputs.add(input);
+            if (inputs.size() == 300)
+                break;
+        }
+
+        for (String input : inputs) {
+            final Set<String> expected = new HashSet<String>();
+            for (String candidate : allCombinations(input)) {
+                if (!parser.parseStr(candidate).isEmpty())
+                    expected.add(candidate);
+            }
+            assertThat(input, deasciifier.deasciify(input).keySet(), equalTo(expected));
+        }
+    }
+
+    /**
+     * Nodes A and B are in a cycle of empty suffix forms. When A is visited first, B must not be memoized without the
+     * completions of A.
+     */
+    @Test
+    public void shouldFindCompletionsOfNodesInCyclesOfEmptySuffixForms() {
+        final SuffixGraphState stateA = new SuffixGraphState("A", SuffixGraphStateType.TRANSFER, PrimaryPos.Noun, null);
+        final SuffixGraphState stateB = new SuffixGraphState("B", SuffixGraphStateType.TRANSFER, PrimaryPos.Noun, null);
+        final SuffixGraphState terminalState = new SuffixGraphState("T", SuffixGraphStateType.TERMINAL, PrimaryPos.Noun, null);
+
+        final Root rootOfA = new ImmutableRoot("c", new ImmutableLexeme("c", "c", PrimaryPos.Noun, null, null), ImmutableSet.<PhoneticAttribute>of(), null);
+        final Root rootOfB = new ImmutableRoot("\u00e7", new ImmutableLexeme("\u00e7", "\u00e7", PrimaryPos.Noun, null, null), ImmutableSet.<PhoneticAttribute>of(), null);
+
+        final SuffixFormGraph suffixFormGraph = new SuffixFormGraph(null) {
+            @Override
+            public SuffixGraphState getDefaultStateForRoot(Root root) {
+                return root.equals(rootOfA) ? stateA : stateB;
+            }
+        };
+        final Set<PhoneticAttribute> noPhoneticAttributes = Collections.emptySet();
+        final SuffixFormGraphNode nodeA = suffixFormGraph.addNode(new SuffixFormGraphNodeKey(stateA, noPhoneticAttributes), SuffixGraphStateType.TRANSFER, noPhoneticAttributes);
+        final SuffixFormGraphNode nodeB = suffixFormGraph.addNode(new SuffixFormGraphNodeKey(stateB, noPhoneticAttributes), SuffixGraphStateType.TRANSFER, noPhoneticAttributes);
+        final SuffixFormGraphNode terminalNode = suffixFormGraph.addNode(new SuffixFormGraphNodeKey(terminalState, noPhoneticAttributes), SuffixGraphStateType.TERMINAL, noPhoneticAttributes);
+
+        final Suffix suffix = new Suffix("S", null, "S");
+        nodeA.addEmptySuffixFormEdge(nodeB, new SuffixForm(suffix, "", null, null, null));
+        nodeB.addEmptySuffixFormEdge(nodeA, new SuffixForm(suffix, "", null, null, null));
+        nodeA.addSuffixFormEdge(terminalNode, new SuffixFormApplication(new SuffixForm(suffix, "y", null, null, null), "y", "y"), null);
+
+        final Deasciifier cycleDeasciifier = new Deasciifier(new AcceptingParser(rootOfA, terminalState), suffixFormGraph, null,
+                ImmutableMultimap.of("c", rootOfA, "\u00e7", rootOfB));
+
+        assertThat(cycleDeasciifier.deasciify("cy").keySet(), containsInAnyOrder("cy", "\u00e7y"));
+    }
+
+    private static final String TURKISH_CHARS = "\u00e7\u011f\u0131\u00f6\u015f\u00fc\u00e2\u00ee\u00fb";
+    private static final String ASCII_CHARS = "cgiosuaiu";
+    private static final String LOWER_CASE_ASCII_LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private static List<String> allCombinations(String input) {
+        List<String> combinations = Collections.singletonList("");
+        for (char c : input.toCharArray()) {
+            final int index = "cgiosu".indexOf(c);
+            final List<String> newCombinations = new ArrayList<String>();
+            for (String combination : combinations) {
+                newCombinations.add(combination + c);
+                if (index >= 0)
+                    newCombinations.add(combination + "\u00e7\u011f\u0131\u00f6\u015f\u00fc".charAt(index));
+            }
+            combinations = newCombinations;
+        }
+        return combinations;
+    }
+
+    /**
+     * Parses every surface, so that all candidates of the walk are returned
+     */
+    private static class AcceptingParser implements MorphologicParser {
+        private final Root root;
+        private final SuffixGraphState state;
+
+        private AcceptingParser(Root root, SuffixGraphState state) {
+            this.root = root;
+            this.state = state;
+        }
+
+        @Override
+        public List<MorphemeContainer> parseStr(String input) {
+            return Collections.singletonList(new MorphemeContainer(root, state, ""));
+        }
+
+        @Override
+        public List<MorphemeContainer> parse(TurkishSequence input) {
+            return this.parseStr(input.getUnderlyingString());
+        }
+
+        @Override
+        public List<List<MorphemeContainer>> parseAllStr(List<String> input) {
+            final List<List<MorphemeContainer>> results = new ArrayList<List<MorphemeContainer>>();
+            for (String str : input) {
+                results.add(this.parseStr(str));
+            }
+            return results;
+        }
+
+        @Override
+        public List<List<MorphemeContainer>> parseAll(List<TurkishSequence> input) {
+            final List<List<MorphemeContainer>> results = new ArrayList<List<MorphemeContainer>>();
+            for (TurkishSequence sequence : input) {
+                results.add(this.parse(sequence));
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.parser.formbased;
+
+import com.google.common.collect.Multimap;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trnltk.model.lexicon.Root;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.lexicon.RootMapFactory;
+import org.trnltk.util.MorphemeContainerFormatter;
+
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FullFormGeneratorTest {
+    static final List<String> ROOT_STRINGS = Arrays.asList("kitap", "kitab", "ev", "gel", "at", "su", "ben", "ban");
+
+    static Multimap<String, ? extends Root> rootMap;
+    static ContextlessMorphologicParser parser;
+    static FullFormGenerator generator;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        rootMap = RootMapFactory.createColumnarSimpleWithNumbersConvertCircumflexes();
+        parser = (ContextlessMorphologicParser) ContextlessMorphologicParserBuilder.newBuilder(rootMap).build(true);
+        generator = new FullFormGenerator(parser.getSuffixFormGraph(), parser.getPredefinedPaths(), parser.getSuffixApplier(), rootMap);
+    }
+
+    @Test
+    public void shouldGenerateSameResultsWithParser() {
+        final Map<String, List<MorphemeContainer>> fullForms = generator.generate(findRoots(), 2);
+
+        assertThat(fullForms.keySet(), hasItems("kitap", "kitabı", "kitaba", "geliyorum", "evdeki", "suyu", "bana"));
+        // might have a 3rd suffix, also "kitaplarda" might be kitap+la+r+da+...
+        assertThat(fullForms.keySet(), not(hasItem("kitaplardan")));
+        assertThat(fullForms.keySet(), not(hasItem("gelmeyecektim")));
+        // "ata" has the roots of "ata" which are not given
+        assertThat(fullForms.keySet(), not(hasItem("ata")));
+
+        for (Map.Entry<String, List<MorphemeContainer>> entry : fullForms.entrySet()) {
+            assertThat(entry.getKey(), format(entry.getValue()), equalTo(format(parser.parseStr(entry.getKey()))));
+        }
+    }
+
+    @Test
+    public void shouldLookUpFullFormsBeforeParsing() {
+        final MorphologicParser fullFormParser = ContextlessMorphologicParserBuilder.newBuilder(rootMap)
+                .fullFormCache(ROOT_STRINGS, 2)
+                .build(true);
+
+        for (String surface : Arrays.asList("kitaba", "evler", "geldi", "kalemler", "xyz")) {
+            assertThat(format(fullFormParser.parseStr(surface)), equalTo(format(parser.parseStr(surface))));
+        }
+    }
+
+    private static List<Root> findRoots() {
+        final List<Root> roots = new ArrayList<Root>();
+        for (String rootString : ROOT_STRINGS) {
+            roots.addAll(rootMap.get(rootString));
+        }
+        return roots;
+    }
+
+    private static Set<String> format(List<MorphemeContainer> morphemeContainers) {
+        final Set<String> formatted = new HashSet<String>();
+        for (MorphemeContainer morphemeContainer : morphemeContainers) {
+            formatted.add(MorphemeContainerFormatter.formatMorphemeContainerWithForms(morphemeContainer));
+        }
+        return formatted;
+    }
+}
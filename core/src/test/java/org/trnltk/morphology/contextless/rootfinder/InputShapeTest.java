@@ -0,0 +1,98 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.rootfinder;
+
+import com.google.common.collect.ImmutableMultimap;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.lexicon.ImmutableLexeme;
+import org.trnltk.model.lexicon.ImmutableRoot;
+import org.trnltk.model.lexicon.PrimaryPos;
+import org.trnltk.model.lexicon.Root;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static org.trnltk.morphology.contextless.rootfinder.InputShape.Feature.*;
+
+public class InputShapeTest {
+
+    @Test
+    public void shouldFindFeatures() {
+        assertThat(features("kitap"), equalTo(EnumSet.of(LETTERS_ONLY)));
+        assertThat(features("Ankara"), equalTo(EnumSet.of(LETTERS_ONLY, CAPITALIZED)));
+        assertThat(features("Ankara'da"), equalTo(EnumSet.of(HAS_APOSTROPHE, CAPITALIZED)));
+        assertThat(features("3'te"), equalTo(EnumSet.of(HAS_DIGITS, HAS_APOSTROPHE)));
+        assertThat(features("1-2"), equalTo(EnumSet.of(HAS_DIGITS)));
+        assertThat(features("..."), equalTo(EnumSet.of(PUNCTUATION_ONLY)));
+        assertThat(features("+"), equalTo(EnumSet.of(PUNCTUATION_ONLY)));
+        assertThat(features("e-posta"), equalTo(EnumSet.noneOf(InputShape.Feature.class)));
+        assertThat(features(""), equalTo(EnumSet.noneOf(InputShape.Feature.class)));
+    }
+
+    @Test
+    public void shouldScanApostropheAndNumericPrefix() {
+        final InputShape shape = InputShape.of("1.000'den'");
+        assertThat(shape.getLastApostropheIndex(), equalTo(9));
+        assertThat(shape.getNumericPrefixLength(), equalTo(5));
+
+        assertThat(InputShape.of("kitap").getLastApostropheIndex(), equalTo(-1));
+        assertThat(InputShape.of("kitap").getNumericPrefixLength(), equalTo(0));
+        assertThat(InputShape.of("-1,5").getNumericPrefixLength(), equalTo(4));
+    }
+
+    @Test
+    public void shouldNotCallRootFindersWhichDontHandleTheShape() {
+        final ShapeAwareRootFinder digitsRootFinder = mock(ShapeAwareRootFinder.class);
+        when(digitsRootFinder.handlesShape(any(InputShape.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                return ((InputShape) invocation.getArguments()[0]).has(HAS_DIGITS);
+            }
+        });
+
+        final Root root = new ImmutableRoot("kitap", new ImmutableLexeme("kitap", "kitap", PrimaryPos.Noun, null, null), null, null);
+        final RootFinderChain chain = new RootFinderChain(new RootValidator())
+                .offer(digitsRootFinder, RootFinderChain.RootFinderPolicy.STOP_CHAIN_WHEN_INPUT_IS_HANDLED)
+                .offer(new DictionaryRootFinder(ImmutableMultimap.of("kitap", root)), RootFinderChain.RootFinderPolicy.CONTINUE_ON_CHAIN);
+
+        final TurkishSequence input = new TurkishSequence("kitaplar");
+        final InputShape inputShape = InputShape.of(input);
+        final List<Root> roots = chain.findRootsForPartialInput(new TurkishSequence("kitap"), input, inputShape);
+
+        assertThat(roots, contains(root));
+        verify(digitsRootFinder, never()).handles(any(TurkishSequence.class), any(TurkishSequence.class), any(InputShape.class));
+        verify(digitsRootFinder, never()).handles(any(TurkishSequence.class), any(TurkishSequence.class));
+        verify(digitsRootFinder, never()).findRootsForPartialInput(any(TurkishSequence.class), any(TurkishSequence.class));
+    }
+
+    private static EnumSet<InputShape.Feature> features(String input) {
+        final InputShape shape = InputShape.of(input);
+        final EnumSet<InputShape.Feature> features = EnumSet.noneOf(InputShape.Feature.class);
+        for (InputShape.Feature feature : InputShape.Feature.values()) {
+            if (shape.has(feature))
+                features.add(feature);
+        }
+        return features;
+    }
+}
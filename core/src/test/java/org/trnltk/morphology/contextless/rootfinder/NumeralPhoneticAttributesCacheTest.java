@@ -0,0 +1,91 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.rootfinder;
+
+import org.junit.Test;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.lexicon.NumeralRoot;
+import org.trnltk.model.lexicon.PhoneticAttribute;
+import org.trnltk.model.lexicon.Root;
+import org.trnltk.morphology.phonetics.PhoneticsAnalyzer;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+public class NumeralPhoneticAttributesCacheTest {
+
+    private final PhoneticsAnalyzer phoneticsAnalyzer = new PhoneticsAnalyzer();
+
+    private final CardinalDigitsRootFinder cardinalDigitsRootFinder = new CardinalDigitsRootFinder();
+    private final OrdinalDigitsRootFinder ordinalDigitsRootFinder = new OrdinalDigitsRootFinder();
+    private final RangeDigitsRootFinder rangeDigitsRootFinder = new RangeDigitsRootFinder();
+
+    @Test
+    public void shouldCreateSameKeysForNumbersEndingWithSameWords() {
+        assertThat(NumeralPhoneticAttributesCache.createKey("1.234"), equalTo(NumeralPhoneticAttributesCache.createKey("1.934")));
+        assertThat(NumeralPhoneticAttributesCache.createKey("-12,50"), equalTo(NumeralPhoneticAttributesCache.createKey("-98,50")));
+        assertThat(NumeralPhoneticAttributesCache.createKey("-0,5"), equalTo(NumeralPhoneticAttributesCache.createKey("0,5")));
+
+        assertThat(NumeralPhoneticAttributesCache.createKey("1.000").equals(NumeralPhoneticAttributesCache.createKey("1.000.000")), equalTo(false));
+        assertThat(NumeralPhoneticAttributesCache.createKey("1000").equals(NumeralPhoneticAttributesCache.createKey("1")), equalTo(false));
+        assertThat(NumeralPhoneticAttributesCache.createKey("-5").equals(NumeralPhoneticAttributesCache.createKey("5")), equalTo(false));
+    }
+
+    @Test
+    public void shouldReturnSamePhoneticAttributesWithAnalyzer() {
+        for (int i = 0; i < 20000; i++) {
+            assertSamePhoneticAttributes(cardinalDigitsRootFinder, String.valueOf(i));
+            assertSamePhoneticAttributes(cardinalDigitsRootFinder, "-" + i);
+            assertSamePhoneticAttributes(cardinalDigitsRootFinder, "0" + i);
+            assertSamePhoneticAttributes(cardinalDigitsRootFinder, "3," + i);
+            assertSamePhoneticAttributes(cardinalDigitsRootFinder, "-" + i + ",0" + i);
+            assertSamePhoneticAttributes(ordinalDigitsRootFinder, i + ".");
+            assertSamePhoneticAttributes(rangeDigitsRootFinder, i + "-" + (i * 7));
+        }
+
+        final Random random = new Random(1L);
+        for (int i = 0; i < 20000; i++) {
+            final long number = random.nextLong() / (1L << random.nextInt(63));
+            final String digits = String.valueOf(number);
+            assertSamePhoneticAttributes(cardinalDigitsRootFinder, digits);
+            assertSamePhoneticAttributes(cardinalDigitsRootFinder, digits + digits.replace("-", ""));
+            assertSamePhoneticAttributes(cardinalDigitsRootFinder, digits + "," + random.nextInt(1000000));
+            assertSamePhoneticAttributes(ordinalDigitsRootFinder, digits + ".");
+            assertSamePhoneticAttributes(rangeDigitsRootFinder, Math.abs(number) + "-" + Math.abs(number / 1000L));
+        }
+
+        assertSamePhoneticAttributes(cardinalDigitsRootFinder, "1.234.567");
+        assertSamePhoneticAttributes(cardinalDigitsRootFinder, "-1.000,00");
+        assertSamePhoneticAttributes(ordinalDigitsRootFinder, "1.000.");
+        assertSamePhoneticAttributes(rangeDigitsRootFinder, "1.000-2.000-40");
+    }
+
+    private void assertSamePhoneticAttributes(RootFinder rootFinder, String digits) {
+        final TurkishSequence input = new TurkishSequence(digits);
+        final Collection<? extends Root> roots = rootFinder.findRootsForPartialInput(input, input);
+        assertThat(roots, hasSize(1));
+
+        final NumeralRoot root = (NumeralRoot) roots.iterator().next();
+        final Set<PhoneticAttribute> expectedPhoneticAttributes = this.phoneticsAnalyzer.calculatePhoneticAttributes(root.getUnderlyingNumeralText(), null);
+        assertThat(digits, root.getPhoneticAttributes(), equalTo(expectedPhoneticAttributes));
+    }
+}
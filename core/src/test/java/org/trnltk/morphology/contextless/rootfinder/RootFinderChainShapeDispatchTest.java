@@ -0,0 +1,169 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.rootfinder;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Resources;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.lexicon.ImmutableLexeme;
+import org.trnltk.model.lexicon.ImmutableRoot;
+import org.trnltk.model.lexicon.PrimaryPos;
+import org.trnltk.model.lexicon.Root;
+import org.trnltk.morphology.contextless.parser.parsing.BaseContextlessMorphologicParserSimpleParseSetCharacterTest;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Compares the dispatch with {@link InputShape} to calling {@link RootFinder#handles(TurkishSequence, TurkishSequence)}
+ * of every root finder, for the surfaces in the parse sets and for random surfaces with digits, punctuation and
+ * apostrophes.
+ */
+public class RootFinderChainShapeDispatchTest {
+    private static final String RANDOM_SURFACE_CHARS = "0123456789.,-+'\u2019!?()\u2026%\u00A8*/ ake\u0131i\u0130AKE\u00E7\u00C7";
+
+    private Root kitapRoot;
+    private Root ellipsisRoot;
+    private List<ShapeAwareRootFinder> shapeAwareRootFinders;
+    private List<Pair<RootFinder, RootFinderChain.RootFinderPolicy>> chainItems;
+    private RootFinderChain chain;
+
+    @Before
+    public void setUp() {
+        kitapRoot = new ImmutableRoot("kitap", new ImmutableLexeme("kitap", "kitap", PrimaryPos.Noun, null, null), null, null);
+        // a lexicon might have punctuation roots, which are found along with the root of PuncRootFinder
+        ellipsisRoot = new ImmutableRoot("...", new ImmutableLexeme("...", "...", PrimaryPos.Punctuation, null, null), null, null);
+
+        shapeAwareRootFinders = Arrays.asList(new PuncRootFinder(), new RangeDigitsRootFinder(), new OrdinalDigitsRootFinder(),
+                new CardinalDigitsRootFinder(), new ProperNounFromApostropheRootFinder(), new ProperNounWithoutApostropheRootFinder());
+
+        // same order with ContextlessMorphologicParserBuilder, but no root finder stops the chain so that all are compared
+        chainItems = new ArrayList<Pair<RootFinder, RootFinderChain.RootFinderPolicy>>();
+        chainItems.add(Pair.<RootFinder, RootFinderChain.RootFinderPolicy>of(new PuncRootFinder(), RootFinderChain.RootFinderPolicy.CONTINUE_ON_CHAIN));
+        chainItems.add(Pair.<RootFinder, RootFinderChain.RootFinderPolicy>of(new RangeDigitsRootFinder(), RootFinderChain.RootFinderPolicy.CONTINUE_ON_CHAIN));
+        chainItems.add(Pair.<RootFinder, RootFinderChain.RootFinderPolicy>of(new OrdinalDigitsRootFinder(), RootFinderChain.RootFinderPolicy.CONTINUE_ON_CHAIN));
+        chainItems.add(Pair.<RootFinder, RootFinderChain.RootFinderPolicy>of(new CardinalDigitsRootFinder(), RootFinderChain.RootFinderPolicy.CONTINUE_ON_CHAIN));
+        chainItems.add(Pair.<RootFinder, RootFinderChain.RootFinderPolicy>of(new ProperNounFromApostropheRootFinder(), RootFinderChain.RootFinderPolicy.CONTINUE_ON_CHAIN));
+        chainItems.add(Pair.<RootFinder, RootFinderChain.RootFinderPolicy>of(new ProperNounWithoutApostropheRootFinder(), RootFinderChain.RootFinderPolicy.CONTINUE_ON_CHAIN));
+        chainItems.add(Pair.<RootFinder, RootFinderChain.RootFinderPolicy>of(new DictionaryRootFinder(ImmutableMultimap.of("kitap", kitapRoot, "...", ellipsisRoot)), RootFinderChain.RootFinderPolicy.CONTINUE_ON_CHAIN));
+
+        chain = new RootFinderChain(new RootValidator());
+        for (Pair<RootFinder, RootFinderChain.RootFinderPolicy> chainItem : chainItems) {
+            chain.offer(chainItem.getLeft(), chainItem.getRight());
+        }
+    }
+
+    @Test
+    public void shouldDispatchSameWithHandlesForParseSetSurfaces() throws IOException {
+        final Set<String> surfaces = new LinkedHashSet<String>();
+        for (int i = 1; i <= 5; i++) {
+            final List<Pair<String, String>> lines = CharStreams.readLines(
+                    Resources.newReaderSupplier(Resources.getResource("simpleparsesets/simpleparseset00" + i + ".txt"), Charsets.UTF_8),
+                    new BaseContextlessMorphologicParserSimpleParseSetCharacterTest.SimpleParseSetValidationLineProcessor());
+            for (Pair<String, String> line : lines) {
+                surfaces.add(line.getLeft());
+            }
+        }
+
+        assertThat(surfaces.size(), greaterThan(1000));
+        assertThat(findDifferences(surfaces), empty());
+    }
+
+    @Test
+    public void shouldDispatchSameWithHandlesForRandomSurfaces() {
+        final Random random = new Random(1L);
+        final Set<String> surfaces = new LinkedHashSet<String>();
+        for (int i = 0; i < 20000; i++) {
+            final char[] chars = new char[1 + random.nextInt(8)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = RANDOM_SURFACE_CHARS.charAt(random.nextInt(RANDOM_SURFACE_CHARS.length()));
+            }
+            surfaces.add(new String(chars));
+        }
+
+        assertThat(findDifferences(surfaces), empty());
+    }
+
+    @Test
+    public void shouldFindPunctuationRootsInDictionary() {
+        final TurkishSequence input = new TurkishSequence("...");
+        final List<Root> roots = chain.findRootsForPartialInput(input, input, InputShape.of(input));
+        assertThat(roots, hasSize(2));
+        assertThat(roots, hasItem(ellipsisRoot));
+    }
+
+    @Test
+    public void shouldNotHandleMissingSurfaces() {
+        final ProperNounWithoutApostropheRootFinder rootFinder = new ProperNounWithoutApostropheRootFinder();
+        final TurkishSequence partialInput = new TurkishSequence("Ali");
+        assertThat(rootFinder.handles(partialInput, null), equalTo(false));
+        assertThat(rootFinder.handles(partialInput, null, InputShape.of(partialInput)), equalTo(false));
+        assertThat(rootFinder.handles(partialInput, new TurkishSequence(" "), InputShape.of(partialInput)), equalTo(false));
+    }
+
+    /**
+     * @return Surfaces and partial inputs for which the dispatch with shape finds something different than
+     *         calling all root finders
+     */
+    private List<String> findDifferences(Collection<String> surfaces) {
+        final List<String> differences = new ArrayList<String>();
+        for (String surface : surfaces) {
+            final TurkishSequence input = new TurkishSequence(surface);
+            final InputShape shape = InputShape.of(input);
+            for (int i = 1; i <= input.length(); i++) {
+                final TurkishSequence partialInput = input.subsequence(0, i);
+
+                for (ShapeAwareRootFinder rootFinder : shapeAwareRootFinders) {
+                    final boolean handles = rootFinder.handles(partialInput, input);
+                    final boolean handlesWithShape = rootFinder.handlesShape(shape) && rootFinder.handles(partialInput, input, shape);
+                    if (handles != handlesWithShape)
+                        differences.add(rootFinder.getClass().getSimpleName() + " : '" + partialInput + "' of '" + surface + "' " + shape);
+                }
+
+                final List<Root> expectedRoots = findRootsWithoutShape(partialInput, input);
+                final List<Root> roots = chain.findRootsForPartialInput(partialInput, input, shape);
+                if (!roots.equals(expectedRoots))
+                    differences.add("Chain : '" + partialInput + "' of '" + surface + "' " + roots + " instead of " + expectedRoots);
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * What the chain did before it was compiled for the shapes
+     */
+    private List<Root> findRootsWithoutShape(TurkishSequence partialInput, TurkishSequence input) {
+        final List<Root> roots = new ArrayList<Root>();
+        for (Pair<RootFinder, RootFinderChain.RootFinderPolicy> chainItem : chainItems) {
+            final RootFinder rootFinder = chainItem.getLeft();
+            if (!rootFinder.handles(partialInput, input))
+                continue;
+            roots.addAll(rootFinder.findRootsForPartialInput(partialInput, input));
+            if (RootFinderChain.RootFinderPolicy.STOP_CHAIN_WHEN_INPUT_IS_HANDLED.equals(chainItem.getRight()))
+                break;
+        }
+        return roots;
+    }
+}
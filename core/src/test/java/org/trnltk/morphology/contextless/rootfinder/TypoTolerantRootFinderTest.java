@@ -0,0 +1,134 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.contextless.rootfinder;
+
+import com.google.common.collect.ImmutableMultimap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.lexicon.CorrectedRoot;
+import org.trnltk.model.lexicon.Root;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.TypoTolerantMorphologicParser;
+import org.trnltk.morphology.contextless.parser.formbased.ContextlessMorphologicParserBuilder;
+import org.trnltk.util.MorphemeContainerFormatter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TypoTolerantRootFinderTest {
+
+    TypoTolerantRootFinder finder;
+
+    @Mock
+    Root kitap;
+    @Mock
+    Root kitab;
+    @Mock
+    Root kalem;
+    @Mock
+    Root ogretmen;
+
+    @Before
+    public void setUp() throws Exception {
+        final ImmutableMultimap<String, Root> map = new ImmutableMultimap.Builder<String, Root>()
+                .put("kitap", kitap)
+                .put("kitab", kitab)
+                .put("kalem", kalem)
+                .put("öğretmen", ogretmen)
+                .build();
+
+        finder = new TypoTolerantRootFinder(map, 2, 1000);
+    }
+
+    @Test
+    public void shouldFindRootsWithinEditDistance() {
+        // substitution, deletion, insertion, transposition
+        assertThat(findCorrectRoots("kitep"), contains(kitap));
+        assertThat(findCorrectRoots("kitp"), contains(kitap));
+        assertThat(findCorrectRoots("kalemm"), contains(kalem));
+        assertThat(findCorrectRoots("ktiap"), contains(kitap));
+
+        // 2 edits are allowed for longer inputs only
+        assertThat(findCorrectRoots("ögretmn"), contains(ogretmen));
+        assertThat(findCorrectRoots("kailm"), empty());
+
+        // case of first letter
+        assertThat(findCorrectRoots("Kalme"), contains(kalem));
+    }
+
+    @Test
+    public void shouldNotFindExactMatchesOrShortInputs() {
+        assertThat(findCorrectRoots("kitap"), contains(kitab));
+        assertThat(finder.handles(new TurkishSequence("ki"), new TurkishSequence("kitap")), equalTo(false));
+    }
+
+    @Test
+    public void shouldNotCountCaseOfFirstLetterAsEdit() {
+        final TypoTolerantRootFinder kitapFinder = new TypoTolerantRootFinder(
+                new ImmutableMultimap.Builder<String, Root>().put("kitap", kitap).build(), 2, 1000);
+
+        // same with the exact match "kitap"
+        assertThat(kitapFinder.findRootsForPartialInput(new TurkishSequence("Kitap"), null), empty());
+
+        final Collection<CorrectedRoot> roots = kitapFinder.findRootsForPartialInput(new TurkishSequence("Kitapl"), null);
+        assertThat(roots, hasSize(1));
+        assertThat(roots.iterator().next().getCorrectRoot(), equalTo(kitap));
+        assertThat(roots.iterator().next().getEditDistance(), equalTo(1));
+    }
+
+    @Test
+    public void shouldStopWhenMaxNodesAreVisited() {
+        final TypoTolerantRootFinder limitedFinder = new TypoTolerantRootFinder(
+                new ImmutableMultimap.Builder<String, Root>().put("kalem", kalem).build(), 2, 3);
+        assertThat(limitedFinder.findRootsForPartialInput(new TurkishSequence("kalme"), null), empty());
+    }
+
+    @Test
+    public void shouldParseMisspelledSurfaces() {
+        final MorphologicParser parser = ContextlessMorphologicParserBuilder.newBuilder().buildTypoTolerant(true, 2, 10000);
+
+        final List<MorphemeContainer> results = parser.parseStr("ktiaplar");
+        assertThat(results, not(empty()));
+        assertThat(MorphemeContainerFormatter.formatMorphemeContainer(results.get(0)), startsWith("kitap+Noun+A3pl"));
+        assertThat(results.get(0).getRoot().getSequence().getUnderlyingString(), equalTo("ktiap"));
+        assertThat(TypoTolerantMorphologicParser.getEditDistance(results.get(0)), equalTo(1));
+
+        // surfaces which are parsed as they are, are not corrected
+        for (MorphemeContainer result : parser.parseStr("kitaplar")) {
+            assertThat(result.getRoot(), not(instanceOf(CorrectedRoot.class)));
+        }
+    }
+
+    private List<Root> findCorrectRoots(String partialInput) {
+        final Collection<CorrectedRoot> roots = finder.findRootsForPartialInput(new TurkishSequence(partialInput), null);
+        final List<Root> correctRoots = new ArrayList<Root>();
+        for (CorrectedRoot root : roots) {
+            correctRoots.add(root.getCorrectRoot());
+        }
+        return correctRoots;
+    }
+}
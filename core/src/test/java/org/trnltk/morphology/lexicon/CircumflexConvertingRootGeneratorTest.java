@@ -90,4 +90,21 @@ public class CircumflexConvertingRootGeneratorTest {
         }
     }
 
+    @Test
+    public void shouldNotKeepCircumflexedRoots() {
+        final CircumflexConvertingRootGenerator singleSpellingGenerator = new CircumflexConvertingRootGenerator(false);
+        {
+            Lexeme lexeme = new ImmutableLexeme("rüzgâr", "rüzgâr", PrimaryPos.Noun, null, null);
+            HashSet<ImmutableRoot> generatedRoots = singleSpellingGenerator.generate(lexeme);
+            assertThat(generatedRoots, hasSize(1));
+            assertThat(generatedRoots, hasItem(new ImmutableRoot("rüzgar", lexeme, ImmutableSet.of(FLC, LVB, LLC, LLNotVless, LVU), null)));
+        }
+        {
+            Lexeme lexeme = new ImmutableLexeme("hala", "hala", PrimaryPos.Noun, null, null);
+            HashSet<ImmutableRoot> generatedRoots = singleSpellingGenerator.generate(lexeme);
+            assertThat(generatedRoots, hasSize(1));
+            assertThat(generatedRoots, hasItem(new ImmutableRoot("hala", lexeme, ImmutableSet.of(FLC, LVB, LLV, LLNotVless, LVU), null)));
+        }
+    }
+
 }
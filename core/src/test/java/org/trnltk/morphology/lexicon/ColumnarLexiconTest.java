@@ -0,0 +1,102 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.collect.HashMultimap;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trnltk.model.lexicon.Lexeme;
+import org.trnltk.model.lexicon.Root;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ColumnarLexiconTest {
+    static HashMultimap<String, ? extends Root> rootMap;
+    static ColumnarLexicon lexicon;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        rootMap = RootMapFactory.createSimpleWithNumbersConvertCircumflexes();
+        lexicon = ColumnarLexicon.copyOf(rootMap);
+    }
+
+    @Test
+    public void shouldHaveSameEntriesWithTheRootMap() {
+        assertThat(lexicon.size(), equalTo(rootMap.size()));
+        assertThat(lexicon.keySet(), equalTo(rootMap.keySet()));
+
+        for (String key : rootMap.keySet()) {
+            final Collection<? extends Root> expectedRoots = rootMap.get(key);
+            final List<Root> roots = lexicon.get(key);
+            assertThat(key, roots, hasSize(expectedRoots.size()));
+
+            // order of the roots of a key is kept
+            final Iterator<? extends Root> expectedIterator = expectedRoots.iterator();
+            for (Root root : roots) {
+                final Root expectedRoot = expectedIterator.next();
+                final Lexeme lexeme = root.getLexeme();
+                final Lexeme expectedLexeme = expectedRoot.getLexeme();
+
+                assertThat(root.getSequence(), equalTo(expectedRoot.getSequence()));
+                assertThat(root.getPhoneticAttributes(), equalTo(expectedRoot.getPhoneticAttributes()));
+                assertThat(root.getPhoneticExpectations(), equalTo(expectedRoot.getPhoneticExpectations()));
+                assertThat(lexeme.getLemma(), equalTo(expectedLexeme.getLemma()));
+                assertThat(lexeme.getLemmaRoot(), equalTo(expectedLexeme.getLemmaRoot()));
+                assertThat(lexeme.getPrimaryPos(), equalTo(expectedLexeme.getPrimaryPos()));
+                assertThat(lexeme.getSecondaryPos(), equalTo(expectedLexeme.getSecondaryPos()));
+                assertThat(lexeme.getAttributes(), equalTo(expectedLexeme.getAttributes()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldCreateEqualViewsForSameEntries() {
+        final List<Root> roots = lexicon.get("kitab");
+        assertThat(roots, not(empty()));
+        assertThat(lexicon.get("kitab"), equalTo(roots));
+        assertThat(roots.get(0).getLexeme(), equalTo(lexicon.get("kitap").get(0).getLexeme()));
+        assertThat(roots.get(0), not(equalTo(lexicon.get("kitap").get(0))));
+
+        assertThat(lexicon.containsEntry("kitab", roots.get(0)), equalTo(true));
+        assertThat(lexicon.containsEntry("kitap", roots.get(0)), equalTo(false));
+        assertThat(ColumnarLexicon.copyOf(rootMap).containsValue(roots.get(0)), equalTo(false));
+
+        // sequences are shared by the views
+        assertThat(lexicon.get("kitab").get(0).getSequence(), sameInstance(roots.get(0).getSequence()));
+
+        // lemmas and roots are interned
+        assertThat(lexicon.getLexemeCount(), lessThan(lexicon.size()));
+    }
+
+    @Test
+    public void shouldReturnEmptyForUnknownKeys() {
+        assertThat(lexicon.get("kitabx"), empty());
+        assertThat(lexicon.get(""), empty());
+        assertThat(lexicon.containsKey("kitabx"), equalTo(false));
+        assertThat(lexicon.containsKey(1), equalTo(false));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotBeModifiable() {
+        lexicon.removeAll("kitap");
+    }
+}
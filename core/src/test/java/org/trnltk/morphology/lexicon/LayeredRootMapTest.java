@@ -0,0 +1,224 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trnltk.model.lexicon.ImmutableLexeme;
+import org.trnltk.model.lexicon.Lexeme;
+import org.trnltk.model.lexicon.PrimaryPos;
+import org.trnltk.model.lexicon.Root;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.CachingMorphologicParser;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.cache.LRUMorphologicParserCache;
+import org.trnltk.morphology.contextless.parser.formbased.ContextlessMorphologicParserBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LayeredRootMapTest {
+    static ColumnarLexicon lexicon;
+
+    final Lexeme blokzincir = new ImmutableLexeme("blokzincir", "blokzincir", PrimaryPos.Noun, null, null);
+    final Lexeme kitap = new ImmutableLexeme("kitap", "kitap", PrimaryPos.Noun, null, null);
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        lexicon = RootMapFactory.createColumnarSimpleWithNumbersConvertCircumflexes();
+    }
+
+    @Test
+    public void shouldAddAndRemoveLexemesWithoutChangingTheBase() {
+        final LayeredRootMap rootMap = new LayeredRootMap(lexicon, new CircumflexConvertingRootGenerator());
+        assertThat(rootMap.get("blokzincir"), empty());
+        assertThat(rootMap.size(), equalTo(lexicon.size()));
+
+        assertThat(rootMap.addLexemes(Arrays.asList(blokzincir)), contains("blokzincir"));
+        assertThat(rootMap.get("blokzincir"), hasSize(1));
+        assertThat(rootMap.get("blokzincir").iterator().next().getLexeme(), equalTo(blokzincir));
+        assertThat(rootMap.keySet(), hasItem("blokzincir"));
+        assertThat(rootMap.size(), equalTo(lexicon.size() + 1));
+
+        // roots of the lexeme in the base map are hidden, including the ones with a changed root string
+        final int kitabRootCount = lexicon.get("kitab").size();
+        final Set<String> removedRootStrings = rootMap.removeLexemes(Arrays.asList(blokzincir, kitap));
+        assertThat(removedRootStrings, hasItems("blokzincir", "kitap", "kitab"));
+        assertThat(rootMap.get("blokzincir"), empty());
+        assertThat(rootMap.get("kitab"), hasSize(kitabRootCount - 1));
+        assertThat(rootMap.containsKey("blokzincir"), equalTo(false));
+        assertThat(rootMap.size(), equalTo(lexicon.size() - 2));
+
+        assertThat(lexicon.get("blokzincir"), empty());
+        assertThat(lexicon.get("kitab"), hasSize(kitabRootCount));
+    }
+
+    @Test
+    public void shouldInvalidateParserCacheOfChangedRoots() {
+        final LayeredRootMap rootMap = new LayeredRootMap(lexicon, new CircumflexConvertingRootGenerator());
+        final MorphologicParser parser = ContextlessMorphologicParserBuilder.newBuilder(rootMap)
+                .cache(new LRUMorphologicParserCache(1, 100, 1000))
+                .build(true);
+
+        assertThat(parser.parseStr("blokzincirler"), empty());
+        assertThat(parser.parseStr("kalem"), not(empty()));
+
+        rootMap.addLexemes(Arrays.asList(blokzincir));
+        assertThat(parser.parseStr("blokzincirler"), not(empty()));
+
+        rootMap.removeLexemes(Arrays.asList(blokzincir));
+        assertThat(parser.parseStr("blokzincirler"), empty());
+        assertThat(parser.parseStr("kalem"), not(empty()));
+    }
+
+    @Test
+    public void shouldNotCacheResultsOfParsesInProgressWhileRootsChange() throws Exception {
+        final LayeredRootMap rootMap = new LayeredRootMap(lexicon, new CircumflexConvertingRootGenerator());
+        final RootCountingParser delegate = new RootCountingParser(rootMap);
+        final CachingMorphologicParser parser = createCachingParser(rootMap, delegate);
+
+        delegate.blocking = true;
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final Future<List<MorphemeContainer>> inProgress = executorService.submit(new Callable<List<MorphemeContainer>>() {
+                @Override
+                public List<MorphemeContainer> call() {
+                    return parser.parseStr("blokzincir");
+                }
+            });
+            assertThat(delegate.parsing.await(5, TimeUnit.SECONDS), equalTo(true));
+
+            // roots are read by the parse in progress, then they are changed and the cache is invalidated
+            rootMap.addLexemes(Arrays.asList(blokzincir));
+            delegate.release.countDown();
+            assertThat(inProgress.get(5, TimeUnit.SECONDS), empty());
+        } finally {
+            delegate.release.countDown();
+            executorService.shutdownNow();
+        }
+
+        delegate.blocking = false;
+        assertThat(parser.parseStr("blokzincir"), hasSize(1));
+    }
+
+    @Test
+    public void cachedResultsShouldBeSameAsRootsWhenRootsChangeConcurrently() throws Exception {
+        final LayeredRootMap rootMap = new LayeredRootMap(lexicon, new CircumflexConvertingRootGenerator());
+        final RootCountingParser delegate = new RootCountingParser(rootMap);
+        final CachingMorphologicParser parser = createCachingParser(rootMap, delegate);
+
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executorService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        while (!finished.get()) {
+                            parser.parseStr("blokzincir");
+                            parser.parseAllStr(Arrays.asList("blokzincir", "kitap"));
+                        }
+                    }
+                }));
+            }
+
+            for (int i = 0; i < 200; i++) {
+                rootMap.addLexemes(Arrays.asList(blokzincir));
+                rootMap.removeLexemes(Arrays.asList(blokzincir));
+            }
+            rootMap.addLexemes(Arrays.asList(blokzincir));
+
+            finished.set(true);
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            finished.set(true);
+            executorService.shutdownNow();
+        }
+
+        assertThat(parser.parseStr("blokzincir"), hasSize(1));
+    }
+
+    private static CachingMorphologicParser createCachingParser(LayeredRootMap rootMap, MorphologicParser delegate) {
+        final CachingMorphologicParser parser = new CachingMorphologicParser(new LRUMorphologicParserCache(4, 100, 1000), delegate, true);
+        // same as ContextlessMorphologicParserBuilder does
+        rootMap.addRootChangeListener(new LayeredRootMap.RootChangeListener() {
+            @Override
+            public void rootsChanged(Set<String> rootStrings) {
+                parser.invalidatePrefixes(rootStrings);
+            }
+        });
+        return parser;
+    }
+
+    /**
+     * Returns a result for each root of the input, optionally blocking after the roots are read
+     */
+    private static class RootCountingParser implements MorphologicParser {
+        private final LayeredRootMap rootMap;
+        private final CountDownLatch parsing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocking = false;
+
+        private RootCountingParser(LayeredRootMap rootMap) {
+            this.rootMap = rootMap;
+        }
+
+        @Override
+        public List<MorphemeContainer> parseStr(String input) {
+            final List<MorphemeContainer> results = new ArrayList<MorphemeContainer>();
+            for (Root root : rootMap.get(input)) {
+                results.add(new MorphemeContainer(root, null, null));
+            }
+
+            if (blocking) {
+                parsing.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public List<List<MorphemeContainer>> parseAllStr(List<String> input) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<MorphemeContainer> parse(TurkishSequence input) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<List<MorphemeContainer>> parseAll(List<TurkishSequence> input) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import org.junit.Test;
+import org.trnltk.model.lexicon.Root;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LexiconCompilerTest {
+
+    @Test
+    public void shouldReportAllErrorsWithLineNumbers() {
+        final String dictionary = "# comment\n" +
+                "kitap\n" +
+                "elma [P:Foo]\n" +
+                "\n" +
+                "ev [P:Noun; A:Causative_Ar]\n" +
+                "gitmek [P:Verb; A:Voicing, Aorist_A]\n" +
+                "kitap\n";
+
+        final LexiconCompiler compiler = new LexiconCompiler();
+        compiler.addDictionary("test.dict", dictionary.getBytes(Charsets.UTF_8));
+
+        final List<String> errors = compiler.getErrors();
+        assertThat(errors, hasSize(2));
+        assertThat(errors.get(0), startsWith("test.dict:3: "));
+        assertThat(errors.get(1), startsWith("test.dict:5: "));
+        assertThat(errors.get(1), containsString("Causative_Ar"));
+
+        assertThat(compiler.getWarnings(), contains(startsWith("test.dict:7: Same lexeme is defined at test.dict:2 ")));
+
+        try {
+            compiler.compile();
+            throw new AssertionError("Lexicon is compiled with errors");
+        } catch (IllegalStateException expected) {
+            assertThat(expected.getMessage(), containsString("2 errors"));
+        }
+    }
+
+    @Test
+    public void shouldReportSameLexemesInOtherDictionaries() {
+        final LexiconCompiler compiler = new LexiconCompiler();
+        compiler.addDictionary("first.dict", "kitap\nelma\n".getBytes(Charsets.UTF_8));
+        compiler.addDictionary("second.dict", "armut\nelma\nelma\n".getBytes(Charsets.UTF_8));
+
+        assertThat(compiler.getErrors(), empty());
+        assertThat(compiler.getWarnings(), contains(
+                startsWith("second.dict:2: Same lexeme is defined at first.dict:2 "),
+                startsWith("second.dict:3: Same lexeme is defined at first.dict:2 ")));
+    }
+
+    @Test
+    public void shouldWriteAndReadCompiledLexicon() throws IOException {
+        final LexiconCompiler compiler = new LexiconCompiler();
+        for (String dictionaryResource : ColumnarLexiconSerializer.DEFAULT_DICTIONARY_RESOURCES) {
+            compiler.addDictionary(Resources.getResource(dictionaryResource));
+        }
+        assertThat(compiler.getErrors(), empty());
+        assertThat(compiler.getDictionaryChecksum(), equalTo(ColumnarLexiconSerializer.getDefaultDictionaryChecksum()));
+
+        final ColumnarLexicon lexicon = compiler.compile();
+        assertThat(lexicon.size(), equalTo(RootMapFactory.createSimpleWithNumbers().size()));
+
+        final File file = File.createTempFile("lexicon", ".bin");
+        file.deleteOnExit();
+        ColumnarLexiconSerializer.write(lexicon, compiler.getDictionaryChecksum(), file);
+
+        final ColumnarLexicon readLexicon = RootMapFactory.loadColumnarSimpleWithNumbers(file);
+        assertThat(readLexicon, not(sameInstance(lexicon)));
+        assertThat(readLexicon.toString(), equalTo(lexicon.toString()));
+        assertThat(readLexicon.keySet(), equalTo(lexicon.keySet()));
+        for (String key : lexicon.keySet()) {
+            final List<Root> roots = readLexicon.get(key);
+            assertThat(key, roots, hasSize(lexicon.get(key).size()));
+
+            final Iterator<Root> expectedIterator = lexicon.get(key).iterator();
+            for (Root root : roots) {
+                final Root expectedRoot = expectedIterator.next();
+                assertThat(root.toString(), equalTo(expectedRoot.toString()));
+            }
+        }
+
+        // written from other dictionaries
+        assertThat(ColumnarLexiconSerializer.read(file, compiler.getDictionaryChecksum() + 1), nullValue());
+
+        final byte[] bytes = Files.toByteArray(file);
+        bytes[bytes.length / 2]++;
+        try {
+            ColumnarLexiconSerializer.read(ByteBuffer.wrap(bytes), compiler.getDictionaryChecksum());
+            throw new AssertionError("Corrupted lexicon is read");
+        } catch (IOException expected) {
+            assertThat(expected.getMessage(), containsString("checksum"));
+        }
+    }
+}
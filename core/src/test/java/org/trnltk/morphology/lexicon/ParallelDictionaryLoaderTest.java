@@ -0,0 +1,114 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.morphology.lexicon;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Resources;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.trnltk.model.lexicon.Root;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ParallelDictionaryLoaderTest {
+    private static final int THREAD_COUNT = 4;
+
+    ExecutorService executorService;
+    ParallelDictionaryLoader loader;
+
+    @Before
+    public void setUp() throws Exception {
+        executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+        // small batches, so that the reader waits for the pending ones
+        loader = new ParallelDictionaryLoader(executorService, THREAD_COUNT, new CircumflexConvertingRootGenerator(), 100);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldLoadSameRootsWithRootMapFactory() {
+        final ConcurrentRootMap rootMap = new ConcurrentRootMap(40000, THREAD_COUNT);
+        loader.load(Resources.newReaderSupplier(Resources.getResource("master-dictionary.dict"), Charsets.UTF_8), rootMap);
+        loader.load(Resources.newReaderSupplier(Resources.getResource("master-numeral-dictionary.dict"), Charsets.UTF_8), rootMap);
+
+        final HashMultimap<String, ? extends Root> expectedRootMap = RootMapFactory.createSimpleWithNumbersConvertCircumflexes();
+        assertThat(rootMap.size(), equalTo(expectedRootMap.size()));
+        assertThat(rootMap.keySet(), equalTo(expectedRootMap.keySet()));
+        for (String key : expectedRootMap.keySet()) {
+            assertThat(key, new HashSet<Root>(rootMap.get(key)), equalTo((Object) expectedRootMap.get(key)));
+        }
+    }
+
+    @Test
+    public void shouldCreateSameRootsWithRootMapFactory() {
+        final ConcurrentRootMap rootMap = RootMapFactory.createConcurrentSimpleWithNumbers(THREAD_COUNT);
+
+        final HashMultimap<String, ? extends Root> expectedRootMap = RootMapFactory.createSimpleWithNumbers();
+        assertThat(rootMap.size(), equalTo(expectedRootMap.size()));
+        assertThat(rootMap.keySet(), equalTo(expectedRootMap.keySet()));
+        for (String key : expectedRootMap.keySet()) {
+            assertThat(key, new HashSet<Root>(rootMap.get(key)), equalTo((Object) expectedRootMap.get(key)));
+        }
+    }
+
+    @Test
+    public void shouldSkipDuplicatesAndComments() {
+        final ConcurrentRootMap rootMap = new ConcurrentRootMap(16, THREAD_COUNT);
+        final String lines = "kitap\n# comment\n\nkitap\nkalem\n";
+        final int lexemeCount = loader.load(CharStreams.newReaderSupplier(lines), rootMap);
+
+        assertThat(lexemeCount, equalTo(3));
+        assertThat(rootMap.get("kitap").size(), equalTo(1));
+        assertThat(rootMap.get("kitab").size(), equalTo(1));
+        assertThat(rootMap.get("kalem").size(), equalTo(1));
+        assertThat(rootMap.size(), equalTo(3));
+    }
+
+    @Test
+    public void shouldKeepRootsOfKeysInSameOrder() {
+        final ConcurrentRootMap rootMap = RootMapFactory.createConcurrentSimpleWithNumbers(THREAD_COUNT);
+        final ConcurrentRootMap reversedRootMap = new ConcurrentRootMap(40000, THREAD_COUNT);
+        for (String key : rootMap.keySet()) {
+            for (Root root : Lists.reverse(new ArrayList<Root>(rootMap.get(key)))) {
+                reversedRootMap.addRoot(root);
+            }
+        }
+
+        for (String key : rootMap.keySet()) {
+            assertThat(key, new ArrayList<Root>(reversedRootMap.get(key)), equalTo((Object) new ArrayList<Root>(rootMap.get(key))));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionOfInvalidLines() {
+        final ConcurrentRootMap rootMap = new ConcurrentRootMap(16, THREAD_COUNT);
+        loader.load(CharStreams.newReaderSupplier("kitap\nkalem [P:Noun; A:Aorist_A]\n"), rootMap);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.normalization;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.NormalizingMorphologicParser;
+import org.trnltk.morphology.contextless.parser.formbased.ContextlessMorphologicParserBuilder;
+import org.trnltk.util.MorphemeContainerFormatter;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class InputNormalizerTest {
+
+    InputNormalizer normalizer = new InputNormalizer(EnumSet.allOf(InputNormalizer.Normalization.class));
+
+    @Test
+    public void shouldNormalize() {
+        assertThat(normalizer.normalize("Ankara’da"), equalTo("Ankara'da"));
+        assertThat(normalizer.normalize("ka\u0302g\u0306ıt"), equalTo("kağıt"));
+        assertThat(normalizer.normalize("kâğıt"), equalTo("kağıt"));
+        assertThat(normalizer.normalize("i\u0307stanbul"), equalTo("istanbul"));
+        assertThat(normalizer.normalize("I\u0307stanbul"), equalTo("İstanbul"));
+        assertThat(normalizer.normalize("c\u0327ic\u0327ek"), equalTo("çiçek"));
+        assertThat(normalizer.normalize("o\u0308u\u0308S\u0327"), equalTo("öüŞ"));
+    }
+
+    @Test
+    public void shouldNormalizeOnlyTheGivenNormalizations() {
+        final InputNormalizer apostropheNormalizer = new InputNormalizer(EnumSet.of(InputNormalizer.Normalization.APOSTROPHES));
+        assertThat(apostropheNormalizer.normalize("Ankara’daki kâğıt"), equalTo("Ankara'daki kâğıt"));
+
+        assertThat(InputNormalizer.createDefault().normalize("ka\u0302g\u0306ıt"), equalTo("kâğıt"));
+    }
+
+    @Test
+    public void shouldReturnSameInstanceWhenNothingIsNormalized() {
+        final String input = "kitaplarımızdan";
+        assertThat(normalizer.normalize(input), sameInstance(input));
+        assertThat(normalizer.normalizeWithOffsets(input).isChanged(), equalTo(false));
+        assertThat(normalizer.normalizeWithOffsets(input).getOriginalOffset(5), equalTo(5));
+    }
+
+    @Test
+    public void shouldMapOffsetsToOriginal() {
+        final String original = "Ankara’da ka\u0302g\u0306ıt";
+        final NormalizedInput normalizedInput = normalizer.normalizeWithOffsets(original);
+        assertThat(normalizedInput.getNormalized(), equalTo("Ankara'da kağıt"));
+        assertThat(normalizedInput.isChanged(), equalTo(true));
+
+        assertThat(normalizedInput.getOriginalOffset(6), equalTo(6));
+        assertThat(normalizedInput.getOriginalOffset(11), equalTo(11));
+        assertThat(normalizedInput.getOriginalOffset(12), equalTo(13));
+        assertThat(normalizedInput.getOriginalOffset(13), equalTo(15));
+        assertThat(normalizedInput.getOriginalOffset(15), equalTo(original.length()));
+
+        assertThat(normalizedInput.getOriginalSubstring(10, 15), equalTo("ka\u0302g\u0306ıt"));
+        assertThat(normalizedInput.getOriginalSubstring(0, 9), equalTo("Ankara’da"));
+    }
+
+    @Test
+    public void shouldParseCircumflexedAndDecomposedInputsWithSingleSpellingLexicon() {
+        final MorphologicParser parser = ContextlessMorphologicParserBuilder.newBuilderWithInputNormalization().build(true);
+
+        final Set<String> expected = format(parser.parseStr("kağıtlar"));
+        assertThat(expected, hasItem("kâğıt+Noun+A3pl+Pnon+Nom"));
+        assertThat(format(parser.parseStr("kâğıtlar")), equalTo(expected));
+        assertThat(format(parser.parseStr("ka\u0302g\u0306ıtlar")), equalTo(expected));
+    }
+
+    @Test
+    public void shouldMapRootsOfParseResultsToOriginal() {
+        final NormalizingMorphologicParser parser = (NormalizingMorphologicParser) ContextlessMorphologicParserBuilder.newBuilderWithInputNormalization().build(true);
+
+        final String original = "ka\u0302g\u0306\u0131d\u0131";
+        final Pair<NormalizedInput, List<MorphemeContainer>> results = parser.parseStrWithOffsets(original);
+        assertThat(results.getLeft().getNormalized(), equalTo("ka\u011F\u0131d\u0131"));
+        assertThat(format(results.getRight()), equalTo(format(parser.parseStr(original))));
+        assertThat(results.getRight(), not(empty()));
+        for (MorphemeContainer result : results.getRight()) {
+            assertThat(result.getRoot().getSequence().getUnderlyingString(), equalTo("ka\u011F\u0131d"));
+            assertThat(NormalizingMorphologicParser.getOriginalRootSurface(results.getLeft(), result), equalTo("ka\u0302g\u0306\u0131d"));
+        }
+    }
+
+    private static Set<String> format(List<MorphemeContainer> morphemeContainers) {
+        final Set<String> formatted = new HashSet<String>();
+        for (MorphemeContainer morphemeContainer : morphemeContainers) {
+            formatted.add(MorphemeContainerFormatter.formatMorphemeContainer(morphemeContainer));
+        }
+        return formatted;
+    }
+}
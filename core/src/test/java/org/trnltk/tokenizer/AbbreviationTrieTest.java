@@ -0,0 +1,60 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class AbbreviationTrieTest {
+
+    @Test
+    public void shouldFindLongestMatch() {
+        final AbbreviationTrie trie = new AbbreviationTrie(Arrays.asList("Dz.", "Dz. Kuv.", "Dz. Kuv. K.", "vb."));
+
+        assertThat(trie.findLongestMatch("Dz. Kuv. K. Ali", 0, 15), equalTo(11));
+        assertThat(trie.findLongestMatch("Dz. Kuv. Ali", 0, 12), equalTo(8));
+        assertThat(trie.findLongestMatch("Dz. Kuv Ali", 0, 11), equalTo(3));
+        assertThat(trie.findLongestMatch("Dz", 0, 2), equalTo(0));
+        assertThat(trie.findLongestMatch("elma vb.", 0, 8), equalTo(0));
+        assertThat(trie.findLongestMatch("elma vb.", 5, 8), equalTo(3));
+        assertThat(trie.findLongestMatch("elma vb.", 5, 7), equalTo(0));
+        assertThat(trie.getMaxLength(), equalTo(11));
+    }
+
+    @Test
+    public void shouldHandleEmptyTrie() {
+        final AbbreviationTrie trie = new AbbreviationTrie(Collections.<String>emptyList());
+        assertThat(trie.findLongestMatch("vb.", 0, 3), equalTo(0));
+        assertThat(trie.getMaxLength(), equalTo(0));
+    }
+
+    @Test
+    public void shouldMatchDefaultAbbreviationsOfAnyLength() {
+        final AbbreviationTrie trie = AbbreviationTrie.DEFAULT_ABBREVIATIONS;
+        assertThat(trie.findLongestMatch("Gnkur.", 0, 6), equalTo(6));
+        assertThat(trie.findLongestMatch("Yrd. Doç. Ali", 0, 13), equalTo(9));
+        assertThat(trie.findLongestMatch("Hv. Kuv. K.", 0, 11), equalTo(11));
+        // ones without a '.' at the end are not abbreviations
+        assertThat(trie.findLongestMatch("ABD", 0, 3), equalTo(0));
+        assertThat(TextBlockType.Abbreviation.findMatchFromBeginning("Yrd. Doç. Ali"), equalTo("Yrd. Doç."));
+    }
+}
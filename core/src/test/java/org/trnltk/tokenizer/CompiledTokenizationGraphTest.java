@@ -0,0 +1,100 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import com.google.common.collect.Lists;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class CompiledTokenizationGraphTest {
+    private static TokenizationGraph graph;
+    private static CompiledTokenizationGraph compiledGraph;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        graph = TextTokenizerTrainer.buildDefaultTokenizationGraph(false);
+        compiledGraph = CompiledTokenizationGraph.compile(graph, 2);
+    }
+
+    @Test
+    public void shouldHaveSameRulesAsGraph() {
+        final TextBlockType[] types = TextBlockType.values();
+        final Random random = new Random(1L);
+        int numberOfRulesFound = 0;
+
+        // all edges of the graph
+        for (TokenizationGraphNode node : graph.nodeMap.values()) {
+            for (TextBlockTypeGroup target : node.edges.keySet()) {
+                assertSameRule(node.getData().getTextBlockTypes(), target.getTextBlockTypes());
+                numberOfRulesFound++;
+            }
+        }
+        assertThat(numberOfRulesFound > 0, equalTo(true));
+
+        // mostly missing ones
+        for (int i = 0; i < 10000; i++) {
+            final List<TextBlockType> left = Arrays.asList(types[random.nextInt(types.length)], types[random.nextInt(types.length)]);
+            final List<TextBlockType> right = Arrays.asList(types[random.nextInt(types.length)], types[random.nextInt(types.length)]);
+            assertSameRule(left, right);
+        }
+    }
+
+    @Test
+    public void shouldReadBlocksCyclically() {
+        final TextBlock[] ring = {
+                new TextBlock("elma", TextBlockType.Word),
+                TextBlockSplitter.SENTENCE_END_TEXT_BLOCK,
+                TextBlockSplitter.SENTENCE_START_TEXT_BLOCK,
+                TextBlockSplitter.SENTENCE_START_TEXT_BLOCK,
+                new TextBlock(".", TextBlockType.Dot)};
+
+        // left : Sentence_Start, Sentence_Start ; right : Dot, Word
+        final TextBlock[] flat = {ring[2], ring[3], ring[4], ring[0]};
+        assertThat(compiledGraph.getRule(ring, 2), equalTo(compiledGraph.getRule(flat, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCompileLargeTables() {
+        CompiledTokenizationGraph.compile(graph, 3);
+    }
+
+    private static void assertSameRule(List<TextBlockType> left, List<TextBlockType> right) {
+        final List<TextBlock> textBlocks = Lists.newArrayList();
+        for (TextBlockType type : left)
+            textBlocks.add(new TextBlock("", type));
+        for (TextBlockType type : right)
+            textBlocks.add(new TextBlock("", type));
+
+        byte expected;
+        try {
+            expected = graph.isAddSpace(new TextBlockGroup(textBlocks.subList(0, 2)), new TextBlockGroup(textBlocks.subList(2, 4)), textBlocks, 2)
+                    ? CompiledTokenizationGraph.ADD_SPACE : CompiledTokenizationGraph.NO_SPACE;
+        } catch (MissingTokenizationRuleException e) {
+            expected = CompiledTokenizationGraph.MISSING_RULE;
+        }
+
+        assertThat("Left " + left + " right " + right, compiledGraph.getRule(textBlocks.toArray(new TextBlock[textBlocks.size()]), 0), equalTo(expected));
+    }
+}
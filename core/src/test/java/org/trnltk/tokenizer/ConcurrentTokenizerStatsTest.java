@@ -0,0 +1,152 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ConcurrentTokenizerStatsTest {
+    private static TokenizationGraph graph;
+    private static String text;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        graph = TokenizationGraphSerializer.loadDefaultTokenizationGraph();
+        text = Resources.toString(Resources.getResource("tokenizer/tbmm_b0241h.txt"), Charsets.UTF_8);
+    }
+
+    @Test
+    public void shouldCountSameAsTokenizerStats() {
+        final TextTokenizer tokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(graph)
+                .recordStats()
+                .recordConcurrentStats(5)
+                .build();
+        tokenizer.tokenize(text);
+
+        final ConcurrentTokenizerStats concurrentStats = tokenizer.getConcurrentStats();
+        final TextTokenizer.TextTokenizerStats stats = tokenizer.getStats();
+
+        final Map<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Long> expectedSuccessMap = new HashMap<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Long>();
+        long successCount = 0;
+        for (Map.Entry<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Integer> entry : stats.buildSortedSuccessMap().entrySet()) {
+            expectedSuccessMap.put(entry.getKey(), (long) entry.getValue());
+            successCount += entry.getValue();
+            assertThat(concurrentStats.getCount(entry.getKey().getLeft(), entry.getKey().getRight()), equalTo((long) entry.getValue()));
+        }
+        assertThat(concurrentStats.buildSortedSuccessMap(), equalTo(expectedSuccessMap));
+        assertThat(concurrentStats.buildSortedMissingRuleMap().keySet(), equalTo(stats.buildSortedFailMap().keySet()));
+        assertThat(concurrentStats.getBoundaryCount(), equalTo(successCount + concurrentStats.getMissingRuleCount()));
+
+        // sorted by count
+        long previousCount = Long.MAX_VALUE;
+        for (Long count : concurrentStats.buildSortedSuccessMap().values()) {
+            assertThat(count, lessThanOrEqualTo(previousCount));
+            previousCount = count;
+        }
+    }
+
+    @Test
+    public void shouldCountFromManyThreads() throws Exception {
+        final TextTokenizer sequentialTokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(graph)
+                .recordConcurrentStats(5)
+                .build();
+        sequentialTokenizer.tokenize(text);
+
+        final TextTokenizer tokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(graph)
+                .recordConcurrentStats(5)
+                .build();
+
+        final int threadCount = 4;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executorService.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        return tokenizer.tokenize(text);
+                    }
+                }));
+            }
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+            // parallel tokenization of a single text records the same
+            tokenizer.tokenize(text, executorService, 1000);
+        } finally {
+            executorService.shutdown();
+        }
+
+        final ConcurrentTokenizerStats expectedStats = sequentialTokenizer.getConcurrentStats();
+        final ConcurrentTokenizerStats stats = tokenizer.getConcurrentStats();
+        assertThat(stats.getBoundaryCount(), equalTo((threadCount + 1) * expectedStats.getBoundaryCount()));
+        assertThat(stats.getMissingRuleCount(), equalTo((threadCount + 1) * expectedStats.getMissingRuleCount()));
+        for (Map.Entry<Pair<TextBlockTypeGroup, TextBlockTypeGroup>, Long> entry : expectedStats.buildSortedSuccessMap().entrySet()) {
+            assertThat(stats.getCount(entry.getKey().getLeft(), entry.getKey().getRight()), equalTo((threadCount + 1) * entry.getValue()));
+        }
+    }
+
+    @Test
+    public void shouldKeepLimitedNumberOfExamples() {
+        final TextTokenizer tokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(new TokenizationGraph(false))
+                .recordConcurrentStats(3)
+                .build();
+
+        tokenizer.tokenize("Ali geldi.");
+        final ConcurrentTokenizerStats stats = tokenizer.getConcurrentStats();
+        // no rules at all
+        assertThat(stats.getMissingRuleCount(), equalTo(stats.getBoundaryCount()));
+        assertThat(stats.getMissingRuleExamples(), hasSize(3));
+
+        for (int i = 0; i < 100; i++) {
+            tokenizer.tokenize("Ali geldi, Veli gitti.");
+        }
+        assertThat(stats.getMissingRuleExamples(), hasSize(3));
+        assertThat(stats.buildSortedSuccessMap().size(), equalTo(0));
+        assertThat(stats.buildSortedMissingRuleMap().size(), greaterThan(3));
+
+        final TextTokenizer withoutExamples = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(new TokenizationGraph(false))
+                .recordConcurrentStats(0)
+                .build();
+        withoutExamples.tokenize("Ali geldi.");
+        assertThat(withoutExamples.getConcurrentStats().getMissingRuleExamples(), hasSize(0));
+        assertThat(withoutExamples.getConcurrentStats().getMissingRuleCount(), greaterThan(0L));
+    }
+}
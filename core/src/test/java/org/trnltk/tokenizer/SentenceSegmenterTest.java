@@ -0,0 +1,121 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+public class SentenceSegmenterTest {
+
+    private TextTokenizer tokenizer;
+    private SentenceSegmenter segmenter;
+
+    @Before
+    public void setUp() {
+        tokenizer = TextTokenizer.createDefaultTextTokenizer();
+        segmenter = new SentenceSegmenter();
+    }
+
+    @Test
+    public void shouldSplitAtSentenceEnds() {
+        assertSentences("Ali geldi. Veli gitti! Ne oldu? Bilmem",
+                "Ali geldi.", "Veli gitti!", "Ne oldu?", "Bilmem");
+        assertSentences("Ali geldi.  Veli   gitti.", "Ali geldi.", "Veli   gitti.");
+        assertSentences("Ali geldi!.. Veli gitti?.. Sonra", "Ali geldi!..", "Veli gitti?..", "Sonra");
+    }
+
+    @Test
+    public void shouldNotSplitAtAbbreviationsAndOrdinals() {
+        assertSentences("Yrd. Doç. Ali geldi. Prof. Dr. Veli de geldi.", "Yrd. Doç. Ali geldi.", "Prof. Dr. Veli de geldi.");
+        assertSentences("Yarışmada 3. oldu. Sonra gitti.", "Yarışmada 3. oldu.", "Sonra gitti.");
+        assertSentences("Yarışmaya 1987 yılında 3. kez katıldı.", "Yarışmaya 1987 yılında 3. kez katıldı.");
+    }
+
+    @Test
+    public void shouldSplitAtEllipsisOnlyBeforeCapitalizedWord() {
+        assertSentences("Bekledim... ve geldi. Sonra... Ali gitti.", "Bekledim... ve geldi.", "Sonra...", "Ali gitti.");
+    }
+
+    @Test
+    public void shouldIncludeClosingQuotesAndParentheses() {
+        assertSentences("\"Geldim.\" dedi. \"Gittim.\" Sonra", "\"Geldim.\"", "dedi.", "\"Gittim.\"", "Sonra");
+        assertSentences("(Geldim.) Sonra gittim.", "(Geldim.)", "Sonra gittim.");
+    }
+
+    @Test
+    public void shouldSplitAtEmptyLines() {
+        final String text = "Başlık\n\nAli geldi. Veli\ngitti.";
+        final List<Sentence> sentences = segmenter.segment(text, tokenizer.tokenize(text));
+        assertThat(sentences, hasSize(3));
+        assertThat(sentences.get(0).getText(), equalTo("Başlık"));
+        assertThat(sentences.get(1).getText(), equalTo("Ali geldi."));
+        assertThat(sentences.get(2).getText(), equalTo("Veli\ngitti."));
+        // tokens joined over the line breaks are split
+        assertThat(surfaces(sentences.get(0).getTokens()), equalTo(Arrays.asList("Başlık")));
+        assertThat(surfaces(sentences.get(1).getTokens()), equalTo(Arrays.asList("Ali", "geldi", ".")));
+        assertThat(surfaces(sentences.get(2).getTokens()), equalTo(Arrays.asList("Veli", "gitti.")));
+
+        assertSentences("Ali geldi.\nVeli gitti.", "Ali geldi.", "Veli gitti.");
+    }
+
+    @Test
+    public void shouldHaveOffsetsInText() {
+        final String text = "  Ali geldi.   Veli gitti.  ";
+        final List<Sentence> sentences = segmenter.segment(text, tokenizer.tokenize(text));
+        assertThat(sentences, hasSize(2));
+        assertThat(sentences.get(0).getStartOffset(), equalTo(2));
+        assertThat(sentences.get(0).getEndOffset(), equalTo(12));
+        assertThat(sentences.get(1).getStartOffset(), equalTo(15));
+        assertThat(sentences.get(1).getEndOffset(), equalTo(26));
+        assertThat(surfaces(sentences.get(1).getTokens()), equalTo(Arrays.asList("Veli", "gitti", ".")));
+    }
+
+    @Test
+    public void shouldHandleEmptyText() {
+        assertThat(segmenter.segment("", tokenizer.tokenize("")), hasSize(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptTokensOfAnotherText() {
+        segmenter.segment("Ali geldi.", tokenizer.tokenize("Veli gitti."));
+    }
+
+    private void assertSentences(String text, String... expectedSentences) {
+        final List<String> sentenceTexts = new ArrayList<String>();
+        for (Sentence sentence : segmenter.segment(text, tokenizer.tokenize(text))) {
+            assertThat(text.substring(sentence.getStartOffset(), sentence.getEndOffset()), equalTo(sentence.getText()));
+            sentenceTexts.add(sentence.getText());
+        }
+        assertThat(sentenceTexts, equalTo(Arrays.asList(expectedSentences)));
+    }
+
+    private static List<String> surfaces(List<Token> tokens) {
+        final List<String> surfaces = new ArrayList<String>();
+        for (Token token : tokens) {
+            surfaces.add(token.getSurface());
+        }
+        return surfaces;
+    }
+}
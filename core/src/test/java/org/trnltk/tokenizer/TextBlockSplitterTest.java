@@ -16,13 +16,19 @@
 
 package org.trnltk.tokenizer;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.trnltk.tokenizer.TextBlock;
 import org.trnltk.tokenizer.TextBlockSplitter;
 import org.trnltk.tokenizer.TextBlockType;
 
+import java.io.IOException;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -112,4 +118,76 @@ public class TextBlockSplitterTest {
             assertThat(textBlocks.get(6), equalTo(new TextBlock("MMMM", TextBlockType.Roman_Numeral)));
         }
     }
+
+    @Test
+    public void shouldPointToOffsetsInOriginalText() throws Exception {
+        final String text = "  Ahmet'in 12. kitabı...";
+        final LinkedList<TextBlock> textBlocks = splitter.splitToTextParts(text);
+        for (TextBlock textBlock : textBlocks) {
+            assertThat(text.substring(textBlock.getStartOffset(), textBlock.getEndOffset()), equalTo(textBlock.getText()));
+        }
+        assertThat(textBlocks.getFirst(), equalTo(new TextBlock(" ", TextBlockType.Space)));
+        assertThat(textBlocks.get(1).getStartOffset(), equalTo(1));
+        assertThat(textBlocks.getLast().getEndOffset(), equalTo(text.length()));
+    }
+
+    @Test
+    public void shouldSplitSameAsRegexRulesForCorpus() throws IOException {
+        final List<String> lines = Resources.readLines(Resources.getResource("tokenizer/tbmm_b0241h_lines.txt"), Charsets.UTF_8);
+        for (String line : lines) {
+            assertThat(line, splitter.splitToTextParts(line), equalTo(splitWithRegexRules(line)));
+        }
+    }
+
+    @Test
+    public void shouldSplitSameAsRegexRulesForRandomText() {
+        final String alphabet = "aAbCDIiıİLMVXxçÇğŞ019 .,;:!?\"'-_()/%\t\n\r\u000B\u00a0\u2013\u2014+=<\u00a9\u00bb\u00ab\u2026\u00bf" +
+                "\u02b0\u01c5\u4e2d";
+        final String[] words = {"vb.", "Gnkur.", "Kur.", "Dr.", "VIII", "MMMM", "CMXC", "IV.", "...", "!..", "?..", "\ud83d\ude00", "\ud835\udc00"};
+        final Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            final StringBuilder builder = new StringBuilder();
+            final int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                if (random.nextInt(4) == 0)
+                    builder.append(words[random.nextInt(words.length)]);
+                else
+                    builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            final String text = builder.toString();
+            List<TextBlock> expected;
+            try {
+                expected = splitWithRegexRules(text);
+            } catch (IllegalArgumentException e) {
+                expected = null;
+            }
+
+            try {
+                assertThat(text, splitter.splitToTextParts(text), equalTo(expected));
+            } catch (IllegalArgumentException e) {
+                assertThat("Regex rules should have failed for " + text, expected == null);
+            }
+        }
+    }
+
+    // the previous implementation, which tries the regex rules of each type in order
+    private static List<TextBlock> splitWithRegexRules(String text) {
+        final LinkedList<TextBlock> textBlocks = new LinkedList<TextBlock>();
+        while (StringUtils.isNotBlank(text)) {
+            boolean foundOneClass = false;
+            for (TextBlockType textBlockType : TextBlockType.PHYSICAL_TYPES) {
+                final String matchedStr = textBlockType.findMatchFromBeginning(text);
+                if (matchedStr != null) {
+                    textBlocks.add(new TextBlock(matchedStr, textBlockType));
+                    text = text.substring(matchedStr.length());
+                    foundOneClass = true;
+                    break;
+                }
+            }
+            if (!foundOneClass)
+                throw new IllegalArgumentException("Text is not matched with any of the classes: \"" + text + "\"");
+        }
+        return textBlocks;
+    }
 }
@@ -16,18 +16,24 @@
 
 package org.trnltk.tokenizer;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.trnltk.testutil.RegexMatcher;
 
+import java.io.FilterReader;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -271,6 +277,194 @@ public class TextTokenizerTest {
         }
     }
 
+    @Test
+    public void streamingTokenizationShouldBeSameAsTokenizingWholeText() throws IOException {
+        final TextTokenizer nonStrictTokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(tokenizer.getGraph())
+                .recordStats()
+                .build();
+        final TextTokenizer streamingTokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(tokenizer.getGraph())
+                .recordStats()
+                .build();
+
+        final String text = Resources.toString(Resources.getResource("tokenizer/tbmm_b0241h.txt"), Charsets.UTF_8);
+        final List<String> expectedTokens = toStrings(nonStrictTokenizer.tokenize(text));
+
+        final List<Token> tokens = new ArrayList<Token>();
+        streamingTokenizer.tokenize(new ShortReader(new StringReader(text), 7), new TokenHandler() {
+            @Override
+            public void handle(Token token) {
+                tokens.add(token);
+            }
+        });
+
+        assertThat(toStrings(tokens), equalTo(expectedTokens));
+        assertThat(streamingTokenizer.getStats().buildSortedFailMap(), equalTo(nonStrictTokenizer.getStats().buildSortedFailMap()));
+        assertThat(streamingTokenizer.getStats().buildSortedSuccessMap(), equalTo(nonStrictTokenizer.getStats().buildSortedSuccessMap()));
+    }
+
+    @Test
+    public void streamingTokenizationShouldBeSameAsTokenizingWholeTextForRandomTexts() throws IOException {
+        final TextTokenizer nonStrictTokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(tokenizer.getGraph())
+                .build();
+
+        final String[] parts = {" ", "  ", "\n", "\t", ".", "...", "?..", "dil b.", "Dr.", "Gnkur.", "vb.", "XIV", "1987", "5.",
+                "'", "\"", "(", ")", ",", "ABD", "Ankara", "elma", "\u00e7i\u011fdem", "\u2019", "\u00a9", "$", "\u2014", "-"};
+        final Random random = new Random(1L);
+        for (int i = 0; i < 300; i++) {
+            final StringBuilder builder = new StringBuilder();
+            final int numberOfParts = random.nextInt(40);
+            for (int j = 0; j < numberOfParts; j++) {
+                builder.append(parts[random.nextInt(parts.length)]);
+            }
+            final String text = builder.toString();
+
+            final List<String> expectedTokens = toStrings(nonStrictTokenizer.tokenize(text));
+            final List<String> tokens = toStrings(Lists.newArrayList(nonStrictTokenizer.tokenIterator(new ShortReader(new StringReader(text), 1 + random.nextInt(10)))));
+            assertThat("Text: '" + text + "'", tokens, equalTo(expectedTokens));
+        }
+    }
+
+    @Test
+    public void parallelTokenizationShouldBeSameAsSequentialTokenization() throws Exception {
+        final TextTokenizer sequentialTokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(tokenizer.getGraph())
+                .recordStats()
+                .build();
+        final TextTokenizer parallelTokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(tokenizer.getGraph())
+                .recordStats()
+                .build();
+
+        final String text = Resources.toString(Resources.getResource("tokenizer/tbmm_b0241h.txt"), Charsets.UTF_8);
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            final List<String> expectedTokens = toStrings(sequentialTokenizer.tokenize(text));
+            for (int chunkSize : new int[]{1, 100, 5000, text.length() * 2}) {
+                assertThat(toStrings(parallelTokenizer.tokenize(text, executorService, chunkSize)), equalTo(expectedTokens));
+            }
+            sequentialTokenizer.tokenize(text);
+            sequentialTokenizer.tokenize(text);
+            sequentialTokenizer.tokenize(text);
+            assertThat(parallelTokenizer.getStats().buildSortedFailMap(), equalTo(sequentialTokenizer.getStats().buildSortedFailMap()));
+            assertThat(parallelTokenizer.getStats().buildSortedSuccessMap(), equalTo(sequentialTokenizer.getStats().buildSortedSuccessMap()));
+
+            final String[] parts = {" ", "\n", "\r\n", "\n\n", ".", "...", "dil b.", "Dr.", "XIV", "1987", "5.", "'", "\"", "(", ")",
+                    ",", "ABD", "elma", "\u2019", "$", "-"};
+            final Random random = new Random(1L);
+            for (int i = 0; i < 300; i++) {
+                final StringBuilder builder = new StringBuilder();
+                final int numberOfParts = random.nextInt(60);
+                for (int j = 0; j < numberOfParts; j++) {
+                    builder.append(parts[random.nextInt(parts.length)]);
+                }
+                final String randomText = builder.toString();
+                assertThat("Text: '" + randomText + "'", toStrings(parallelTokenizer.tokenize(randomText, executorService, 1 + random.nextInt(20))),
+                        equalTo(toStrings(sequentialTokenizer.tokenize(randomText))));
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldTokenizeToStreamWithOffsets() {
+        final TextTokenizer nonStrictTokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(tokenizer.getGraph())
+                .build();
+
+        final String text = "  Ali'ye  \"kitap\"   verdim.  ";
+        final TokenStream tokenStream = nonStrictTokenizer.tokenizeToStream(text);
+
+        assertThat(tokenStream.size(), equalTo(4));
+        assertThat(tokenStream.getSurface(0), equalTo("Ali'ye"));
+        assertThat(tokenStream.getStartOffset(0), equalTo(2));
+        assertThat(tokenStream.getEndOffset(0), equalTo(8));
+        assertThat(tokenStream.getSurface(1), equalTo("\"kitap\""));
+        assertThat(tokenStream.getStartOffset(1), equalTo(10));
+        assertThat(tokenStream.getEndOffset(1), equalTo(17));
+        assertThat(tokenStream.getSurface(2), equalTo("verdim"));
+        assertThat(tokenStream.getStartOffset(2), equalTo(20));
+        assertThat(tokenStream.getEndOffset(2), equalTo(26));
+        assertThat(tokenStream.getBlockCount(0), equalTo(3));
+        assertThat(tokenStream.getBlockType(0, 1), equalTo(TextBlockType.Apostrophe));
+        assertThat(tokenStream.getTextBlockTypes(3), equalTo(Arrays.asList(TextBlockType.Dot, TextBlockType.Sentence_End)));
+
+        final Token token = tokenStream.getToken(2);
+        assertThat(token.getSurface(), equalTo("verdim"));
+        assertThat(token.getStartOffset(), equalTo(20));
+        assertThat(token.getEndOffset(), equalTo(26));
+        assertThat(new Token("verdim", Arrays.asList(TextBlockType.Word)).getStartOffset(), equalTo(-1));
+
+        assertThat(nonStrictTokenizer.tokenizeToStream("").size(), equalTo(0));
+        assertThat(nonStrictTokenizer.tokenizeToStream(" \n ").size(), equalTo(0));
+    }
+
+    @Test
+    public void streamTokensShouldBeSameAsTokenObjectsForRandomTexts() {
+        final TextTokenizer nonStrictTokenizer = TextTokenizer.newBuilder()
+                .blockSize(2)
+                .graph(tokenizer.getGraph())
+                .build();
+
+        final String[] parts = {" ", "  ", "   ", "\n", "\n  ", "\t", ".", "...", "dil b.", "Dr.", "Yrd.  Do\u00e7.", "XIV", "1987",
+                "5.", "'", "\"", "(", ")", ",", "ABD", "elma", "\u2019", "$", "-"};
+        final Random random = new Random(1L);
+        for (int i = 0; i < 300; i++) {
+            final StringBuilder builder = new StringBuilder();
+            final int numberOfParts = random.nextInt(40);
+            for (int j = 0; j < numberOfParts; j++) {
+                builder.append(parts[random.nextInt(parts.length)]);
+            }
+            final String text = builder.toString();
+
+            final TokenStream tokenStream = nonStrictTokenizer.tokenizeToStream(text);
+            final List<String> expectedTokens = toStrings(Lists.newArrayList(nonStrictTokenizer.tokenIterator(new StringReader(text))));
+            assertThat("Text: '" + text + "'", toStrings(tokenStream.asTokenList()), equalTo(expectedTokens));
+
+            int previousEnd = 0;
+            for (int j = 0; j < tokenStream.size(); j++) {
+                assertThat(tokenStream.getStartOffset(j), greaterThanOrEqualTo(previousEnd));
+                previousEnd = tokenStream.getEndOffset(j);
+                final String sourceText = text.substring(tokenStream.getStartOffset(j), tokenStream.getEndOffset(j));
+                assertThat("Text: '" + text + "'", sourceText.replaceAll("  +", " "), equalTo(tokenStream.getSurface(j)));
+            }
+        }
+    }
+
+    private static List<String> toStrings(List<Token> tokens) {
+        final List<String> strings = new ArrayList<String>();
+        for (Token token : tokens) {
+            strings.add(token.getSurface() + " " + token.getTextBlockTypes());
+        }
+        return strings;
+    }
+
+    /**
+     * Returns at most the given number of chars on each read, so that chunk boundaries fall everywhere.
+     */
+    private static class ShortReader extends FilterReader {
+        private final int maxLength;
+
+        private ShortReader(Reader in, int maxLength) {
+            super(in);
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, maxLength));
+        }
+    }
+
     private static Iterable<String> getSurfaces(LinkedList<Token> tokens) {
         return Iterables.transform(tokens, new Function<Token, String>() {
             @Override
@@ -0,0 +1,145 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import com.google.common.collect.Iterators;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.trnltk.tokenizer.data.TokenizerTrainingData;
+import org.trnltk.tokenizer.data.TokenizerTrainingEntry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TextTokenizerTrainerTest {
+
+    @Test
+    public void incrementalTrainingShouldBuildSameGraph() throws IOException {
+        final List<TokenizerTrainingEntry> entries = TokenizerTrainingData.createDefaultTrainingData().getEntries();
+
+        final TextTokenizerTrainer trainer = new TextTokenizerTrainer(2, false);
+        for (TokenizerTrainingEntry entry : entries) {
+            trainer.train(entry.getText(), entry.getTknz());
+        }
+
+        final TextTokenizerTrainer firstHalfTrainer = new TextTokenizerTrainer(2, false);
+        for (TokenizerTrainingEntry entry : entries.subList(0, entries.size() / 2)) {
+            firstHalfTrainer.train(entry.getText(), entry.getTknz());
+        }
+        final TextTokenizerTrainer incrementalTrainer = new TextTokenizerTrainer(2, firstHalfTrainer.build());
+        for (TokenizerTrainingEntry entry : entries.subList(entries.size() / 2, entries.size())) {
+            assertThat(incrementalTrainer.trainIfConsistent(entry.getText(), entry.getTknz()), hasSize(0));
+        }
+
+        assertThat(incrementalTrainer.build(), sameInstance(firstHalfTrainer.build()));
+        assertThat(toBytes(incrementalTrainer.build()), equalTo(toBytes(trainer.build())));
+    }
+
+    @Test
+    public void shouldReportConflictsWithoutChangingGraph() throws IOException {
+        final TextTokenizerTrainer trainer = new TextTokenizerTrainer(2, true);
+        trainer.train("Ali geldi.", "Ali geldi .");
+        final byte[] graphBytes = toBytes(trainer.build());
+
+        final List<TokenizationRuleConflict> conflicts = trainer.trainIfConsistent("Veli gitti.", "Veli gitti.");
+        assertThat(conflicts, hasSize(1));
+        final TokenizationRuleConflict conflict = conflicts.get(0);
+        assertThat(conflict.getRightTextBlockTypeGroup().getTextBlockTypes().get(0), equalTo(TextBlockType.Dot));
+        assertThat(conflict.isExistingAddSpace(), equalTo(true));
+        assertThat(conflict.isExistingInferred(), equalTo(false));
+        assertThat(conflict.isInferred(), equalTo(false));
+        assertThat(conflict.getExistingExamples(), hasSize(1));
+        assertThat(toBytes(trainer.build()), equalTo(graphBytes));
+
+        // a rule inferred from "Ali" conflicts with the one of "AL\u0130"
+        final TextTokenizerTrainer inferringTrainer = new TextTokenizerTrainer(2, false);
+        inferringTrainer.train("AL\u0130.", "AL\u0130.");
+        final List<TokenizationRuleConflict> inferredConflicts = inferringTrainer.trainIfConsistent("Ali.", "Ali .");
+        assertThat(inferredConflicts, hasSize(1));
+        assertThat(inferredConflicts.get(0).isInferred(), equalTo(true));
+        assertThat(inferredConflicts.get(0).isExistingInferred(), equalTo(false));
+        assertThat(inferredConflicts.get(0).getLeftTextBlockTypeGroup().getTextBlockTypes().get(1), equalTo(TextBlockType.AllCaps_Word));
+    }
+
+    @Test
+    public void shouldOverwriteInferredRulesWithExamples() {
+        final TextTokenizerTrainer trainer = new TextTokenizerTrainer(2, false);
+        trainer.train("Ali.", "Ali .");
+        final TextTokenizerTrainer strictTrainer = new TextTokenizerTrainer(2, false);
+        strictTrainer.train("Ali.", "Ali .");
+
+        // inferred rule for AllCaps_Word is not overwritten if it is not allowed
+        final List<TokenizationRuleConflict> conflicts = strictTrainer.trainIfConsistent("AL\u0130.", "AL\u0130.", false);
+        assertThat(conflicts, hasSize(1));
+        assertThat(conflicts.get(0).isExistingInferred(), equalTo(true));
+        assertThat(conflicts.get(0).isExistingAddSpace(), equalTo(true));
+        assertThat(conflicts.get(0).isInferred(), equalTo(false));
+        assertThat(conflicts.get(0).getLeftTextBlockTypeGroup().getTextBlockTypes().get(1), equalTo(TextBlockType.AllCaps_Word));
+        // same decision is not a conflict
+        assertThat(strictTrainer.trainIfConsistent("AL\u0130.", "AL\u0130 .", false), hasSize(0));
+
+        // inferred rule for AllCaps_Word is overwritten by the example
+        assertThat(trainer.trainIfConsistent("AL\u0130.", "AL\u0130."), hasSize(0));
+
+        final TextTokenizer tokenizer = TextTokenizer.newBuilder().blockSize(2).graph(trainer.build()).strict().build();
+        assertThat(tokenizer.tokenize("AL\u0130.").get(0).getSurface(), equalTo("AL\u0130."));
+        assertThat(tokenizer.tokenize("Ali.").get(0).getSurface(), equalTo("Ali"));
+    }
+
+    @Test
+    public void tokenizerShouldUseRulesTrainedAfterItIsCreated() {
+        final TextTokenizerTrainer trainer = new TextTokenizerTrainer(2, false);
+        trainer.train("Ali geldi.", "Ali geldi .");
+        final TextTokenizer tokenizer = TextTokenizer.newBuilder().blockSize(2).graph(trainer.build()).recordConcurrentStats(0).build();
+        final int graphVersion = tokenizer.compiledGraph.getGraphVersion();
+
+        assertThat(tokenizer.tokenize("(Ali)").get(0).getSurface(), equalTo("(Ali)"));
+        assertThat(tokenizer.getConcurrentStats().getMissingRuleCount(), greaterThan(0L));
+
+        trainer.train("(Ali)", "( Ali )");
+        assertThat(tokenizer.tokenize("(Ali)").get(0).getSurface(), equalTo("("));
+        assertThat(tokenizer.compiledGraph.getGraphVersion(), greaterThan(graphVersion));
+        // stats are of the new rules
+        assertThat(tokenizer.getConcurrentStats().buildSortedMissingRuleMap().isEmpty(), equalTo(true));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void tokenizerShouldDetectTrainingDuringTokenization() {
+        final TextTokenizerTrainer trainer = new TextTokenizerTrainer(2, false);
+        trainer.train("Ali geldi.", "Ali geldi .");
+        final TextTokenizer tokenizer = TextTokenizer.newBuilder().blockSize(2).graph(trainer.build()).build();
+
+        // longer than the blocks read ahead
+        final Iterator<Token> tokens = tokenizer.tokenIterator(new StringReader(StringUtils.repeat("Ali geldi.", " ", 20)));
+        tokens.next();
+        trainer.train("(Ali)", "( Ali )");
+        Iterators.size(tokens);
+    }
+
+    private static byte[] toBytes(TokenizationGraph graph) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TokenizationGraphSerializer.write(graph, 0L, outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.tokenizer;
+
+import com.google.common.io.Resources;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TokenizationGraphSerializerTest {
+    private static TokenizationGraph trainedGraph;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        trainedGraph = TextTokenizerTrainer.buildDefaultTokenizationGraph(false);
+    }
+
+    @Test
+    public void shouldReadWrittenGraph() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TokenizationGraphSerializer.write(trainedGraph, 42L, outputStream);
+
+        final TokenizationGraph graph = TokenizationGraphSerializer.read(new ByteArrayInputStream(outputStream.toByteArray()), 42L);
+        assertSameGraph(graph, trainedGraph);
+    }
+
+    @Test
+    public void shouldNotReadGraphOfOtherData() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        TokenizationGraphSerializer.write(trainedGraph, 42L, outputStream);
+
+        assertThat(TokenizationGraphSerializer.read(new ByteArrayInputStream(outputStream.toByteArray()), 43L), nullValue());
+    }
+
+    @Test
+    public void savedDefaultGraphShouldBeUpToDate() throws IOException {
+        final InputStream inputStream = Resources.getResource(TokenizationGraphSerializer.DEFAULT_GRAPH_RESOURCE).openStream();
+        try {
+            final TokenizationGraph graph = TokenizationGraphSerializer.read(inputStream, TokenizationGraphSerializer.getDefaultTrainingDataChecksum());
+            assertThat("Saved graph is stale, run 'mvn -pl core -P tokenizationGraph process-classes'", graph, notNullValue());
+            assertSameGraph(graph, trainedGraph);
+        } finally {
+            inputStream.close();
+        }
+
+        assertSameGraph(TokenizationGraphSerializer.loadDefaultTokenizationGraph(), trainedGraph);
+    }
+
+    private static void assertSameGraph(TokenizationGraph actual, TokenizationGraph expected) {
+        assertThat(actual.nodeMap.keySet(), equalTo(expected.nodeMap.keySet()));
+        for (TokenizationGraphNode expectedNode : expected.nodeMap.values()) {
+            final TokenizationGraphNode actualNode = actual.nodeMap.get(expectedNode.getData());
+            assertThat(toStrings(actualNode.edges), equalTo(toStrings(expectedNode.edges)));
+        }
+    }
+
+    private static Map<TextBlockTypeGroup, String> toStrings(Map<TextBlockTypeGroup, TokenizationGraphEdge> edges) {
+        final Map<TextBlockTypeGroup, String> map = new HashMap<TextBlockTypeGroup, String>();
+        for (Map.Entry<TextBlockTypeGroup, TokenizationGraphEdge> entry : edges.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().toString());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.util;
+
+import com.google.common.base.Charsets;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.trnltk.model.ambiguity.morphology.ParseResult;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.ambiguity.ParseResultReader;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.formbased.ContextlessMorphologicParserBuilder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class StreamingMorphemeContainerFormatterTest {
+
+    private static final List<String> WORDS = Arrays.asList("kitaba", "yaptırtmayı", "üzümlüktekiler", "bu", "3'üncü", "Ali'ye", "ne", "gibi");
+
+    private MorphologicParser parser;
+
+    @Before
+    public void setUp() throws Exception {
+        this.parser = ContextlessMorphologicParserBuilder.newBuilder().build(true);
+    }
+
+    @Test
+    public void shouldFormatSameAsMorphemeContainerFormatter() throws IOException {
+        for (String word : WORDS) {
+            for (MorphemeContainer morphemeContainer : parser.parse(new TurkishSequence(word))) {
+                {
+                    final StringBuilder builder = new StringBuilder();
+                    StreamingMorphemeContainerFormatter.formatMorphemeContainer(morphemeContainer, builder);
+                    assertThat(builder.toString(), equalTo(MorphemeContainerFormatter.formatMorphemeContainer(morphemeContainer)));
+                }
+                {
+                    final StringWriter writer = new StringWriter();
+                    StreamingMorphemeContainerFormatter.formatMorphemeContainerWithForms(morphemeContainer, writer);
+                    assertThat(writer.toString(), equalTo(MorphemeContainerFormatter.formatMorphemeContainerWithForms(morphemeContainer)));
+                }
+                {
+                    final StringBuilder builder = new StringBuilder();
+                    StreamingMorphemeContainerFormatter.formatMorphemeContainerWithDerivationGrouping(morphemeContainer, true, builder);
+                    assertThat(builder.toString(), equalTo(MorphemeContainerFormatter.formatMorphemeContainerWithDerivationGrouping(morphemeContainer, true)));
+                }
+                {
+                    final StringBuilder builder = new StringBuilder();
+                    StreamingMorphemeContainerFormatter.formatMorphemeContainerWithDerivationGrouping(morphemeContainer, false, builder);
+                    assertThat(builder.toString(), equalTo(MorphemeContainerFormatter.formatMorphemeContainerWithDerivationGrouping(morphemeContainer, false)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldFormatDetailedInParseResultReaderSchema() throws JSONException {
+        final ParseResultReader parseResultReader = new ParseResultReader();
+        for (String word : WORDS) {
+            for (MorphemeContainer morphemeContainer : parser.parse(new TurkishSequence(word))) {
+                final StringBuilder builder = new StringBuilder();
+                StreamingMorphemeContainerFormatter.formatMorphemeContainerDetailed(morphemeContainer, builder);
+
+                final String expected = MorphemeContainerFormatter.formatMorphemeContainerDetailed(morphemeContainer);
+                // key order is different, but the content must be the same
+                assertThat(new JSONObject(builder.toString()).toString(), equalTo(new JSONObject(expected).toString()));
+
+                final ParseResult parseResult = parseResultReader.createParseResultObject(builder.toString());
+                final ParseResult expectedParseResult = parseResultReader.createParseResultObject(expected);
+                assertThat(parseResult.getRoot(), equalTo(expectedParseResult.getRoot()));
+                assertThat(parseResult.getLemmaRoot(), equalTo(expectedParseResult.getLemmaRoot()));
+                assertThat(parseResult.getParts(), equalTo(expectedParseResult.getParts()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldFormatIntoByteBuffer() {
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(4096);
+        for (String word : WORDS) {
+            for (MorphemeContainer morphemeContainer : parser.parse(new TurkishSequence(word))) {
+                byteBuffer.clear();
+                StreamingMorphemeContainerFormatter.formatMorphemeContainerWithForms(morphemeContainer, byteBuffer);
+                assertThat(decode(byteBuffer), equalTo(MorphemeContainerFormatter.formatMorphemeContainerWithForms(morphemeContainer)));
+
+                byteBuffer.clear();
+                StreamingMorphemeContainerFormatter.formatMorphemeContainerDetailed(morphemeContainer, byteBuffer);
+                final StringBuilder builder = new StringBuilder();
+                StreamingMorphemeContainerFormatter.formatMorphemeContainerDetailed(morphemeContainer, builder);
+                assertThat(decode(byteBuffer), equalTo(builder.toString()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRestorePositionWhenByteBufferOverflows() {
+        final MorphemeContainer morphemeContainer = parser.parse(new TurkishSequence("yaptırtmayı")).get(0);
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(16);
+        byteBuffer.put((byte) 'x');
+        try {
+            StreamingMorphemeContainerFormatter.formatMorphemeContainer(morphemeContainer, byteBuffer);
+            throw new AssertionError("Should have overflown");
+        } catch (BufferOverflowException e) {
+            assertThat(byteBuffer.position(), equalTo(1));
+        }
+    }
+
+    private static String decode(ByteBuffer byteBuffer) {
+        return new String(byteBuffer.array(), 0, byteBuffer.position(), Charsets.UTF_8);
+    }
+}
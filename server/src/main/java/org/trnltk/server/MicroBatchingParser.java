@@ -0,0 +1,303 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.server;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces single word parse requests coming from different threads into micro-batches and hands them to
+ * {@link MorphologicParser#parseAllStr(java.util.List)} of the delegate.
+ * <p/>
+ * A batch is closed when it has {@code maxBatchSize} words or when {@code maxBatchDelayMillis} passed after the first
+ * word of the batch arrived. Same words in a batch are parsed only once.
+ * <p/>
+ * Backpressure is applied in two steps: at most {@code maxBatchesInFlight} batches are parsed at the same time and
+ * when they are all busy, pending words wait in a bounded queue. When that queue is full, new words are rejected with a
+ * {@link RejectedExecutionException} so that the caller can tell its client to come back later.
+ * <p/>
+ * The delegate is expected to be thread safe when {@code maxBatchesInFlight} is greater than 1.
+ */
+public class MicroBatchingParser {
+    private static Logger logger = Logger.getLogger(MicroBatchingParser.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final MorphologicParser delegate;
+    private final Executor parseExecutor;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+    private final BlockingQueue<PendingParse> pendingParses;
+    private final Semaphore batchesInFlight;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong wordCount = new AtomicLong();
+    private final AtomicLong uniqueWordCount = new AtomicLong();
+    private final AtomicLong rejectedWordCount = new AtomicLong();
+
+    private volatile boolean running;
+    // words can be submitted before start, but not after stop
+    private volatile boolean stopped;
+    private Thread batchingThread;
+
+    /**
+     * @param delegate            Parser to hand batches to. Should be a caching parser to get the most out of batching
+     * @param parseExecutor       Executor to run batch parses on
+     * @param maxBatchSize        Max number of words in a batch
+     * @param maxBatchDelayMillis Max time to wait for other words to fill a batch after first word arrives
+     * @param maxPendingWords     Max number of words waiting for a batch. Words are rejected after that
+     * @param maxBatchesInFlight  Max number of batches being parsed at the same time
+     */
+    public MicroBatchingParser(MorphologicParser delegate, Executor parseExecutor, int maxBatchSize, long maxBatchDelayMillis,
+                               int maxPendingWords, int maxBatchesInFlight) {
+        Validate.notNull(delegate);
+        Validate.notNull(parseExecutor);
+        Validate.isTrue(maxBatchSize > 0, "Max batch size must be positive");
+        Validate.isTrue(maxBatchDelayMillis >= 0, "Max batch delay cannot be negative");
+        Validate.isTrue(maxPendingWords > 0, "Max pending words must be positive");
+        Validate.isTrue(maxBatchesInFlight > 0, "Max batches in flight must be positive");
+
+        this.delegate = delegate;
+        this.parseExecutor = parseExecutor;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMillis);
+        this.pendingParses = new ArrayBlockingQueue<PendingParse>(maxPendingWords);
+        this.batchesInFlight = new Semaphore(maxBatchesInFlight);
+    }
+
+    public synchronized void start() {
+        Validate.isTrue(this.batchingThread == null, "Already started");
+        this.running = true;
+        this.stopped = false;
+        this.batchingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runBatches();
+            }
+        }, "trnltk-micro-batcher");
+        this.batchingThread.setDaemon(true);
+        this.batchingThread.start();
+    }
+
+    public synchronized void stop() {
+        this.running = false;
+        this.stopped = true;
+        if (this.batchingThread != null) {
+            this.batchingThread.interrupt();
+            try {
+                this.batchingThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.batchingThread = null;
+        }
+    }
+
+    /**
+     * Queues the word for the next batch.
+     *
+     * @throws RejectedExecutionException if there are too many words waiting already or the parser is stopped
+     */
+    public ListenableFuture<List<MorphemeContainer>> submit(String word) {
+        Validate.notNull(word);
+        if (this.stopped)
+            throw new RejectedExecutionException("Parser is stopped");
+
+        final PendingParse pendingParse = new PendingParse(word);
+        if (!this.pendingParses.offer(pendingParse)) {
+            this.rejectedWordCount.incrementAndGet();
+            throw new RejectedExecutionException("Too many words waiting to be parsed");
+        }
+
+        // parser might be stopped after the check above. if the batching thread did not take the word before it
+        // stopped, nobody will
+        if (this.stopped && this.pendingParses.remove(pendingParse))
+            throw new RejectedExecutionException("Parser is stopped");
+
+        return pendingParse.future;
+    }
+
+    /**
+     * Queues all words. Returned future completes when all words are parsed; results are in words' order.
+     * <p/>
+     * If some of the words cannot be queued, the ones already queued are still parsed but the returned future is
+     * never created; a {@link RejectedExecutionException} is thrown instead.
+     */
+    public ListenableFuture<List<List<MorphemeContainer>>> submitAll(List<String> words) {
+        final List<ListenableFuture<List<MorphemeContainer>>> futures = new ArrayList<ListenableFuture<List<MorphemeContainer>>>(words.size());
+        for (String word : words) {
+            futures.add(this.submit(word));
+        }
+        return Futures.allAsList(futures);
+    }
+
+    private void runBatches() {
+        while (this.running) {
+            final List<PendingParse> batch = new ArrayList<PendingParse>(this.maxBatchSize);
+            try {
+                final PendingParse first = this.pendingParses.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+
+                batch.add(first);
+                this.fillBatch(batch);
+
+                // blocks when all parse slots are busy. pending words pile up in the meantime
+                this.batchesInFlight.acquire();
+            } catch (InterruptedException e) {
+                failAll(batch, new CancellationException("Parser is stopped"));
+                break;
+            }
+
+            try {
+                this.parseExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            parseBatch(batch);
+                        } finally {
+                            batchesInFlight.release();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                this.batchesInFlight.release();
+                failAll(batch, e);
+            }
+        }
+
+        final List<PendingParse> remaining = new ArrayList<PendingParse>();
+        this.pendingParses.drainTo(remaining);
+        failAll(remaining, new CancellationException("Parser is stopped"));
+    }
+
+    private void fillBatch(List<PendingParse> batch) throws InterruptedException {
+        final long deadline = System.nanoTime() + this.maxBatchDelayNanos;
+        while (batch.size() < this.maxBatchSize) {
+            this.pendingParses.drainTo(batch, this.maxBatchSize - batch.size());
+            if (batch.size() >= this.maxBatchSize)
+                return;
+
+            final long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0)
+                return;
+
+            final PendingParse next = this.pendingParses.poll(remainingNanos, TimeUnit.NANOSECONDS);
+            if (next == null)
+                return;
+
+            batch.add(next);
+        }
+    }
+
+    private void parseBatch(List<PendingParse> batch) {
+        // dedupe the words, but keep the order of first appearances
+        final Map<String, List<PendingParse>> pendingParsesByWord = new LinkedHashMap<String, List<PendingParse>>();
+        for (PendingParse pendingParse : batch) {
+            List<PendingParse> pendingParsesForWord = pendingParsesByWord.get(pendingParse.word);
+            if (pendingParsesForWord == null) {
+                pendingParsesForWord = new ArrayList<PendingParse>(1);
+                pendingParsesByWord.put(pendingParse.word, pendingParsesForWord);
+            }
+            pendingParsesForWord.add(pendingParse);
+        }
+
+        this.batchCount.incrementAndGet();
+        this.wordCount.addAndGet(batch.size());
+        this.uniqueWordCount.addAndGet(pendingParsesByWord.size());
+
+        final List<String> words = new ArrayList<String>(pendingParsesByWord.keySet());
+        final List<List<MorphemeContainer>> results;
+        try {
+            results = this.delegate.parseAllStr(words);
+        } catch (Throwable t) {
+            // errors are caught too, otherwise the futures of the batch are never completed and the requests hang
+            logger.error("Unable to parse batch of " + words.size() + " words", t);
+            failAll(batch, t);
+            return;
+        }
+
+        if (results == null || results.size() != words.size()) {
+            final String message = "Delegate returned " + (results == null ? "no" : String.valueOf(results.size())) +
+                    " results for " + words.size() + " words";
+            logger.error(message);
+            failAll(batch, new IllegalStateException(message));
+            return;
+        }
+
+        for (int i = 0; i < words.size(); i++) {
+            final List<MorphemeContainer> result = results.get(i);
+            for (PendingParse pendingParse : pendingParsesByWord.get(words.get(i))) {
+                pendingParse.future.set(result);
+            }
+        }
+    }
+
+    private static void failAll(List<PendingParse> pendingParses, Throwable throwable) {
+        for (PendingParse pendingParse : pendingParses) {
+            try {
+                pendingParse.future.setException(throwable);
+            } catch (Error e) {
+                // SettableFuture rethrows errors after setting them; rest of the futures must still be failed
+                if (e != throwable)
+                    throw e;
+            }
+        }
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getWordCount() {
+        return wordCount.get();
+    }
+
+    public long getUniqueWordCount() {
+        return uniqueWordCount.get();
+    }
+
+    public long getRejectedWordCount() {
+        return rejectedWordCount.get();
+    }
+
+    public int getPendingWordCount() {
+        return pendingParses.size();
+    }
+
+    private static class PendingParse {
+        private final String word;
+        private final SettableFuture<List<MorphemeContainer>> future;
+
+        private PendingParse(String word) {
+            this.word = word;
+            this.future = SettableFuture.create();
+        }
+    }
+}
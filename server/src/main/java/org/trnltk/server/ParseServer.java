@@ -0,0 +1,538 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.server;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.apache.log4j.Logger;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.cache.LRUMorphologicParserCache;
+import org.trnltk.morphology.contextless.parser.formbased.ContextlessMorphologicParserBuilder;
+import org.trnltk.tokenizer.TextTokenizer;
+import org.trnltk.tokenizer.Token;
+import org.trnltk.util.MorphemeContainerFormatter;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A standalone HTTP/1.1 server for tokenization and morphologic parsing. It does not need a servlet container; it runs
+ * on the HTTP server bundled with the JDK.
+ * <p/>
+ * Endpoints:
+ * <ul>
+ * <li><code>/parse</code> : Parses words given with <code>w</code> query parameters and/or the whitespace separated
+ * words in the request body. Optional <code>style</code> parameter is one of <code>plain</code> (default),
+ * <code>forms</code>, <code>grouping</code> and <code>detailed</code></li>
+ * <li><code>/tokenize</code> : Tokenizes the text given in the request body or with the <code>t</code> query parameter</li>
+ * <li><code>/stats</code> : Batching and admission statistics</li>
+ * </ul>
+ * Responses are compact JSON by default. Binary responses are written when <code>format=binary</code> parameter is
+ * given or the client accepts <code>application/octet-stream</code>. See {@link ResponseEncoder} for the formats.
+ * <p/>
+ * Words from concurrent requests are coalesced into micro-batches by a {@link MicroBatchingParser}.
+ * When too many requests are being served or too many words are waiting to be parsed, requests are answered with
+ * <code>503 Service Unavailable</code> right away instead of being queued without limit.
+ */
+public class ParseServer {
+    private static Logger logger = Logger.getLogger(ParseServer.class);
+
+    private static final int DEFAULT_PORT = 8080;
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_ENTITY_TOO_LARGE = 413;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+    private static final int HTTP_UNAVAILABLE = 503;
+
+    private final HttpServer httpServer;
+    private final ThreadPoolExecutor httpExecutor;
+    private final ExecutorService parseExecutor;
+    private final MicroBatchingParser batchingParser;
+    private final TextTokenizer tokenizer;
+    private final Semaphore requestPermits;
+    private final long requestTimeoutMillis;
+    private final int maxWordsPerRequest;
+    private final int maxRequestBytes;
+
+    private ParseServer(Builder builder) throws IOException {
+        this.tokenizer = builder.tokenizer;
+        this.requestPermits = new Semaphore(builder.maxInFlightRequests);
+        this.requestTimeoutMillis = builder.requestTimeoutMillis;
+        this.maxWordsPerRequest = builder.maxWordsPerRequest;
+        this.maxRequestBytes = builder.maxRequestBytes;
+
+        this.parseExecutor = Executors.newFixedThreadPool(builder.parseThreads);
+        this.batchingParser = new MicroBatchingParser(builder.parser, this.parseExecutor, builder.maxBatchSize,
+                builder.maxBatchDelayMillis, builder.maxPendingWords, builder.parseThreads);
+
+        // when all http threads are busy and the queue is full, the accepting thread handles the exchange itself.
+        // that slows down accepting new connections, which is the backpressure we want
+        this.httpExecutor = new ThreadPoolExecutor(builder.httpThreads, builder.httpThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(builder.maxInFlightRequests), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.httpServer = HttpServer.create(new InetSocketAddress(builder.port), builder.backlog);
+        this.httpServer.setExecutor(this.httpExecutor);
+        this.httpServer.createContext("/parse", new ParseHandler());
+        this.httpServer.createContext("/tokenize", new TokenizeHandler());
+        this.httpServer.createContext("/stats", new StatsHandler());
+    }
+
+    public void start() {
+        this.batchingParser.start();
+        this.httpServer.start();
+        logger.info("Server started on " + this.getAddress());
+    }
+
+    /**
+     * Stops the server.
+     *
+     * @param delaySeconds Max time to wait for the exchanges in progress
+     */
+    public void stop(int delaySeconds) {
+        this.httpServer.stop(delaySeconds);
+        this.batchingParser.stop();
+        this.httpExecutor.shutdown();
+        this.parseExecutor.shutdown();
+        logger.info("Server stopped");
+    }
+
+    public InetSocketAddress getAddress() {
+        return this.httpServer.getAddress();
+    }
+
+    public MicroBatchingParser getBatchingParser() {
+        return batchingParser;
+    }
+
+    private abstract class AdmissionControlledHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if (!requestPermits.tryAcquire()) {
+                    sendError(exchange, HTTP_UNAVAILABLE, "Too many requests in progress");
+                    return;
+                }
+                // permit is released before the response is sent, as the client can send its next request as soon
+                // as it receives the response
+                final Response response;
+                try {
+                    response = this.doHandle(exchange);
+                } finally {
+                    requestPermits.release();
+                }
+                send(exchange, HTTP_OK, response.contentType, response.bytes);
+            } catch (RequestTooLargeException e) {
+                sendError(exchange, HTTP_ENTITY_TOO_LARGE, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, HTTP_BAD_REQUEST, e.getMessage());
+            } catch (RejectedExecutionException e) {
+                sendError(exchange, HTTP_UNAVAILABLE, e.getMessage());
+            } catch (TimeoutException e) {
+                sendError(exchange, HTTP_UNAVAILABLE, "Timed out while waiting for parse results");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RejectedExecutionException || e.getCause() instanceof CancellationException) {
+                    sendError(exchange, HTTP_UNAVAILABLE, e.getCause().getMessage());
+                } else {
+                    logger.error("Unable to handle request " + exchange.getRequestURI(), e);
+                    sendError(exchange, HTTP_INTERNAL_ERROR, "Internal error");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendError(exchange, HTTP_UNAVAILABLE, "Interrupted");
+            } catch (RuntimeException e) {
+                logger.error("Unable to handle request " + exchange.getRequestURI(), e);
+                sendError(exchange, HTTP_INTERNAL_ERROR, "Internal error");
+            } finally {
+                exchange.close();
+            }
+        }
+
+        protected abstract Response doHandle(HttpExchange exchange) throws IOException, InterruptedException, ExecutionException, TimeoutException;
+    }
+
+    private class ParseHandler extends AdmissionControlledHandler {
+        @Override
+        protected Response doHandle(HttpExchange exchange) throws IOException, InterruptedException, ExecutionException, TimeoutException {
+            final Map<String, List<String>> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            final List<String> words = new ArrayList<String>();
+            if (parameters.containsKey("w"))
+                words.addAll(parameters.get("w"));
+            final String body = readBody(exchange);
+            if (StringUtils.isNotBlank(body))
+                words.addAll(Arrays.asList(StringUtils.split(body)));
+
+            Validate.isTrue(!words.isEmpty(), "No words given");
+            Validate.isTrue(words.size() <= maxWordsPerRequest, "Too many words. Max is " + maxWordsPerRequest);
+
+            final ParseResultStyle style = ParseResultStyle.fromParameter(getFirst(parameters, "style"));
+
+            final List<List<MorphemeContainer>> results = batchingParser.submitAll(words).get(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+
+            final List<List<String>> formattedResults = new ArrayList<List<String>>(results.size());
+            for (List<MorphemeContainer> morphemeContainers : results) {
+                final List<String> formattedResultsOfWord = new ArrayList<String>(morphemeContainers.size());
+                for (MorphemeContainer morphemeContainer : morphemeContainers) {
+                    formattedResultsOfWord.add(style.format(morphemeContainer));
+                }
+                formattedResults.add(formattedResultsOfWord);
+            }
+
+            return createResult(exchange, parameters, words, formattedResults);
+        }
+    }
+
+    private class TokenizeHandler extends AdmissionControlledHandler {
+        @Override
+        protected Response doHandle(HttpExchange exchange) throws IOException {
+            final Map<String, List<String>> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            String text = readBody(exchange);
+            if (StringUtils.isBlank(text))
+                text = getFirst(parameters, "t");
+
+            Validate.isTrue(StringUtils.isNotBlank(text), "No text given");
+
+            final List<Token> tokens = tokenizer.tokenize(text);
+            final List<String> surfaces = new ArrayList<String>(tokens.size());
+            for (Token token : tokens) {
+                surfaces.add(token.getSurface());
+            }
+
+            if (isBinaryRequested(exchange, parameters)) {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ResponseEncoder.writeBinary(out, Collections.singletonList(""), Collections.singletonList(surfaces));
+                return new Response(ResponseEncoder.BINARY_CONTENT_TYPE, out.toByteArray());
+            } else {
+                final StringWriter writer = new StringWriter();
+                ResponseEncoder.writeJsonArray(writer, surfaces);
+                return new Response(ResponseEncoder.JSON_CONTENT_TYPE, writer.toString().getBytes(Charsets.UTF_8));
+            }
+        }
+    }
+
+    private class StatsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                final String stats = "{" +
+                        "\"batches\":" + batchingParser.getBatchCount() +
+                        ",\"words\":" + batchingParser.getWordCount() +
+                        ",\"uniqueWords\":" + batchingParser.getUniqueWordCount() +
+                        ",\"rejectedWords\":" + batchingParser.getRejectedWordCount() +
+                        ",\"pendingWords\":" + batchingParser.getPendingWordCount() +
+                        ",\"availableRequestPermits\":" + requestPermits.availablePermits() +
+                        "}";
+                send(exchange, HTTP_OK, ResponseEncoder.JSON_CONTENT_TYPE, stats.getBytes(Charsets.UTF_8));
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    private Response createResult(HttpExchange exchange, Map<String, List<String>> parameters, List<String> keys,
+                                  List<List<String>> values) throws IOException {
+        if (isBinaryRequested(exchange, parameters)) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ResponseEncoder.writeBinary(out, keys, values);
+            return new Response(ResponseEncoder.BINARY_CONTENT_TYPE, out.toByteArray());
+        } else {
+            final StringWriter writer = new StringWriter();
+            ResponseEncoder.writeJson(writer, keys, values);
+            return new Response(ResponseEncoder.JSON_CONTENT_TYPE, writer.toString().getBytes(Charsets.UTF_8));
+        }
+    }
+
+    private static boolean isBinaryRequested(HttpExchange exchange, Map<String, List<String>> parameters) {
+        final String format = getFirst(parameters, "format");
+        if (format != null)
+            return "binary".equals(format);
+
+        final String accept = exchange.getRequestHeaders().getFirst("Accept");
+        return accept != null && accept.contains(ResponseEncoder.BINARY_CONTENT_TYPE);
+    }
+
+    private String readBody(HttpExchange exchange) throws IOException {
+        final InputStream inputStream = exchange.getRequestBody();
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                if (out.size() + read > this.maxRequestBytes)
+                    throw new RequestTooLargeException("Request body is too large. Max is " + this.maxRequestBytes + " bytes");
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), Charsets.UTF_8);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            final String body = "{\"error\":" + org.json.JSONObject.quote(String.valueOf(message)) + "}";
+            send(exchange, status, ResponseEncoder.JSON_CONTENT_TYPE, body.getBytes(Charsets.UTF_8));
+        } catch (IOException e) {
+            // client is probably gone
+            logger.debug("Unable to send error response", e);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] bytes) throws IOException {
+        final Headers responseHeaders = exchange.getResponseHeaders();
+        responseHeaders.set("Content-Type", contentType);
+        if (status == HTTP_UNAVAILABLE)
+            responseHeaders.set("Retry-After", "1");
+        exchange.sendResponseHeaders(status, bytes.length);
+        final OutputStream responseBody = exchange.getResponseBody();
+        try {
+            responseBody.write(bytes);
+        } finally {
+            responseBody.close();
+        }
+    }
+
+    static Map<String, List<String>> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        final Map<String, List<String>> parameters = new HashMap<String, List<String>>();
+        if (StringUtils.isEmpty(rawQuery))
+            return parameters;
+
+        for (String pair : StringUtils.split(rawQuery, '&')) {
+            final int indexOfEquals = pair.indexOf('=');
+            final String key = URLDecoder.decode(indexOfEquals < 0 ? pair : pair.substring(0, indexOfEquals), "UTF-8");
+            final String value = indexOfEquals < 0 ? "" : URLDecoder.decode(pair.substring(indexOfEquals + 1), "UTF-8");
+            List<String> values = parameters.get(key);
+            if (values == null) {
+                values = new ArrayList<String>(1);
+                parameters.put(key, values);
+            }
+            values.add(value);
+        }
+        return parameters;
+    }
+
+    private static String getFirst(Map<String, List<String>> parameters, String key) {
+        final List<String> values = parameters.get(key);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Successful response of an {@link AdmissionControlledHandler}, which is sent after the request permit is released.
+     */
+    private static class Response {
+        private final String contentType;
+        private final byte[] bytes;
+
+        private Response(String contentType, byte[] bytes) {
+            this.contentType = contentType;
+            this.bytes = bytes;
+        }
+    }
+
+    private static class RequestTooLargeException extends RuntimeException {
+        private RequestTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    private enum ParseResultStyle {
+        plain {
+            @Override
+            String format(MorphemeContainer morphemeContainer) {
+                return MorphemeContainerFormatter.formatMorphemeContainer(morphemeContainer);
+            }
+        },
+        forms {
+            @Override
+            String format(MorphemeContainer morphemeContainer) {
+                return MorphemeContainerFormatter.formatMorphemeContainerWithForms(morphemeContainer);
+            }
+        },
+        grouping {
+            @Override
+            String format(MorphemeContainer morphemeContainer) {
+                return MorphemeContainerFormatter.formatMorphemeContainerWithDerivationGrouping(morphemeContainer);
+            }
+        },
+        detailed {
+            @Override
+            String format(MorphemeContainer morphemeContainer) {
+                return MorphemeContainerFormatter.formatMorphemeContainerDetailed(morphemeContainer);
+            }
+        };
+
+        abstract String format(MorphemeContainer morphemeContainer);
+
+        static ParseResultStyle fromParameter(String parameter) {
+            if (parameter == null)
+                return plain;
+            try {
+                return valueOf(parameter);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown style " + parameter);
+            }
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private MorphologicParser parser;
+        private TextTokenizer tokenizer;
+        private int port = DEFAULT_PORT;
+        private int backlog = 0;
+        private int httpThreads = Runtime.getRuntime().availableProcessors() * 2;
+        private int parseThreads = Runtime.getRuntime().availableProcessors();
+        private int maxBatchSize = 256;
+        private long maxBatchDelayMillis = 2;
+        private int maxPendingWords = 10000;
+        private int maxInFlightRequests = 256;
+        private long requestTimeoutMillis = 5000;
+        private int maxWordsPerRequest = 1000;
+        private int maxRequestBytes = 1024 * 1024;
+
+        public Builder parser(MorphologicParser parser) {
+            this.parser = parser;
+            return this;
+        }
+
+        public Builder tokenizer(TextTokenizer tokenizer) {
+            this.tokenizer = tokenizer;
+            return this;
+        }
+
+        /**
+         * @param port Port to listen. 0 picks a free port.
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        public Builder httpThreads(int httpThreads) {
+            this.httpThreads = httpThreads;
+            return this;
+        }
+
+        public Builder parseThreads(int parseThreads) {
+            this.parseThreads = parseThreads;
+            return this;
+        }
+
+        public Builder maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public Builder maxBatchDelayMillis(long maxBatchDelayMillis) {
+            this.maxBatchDelayMillis = maxBatchDelayMillis;
+            return this;
+        }
+
+        public Builder maxPendingWords(int maxPendingWords) {
+            this.maxPendingWords = maxPendingWords;
+            return this;
+        }
+
+        public Builder maxInFlightRequests(int maxInFlightRequests) {
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        public Builder requestTimeoutMillis(long requestTimeoutMillis) {
+            this.requestTimeoutMillis = requestTimeoutMillis;
+            return this;
+        }
+
+        public Builder maxWordsPerRequest(int maxWordsPerRequest) {
+            this.maxWordsPerRequest = maxWordsPerRequest;
+            return this;
+        }
+
+        public Builder maxRequestBytes(int maxRequestBytes) {
+            this.maxRequestBytes = maxRequestBytes;
+            return this;
+        }
+
+        public ParseServer build() throws IOException {
+            Validate.notNull(parser, "No parser given");
+            Validate.notNull(tokenizer, "No tokenizer given");
+            Validate.isTrue(httpThreads > 0 && parseThreads > 0, "Thread counts must be positive");
+            Validate.isTrue(maxInFlightRequests > 0, "Max in flight requests must be positive");
+            return new ParseServer(this);
+        }
+    }
+
+    /**
+     * Starts a server with the bundled dictionaries and suffix graphs. Parse results are cached in an LRU cache which
+     * is warmed up with the bundled most frequent words before the server starts accepting requests.
+     * <p/>
+     * Usage: <code>ParseServer [port]</code>
+     */
+    public static void main(String[] args) throws IOException {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        final int processors = Runtime.getRuntime().availableProcessors();
+
+        logger.info("Building parser");
+        final LRUMorphologicParserCache cache = new LRUMorphologicParserCache(processors, 100000, 1000000);
+        final MorphologicParser parser = ContextlessMorphologicParserBuilder.newBuilder()
+                .cache(cache, true)
+                .build(true);
+
+        logger.info("Warming up the cache");
+        final List<String> frequentWords = Resources.readLines(Resources.getResource("top20kwords.txt"), Charsets.UTF_8);
+        parser.parseAllStr(frequentWords);
+
+        final TextTokenizer tokenizer = TextTokenizer.createDefaultTextTokenizer();
+
+        final ParseServer server = ParseServer.newBuilder()
+                .parser(parser)
+                .tokenizer(tokenizer)
+                .port(port)
+                .parseThreads(processors)
+                .build();
+
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                server.stop(1);
+            }
+        });
+
+        server.start();
+    }
+}
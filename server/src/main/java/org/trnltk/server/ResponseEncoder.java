@@ -0,0 +1,95 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.server;
+
+import com.google.common.base.Charsets;
+import org.json.JSONObject;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Encodes server responses in one of the two modes.
+ * <p/>
+ * JSON mode is compact; no whitespace is written:
+ * <pre>
+ * [{"w":"kitaba","r":["kitap+Noun+A3sg+Pnon+Dat"]},...]
+ * </pre>
+ * Binary mode is written with {@link DataOutputStream}:
+ * <pre>
+ * byte   version (2)
+ * int    entry count
+ * entry* : string key, int value count, string value*
+ * string : int UTF-8 byte length, bytes
+ * </pre>
+ * Strings are not written with {@link DataOutputStream#writeUTF(String)}, which cannot write more than 65535 bytes.
+ * For tokenization responses, there is only one entry whose key is empty and values are token surfaces.
+ */
+public class ResponseEncoder {
+    public static final byte BINARY_VERSION = 2;
+
+    public static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    public static final String BINARY_CONTENT_TYPE = "application/octet-stream";
+
+    public static void writeJson(Writer writer, List<String> keys, List<List<String>> values) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0)
+                writer.write(',');
+            writer.write("{\"w\":");
+            writer.write(JSONObject.quote(keys.get(i)));
+            writer.write(",\"r\":");
+            writeJsonArray(writer, values.get(i));
+            writer.write('}');
+        }
+        writer.write(']');
+    }
+
+    public static void writeJsonArray(Writer writer, List<String> values) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0)
+                writer.write(',');
+            writer.write(JSONObject.quote(values.get(i)));
+        }
+        writer.write(']');
+    }
+
+    public static void writeBinary(OutputStream outputStream, List<String> keys, List<List<String>> values) throws IOException {
+        final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.writeByte(BINARY_VERSION);
+        dataOutputStream.writeInt(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            writeString(dataOutputStream, keys.get(i));
+            final List<String> valuesOfKey = values.get(i);
+            dataOutputStream.writeInt(valuesOfKey.size());
+            for (String value : valuesOfKey) {
+                writeString(dataOutputStream, value);
+            }
+        }
+        dataOutputStream.flush();
+    }
+
+    private static void writeString(DataOutputStream dataOutputStream, String str) throws IOException {
+        final byte[] bytes = str.getBytes(Charsets.UTF_8);
+        dataOutputStream.writeInt(bytes.length);
+        dataOutputStream.write(bytes);
+    }
+}
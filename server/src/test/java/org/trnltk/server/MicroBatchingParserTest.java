@@ -0,0 +1,220 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.server;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MicroBatchingParserTest {
+
+    private RecordingParser delegate;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        delegate = new RecordingParser();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldCoalesceAndDedupeWords() throws Exception {
+        final MicroBatchingParser parser = new MicroBatchingParser(delegate, executor, 10, 50, 100, 1);
+
+        // submit before starting, so that all words end up in the same batch
+        final ListenableFuture<List<MorphemeContainer>> elma1 = parser.submit("elma");
+        final ListenableFuture<List<MorphemeContainer>> armut = parser.submit("armut");
+        final ListenableFuture<List<MorphemeContainer>> elma2 = parser.submit("elma");
+
+        parser.start();
+        try {
+            assertThat(elma1.get(5, TimeUnit.SECONDS), sameInstance(delegate.resultFor("elma")));
+            assertThat(armut.get(5, TimeUnit.SECONDS), sameInstance(delegate.resultFor("armut")));
+            assertThat(elma2.get(5, TimeUnit.SECONDS), sameInstance(delegate.resultFor("elma")));
+        } finally {
+            parser.stop();
+        }
+
+        assertThat(delegate.batches, hasSize(1));
+        assertThat(delegate.batches.get(0), equalTo(Arrays.asList("elma", "armut")));
+        assertThat(parser.getBatchCount(), equalTo(1L));
+        assertThat(parser.getWordCount(), equalTo(3L));
+        assertThat(parser.getUniqueWordCount(), equalTo(2L));
+    }
+
+    @Test
+    public void shouldSplitBatchesByMaxBatchSize() throws Exception {
+        final MicroBatchingParser parser = new MicroBatchingParser(delegate, executor, 2, 50, 100, 1);
+
+        final ListenableFuture<List<List<MorphemeContainer>>> future = parser.submitAll(Arrays.asList("a", "b", "c", "d", "e"));
+
+        parser.start();
+        try {
+            final List<List<MorphemeContainer>> results = future.get(5, TimeUnit.SECONDS);
+            assertThat(results, hasSize(5));
+            assertThat(results.get(4), sameInstance(delegate.resultFor("e")));
+        } finally {
+            parser.stop();
+        }
+
+        assertThat(delegate.batches, hasSize(3));
+        for (List<String> batch : delegate.batches) {
+            assertThat(batch.size(), lessThanOrEqualTo(2));
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectWhenTooManyWordsArePending() {
+        final MicroBatchingParser parser = new MicroBatchingParser(delegate, executor, 10, 50, 2, 1);
+        parser.submit("a");
+        parser.submit("b");
+        parser.submit("c");
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldRejectWordsAfterStop() {
+        final MicroBatchingParser parser = new MicroBatchingParser(delegate, executor, 10, 50, 10, 1);
+        parser.start();
+        parser.stop();
+        parser.submit("elma");
+    }
+
+    @Test
+    public void shouldPropagateParseFailures() throws Exception {
+        delegate.fail = true;
+        final MicroBatchingParser parser = new MicroBatchingParser(delegate, executor, 10, 50, 100, 1);
+        final ListenableFuture<List<MorphemeContainer>> future = parser.submit("elma");
+
+        parser.start();
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            throw new AssertionError("Should have failed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+        } finally {
+            parser.stop();
+        }
+    }
+
+    @Test
+    public void shouldPropagateErrorsOfTheDelegate() throws Exception {
+        delegate.error = new StackOverflowError();
+        final MicroBatchingParser parser = new MicroBatchingParser(delegate, executor, 10, 50, 100, 1);
+        final ListenableFuture<List<MorphemeContainer>> elma = parser.submit("elma");
+        final ListenableFuture<List<MorphemeContainer>> armut = parser.submit("armut");
+
+        parser.start();
+        try {
+            for (ListenableFuture<List<MorphemeContainer>> future : Arrays.asList(elma, armut)) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                    throw new AssertionError("Should have failed");
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause(), instanceOf(StackOverflowError.class));
+                }
+            }
+        } finally {
+            parser.stop();
+        }
+    }
+
+    @Test
+    public void shouldFailBatchWhenDelegateReturnsWrongNumberOfResults() throws Exception {
+        delegate.dropLastResult = true;
+        final MicroBatchingParser parser = new MicroBatchingParser(delegate, executor, 10, 50, 100, 1);
+        final ListenableFuture<List<MorphemeContainer>> elma = parser.submit("elma");
+        final ListenableFuture<List<MorphemeContainer>> armut = parser.submit("armut");
+
+        parser.start();
+        try {
+            for (ListenableFuture<List<MorphemeContainer>> future : Arrays.asList(elma, armut)) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                    throw new AssertionError("Should have failed");
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+                }
+            }
+        } finally {
+            parser.stop();
+        }
+    }
+
+    private static class RecordingParser implements MorphologicParser {
+        private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+        private final ConcurrentMap<String, List<MorphemeContainer>> results = new ConcurrentHashMap<String, List<MorphemeContainer>>();
+        private volatile boolean fail = false;
+        private volatile Error error = null;
+        private volatile boolean dropLastResult = false;
+
+        private List<MorphemeContainer> resultFor(String input) {
+            List<MorphemeContainer> result = results.get(input);
+            if (result == null) {
+                // an empty list per word, results are compared with their identities
+                results.putIfAbsent(input, new ArrayList<MorphemeContainer>());
+                result = results.get(input);
+            }
+            return result;
+        }
+
+        @Override
+        public List<MorphemeContainer> parseStr(String input) {
+            return resultFor(input);
+        }
+
+        @Override
+        public List<List<MorphemeContainer>> parseAllStr(List<String> input) {
+            batches.add(new ArrayList<String>(input));
+            if (fail)
+                throw new IllegalStateException();
+            if (error != null)
+                throw error;
+            final List<List<MorphemeContainer>> results = new ArrayList<List<MorphemeContainer>>();
+            for (String s : input) {
+                results.add(resultFor(s));
+            }
+            if (dropLastResult)
+                results.remove(results.size() - 1);
+            return results;
+        }
+
+        @Override
+        public List<MorphemeContainer> parse(TurkishSequence input) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<List<MorphemeContainer>> parseAll(List<TurkishSequence> input) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
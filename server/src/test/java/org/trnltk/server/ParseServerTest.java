@@ -0,0 +1,290 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.server;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import org.apache.commons.lang3.StringUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.trnltk.model.letter.TurkishSequence;
+import org.trnltk.model.morpheme.MorphemeContainer;
+import org.trnltk.morphology.contextless.parser.MorphologicParser;
+import org.trnltk.morphology.contextless.parser.formbased.ContextlessMorphologicParserBuilder;
+import org.trnltk.tokenizer.TextTokenizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ParseServerTest {
+    private static TextTokenizer tokenizer;
+    private static ParseServer server;
+
+    @BeforeClass
+    public static void setUpClass() throws IOException {
+        tokenizer = TextTokenizer.createDefaultTextTokenizer();
+        server = ParseServer.newBuilder()
+                .parser(ContextlessMorphologicParserBuilder.newBuilder().build(true))
+                .tokenizer(tokenizer)
+                .port(0)
+                .httpThreads(2)
+                .parseThreads(2)
+                .maxWordsPerRequest(3)
+                .maxRequestBytes(100)
+                .build();
+        server.start();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldParseWordsInQueryAndBody() throws Exception {
+        final Response response = request(server, "/parse?w=kitaba", "elma", null);
+        assertThat(response.status, equalTo(200));
+        assertThat(response.contentType, startsWith("application/json"));
+
+        final JSONArray entries = new JSONArray(response.asString());
+        assertThat(entries.length(), equalTo(2));
+        assertThat(entries.getJSONObject(0).getString("w"), equalTo("kitaba"));
+        assertThat(strings(entries.getJSONObject(0).getJSONArray("r")), hasItem("kitap+Noun+A3sg+Pnon+Dat"));
+        assertThat(entries.getJSONObject(1).getString("w"), equalTo("elma"));
+        assertThat(strings(entries.getJSONObject(1).getJSONArray("r")), hasItem("elma+Noun+A3sg+Pnon+Nom"));
+    }
+
+    @Test
+    public void shouldFormatWithGivenStyle() throws Exception {
+        final Response plain = request(server, "/parse?w=kitaba", null, null);
+        final Response forms = request(server, "/parse?w=kitaba&style=forms", null, null);
+        assertThat(forms.status, equalTo(200));
+        assertThat(forms.asString(), not(equalTo(plain.asString())));
+        assertThat(forms.asString(), containsString("kitab"));
+
+        final Response unknown = request(server, "/parse?w=kitaba&style=foo", null, null);
+        assertThat(unknown.status, equalTo(400));
+        assertThat(new JSONObject(unknown.asString()).getString("error"), containsString("foo"));
+    }
+
+    @Test
+    public void shouldWriteBinaryResponses() throws Exception {
+        final Response json = request(server, "/parse?w=kitaba&w=elma", null, null);
+        final Response binary = request(server, "/parse?w=kitaba&w=elma&format=binary", null, null);
+        final Response accepted = request(server, "/parse?w=kitaba&w=elma", null, ResponseEncoder.BINARY_CONTENT_TYPE);
+
+        assertThat(binary.status, equalTo(200));
+        assertThat(binary.contentType, equalTo(ResponseEncoder.BINARY_CONTENT_TYPE));
+        assertThat(accepted.contentType, equalTo(ResponseEncoder.BINARY_CONTENT_TYPE));
+        assertThat(accepted.body, equalTo(binary.body));
+
+        final Map<String, List<String>> entries = ResponseEncoderTest.readBinary(binary.body);
+        final JSONArray jsonEntries = new JSONArray(json.asString());
+        assertThat(new ArrayList<String>(entries.keySet()), equalTo(Arrays.asList("kitaba", "elma")));
+        assertThat(entries.get("kitaba"), equalTo(strings(jsonEntries.getJSONObject(0).getJSONArray("r"))));
+        assertThat(entries.get("elma"), equalTo(strings(jsonEntries.getJSONObject(1).getJSONArray("r"))));
+    }
+
+    @Test
+    public void shouldRejectInvalidParseRequests() throws Exception {
+        assertThat(request(server, "/parse", null, null).status, equalTo(400));
+        assertThat(request(server, "/parse?w=a&w=b&w=c&w=d", null, null).status, equalTo(400));
+
+        final Response tooLarge = request(server, "/parse", StringUtils.repeat("elma ", 30), null);
+        assertThat(tooLarge.status, equalTo(413));
+        assertThat(new JSONObject(tooLarge.asString()).getString("error"), containsString("100"));
+    }
+
+    @Test
+    public void shouldTokenize() throws Exception {
+        final String text = "Ali eve geldi.";
+        final List<String> expected = new ArrayList<String>();
+        for (org.trnltk.tokenizer.Token token : tokenizer.tokenize(text)) {
+            expected.add(token.getSurface());
+        }
+
+        final Response body = request(server, "/tokenize", text, null);
+        assertThat(body.status, equalTo(200));
+        assertThat(strings(new JSONArray(body.asString())), equalTo(expected));
+
+        final Response query = request(server, "/tokenize?t=" + URLEncoder.encode(text, "UTF-8"), null, null);
+        assertThat(strings(new JSONArray(query.asString())), equalTo(expected));
+
+        final Response binary = request(server, "/tokenize?format=binary", text, null);
+        assertThat(ResponseEncoderTest.readBinary(binary.body).get(""), equalTo(expected));
+
+        assertThat(request(server, "/tokenize", null, null).status, equalTo(400));
+    }
+
+    @Test
+    public void shouldReturnStats() throws Exception {
+        request(server, "/parse?w=kitaba", null, null);
+
+        final Response response = request(server, "/stats", null, null);
+        assertThat(response.status, equalTo(200));
+        final JSONObject stats = new JSONObject(response.asString());
+        assertThat(stats.getLong("batches"), greaterThan(0L));
+        assertThat(stats.getLong("words"), greaterThan(0L));
+        assertThat(stats.getLong("uniqueWords"), greaterThan(0L));
+        assertThat(stats.getLong("rejectedWords"), equalTo(0L));
+        assertThat(stats.getInt("pendingWords"), equalTo(0));
+        assertThat(stats.has("availableRequestPermits"), equalTo(true));
+    }
+
+    @Test
+    public void shouldRejectRequestsWhenTooManyAreInProgress() throws Exception {
+        final BlockingParser parser = new BlockingParser();
+        final ParseServer blockingServer = ParseServer.newBuilder()
+                .parser(parser)
+                .tokenizer(tokenizer)
+                .port(0)
+                .httpThreads(2)
+                .parseThreads(1)
+                .maxInFlightRequests(1)
+                .build();
+        blockingServer.start();
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Response> blocked = executor.submit(new Callable<Response>() {
+                @Override
+                public Response call() throws Exception {
+                    return request(blockingServer, "/parse?w=elma", null, null);
+                }
+            });
+            assertThat(parser.parsing.await(5, TimeUnit.SECONDS), equalTo(true));
+
+            final Response rejected = request(blockingServer, "/parse?w=armut", null, null);
+            assertThat(rejected.status, equalTo(503));
+            assertThat(rejected.retryAfter, equalTo("1"));
+
+            parser.release.countDown();
+            assertThat(blocked.get(5, TimeUnit.SECONDS).status, equalTo(200));
+            assertThat(request(blockingServer, "/parse?w=armut", null, null).status, equalTo(200));
+        } finally {
+            parser.release.countDown();
+            executor.shutdownNow();
+            blockingServer.stop(0);
+        }
+    }
+
+    private static List<String> strings(JSONArray array) throws JSONException {
+        final List<String> strings = new ArrayList<String>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            strings.add(array.getString(i));
+        }
+        return strings;
+    }
+
+    private static Response request(ParseServer server, String path, String body, String accept) throws IOException {
+        final URL url = new URL("http://localhost:" + server.getAddress().getPort() + path);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            if (accept != null)
+                connection.setRequestProperty("Accept", accept);
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestMethod("POST");
+                final OutputStream outputStream = connection.getOutputStream();
+                try {
+                    outputStream.write(body.getBytes(Charsets.UTF_8));
+                } finally {
+                    outputStream.close();
+                }
+            }
+
+            final Response response = new Response();
+            response.status = connection.getResponseCode();
+            response.contentType = connection.getContentType();
+            response.retryAfter = connection.getHeaderField("Retry-After");
+            final InputStream inputStream = response.status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            try {
+                response.body = ByteStreams.toByteArray(inputStream);
+            } finally {
+                inputStream.close();
+            }
+            return response;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static class Response {
+        private int status;
+        private String contentType;
+        private String retryAfter;
+        private byte[] body;
+
+        private String asString() {
+            return new String(body, Charsets.UTF_8);
+        }
+    }
+
+    /**
+     * Blocks in parsing until it is released, so that the request stays in progress
+     */
+    private static class BlockingParser implements MorphologicParser {
+        private final CountDownLatch parsing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public List<MorphemeContainer> parseStr(String input) {
+            return new ArrayList<MorphemeContainer>();
+        }
+
+        @Override
+        public List<List<MorphemeContainer>> parseAllStr(List<String> input) {
+            parsing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            final List<List<MorphemeContainer>> results = new ArrayList<List<MorphemeContainer>>();
+            for (String s : input) {
+                results.add(this.parseStr(s));
+            }
+            return results;
+        }
+
+        @Override
+        public List<MorphemeContainer> parse(TurkishSequence input) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<List<MorphemeContainer>> parseAll(List<TurkishSequence> input) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright  2013  Ali Ok (aliokATapacheDOTorg)
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.trnltk.server;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ResponseEncoderTest {
+
+    @Test
+    public void shouldWriteJson() throws IOException {
+        final StringWriter writer = new StringWriter();
+        ResponseEncoder.writeJson(writer, Arrays.asList("kitaba", "\"a\""),
+                Arrays.asList(Arrays.asList("kitap+Noun+A3sg+Pnon+Dat"), new ArrayList<String>()));
+        assertThat(writer.toString(), equalTo("[{\"w\":\"kitaba\",\"r\":[\"kitap+Noun+A3sg+Pnon+Dat\"]},{\"w\":\"\\\"a\\\"\",\"r\":[]}]"));
+    }
+
+    @Test
+    public void shouldWriteBinaryWithLongStrings() throws IOException {
+        // more than 65535 bytes in UTF-8, which cannot be written with DataOutputStream.writeUTF
+        final String longValue = StringUtils.repeat("ç", 40000);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResponseEncoder.writeBinary(out, Arrays.asList("kitaba", "şey"),
+                Arrays.asList(Arrays.asList("kitap+Noun+A3sg+Pnon+Dat", longValue), new ArrayList<String>()));
+
+        final Map<String, List<String>> entries = readBinary(out.toByteArray());
+        assertThat(new ArrayList<String>(entries.keySet()), equalTo(Arrays.asList("kitaba", "şey")));
+        assertThat(entries.get("kitaba"), equalTo(Arrays.asList("kitap+Noun+A3sg+Pnon+Dat", longValue)));
+        assertThat(entries.get("şey").isEmpty(), equalTo(true));
+    }
+
+    /**
+     * Reads the binary format of {@link ResponseEncoder}, keeping the order of the entries
+     */
+    static Map<String, List<String>> readBinary(byte[] bytes) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        assertThat(in.readByte(), equalTo(ResponseEncoder.BINARY_VERSION));
+
+        final Map<String, List<String>> entries = new LinkedHashMap<String, List<String>>();
+        final int entryCount = in.readInt();
+        for (int i = 0; i < entryCount; i++) {
+            final String key = readString(in);
+            final int valueCount = in.readInt();
+            final List<String> values = new ArrayList<String>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readString(in));
+            }
+            entries.put(key, values);
+        }
+        assertThat(in.read(), equalTo(-1));
+        return entries;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+}
@@ -5,9 +5,9 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.output.FileWriterWithEncoding;
 import org.apache.commons.lang3.Validate;
 import org.trnltk.tokenizer.TextTokenizer;
-import org.trnltk.tokenizer.TextTokenizerTrainer;
 import org.trnltk.tokenizer.Token;
 import org.trnltk.tokenizer.TokenizationGraph;
+import org.trnltk.tokenizer.TokenizationGraphSerializer;
 import org.trnltk.web.common.Constants;
 
 import javax.faces.bean.ManagedBean;
@@ -41,11 +41,11 @@ public class TrainingFileCreator implements Serializable {
         Validate.notBlank(fileName);
         Validate.notBlank(content);
 
-        // poor implementation : builds the graph every time
+        // saved graph is loaded every time, it is trained only if the training data is changed
 
         final TokenizationGraph graph;
         try {
-            graph = TextTokenizerTrainer.buildDefaultTokenizationGraph(true);
+            graph = TokenizationGraphSerializer.loadDefaultTokenizationGraph();
         } catch (Exception e) {
             System.err.println("Error creating tokenization graph");
             e.printStackTrace();